@@ -0,0 +1,164 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.benchmark;
+
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+import org.opensearch.performanceanalyzer.metrics.PerformanceAnalyzerMetrics;
+import org.opensearch.performanceanalyzer.reader_writer_shared.Event;
+import org.opensearch.performanceanalyzer.reader_writer_shared.EventLog;
+import org.opensearch.performanceanalyzer.reader_writer_shared.EventLogFileHandler;
+
+/** Generates the events of a synthetic writer epoch with a given number of threads and shards. */
+public final class EpochFixtures {
+    private static final String NL = PerformanceAnalyzerMetrics.sMetricNewLineDelimitor;
+    private static final String KV = PerformanceAnalyzerMetrics.sKeyValueDelimitor;
+    private static final String[] OPERATIONS = {
+        PerformanceAnalyzerMetrics.sShardBulkPath, PerformanceAnalyzerMetrics.sShardQueryPath
+    };
+
+    private EpochFixtures() {}
+
+    /**
+     * Returns the events the writer would log in one epoch: os metrics for every thread, a
+     * start/finish pair per shard operation, index stats per shard and the shard states. The keys
+     * are prefixed with the configured metrics location, as {@link EventLog#write} expects.
+     */
+    public static List<Event> events(long epoch, int threads, int shards) {
+        String prefix =
+                Paths.get(PluginSettings.instance().getMetricsLocation(), String.valueOf(epoch))
+                                .toString()
+                        + "/";
+        long time = epoch - 1000;
+        List<Event> events = new ArrayList<>(threads + 3 * shards + 1);
+        for (int t = 0; t < threads; t++) {
+            events.add(new Event(prefix + threadPath(t), osMetrics(time, t), epoch));
+        }
+        for (int s = 0; s < shards; s++) {
+            String op = OPERATIONS[s % OPERATIONS.length];
+            String tid = String.valueOf(tid(s % Math.max(threads, 1)));
+            String rid = String.valueOf(s);
+            String base =
+                    prefix
+                            + String.join(
+                                    "/", PerformanceAnalyzerMetrics.sThreadsPath, tid, op, rid);
+            events.add(new Event(base + "/start", shardRequest(time, s, true), epoch));
+            events.add(new Event(base + "/finish", shardRequest(time + 20, s, false), epoch));
+            events.add(
+                    new Event(
+                            prefix + PerformanceAnalyzerMetrics.sIndicesPath + "/index/" + s,
+                            "{\"current_time\":" + time + "}" + NL + indexStats(s),
+                            epoch));
+        }
+        events.add(
+                new Event(
+                        prefix + PerformanceAnalyzerMetrics.sShardStatePath,
+                        shardStates(time, shards),
+                        epoch));
+        return events;
+    }
+
+    /** Writes {@link #events} into {@code dir} as the file the reader picks up for the epoch. */
+    public static void writeEpochFile(
+            EventLog eventLog, String dir, long epoch, int threads, int shards) {
+        EventLogFileHandler handler = new EventLogFileHandler(eventLog, dir, false);
+        handler.writeTmpFileWithPrivilege(events(epoch, threads, shards), epoch);
+        handler.renameFromTmpWithPrivilege(epoch);
+    }
+
+    public static int tid(int thread) {
+        return 10_000 + thread;
+    }
+
+    public static String threadName(int thread) {
+        return thread % 2 == 0
+                ? "opensearch[node-0][write][T#" + thread + "]"
+                : "opensearch[node-0][search][T#" + thread + "]";
+    }
+
+    private static String threadPath(int thread) {
+        return PerformanceAnalyzerMetrics.sThreadsPath
+                + "/"
+                + tid(thread)
+                + "/"
+                + PerformanceAnalyzerMetrics.sOSPath;
+    }
+
+    private static String osMetrics(long time, int thread) {
+        StringBuilder value = new StringBuilder(512);
+        value.append(PerformanceAnalyzerMetrics.METRIC_CURRENT_TIME).append(KV).append(time);
+        int i = 0;
+        for (AllMetrics.OSMetrics metric : AllMetrics.OSMetrics.values()) {
+            value.append(NL).append(metric.toString()).append(KV).append((thread + i++) % 97 / 7.0);
+        }
+        value.append(NL).append("tid").append(KV).append(tid(thread));
+        value.append(NL).append("tName").append(KV).append(threadName(thread));
+        return value.toString();
+    }
+
+    private static String shardRequest(long time, int shard, boolean start) {
+        return "{\"current_time\":"
+                + time
+                + "}"
+                + NL
+                + "{\"ShardID\":\""
+                + shard
+                + "\",\"IndexName\":\"index\",\"ShardRole\":\"primary\",\""
+                + (start ? "StartTime" : "FinishTime")
+                + "\":"
+                + time
+                + (start ? ",\"ItemCount\":10" : ",\"Exception\":null,\"Failed\":false")
+                + "}";
+    }
+
+    private static String indexStats(int shard) {
+        return "{\"Indexing_ThrottleTime\":0,\"Cache_Query_Hit\":"
+                + shard
+                + ",\"Cache_Query_Miss\":0,\"Cache_Query_Size\":483027,"
+                + "\"Cache_FieldData_Eviction\":0,\"Cache_FieldData_Size\":0,"
+                + "\"Cache_Request_Hit\":0,\"Cache_Request_Miss\":0,\"Segments_Total\":21,"
+                + "\"Segments_Memory\":1508419,\"Terms_Memory\":1066993}";
+    }
+
+    private static String shardStates(long time, int shards) {
+        StringBuilder value = new StringBuilder(64 * shards + 64);
+        value.append("{\"current_time\":").append(time).append('}');
+        value.append(NL).append("{\"IndexName\":\"index\"}");
+        for (int s = 0; s < shards; s++) {
+            value.append(NL)
+                    .append("{\"ShardID\":")
+                    .append(s)
+                    .append(",\"ShardType\":\"p\",\"NodeName\":\"node-0\",")
+                    .append("\"Shard_State\":\"Started\"}");
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.benchmark;
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/** Generates fake procfs trees and tables shaped like the ones the collectors read. */
+public final class ProcFixtures {
+    private static final String TCP_HEADER =
+            "  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid"
+                    + "  timeout inode\n";
+
+    private ProcFixtures() {}
+
+    /**
+     * Creates {@code root/<pid>/task/<tid>/{stat,schedstat,io}} for {@code threads} threads, with
+     * thread names containing spaces and parentheses as on JDK 11+.
+     *
+     * @return the task directory
+     */
+    public static Path taskTree(Path root, String pid, int threads) throws IOException {
+        Path taskDir = root.resolve(pid).resolve("task");
+        for (int t = 0; t < threads; t++) {
+            int tid = EpochFixtures.tid(t);
+            Path dir = Files.createDirectories(taskDir.resolve(String.valueOf(tid)));
+            write(
+                    dir.resolve("stat"),
+                    tid
+                            + " (opensearch[node-0] (write)) S 1 1 1 0 -1 4194624 "
+                            + (17 + t)
+                            + " 0 3 0 "
+                            + (120 + t)
+                            + " 45 0 0 20 0 80 0 9 123456 789 18446744073709551615 1 1 0 0 0"
+                            + " 0 0 0 0 0 0 0 17 3 0 0 0 0 0\n");
+            write(dir.resolve("schedstat"), (1_000_000L * t) + " " + (2_000_000L * t) + " 50\n");
+            write(
+                    dir.resolve("io"),
+                    "rchar: 300\nwchar: 400\nsyscr: 5\nsyscw: 6\nread_bytes: "
+                            + (100 * t)
+                            + "\nwrite_bytes: 200\ncancelled_write_bytes: 7\n");
+        }
+        return taskDir;
+    }
+
+    /**
+     * Writes a /proc/net/tcp table with {@code lines} established connections spread over {@code
+     * destinations} remote addresses. Every {@code ownedEvery}th connection also gets a socket
+     * symlink in {@code fdDir}, as if it was owned by the process.
+     */
+    public static void tcpTable(Path table, Path fdDir, int lines, int destinations, int ownedEvery)
+            throws IOException {
+        Files.createDirectories(fdDir);
+        try (Writer writer = Files.newBufferedWriter(table, StandardCharsets.US_ASCII)) {
+            writer.write(TCP_HEADER);
+            for (int i = 0; i < lines; i++) {
+                long inode = 100_000L + i;
+                writer.write(
+                        String.format(
+                                "%4d: 0100000A:2454 %08X:%04X 01 %08X:%08X 00:00000000 %08X"
+                                        + "  1000        0 %d 1 0000000000000000 20 4 30 10 %d\n",
+                                i,
+                                0x0A000000 + i % destinations,
+                                i & 0xFFFF,
+                                i % 1000,
+                                0,
+                                0,
+                                inode,
+                                i % 7 == 0 ? -1 : 20));
+                if (i % ownedEvery == 0) {
+                    Files.createSymbolicLink(
+                            fdDir.resolve(String.valueOf(i)), Paths.get("socket:[" + inode + "]"));
+                }
+            }
+        }
+    }
+
+    /** Deletes {@code root} and everything below it. */
+    public static void delete(Path root) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .forEach(
+                            path -> {
+                                try {
+                                    Files.delete(path);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            });
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+    }
+}
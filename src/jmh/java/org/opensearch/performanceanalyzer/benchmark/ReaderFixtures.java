@@ -0,0 +1,99 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.benchmark;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import org.jooq.BatchBindStep;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+import org.opensearch.performanceanalyzer.reader.MemoryDBSnapshot;
+import org.opensearch.performanceanalyzer.reader.OSMetricsSnapshot;
+import org.opensearch.performanceanalyzer.reader.ShardRequestMetricsSnapshot;
+
+/** Fills reader snapshots with synthetic rows for a given number of threads and shards. */
+public final class ReaderFixtures {
+    private ReaderFixtures() {}
+
+    /** Puts one row of os metrics per thread, last updated at {@code updateTime}. */
+    public static void fillOSMetrics(OSMetricsSnapshot snapshot, int threads, long updateTime) {
+        Map<String, Double> metrics = new HashMap<>();
+        Map<String, String> dimensions = new HashMap<>();
+        for (int t = 0; t < threads; t++) {
+            int i = 0;
+            for (AllMetrics.OSMetrics metric : AllMetrics.OSMetrics.values()) {
+                metrics.put(metric.toString(), (t + i++) % 97 / 7.0);
+            }
+            dimensions.put(OSMetricsSnapshot.Fields.tid.toString(), tidOf(t));
+            dimensions.put(OSMetricsSnapshot.Fields.tName.toString(), EpochFixtures.threadName(t));
+            snapshot.putMetric(metrics, dimensions, updateTime);
+        }
+    }
+
+    /**
+     * Puts a started and finished request per shard, executed round robin by {@code threads}
+     * threads within the window that starts at {@code windowStartTime}.
+     */
+    public static void fillShardRequests(
+            ShardRequestMetricsSnapshot snapshot, int threads, int shards, long windowStartTime) {
+        BatchBindStep batch = snapshot.startBatchPut();
+        for (int s = 0; s < shards; s++) {
+            String shard = String.valueOf(s);
+            String tid = tidOf(s % threads);
+            String operation = s % 2 == 0 ? "shardbulk" : "shardquery";
+            long start = windowStartTime + (s * 7L) % 4000;
+            batch.bind(shard, "index", shard, tid, operation, "primary", start, null, 10L);
+            batch.bind(shard, "index", shard, tid, operation, "primary", null, start + 200, 10L);
+        }
+        batch.execute();
+    }
+
+    /**
+     * Inserts {@code rows} rows into {@code snapshot}. The first dimension is the index name and
+     * the others are unique per row; the metrics are derived from the row number and {@code
+     * scale}.
+     */
+    public static void fillRows(MemoryDBSnapshot snapshot, int rows, double scale) {
+        int dimensions = snapshot.getDimensions().size();
+        int metrics = snapshot.getMetrics().size();
+        Object[][] values = new Object[rows][dimensions + metrics];
+        for (int r = 0; r < rows; r++) {
+            values[r][0] = "index";
+            for (int d = 1; d < dimensions; d++) {
+                values[r][d] = String.valueOf(r);
+            }
+            for (int m = 0; m < metrics; m++) {
+                values[r][dimensions + m] = (r % 100 + m) * scale;
+            }
+        }
+        snapshot.insertMultiRows(values);
+    }
+
+    private static String tidOf(int thread) {
+        return String.valueOf(EpochFixtures.tid(thread));
+    }
+}
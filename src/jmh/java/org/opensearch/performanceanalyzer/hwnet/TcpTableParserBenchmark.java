@@ -0,0 +1,136 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.hwnet;
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opensearch.performanceanalyzer.benchmark.ProcFixtures;
+
+/**
+ * Samples the flows of a synthetic /proc/net/tcp table the way {@link NetworkE2E} does, and with
+ * the split based parsing it used before {@link TcpTableParser} as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TcpTableParserBenchmark {
+    @Param({"50000"})
+    public int lines;
+
+    @Param({"10"})
+    public int ownedEvery;
+
+    @Param({"false", "true"})
+    public boolean inodeCache;
+
+    private Path root;
+    private Path table;
+    private SocketInodeCache sockets;
+    private TcpTableParser parser;
+    private final Map<String, NetworkE2E.destTCPFlowMetrics> flows = new HashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("pa-jmh-tcp");
+        table = root.resolve("tcp");
+        Path fdDir = root.resolve("fd");
+        ProcFixtures.tcpTable(table, fdDir, lines, 257, ownedEvery);
+        sockets = new SocketInodeCache(fdDir, inodeCache);
+        parser = new TcpTableParser();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ProcFixtures.delete(root);
+    }
+
+    @Benchmark
+    public Map<String, NetworkE2E.destTCPFlowMetrics> sample() throws IOException {
+        flows.clear();
+        parser.beginSample();
+        sockets.refresh();
+        parser.parse(table, sockets);
+        sockets.endSample();
+        parser.endSample(flows);
+        return flows;
+    }
+
+    @Benchmark
+    public Map<String, long[]> splitBaseline() throws IOException {
+        Set<String> inodes = new HashSet<>();
+        try (DirectoryStream<Path> fds = Files.newDirectoryStream(root.resolve("fd"))) {
+            for (Path fd : fds) {
+                String target = Files.readSymbolicLink(fd).toString();
+                if (target.contains("socket:")) {
+                    inodes.add(target.split("socket:\\[")[1].split("\\]")[0]);
+                }
+            }
+        }
+        Map<String, long[]> totals = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(table, StandardCharsets.US_ASCII)) {
+            String line = reader.readLine(); // first line is keys
+            while ((line = reader.readLine()) != null) {
+                String[] toks = line.trim().split("\\s+");
+                if (!inodes.contains(toks[9])) {
+                    continue;
+                }
+                long[] total =
+                        totals.computeIfAbsent(toks[2].split(":")[0], dest -> new long[3]);
+                total[0]++;
+                total[1] += Long.decode("0x" + toks[4].split(":")[0]);
+                total[2] += Long.decode("0x" + toks[4].split(":")[1]);
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metricsdb;
+
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jooq.BatchBindStep;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+
+/** Queries a metricsdb window holding per shard metrics, as the metrics api and the RCAs do. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsDBQueryBenchmark {
+    private static final long WINDOW = 1_600_000_000_000L;
+    private static final List<String> METRICS =
+            Arrays.asList(
+                    AllMetrics.OSMetrics.CPU_UTILIZATION.toString(),
+                    AllMetrics.OSMetrics.PAGING_RSS.toString());
+    private static final List<String> DIMENSIONS =
+            Arrays.asList(
+                    AllMetrics.CommonDimension.SHARD_ID.toString(),
+                    AllMetrics.CommonDimension.INDEX_NAME.toString(),
+                    AllMetrics.CommonDimension.OPERATION.toString(),
+                    AllMetrics.CommonDimension.SHARD_ROLE.toString());
+
+    @Param({"1000", "10000"})
+    public int shards;
+
+    private MetricsDB db;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        db = new MetricsDB(WINDOW);
+        for (String metric : METRICS) {
+            Metric<Double> m = new Metric<>(metric, 0d);
+            db.createMetric(m, DIMENSIONS);
+            BatchBindStep batch = db.startBatchPut(m, DIMENSIONS);
+            for (int s = 0; s < shards; s++) {
+                double value = s % 100;
+                for (String operation : new String[] {"shardbulk", "shardquery"}) {
+                    batch.bind(
+                            String.valueOf(s),
+                            "index",
+                            operation,
+                            "primary",
+                            value,
+                            value / 2,
+                            0d,
+                            value);
+                }
+            }
+            batch.execute();
+        }
+        db.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        db.remove();
+        db.deleteOnDiskFile();
+    }
+
+    @Benchmark
+    public Result<Record> queryAggregated() throws Exception {
+        return db.queryMetric(
+                METRICS,
+                Arrays.asList(MetricsDB.AVG, MetricsDB.MAX),
+                Arrays.asList(
+                        AllMetrics.CommonDimension.SHARD_ID.toString(),
+                        AllMetrics.CommonDimension.OPERATION.toString()));
+    }
+
+    @Benchmark
+    public Result<Record> queryAll() {
+        return db.queryMetric(METRICS.get(0));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.os;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opensearch.performanceanalyzer.benchmark.EpochFixtures;
+import org.opensearch.performanceanalyzer.benchmark.ProcFixtures;
+
+/**
+ * Parses the stat file of every thread of a fake /proc task tree with {@link SchemaFileParser}, as
+ * the collectors used to, and with {@link ProcFileReader}, as {@link ThreadCPU} does now.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcStatParseBenchmark {
+    private static final String PID = "4242";
+    private static final int STAT_FIELDS = 44;
+
+    @Param({"200", "2000"})
+    public int threads;
+
+    private Path root;
+    private String[] statFiles;
+    private String[] tids;
+    private String[] statKeys;
+    private SchemaFileParser.FieldTypes[] statTypes;
+    private ProcFileReader reader;
+    private TidSampleTable table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("pa-jmh-proc");
+        Path taskDir = ProcFixtures.taskTree(root, PID, threads);
+        statFiles = new String[threads];
+        tids = new String[threads];
+        for (int t = 0; t < threads; t++) {
+            tids[t] = String.valueOf(EpochFixtures.tid(t));
+            statFiles[t] = taskDir.resolve(tids[t]).resolve("stat").toString();
+        }
+
+        // the schema of /proc/pid/task/tid/stat: pid, comm, state, 6 ints, 29 ulongs, 7 ints
+        statKeys = new String[STAT_FIELDS];
+        statTypes = new SchemaFileParser.FieldTypes[STAT_FIELDS];
+        for (int i = 0; i < STAT_FIELDS; i++) {
+            statKeys[i] = "field" + i;
+        }
+        Arrays.fill(statTypes, SchemaFileParser.FieldTypes.ULONG);
+        Arrays.fill(statTypes, 3, 9, SchemaFileParser.FieldTypes.INT);
+        Arrays.fill(statTypes, 38, STAT_FIELDS, SchemaFileParser.FieldTypes.INT);
+        statTypes[0] = SchemaFileParser.FieldTypes.INT;
+        statTypes[1] = SchemaFileParser.FieldTypes.STRING;
+        statTypes[2] = SchemaFileParser.FieldTypes.CHAR;
+
+        reader = new ProcFileReader();
+        table = new TidSampleTable(taskDir, "stat", ThreadCPU.STAT_WIDTH);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ProcFixtures.delete(root);
+    }
+
+    @Benchmark
+    public void schemaFileParser(Blackhole blackhole) {
+        for (String file : statFiles) {
+            blackhole.consume(new SchemaFileParser(file, statKeys, statTypes, true).parse());
+        }
+    }
+
+    @Benchmark
+    public void procFileReader(Blackhole blackhole) {
+        table.beginSample();
+        for (String tid : tids) {
+            int slot = table.acquire(tid);
+            if (slot >= 0 && reader.read(table.getPath(slot))) {
+                blackhole.consume(ThreadCPU.parseStat(reader, table, slot));
+            }
+        }
+        table.endSample();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opensearch.performanceanalyzer.benchmark.ReaderFixtures;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+
+/**
+ * Aligns two shard stats snapshots to a reader window, with the sqlite backed and the columnar
+ * snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlignWindowBenchmark {
+    private static final long READER_START = 10_000L;
+    private static final long LEFT_END = 12_000L;
+    private static final long READER_END = 15_000L;
+    private static final long RIGHT_END = 17_000L;
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean columnar;
+
+    private Connection conn;
+    private MemoryDBSnapshot leftWindow;
+    private MemoryDBSnapshot rightWindow;
+    private MemoryDBSnapshot alignedWindow;
+    private long alignedWindowEnd = RIGHT_END;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection("jdbc:sqlite:");
+        leftWindow = snapshot(LEFT_END, false);
+        ReaderFixtures.fillRows(leftWindow, rows, 1.0);
+        rightWindow = snapshot(RIGHT_END, false);
+        ReaderFixtures.fillRows(rightWindow, rows, 2.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        leftWindow.remove();
+        rightWindow.remove();
+        conn.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createAlignedWindow() {
+        alignedWindow = snapshot(++alignedWindowEnd, true);
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeAlignedWindow() {
+        alignedWindow.remove();
+    }
+
+    @Benchmark
+    public void alignWindow() {
+        alignedWindow.alignWindow(leftWindow, rightWindow, LEFT_END, READER_START, READER_END);
+    }
+
+    private MemoryDBSnapshot snapshot(long windowEnd, boolean aligned) {
+        return columnar
+                ? new ColumnarMemoryDBSnapshot(
+                        conn, AllMetrics.MetricName.SHARD_STATS, windowEnd, aligned)
+                : new MemoryDBSnapshot(conn, AllMetrics.MetricName.SHARD_STATS, windowEnd, aligned);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.concurrent.TimeUnit;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opensearch.performanceanalyzer.benchmark.ReaderFixtures;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+
+/** Joins the os metrics of every thread with the shard requests it executed in a window. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsEmitterBenchmark {
+    private static final long WINDOW_START = 1_600_000_000_000L;
+    private static final long WINDOW_END = WINDOW_START + 5000;
+
+    @Param({"200", "1000"})
+    public int threads;
+
+    @Param({"100", "2000"})
+    public int shards;
+
+    private Connection conn;
+    private DSLContext create;
+    private OSMetricsSnapshot osMetricsSnap;
+    private ShardRequestMetricsSnapshot rqMetricsSnap;
+    private MetricsDB db;
+    private long dbWindow = WINDOW_START;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection("jdbc:sqlite:");
+        create = DSL.using(conn, SQLDialect.SQLITE);
+        osMetricsSnap = new OSMetricsSnapshot(conn, WINDOW_END);
+        ReaderFixtures.fillOSMetrics(osMetricsSnap, threads, WINDOW_END);
+        rqMetricsSnap = new ShardRequestMetricsSnapshot(conn, WINDOW_START);
+        ReaderFixtures.fillShardRequests(rqMetricsSnap, threads, shards, WINDOW_START);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void openMetricsDB() throws Exception {
+        db = new MetricsDB(++dbWindow);
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeMetricsDB() throws Exception {
+        db.remove();
+        db.deleteOnDiskFile();
+    }
+
+    @Benchmark
+    public void emitAggregatedOSMetrics() throws Exception {
+        MetricsEmitter.emitAggregatedOSMetrics(create, db, osMetricsSnap, rqMetricsSnap);
+        db.commit();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader_writer_shared;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.opensearch.performanceanalyzer.benchmark.EpochFixtures;
+import org.opensearch.performanceanalyzer.benchmark.ProcFixtures;
+import org.opensearch.performanceanalyzer.reader.EventDispatcher;
+
+/** Reads a synthetic epoch file the way the reader does every window. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLogReadBenchmark {
+    private static final long EPOCH = 1_600_000_000_000L;
+
+    @Param({"500", "2000"})
+    public int threads;
+
+    @Param({"1000", "10000"})
+    public int shards;
+
+    @Param({"TEXT", "BINARY"})
+    public EventLogFormat format;
+
+    @Param({"false", "true"})
+    public boolean mmap;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pa-jmh-eventlog");
+        EpochFixtures.writeEpochFile(new EventLog(format), dir.toString(), EPOCH, threads, shards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ProcFixtures.delete(dir);
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        // a handler only reads an epoch once, so every invocation gets a fresh one
+        EventLogFileHandler handler =
+                new EventLogFileHandler(new EventLog(format), dir.toString(), mmap);
+        handler.read(
+                EPOCH,
+                new EventDispatcher() {
+                    @Override
+                    public void processEvent(Event event) {
+                        blackhole.consume(event);
+                    }
+                });
+    }
+}
@@ -30,6 +30,7 @@ package org.opensearch.performanceanalyzer;
 import com.sun.net.httpserver.HttpServer;
 import org.opensearch.performanceanalyzer.net.NetClient;
 import org.opensearch.performanceanalyzer.net.NetServer;
+import org.opensearch.performanceanalyzer.rest.QueryMetricsRequestHandler;
 
 /** A wrapper class to return all the server created by the App. */
 public class ClientServers {
@@ -42,10 +43,22 @@ public class ClientServers {
     /** Client to make gRPC requests. */
     private final NetClient netClient;
 
+    /** Handles the metrics queries of the http server, or null if it serves no metrics. */
+    private final QueryMetricsRequestHandler queryMetricsRequestHandler;
+
     public ClientServers(HttpServer httpServer, NetServer netServer, NetClient netClient) {
+        this(httpServer, netServer, netClient, null);
+    }
+
+    public ClientServers(
+            HttpServer httpServer,
+            NetServer netServer,
+            NetClient netClient,
+            QueryMetricsRequestHandler queryMetricsRequestHandler) {
         this.httpServer = httpServer;
         this.netServer = netServer;
         this.netClient = netClient;
+        this.queryMetricsRequestHandler = queryMetricsRequestHandler;
     }
 
     public HttpServer getHttpServer() {
@@ -59,4 +72,16 @@ public class ClientServers {
     public NetClient getNetClient() {
         return netClient;
     }
+
+    /**
+     * Stops the http server and the threads of its handlers.
+     *
+     * @param delay the maximum time in seconds to wait for the exchanges in progress to finish
+     */
+    public void stopHttpServer(int delay) {
+        httpServer.stop(delay);
+        if (queryMetricsRequestHandler != null) {
+            queryMetricsRequestHandler.stop();
+        }
+    }
 }
@@ -341,8 +341,9 @@ public class PerformanceAnalyzerApp {
                 PerformanceAnalyzerWebServer.createInternalServer(
                         webServerPort, hostFromSetting, useHttps);
 
+        QueryMetricsRequestHandler queryMetricsRequestHandler = null;
         if (metricsRestUtil != null) {
-            QueryMetricsRequestHandler queryMetricsRequestHandler =
+            queryMetricsRequestHandler =
                     new QueryMetricsRequestHandler(netClient, metricsRestUtil, appContext);
             httpServer.createContext(Util.METRICS_QUERY_URL, queryMetricsRequestHandler);
             httpServer.createContext(
@@ -355,7 +356,7 @@ public class PerformanceAnalyzerApp {
                     Util.LEGACY_OPENDISTRO_BATCH_METRICS_URL, queryBatchRequestHandler);
         }
 
-        return new ClientServers(httpServer, netServer, netClient);
+        return new ClientServers(httpServer, netServer, netClient, queryMetricsRequestHandler);
     }
 
     public static List<ISampler> getAllSamplers(final AppContext appContext) {
@@ -0,0 +1,71 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.collections;
+
+/** Helpers for tables keyed by primitive longs, such as thread ids and request ids. */
+public final class LongKeys {
+    // 2^64 divided by the golden ratio, the multiplier of Fibonacci hashing.
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private LongKeys() {}
+
+    /**
+     * Multiplies {@code key} by the golden ratio, so that keys that differ only in their low bits,
+     * such as consecutive ids, differ in their high bits too.
+     */
+    public static long mix(long key) {
+        return key * GOLDEN_RATIO;
+    }
+
+    /** A well distributed int hash of {@code key}, to be masked down to a power of two table. */
+    public static int hash(long key) {
+        long h = mix(key);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Parses an id written as a non-negative decimal number, without the exception and boxing of
+     * {@link Long#parseLong(String)} on malformed input.
+     *
+     * @param id The id, a decimal number of at most 18 digits.
+     * @return Returns the id, or -1 if it is not a non-negative decimal long.
+     */
+    public static long parseId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 18) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
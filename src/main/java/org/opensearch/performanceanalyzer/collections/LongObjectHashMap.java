@@ -0,0 +1,230 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.collections;
+
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive long keys to non-null values, backed by open addressing with linear
+ * probing. Unlike a {@code HashMap<Long, V>} it does not box keys or allocate an entry per mapping,
+ * so updating an existing key, clearing the map or removing entries in bulk does not produce
+ * garbage.
+ *
+ * <p>Not thread-safe.
+ */
+public class LongObjectHashMap<V> {
+    private static final int DEFAULT_EXPECTED_SIZE = 64;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeThreshold;
+
+    /** Visits a mapping of the map. */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    /** Selects mappings of the map. */
+    @FunctionalInterface
+    public interface EntryPredicate<V> {
+        boolean test(long key, V value);
+    }
+
+    public LongObjectHashMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /** @param expectedSize the number of mappings the map holds without resizing */
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        resizeThreshold = capacity / 2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int idx = LongKeys.hash(key) & mask; values[idx] != null; idx = (idx + 1) & mask) {
+            if (keys[idx] == key) {
+                return (V) values[idx];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps {@code key} to {@code value}.
+     *
+     * @return the previous value mapped to {@code key}, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        int mask = keys.length - 1;
+        int idx = LongKeys.hash(key) & mask;
+        for (; values[idx] != null; idx = (idx + 1) & mask) {
+            if (keys[idx] == key) {
+                V old = (V) values[idx];
+                values[idx] = value;
+                return old;
+            }
+        }
+        keys[idx] = key;
+        values[idx] = value;
+        if (++size > resizeThreshold) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /** @return the value that was mapped to {@code key}, or null if there was none */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        for (int idx = LongKeys.hash(key) & mask; values[idx] != null; idx = (idx + 1) & mask) {
+            if (keys[idx] == key) {
+                V old = (V) values[idx];
+                values[idx] = null;
+                size--;
+                // re-insert the rest of the cluster so that no probe chain crosses the hole
+                for (int next = (idx + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+                    reinsert(next);
+                }
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes every mapping matched by {@code predicate} and repairs the table in one pass.
+     *
+     * @return the number of removed mappings
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(EntryPredicate<? super V> predicate) {
+        int removed = 0;
+        for (int idx = 0; idx < values.length; idx++) {
+            if (values[idx] != null && predicate.test(keys[idx], (V) values[idx])) {
+                values[idx] = null;
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            size -= removed;
+            rehashInPlace();
+        }
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int idx = 0; idx < values.length; idx++) {
+            if (values[idx] != null) {
+                consumer.accept(keys[idx], (V) values[idx]);
+            }
+        }
+    }
+
+    /** Removes all mappings but keeps the allocated capacity. */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    private void reinsert(int idx) {
+        long key = keys[idx];
+        Object value = values[idx];
+        values[idx] = null;
+        int mask = keys.length - 1;
+        int slot = LongKeys.hash(key) & mask;
+        while (values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Re-inserts every entry, walking the table from an empty bucket so that each probe chain is
+     * visited from its start and entries only move backwards into holes.
+     */
+    private void rehashInPlace() {
+        int mask = keys.length - 1;
+        int start = 0;
+        while (values[start] != null) {
+            start++;
+        }
+        for (int i = 1; i <= mask; i++) {
+            int idx = (start + i) & mask;
+            if (values[idx] != null) {
+                reinsert(idx);
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int idx = 0; idx < oldValues.length; idx++) {
+            if (oldValues[idx] != null) {
+                int slot = LongKeys.hash(oldKeys[idx]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[idx];
+                values[slot] = oldValues[idx];
+            }
+        }
+    }
+}
@@ -27,8 +27,9 @@
 package org.opensearch.performanceanalyzer.collectors;
 
 
-import java.util.Map;
 import org.opensearch.performanceanalyzer.OSMetricsGeneratorFactory;
+import org.opensearch.performanceanalyzer.collections.LongObjectHashMap;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.jvm.ThreadList;
 import org.opensearch.performanceanalyzer.metrics.AllMetrics.OSMetrics;
 import org.opensearch.performanceanalyzer.metrics.MetricsConfiguration;
@@ -46,6 +47,8 @@ public class OSMetricsCollector extends PerformanceAnalyzerMetricsCollector
     private static final int KEYS_PATH_LENGTH = 1;
     private StringBuilder value;
     private OSMetricsGenerator osMetricsGenerator;
+    private final boolean combinedTaskWalk;
+    private final int taskWalkThreads;
 
     public enum MetaDataFields {
         threadName
@@ -55,22 +58,35 @@ public class OSMetricsCollector extends PerformanceAnalyzerMetricsCollector
         super(SAMPLING_TIME_INTERVAL, "OSMetrics");
         value = new StringBuilder();
         osMetricsGenerator = OSMetricsGeneratorFactory.getInstance();
+        combinedTaskWalk = PluginSettings.instance().isOSMetricsCombinedTaskWalkEnabled();
+        taskWalkThreads = PluginSettings.instance().getOSMetricsTaskWalkThreads();
     }
 
     @Override
     public void collectMetrics(long startTime) {
+        if (combinedTaskWalk) {
+            // one walk of the task directory feeds all the per-thread generators below
+            osMetricsGenerator.addThreadSamples(taskWalkThreads);
+        }
+
         CPUPagingActivityGenerator threadCPUPagingActivityGenerator =
                 osMetricsGenerator.getPagingActivityGenerator();
-        threadCPUPagingActivityGenerator.addSample();
+        if (!combinedTaskWalk) {
+            threadCPUPagingActivityGenerator.addSample();
+        }
 
         SchedMetricsGenerator schedMetricsGenerator = osMetricsGenerator.getSchedMetricsGenerator();
-        schedMetricsGenerator.addSample();
+        if (!combinedTaskWalk) {
+            schedMetricsGenerator.addSample();
+        }
 
-        Map<Long, ThreadList.ThreadState> threadStates = ThreadList.getNativeTidMap();
+        LongObjectHashMap<ThreadList.ThreadState> threadStates = ThreadList.getNativeTidMap();
 
         DiskIOMetricsGenerator diskIOMetricsGenerator =
                 osMetricsGenerator.getDiskIOMetricsGenerator();
-        diskIOMetricsGenerator.addSample();
+        if (!combinedTaskWalk) {
+            diskIOMetricsGenerator.addSample();
+        }
 
         for (String threadId : osMetricsGenerator.getAllThreadIds()) {
             value.setLength(0);
@@ -110,7 +126,7 @@ public class OSMetricsCollector extends PerformanceAnalyzerMetricsCollector
                         .append(schedMetricsGenerator.getContextSwitchRate(threadId));
             }
 
-            ThreadList.ThreadState threadState = threadStates.get(Long.valueOf(threadId));
+            ThreadList.ThreadState threadState = threadStates.get(Long.parseLong(threadId));
             if (threadState != null) {
                 value.append(PerformanceAnalyzerMetrics.sMetricNewLineDelimitor)
                         .append(OSMetrics.HEAP_ALLOC_RATE)
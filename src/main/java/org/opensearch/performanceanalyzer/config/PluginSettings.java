@@ -37,6 +37,7 @@ import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.logging.log4j.util.Supplier;
 import org.opensearch.performanceanalyzer.ConfigStatus;
 import org.opensearch.performanceanalyzer.core.Util;
+import org.opensearch.performanceanalyzer.reader_writer_shared.EventLogFormat;
 
 public class PluginSettings {
     private static final Logger LOG = LogManager.getLogger(PluginSettings.class);
@@ -59,11 +60,181 @@ public class PluginSettings {
     private static final long BATCH_METRICS_RETENTION_PERIOD_MINUTES_DEFAULT = 7;
     private static final long BATCH_METRICS_RETENTION_PERIOD_MINUTES_MIN = 1;
     private static final long BATCH_METRICS_RETENTION_PERIOD_MINUTES_MAX = 60;
+    private static final String BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES =
+            "batch-metrics-rollup-retention-period-minutes";
+    private static final long BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_DEFAULT = 0;
+    private static final long BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_MIN = 0;
+    private static final long BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_MAX = 10080;
     public static final String RPC_PORT_CONF_NAME = "rpc-port";
     public static final int RPC_DEFAULT_PORT = 9650;
     public static final String WEBSERVICE_PORT_CONF_NAME = "webservice-listener-port";
     public static final int WEBSERVICE_DEFAULT_PORT = 9600;
 
+    /**
+     * Encoding used by the writer for the event log files. The reader auto-detects the encoding,
+     * so this can be flipped to binary once all readers understand it.
+     */
+    public static final String EVENT_LOG_FORMAT_CONF_NAME = "event-log-format";
+
+    private static final EventLogFormat EVENT_LOG_FORMAT_DEFAULT = EventLogFormat.TEXT;
+
+    /** Determines whether the reader memory maps the event log files instead of copying them. */
+    public static final String EVENT_LOG_MMAP_READ_CONF_NAME = "event-log-mmap-read-enabled";
+
+    /**
+     * Number of worker threads the reader uses to feed events to the event processors. When set to
+     * 0, all the events are processed serially on the reader thread.
+     */
+    public static final String READER_DISPATCH_THREADS_CONF_NAME = "reader-event-dispatch-threads";
+
+    private static final int READER_DISPATCH_THREADS_DEFAULT = 0;
+    private static final int READER_DISPATCH_THREADS_MAX = 16;
+
+    /**
+     * Determines whether the reader keeps node metrics snapshots in primitive columns instead of
+     * tables in the in-memory sqlite database.
+     */
+    public static final String READER_COLUMNAR_SNAPSHOTS_CONF_NAME =
+            "reader-columnar-snapshots-enabled";
+
+    /**
+     * Determines whether the reader aligns OS metrics windows by merging the snapshots in tid order
+     * instead of joining them in SQL.
+     */
+    public static final String READER_OS_MERGE_ALIGN_CONF_NAME = "reader-os-merge-align-enabled";
+
+    /**
+     * Determines whether the reader joins and aggregates shard requests with OS metrics in the JVM
+     * instead of in the in-memory sqlite database.
+     */
+    public static final String READER_HASH_JOIN_EMIT_CONF_NAME = "reader-hash-join-emit-enabled";
+
+    /**
+     * Determines whether the reader matches the start and finish events of shard and http requests
+     * in memory and keeps running aggregates of them, instead of writing a row per event into the
+     * in-memory sqlite database.
+     */
+    public static final String READER_STREAMING_REQUESTS_CONF_NAME =
+            "reader-streaming-requests-enabled";
+
+    /**
+     * Determines whether every metricsdb window is also written as an immutable columnar file that
+     * the batch metrics api reads without opening the sqlite database.
+     */
+    public static final String METRICSDB_COLUMNAR_FILES_CONF_NAME =
+            "metricsdb-columnar-files-enabled";
+
+    /**
+     * Determines whether the RCA scheduler skips the graph nodes whose inputs did not change since
+     * their last evaluation.
+     */
+    public static final String RCA_INCREMENTAL_EVALUATION_CONF_NAME =
+            "rca-incremental-evaluation-enabled";
+
+    /**
+     * Determines whether the metric queries of the RCA graph nodes are cached and shared while the
+     * same MetricsDB window is current.
+     */
+    public static final String RCA_GATHER_CACHE_CONF_NAME = "rca-gather-cache-enabled";
+
+    /**
+     * Determines whether the OS metrics collector reads the stat, schedstat and io files of every
+     * thread in one walk of the task directory instead of one walk per metric family.
+     */
+    public static final String OS_METRICS_COMBINED_TASK_WALK_CONF_NAME =
+            "os-metrics-combined-task-walk-enabled";
+
+    /**
+     * Number of worker threads the combined task walk uses to read the per-thread files. When set
+     * to 0, the files are read on the collector thread.
+     */
+    public static final String OS_METRICS_TASK_WALK_THREADS_CONF_NAME =
+            "os-metrics-task-walk-threads";
+
+    private static final int OS_METRICS_TASK_WALK_THREADS_DEFAULT = 0;
+    private static final int OS_METRICS_TASK_WALK_THREADS_MAX = 8;
+
+    /**
+     * Determines whether thread states are refreshed from the ThreadMXBean alone while all native
+     * threads can be mapped to java threads, instead of attaching for a thread dump every sample.
+     */
+    public static final String JVM_INCREMENTAL_THREAD_SAMPLING_CONF_NAME =
+            "jvm-incremental-thread-sampling-enabled";
+
+    /**
+     * Seconds after which the incremental thread sampling takes a full thread dump even if no
+     * unknown native thread showed up.
+     */
+    public static final String JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_CONF_NAME =
+            "jvm-full-thread-dump-interval-seconds";
+
+    private static final int JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_DEFAULT = 300;
+    private static final int JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_MIN = 5;
+    private static final int JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_MAX = 3600;
+
+    /**
+     * Determines whether the network collector caches the socket inodes of the fds in /proc/pid/fd
+     * and only resolves the fds it has not seen before.
+     */
+    public static final String NETWORK_E2E_INODE_CACHE_CONF_NAME =
+            "network-e2e-inode-cache-enabled";
+
+    /**
+     * Determines whether the node serving the metrics api queries the other nodes with the
+     * StreamMetrics rpc, which only nodes with the typed metrics response implement.
+     */
+    public static final String METRICS_QUERY_STREAMING_CONF_NAME =
+            "metrics-query-streaming-enabled";
+
+    /** Milliseconds the metrics api waits for the other nodes before it returns without them. */
+    public static final String METRICS_QUERY_TIMEOUT_MILLIS_CONF_NAME =
+            "metrics-query-timeout-millis";
+
+    private static final int METRICS_QUERY_TIMEOUT_MILLIS_DEFAULT = 2000;
+    private static final int METRICS_QUERY_TIMEOUT_MILLIS_MIN = 100;
+    private static final int METRICS_QUERY_TIMEOUT_MILLIS_MAX = 60000;
+
+    /** Maximum number of metrics queries the node serving the metrics api sends at once. */
+    public static final String METRICS_QUERY_MAX_IN_FLIGHT_CONF_NAME =
+            "metrics-query-max-in-flight";
+
+    private static final int METRICS_QUERY_MAX_IN_FLIGHT_DEFAULT = 16;
+    private static final int METRICS_QUERY_MAX_IN_FLIGHT_MIN = 1;
+    private static final int METRICS_QUERY_MAX_IN_FLIGHT_MAX = 1024;
+
+    /**
+     * Minimum milliseconds after which a node that has not answered a metrics query is sent the
+     * query a second time. 0 disables the hedged queries.
+     */
+    public static final String METRICS_QUERY_HEDGE_DELAY_MILLIS_CONF_NAME =
+            "metrics-query-hedge-delay-millis";
+
+    private static final int METRICS_QUERY_HEDGE_DELAY_MILLIS_DEFAULT = 0;
+    private static final int METRICS_QUERY_HEDGE_DELAY_MILLIS_MIN = 0;
+    private static final int METRICS_QUERY_HEDGE_DELAY_MILLIS_MAX = 60000;
+
+    /**
+     * Determines whether the flow units a node publishes are queued per downstream host and sent
+     * in batches with the PublishBatch rpc.
+     */
+    public static final String RCA_FLOW_UNIT_BATCHING_CONF_NAME = "rca-flow-unit-batching-enabled";
+
+    /** Maximum number of flow units sent to a downstream host in one batch. */
+    public static final String RCA_FLOW_UNIT_BATCH_MAX_SIZE_CONF_NAME =
+            "rca-flow-unit-batch-max-size";
+
+    private static final int RCA_FLOW_UNIT_BATCH_MAX_SIZE_DEFAULT = 64;
+    private static final int RCA_FLOW_UNIT_BATCH_MAX_SIZE_MIN = 1;
+    private static final int RCA_FLOW_UNIT_BATCH_MAX_SIZE_MAX = 4096;
+
+    /** Milliseconds a queued flow unit waits for more flow units before its batch is sent. */
+    public static final String RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_CONF_NAME =
+            "rca-flow-unit-batch-linger-millis";
+
+    private static final int RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_DEFAULT = 20;
+    private static final int RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_MIN = 0;
+    private static final int RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_MAX = 1000;
+
     /** Determines whether the metricsdb files should be cleaned up. */
     public static final String DB_FILE_CLEANUP_CONF_NAME = "cleanup-metrics-db-files";
 
@@ -86,8 +257,36 @@ public class PluginSettings {
      */
     private long batchMetricsRetentionPeriodMinutes;
 
+    /**
+     * Determines how many minutes worth of 1 minute and 10 minute rollups of the metricsdb files
+     * will be retained if batch metrics is enabled. 0 disables the rollups.
+     */
+    private long batchMetricsRollupRetentionPeriodMinutes;
+
     private int rpcPort;
     private int webServicePort;
+    private EventLogFormat eventLogFormat;
+    private boolean eventLogMmapReadEnabled;
+    private int readerDispatchThreads;
+    private boolean readerColumnarSnapshotsEnabled;
+    private boolean readerOSMergeAlignEnabled;
+    private boolean readerHashJoinEmitEnabled;
+    private boolean readerStreamingRequestsEnabled;
+    private boolean metricsDBColumnarFilesEnabled;
+    private boolean rcaIncrementalEvaluationEnabled;
+    private boolean rcaGatherCacheEnabled;
+    private boolean osMetricsCombinedTaskWalkEnabled;
+    private int osMetricsTaskWalkThreads;
+    private boolean jvmIncrementalThreadSamplingEnabled;
+    private int jvmFullThreadDumpIntervalSeconds;
+    private boolean networkE2EInodeCacheEnabled;
+    private boolean metricsQueryStreamingEnabled;
+    private int metricsQueryTimeoutMillis;
+    private int metricsQueryMaxInFlight;
+    private int metricsQueryHedgeDelayMillis;
+    private boolean rcaFlowUnitBatchingEnabled;
+    private int rcaFlowUnitBatchMaxSize;
+    private int rcaFlowUnitBatchLingerMillis;
 
     static {
         Util.invokePrivilegedAndLogError(PluginSettings::createInstance);
@@ -113,6 +312,10 @@ public class PluginSettings {
         return batchMetricsRetentionPeriodMinutes;
     }
 
+    public long getBatchMetricsRollupRetentionPeriodMinutes() {
+        return batchMetricsRollupRetentionPeriodMinutes;
+    }
+
     public int getRpcPort() {
         return rpcPort;
     }
@@ -121,11 +324,216 @@ public class PluginSettings {
         return webServicePort;
     }
 
+    public EventLogFormat getEventLogFormat() {
+        return eventLogFormat;
+    }
+
+    @VisibleForTesting
+    public void setEventLogFormat(EventLogFormat eventLogFormat) {
+        this.eventLogFormat = eventLogFormat;
+    }
+
+    public boolean isEventLogMmapReadEnabled() {
+        return eventLogMmapReadEnabled;
+    }
+
+    @VisibleForTesting
+    public void setEventLogMmapReadEnabled(boolean eventLogMmapReadEnabled) {
+        this.eventLogMmapReadEnabled = eventLogMmapReadEnabled;
+    }
+
+    public int getReaderDispatchThreads() {
+        return readerDispatchThreads;
+    }
+
+    @VisibleForTesting
+    public void setReaderDispatchThreads(int readerDispatchThreads) {
+        this.readerDispatchThreads = readerDispatchThreads;
+    }
+
+    public boolean isReaderColumnarSnapshotsEnabled() {
+        return readerColumnarSnapshotsEnabled;
+    }
+
+    @VisibleForTesting
+    public void setReaderColumnarSnapshotsEnabled(boolean readerColumnarSnapshotsEnabled) {
+        this.readerColumnarSnapshotsEnabled = readerColumnarSnapshotsEnabled;
+    }
+
+    public boolean isReaderOSMergeAlignEnabled() {
+        return readerOSMergeAlignEnabled;
+    }
+
+    @VisibleForTesting
+    public void setReaderOSMergeAlignEnabled(boolean readerOSMergeAlignEnabled) {
+        this.readerOSMergeAlignEnabled = readerOSMergeAlignEnabled;
+    }
+
+    public boolean isReaderHashJoinEmitEnabled() {
+        return readerHashJoinEmitEnabled;
+    }
+
+    @VisibleForTesting
+    public void setReaderHashJoinEmitEnabled(boolean readerHashJoinEmitEnabled) {
+        this.readerHashJoinEmitEnabled = readerHashJoinEmitEnabled;
+    }
+
+    public boolean isReaderStreamingRequestsEnabled() {
+        return readerStreamingRequestsEnabled;
+    }
+
+    @VisibleForTesting
+    public void setReaderStreamingRequestsEnabled(boolean readerStreamingRequestsEnabled) {
+        this.readerStreamingRequestsEnabled = readerStreamingRequestsEnabled;
+    }
+
+    public boolean isMetricsDBColumnarFilesEnabled() {
+        return metricsDBColumnarFilesEnabled;
+    }
+
+    @VisibleForTesting
+    public void setMetricsDBColumnarFilesEnabled(boolean metricsDBColumnarFilesEnabled) {
+        this.metricsDBColumnarFilesEnabled = metricsDBColumnarFilesEnabled;
+    }
+
+    public boolean isRcaIncrementalEvaluationEnabled() {
+        return rcaIncrementalEvaluationEnabled;
+    }
+
+    @VisibleForTesting
+    public void setRcaIncrementalEvaluationEnabled(boolean rcaIncrementalEvaluationEnabled) {
+        this.rcaIncrementalEvaluationEnabled = rcaIncrementalEvaluationEnabled;
+    }
+
+    public boolean isRcaGatherCacheEnabled() {
+        return rcaGatherCacheEnabled;
+    }
+
+    @VisibleForTesting
+    public void setRcaGatherCacheEnabled(boolean rcaGatherCacheEnabled) {
+        this.rcaGatherCacheEnabled = rcaGatherCacheEnabled;
+    }
+
+    public boolean isOSMetricsCombinedTaskWalkEnabled() {
+        return osMetricsCombinedTaskWalkEnabled;
+    }
+
+    @VisibleForTesting
+    public void setOSMetricsCombinedTaskWalkEnabled(boolean osMetricsCombinedTaskWalkEnabled) {
+        this.osMetricsCombinedTaskWalkEnabled = osMetricsCombinedTaskWalkEnabled;
+    }
+
+    public int getOSMetricsTaskWalkThreads() {
+        return osMetricsTaskWalkThreads;
+    }
+
+    @VisibleForTesting
+    public void setOSMetricsTaskWalkThreads(int osMetricsTaskWalkThreads) {
+        this.osMetricsTaskWalkThreads = osMetricsTaskWalkThreads;
+    }
+
+    public boolean isJvmIncrementalThreadSamplingEnabled() {
+        return jvmIncrementalThreadSamplingEnabled;
+    }
+
+    @VisibleForTesting
+    public void setJvmIncrementalThreadSamplingEnabled(
+            boolean jvmIncrementalThreadSamplingEnabled) {
+        this.jvmIncrementalThreadSamplingEnabled = jvmIncrementalThreadSamplingEnabled;
+    }
+
+    public int getJvmFullThreadDumpIntervalSeconds() {
+        return jvmFullThreadDumpIntervalSeconds;
+    }
+
+    @VisibleForTesting
+    public void setJvmFullThreadDumpIntervalSeconds(int jvmFullThreadDumpIntervalSeconds) {
+        this.jvmFullThreadDumpIntervalSeconds = jvmFullThreadDumpIntervalSeconds;
+    }
+
+    public boolean isNetworkE2EInodeCacheEnabled() {
+        return networkE2EInodeCacheEnabled;
+    }
+
+    @VisibleForTesting
+    public void setNetworkE2EInodeCacheEnabled(boolean networkE2EInodeCacheEnabled) {
+        this.networkE2EInodeCacheEnabled = networkE2EInodeCacheEnabled;
+    }
+
+    public boolean isMetricsQueryStreamingEnabled() {
+        return metricsQueryStreamingEnabled;
+    }
+
+    @VisibleForTesting
+    public void setMetricsQueryStreamingEnabled(boolean metricsQueryStreamingEnabled) {
+        this.metricsQueryStreamingEnabled = metricsQueryStreamingEnabled;
+    }
+
+    public int getMetricsQueryTimeoutMillis() {
+        return metricsQueryTimeoutMillis;
+    }
+
+    @VisibleForTesting
+    public void setMetricsQueryTimeoutMillis(int metricsQueryTimeoutMillis) {
+        this.metricsQueryTimeoutMillis = metricsQueryTimeoutMillis;
+    }
+
+    public int getMetricsQueryMaxInFlight() {
+        return metricsQueryMaxInFlight;
+    }
+
+    @VisibleForTesting
+    public void setMetricsQueryMaxInFlight(int metricsQueryMaxInFlight) {
+        this.metricsQueryMaxInFlight = metricsQueryMaxInFlight;
+    }
+
+    public int getMetricsQueryHedgeDelayMillis() {
+        return metricsQueryHedgeDelayMillis;
+    }
+
+    @VisibleForTesting
+    public void setMetricsQueryHedgeDelayMillis(int metricsQueryHedgeDelayMillis) {
+        this.metricsQueryHedgeDelayMillis = metricsQueryHedgeDelayMillis;
+    }
+
+    public boolean isRcaFlowUnitBatchingEnabled() {
+        return rcaFlowUnitBatchingEnabled;
+    }
+
+    @VisibleForTesting
+    public void setRcaFlowUnitBatchingEnabled(boolean rcaFlowUnitBatchingEnabled) {
+        this.rcaFlowUnitBatchingEnabled = rcaFlowUnitBatchingEnabled;
+    }
+
+    public int getRcaFlowUnitBatchMaxSize() {
+        return rcaFlowUnitBatchMaxSize;
+    }
+
+    @VisibleForTesting
+    public void setRcaFlowUnitBatchMaxSize(int rcaFlowUnitBatchMaxSize) {
+        this.rcaFlowUnitBatchMaxSize = rcaFlowUnitBatchMaxSize;
+    }
+
+    public int getRcaFlowUnitBatchLingerMillis() {
+        return rcaFlowUnitBatchLingerMillis;
+    }
+
+    @VisibleForTesting
+    public void setRcaFlowUnitBatchLingerMillis(int rcaFlowUnitBatchLingerMillis) {
+        this.rcaFlowUnitBatchLingerMillis = rcaFlowUnitBatchLingerMillis;
+    }
+
     @VisibleForTesting
     public void setBatchMetricsRetentionPeriodMinutes(long batchMetricsRetentionPeriodMinutes) {
         this.batchMetricsRetentionPeriodMinutes = batchMetricsRetentionPeriodMinutes;
     }
 
+    @VisibleForTesting
+    public void setBatchMetricsRollupRetentionPeriodMinutes(
+            long batchMetricsRollupRetentionPeriodMinutes) {
+        this.batchMetricsRollupRetentionPeriodMinutes = batchMetricsRollupRetentionPeriodMinutes;
+    }
+
     public String getSettingValue(String settingName) {
         return settings.getProperty(settingName);
     }
@@ -181,8 +589,19 @@ public class PluginSettings {
         metricsDeletionInterval = DELETION_INTERVAL_DEFAULT;
         writerQueueSize = WRITER_QUEUE_SIZE_DEFAULT;
         batchMetricsRetentionPeriodMinutes = BATCH_METRICS_RETENTION_PERIOD_MINUTES_DEFAULT;
+        batchMetricsRollupRetentionPeriodMinutes =
+                BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_DEFAULT;
         rpcPort = RPC_DEFAULT_PORT;
         webServicePort = WEBSERVICE_DEFAULT_PORT;
+        eventLogFormat = EVENT_LOG_FORMAT_DEFAULT;
+        readerDispatchThreads = READER_DISPATCH_THREADS_DEFAULT;
+        osMetricsTaskWalkThreads = OS_METRICS_TASK_WALK_THREADS_DEFAULT;
+        jvmFullThreadDumpIntervalSeconds = JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_DEFAULT;
+        metricsQueryTimeoutMillis = METRICS_QUERY_TIMEOUT_MILLIS_DEFAULT;
+        metricsQueryMaxInFlight = METRICS_QUERY_MAX_IN_FLIGHT_DEFAULT;
+        metricsQueryHedgeDelayMillis = METRICS_QUERY_HEDGE_DELAY_MILLIS_DEFAULT;
+        rcaFlowUnitBatchMaxSize = RCA_FLOW_UNIT_BATCH_MAX_SIZE_DEFAULT;
+        rcaFlowUnitBatchLingerMillis = RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_DEFAULT;
         if (cfPath == null || cfPath.isEmpty()) {
             this.configFilePath = DEFAULT_CONFIG_FILE_PATH;
         } else {
@@ -198,7 +617,55 @@ public class PluginSettings {
             loadHttpsEnabled();
             loadMetricsDBFilesCleanupEnabled();
             loadBatchMetricsRetentionPeriodMinutesFromConfig();
+            loadBatchMetricsRollupRetentionPeriodMinutesFromConfig();
             loadPortsFromConfig();
+            loadEventLogFormatFromConfig();
+            loadEventLogMmapReadEnabled();
+            loadReaderDispatchThreadsFromConfig();
+            loadReaderColumnarSnapshotsEnabled();
+            loadReaderOSMergeAlignEnabled();
+            loadReaderHashJoinEmitEnabled();
+            loadReaderStreamingRequestsEnabled();
+            loadMetricsDBColumnarFilesEnabled();
+            loadRcaIncrementalEvaluationEnabled();
+            loadRcaGatherCacheEnabled();
+            loadOSMetricsCombinedTaskWalkEnabled();
+            loadOSMetricsTaskWalkThreadsFromConfig();
+            loadJvmIncrementalThreadSamplingEnabled();
+            loadJvmFullThreadDumpIntervalSecondsFromConfig();
+            loadNetworkE2EInodeCacheEnabled();
+            loadMetricsQueryStreamingEnabled();
+            metricsQueryTimeoutMillis =
+                    loadIntInRange(
+                            METRICS_QUERY_TIMEOUT_MILLIS_CONF_NAME,
+                            METRICS_QUERY_TIMEOUT_MILLIS_MIN,
+                            METRICS_QUERY_TIMEOUT_MILLIS_MAX,
+                            metricsQueryTimeoutMillis);
+            metricsQueryMaxInFlight =
+                    loadIntInRange(
+                            METRICS_QUERY_MAX_IN_FLIGHT_CONF_NAME,
+                            METRICS_QUERY_MAX_IN_FLIGHT_MIN,
+                            METRICS_QUERY_MAX_IN_FLIGHT_MAX,
+                            metricsQueryMaxInFlight);
+            metricsQueryHedgeDelayMillis =
+                    loadIntInRange(
+                            METRICS_QUERY_HEDGE_DELAY_MILLIS_CONF_NAME,
+                            METRICS_QUERY_HEDGE_DELAY_MILLIS_MIN,
+                            METRICS_QUERY_HEDGE_DELAY_MILLIS_MAX,
+                            metricsQueryHedgeDelayMillis);
+            loadRcaFlowUnitBatchingEnabled();
+            rcaFlowUnitBatchMaxSize =
+                    loadIntInRange(
+                            RCA_FLOW_UNIT_BATCH_MAX_SIZE_CONF_NAME,
+                            RCA_FLOW_UNIT_BATCH_MAX_SIZE_MIN,
+                            RCA_FLOW_UNIT_BATCH_MAX_SIZE_MAX,
+                            rcaFlowUnitBatchMaxSize);
+            rcaFlowUnitBatchLingerMillis =
+                    loadIntInRange(
+                            RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_CONF_NAME,
+                            RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_MIN,
+                            RCA_FLOW_UNIT_BATCH_LINGER_MILLIS_MAX,
+                            rcaFlowUnitBatchLingerMillis);
         } catch (ConfigFileException e) {
             LOG.error(
                     "Loading config file {} failed with error: {}. Disabling plugin.",
@@ -215,14 +682,15 @@ public class PluginSettings {
         LOG.info(
                 "Config: metricsLocation: {}, metricsDeletionInterval: {}, httpsEnabled: {},"
                         + " cleanup-metrics-db-files: {}, batch-metrics-retention-period-minutes: {}, rpc-port: {}, "
-                        + "webservice-port {}",
+                        + "webservice-port {}, event-log-format: {}",
                 metricsLocation,
                 metricsDeletionInterval,
                 httpsEnabled,
                 shouldCleanupMetricsDBFiles,
                 batchMetricsRetentionPeriodMinutes,
                 rpcPort,
-                webServicePort);
+                webServicePort,
+                eventLogFormat);
     }
 
     public static PluginSettings instance() {
@@ -365,6 +833,235 @@ public class PluginSettings {
         }
     }
 
+    private void loadBatchMetricsRollupRetentionPeriodMinutesFromConfig() {
+        if (!settings.containsKey(BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES)) {
+            return;
+        }
+
+        try {
+            long parsedRetentionPeriod =
+                    Long.parseLong(
+                            settings.getProperty(BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES));
+            if (parsedRetentionPeriod < BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_MIN
+                    || parsedRetentionPeriod > BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_MAX) {
+                LOG.error(
+                        "{} out of range. Value should be in range [{}, {}]. Using default value {}.",
+                        BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES,
+                        BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_MIN,
+                        BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES_MAX,
+                        batchMetricsRollupRetentionPeriodMinutes);
+                return;
+            }
+            batchMetricsRollupRetentionPeriodMinutes = parsedRetentionPeriod;
+        } catch (NumberFormatException e) {
+            LOG.error(
+                    "Invalid {} {}. Using default value {}.",
+                    BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES,
+                    settings.getProperty(BATCH_METRICS_ROLLUP_RETENTION_PERIOD_MINUTES),
+                    batchMetricsRollupRetentionPeriodMinutes);
+        }
+    }
+
+    private void loadEventLogFormatFromConfig() {
+        String formatValue = settings.getProperty(EVENT_LOG_FORMAT_CONF_NAME);
+        if (formatValue == null) {
+            return;
+        }
+        eventLogFormat = EventLogFormat.fromString(formatValue, EVENT_LOG_FORMAT_DEFAULT);
+        if (!eventLogFormat.name().equalsIgnoreCase(formatValue.trim())) {
+            LOG.error(
+                    "Invalid {} {}. Using default value {}.",
+                    EVENT_LOG_FORMAT_CONF_NAME,
+                    formatValue,
+                    EVENT_LOG_FORMAT_DEFAULT);
+        }
+    }
+
+    private void loadEventLogMmapReadEnabled() {
+        eventLogMmapReadEnabled =
+                Boolean.parseBoolean(settings.getProperty(EVENT_LOG_MMAP_READ_CONF_NAME, "false"));
+    }
+
+    private void loadReaderColumnarSnapshotsEnabled() {
+        readerColumnarSnapshotsEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(READER_COLUMNAR_SNAPSHOTS_CONF_NAME, "false"));
+    }
+
+    private void loadReaderOSMergeAlignEnabled() {
+        readerOSMergeAlignEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(READER_OS_MERGE_ALIGN_CONF_NAME, "false"));
+    }
+
+    private void loadReaderHashJoinEmitEnabled() {
+        readerHashJoinEmitEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(READER_HASH_JOIN_EMIT_CONF_NAME, "false"));
+    }
+
+    private void loadReaderStreamingRequestsEnabled() {
+        readerStreamingRequestsEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(READER_STREAMING_REQUESTS_CONF_NAME, "false"));
+    }
+
+    private void loadMetricsDBColumnarFilesEnabled() {
+        metricsDBColumnarFilesEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(METRICSDB_COLUMNAR_FILES_CONF_NAME, "false"));
+    }
+
+    private void loadRcaIncrementalEvaluationEnabled() {
+        rcaIncrementalEvaluationEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(RCA_INCREMENTAL_EVALUATION_CONF_NAME, "false"));
+    }
+
+    private void loadRcaGatherCacheEnabled() {
+        rcaGatherCacheEnabled =
+                Boolean.parseBoolean(settings.getProperty(RCA_GATHER_CACHE_CONF_NAME, "false"));
+    }
+
+    private void loadOSMetricsCombinedTaskWalkEnabled() {
+        osMetricsCombinedTaskWalkEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(OS_METRICS_COMBINED_TASK_WALK_CONF_NAME, "false"));
+    }
+
+    private void loadOSMetricsTaskWalkThreadsFromConfig() {
+        if (!settings.containsKey(OS_METRICS_TASK_WALK_THREADS_CONF_NAME)) {
+            return;
+        }
+
+        try {
+            int threads =
+                    Integer.parseInt(settings.getProperty(OS_METRICS_TASK_WALK_THREADS_CONF_NAME));
+            if (threads < 0 || threads > OS_METRICS_TASK_WALK_THREADS_MAX) {
+                LOG.error(
+                        "{} out of range. Value should be in range [0, {}]. Using default value {}.",
+                        OS_METRICS_TASK_WALK_THREADS_CONF_NAME,
+                        OS_METRICS_TASK_WALK_THREADS_MAX,
+                        osMetricsTaskWalkThreads);
+                return;
+            }
+            osMetricsTaskWalkThreads = threads;
+        } catch (NumberFormatException e) {
+            LOG.error(
+                    "Invalid {} {}. Using default value {}.",
+                    OS_METRICS_TASK_WALK_THREADS_CONF_NAME,
+                    settings.getProperty(OS_METRICS_TASK_WALK_THREADS_CONF_NAME),
+                    osMetricsTaskWalkThreads);
+        }
+    }
+
+    private void loadJvmIncrementalThreadSamplingEnabled() {
+        jvmIncrementalThreadSamplingEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(JVM_INCREMENTAL_THREAD_SAMPLING_CONF_NAME, "false"));
+    }
+
+    private void loadJvmFullThreadDumpIntervalSecondsFromConfig() {
+        if (!settings.containsKey(JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_CONF_NAME)) {
+            return;
+        }
+
+        try {
+            int interval =
+                    Integer.parseInt(
+                            settings.getProperty(JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_CONF_NAME));
+            if (interval < JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_MIN
+                    || interval > JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_MAX) {
+                LOG.error(
+                        "{} out of range. Value should be in range [{}, {}]. Using default value {}.",
+                        JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_CONF_NAME,
+                        JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_MIN,
+                        JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_MAX,
+                        jvmFullThreadDumpIntervalSeconds);
+                return;
+            }
+            jvmFullThreadDumpIntervalSeconds = interval;
+        } catch (NumberFormatException e) {
+            LOG.error(
+                    "Invalid {} {}. Using default value {}.",
+                    JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_CONF_NAME,
+                    settings.getProperty(JVM_FULL_THREAD_DUMP_INTERVAL_SECONDS_CONF_NAME),
+                    jvmFullThreadDumpIntervalSeconds);
+        }
+    }
+
+    private void loadNetworkE2EInodeCacheEnabled() {
+        networkE2EInodeCacheEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(NETWORK_E2E_INODE_CACHE_CONF_NAME, "false"));
+    }
+
+    private void loadMetricsQueryStreamingEnabled() {
+        metricsQueryStreamingEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(METRICS_QUERY_STREAMING_CONF_NAME, "false"));
+    }
+
+    private void loadRcaFlowUnitBatchingEnabled() {
+        rcaFlowUnitBatchingEnabled =
+                Boolean.parseBoolean(
+                        settings.getProperty(RCA_FLOW_UNIT_BATCHING_CONF_NAME, "false"));
+    }
+
+    /** Returns the value of an int setting, or {@code defaultValue} if it is unset or invalid. */
+    private int loadIntInRange(String confName, int min, int max, int defaultValue) {
+        if (!settings.containsKey(confName)) {
+            return defaultValue;
+        }
+
+        try {
+            int value = Integer.parseInt(settings.getProperty(confName));
+            if (value < min || value > max) {
+                LOG.error(
+                        "{} out of range. Value should be in range [{}, {}]. Using default value {}.",
+                        confName,
+                        min,
+                        max,
+                        defaultValue);
+                return defaultValue;
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            LOG.error(
+                    "Invalid {} {}. Using default value {}.",
+                    confName,
+                    settings.getProperty(confName),
+                    defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private void loadReaderDispatchThreadsFromConfig() {
+        if (!settings.containsKey(READER_DISPATCH_THREADS_CONF_NAME)) {
+            return;
+        }
+
+        try {
+            int threads =
+                    Integer.parseInt(settings.getProperty(READER_DISPATCH_THREADS_CONF_NAME));
+            if (threads < 0 || threads > READER_DISPATCH_THREADS_MAX) {
+                LOG.error(
+                        "{} out of range. Value should be in range [0, {}]. Using default value {}.",
+                        READER_DISPATCH_THREADS_CONF_NAME,
+                        READER_DISPATCH_THREADS_MAX,
+                        readerDispatchThreads);
+                return;
+            }
+            readerDispatchThreads = threads;
+        } catch (NumberFormatException e) {
+            LOG.error(
+                    "Invalid {} {}. Using default value {}.",
+                    READER_DISPATCH_THREADS_CONF_NAME,
+                    settings.getProperty(READER_DISPATCH_THREADS_CONF_NAME),
+                    readerDispatchThreads);
+        }
+    }
+
     public void loadPortsFromConfig() {
         try {
             String rpcPortValue = settings.getProperty(RPC_PORT_CONF_NAME);
@@ -28,20 +28,15 @@ package org.opensearch.performanceanalyzer.hwnet;
 
 
 import com.google.common.annotations.VisibleForTesting;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
 import org.opensearch.performanceanalyzer.collectors.StatsCollector;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.metrics_generator.linux.LinuxTCPMetricsGenerator;
 import org.opensearch.performanceanalyzer.os.OSGlobals;
 
@@ -57,16 +52,6 @@ public class NetworkE2E {
     private static final Logger LOG = LogManager.getLogger(NetworkE2E.class);
     private static String pid = OSGlobals.getPid();
 
-    static class TCPFlowMetrics {
-        String destIP;
-
-        long txQueue;
-        long rxQueue;
-        long currentLost;
-        long sendCWND;
-        long SSThresh;
-    }
-
     static class destTCPFlowMetrics {
         long txQueueTot;
         long rxQueueTot;
@@ -75,77 +60,47 @@ public class NetworkE2E {
         long SSThreshTot;
         int numFlows;
 
-        destTCPFlowMetrics(TCPFlowMetrics m) {
-            txQueueTot = m.txQueue;
-            rxQueueTot = m.rxQueue;
-            currentLostTot = m.currentLost;
-            sendCWNDTot = m.sendCWND;
-            SSThreshTot = m.SSThresh;
-            numFlows = 1;
+        void add(long txQueue, long rxQueue, long currentLost, long sendCWND, long SSThresh) {
+            if (numFlows == 0) {
+                txQueueTot = txQueue;
+                rxQueueTot = rxQueue;
+                currentLostTot = currentLost;
+                sendCWNDTot = sendCWND;
+                SSThreshTot = SSThresh;
+            } else {
+                // check for "-1"s and add to total only if it is not -1
+                txQueueTot += (txQueue != -1 ? txQueue : 0);
+                rxQueueTot += (rxQueue != -1 ? rxQueue : 0);
+                currentLostTot += (currentLost != -1 ? currentLost : 0);
+                sendCWNDTot += (sendCWND != -1 ? sendCWND : 0);
+                SSThreshTot += (SSThresh != -1 ? SSThresh : 0);
+            }
+            numFlows++;
+        }
+
+        void reset() {
+            numFlows = 0;
         }
     }
 
-    private static Set<String> inodeSocketList = new HashSet<>();
-    private static Map<String, TCPFlowMetrics> inodeFlowMetricsMap = new HashMap<>();
+    private static final Path TCP_TABLE = Paths.get("/proc/net/tcp");
+    private static final Path TCP6_TABLE = Paths.get("/proc/net/tcp6");
+
+    private static final SocketInodeCache socketInodeCache =
+            new SocketInodeCache(
+                    Paths.get("/proc", pid, "fd"),
+                    PluginSettings.instance().isNetworkE2EInodeCacheEnabled());
+    private static final TcpTableParser tcpTableParser = new TcpTableParser();
     private static Map<String, destTCPFlowMetrics> destnodeFlowMetricsMap = new HashMap<>();
     private static LinuxTCPMetricsGenerator linuxTCPMetricsHandler = new LinuxTCPMetricsGenerator();
 
-    private static StringBuilder value = new StringBuilder();
-
     static void listSockets() {
-        File self = new File("/proc/" + pid + "/fd");
-        File[] filesList = self.listFiles();
-        if (filesList == null) {
-            return;
-        }
-        for (File f : filesList) {
-            // no check for file, as this dir is all files/symlinks
-            String target = null;
-            try {
-                Path targetp = Files.readSymbolicLink(Paths.get(f.getCanonicalPath()));
-                target = targetp.toString();
-            } catch (Exception e) {
-                continue;
-            }
-            if (target.contains("socket:")) {
-                target = target.split("socket:\\[")[1];
-                target = target.split("\\]")[0];
-                inodeSocketList.add(target);
-            }
-        }
-    }
-
-    private static void generateMap(String line, String ver) {
-        String[] toks = line.trim().split("\\s+");
-        if (!inodeSocketList.contains(toks[9])) { // inode
-            return;
-        }
-        TCPFlowMetrics m = new TCPFlowMetrics();
-        m.destIP = toks[2].split(":")[0];
-        m.txQueue = Long.decode("0x" + toks[4].split(":")[0]);
-        m.rxQueue = Long.decode("0x" + toks[4].split(":")[1]);
-        m.currentLost = Long.decode("0x" + toks[6]);
-        if (toks.length > 16) {
-            m.sendCWND = Long.parseLong(toks[15]);
-            m.SSThresh = Long.parseLong(toks[16]);
-        } else {
-            m.sendCWND = -1;
-            m.SSThresh = -1;
-        }
-        inodeFlowMetricsMap.put(toks[9], m);
+        socketInodeCache.refresh();
     }
 
-    private static void mapTCPMetrics(String ver) {
-        int ln = 0;
-        try (FileReader fileReader = new FileReader(new File(ver));
-                BufferedReader bufferedReader = new BufferedReader(fileReader)) {
-            String line = null;
-            while ((line = bufferedReader.readLine()) != null) {
-                if (ln != 0) { // first line is keys
-                    generateMap(line, ver);
-                }
-                ln++;
-            }
+    private static void mapTCPMetrics(Path table) {
+        try {
+            tcpTableParser.parse(table, socketInodeCache);
         } catch (Exception e) {
             LOG.debug(
                     "Error in mapTCPMetrics: {} with ExceptionCode: {}",
@@ -156,33 +111,18 @@ public class NetworkE2E {
     }
 
     private static void mapTCPMetrics() {
-        mapTCPMetrics("/proc/net/tcp");
-        mapTCPMetrics("/proc/net/tcp6");
+        mapTCPMetrics(TCP_TABLE);
+        mapTCPMetrics(TCP6_TABLE);
+        socketInodeCache.endSample();
     }
 
     private static void clearAll() {
-        inodeSocketList.clear();
-        inodeFlowMetricsMap.clear();
         destnodeFlowMetricsMap.clear();
+        tcpTableParser.beginSample();
     }
 
     private static void computeSummary() {
-        for (Map.Entry<String, TCPFlowMetrics> entry : inodeFlowMetricsMap.entrySet()) {
-            TCPFlowMetrics m = entry.getValue();
-            destTCPFlowMetrics exist = destnodeFlowMetricsMap.get(m.destIP);
-            if (exist == null) {
-                destnodeFlowMetricsMap.put(m.destIP, new destTCPFlowMetrics(m));
-            } else {
-                // check for "-1"s and add to total only if it is not -1
-                exist.numFlows++;
-                exist.txQueueTot += (m.txQueue != -1 ? m.txQueue : 0);
-                exist.rxQueueTot += (m.rxQueue != -1 ? m.rxQueue : 0);
-                exist.currentLostTot += (m.currentLost != -1 ? m.currentLost : 0);
-                exist.sendCWNDTot += (m.sendCWND != -1 ? m.sendCWND : 0);
-                exist.SSThreshTot += (m.SSThresh != -1 ? m.SSThresh : 0);
-            }
-        }
-
+        tcpTableParser.endSample(destnodeFlowMetricsMap);
         calculateTCPMetrics();
     }
 
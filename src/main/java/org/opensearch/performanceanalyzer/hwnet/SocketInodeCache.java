@@ -0,0 +1,179 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.hwnet;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.opensearch.performanceanalyzer.collections.LongObjectHashMap;
+
+/**
+ * Maps the socket inodes owned by the process to the file descriptors in /proc/pid/fd that hold
+ * them.
+ *
+ * <p>Resolving an fd symlink is a syscall per descriptor, so when caching is enabled only fd
+ * numbers that were not seen in the previous sample are resolved. A cached socket that does not
+ * show up in the tcp tables of a sample is evicted, which is what happens when its fd number gets
+ * reused for another connection; it is resolved again in the next sample. Cached non-socket fds
+ * are re-resolved every {@link #RESCAN_INTERVAL} samples to pick up fds that were reused for a
+ * socket.
+ */
+final class SocketInodeCache {
+    static final int RESCAN_INTERVAL = 12;
+    private static final long NOT_A_SOCKET = -1;
+    private static final String SOCKET_PREFIX = "socket:[";
+
+    private final Path fdDir;
+    private final File fdDirFile;
+    private final boolean cacheEnabled;
+    private final LongObjectHashMap<FdEntry> fds = new LongObjectHashMap<>(1024);
+    private final LongObjectHashMap<FdEntry> sockets = new LongObjectHashMap<>(1024);
+    private long sample;
+    private int samplesSinceRescan;
+
+    private static final class FdEntry {
+        long inode;
+        long lastListed;
+        boolean matched;
+    }
+
+    SocketInodeCache(Path fdDir, boolean cacheEnabled) {
+        this.fdDir = fdDir;
+        this.fdDirFile = fdDir.toFile();
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /** Lists the fd directory and rebuilds the set of socket inodes for a new sample. */
+    void refresh() {
+        sample++;
+        boolean rescan = !cacheEnabled || ++samplesSinceRescan >= RESCAN_INTERVAL;
+        if (rescan) {
+            samplesSinceRescan = 0;
+        }
+        String[] names = fdDirFile.list();
+        if (names == null) {
+            fds.clear();
+            sockets.clear();
+            return;
+        }
+        for (String name : names) {
+            long fd = parseFd(name);
+            if (fd < 0) {
+                continue;
+            }
+            FdEntry entry = fds.get(fd);
+            if (entry == null) {
+                entry = new FdEntry();
+                if (!resolve(entry, name)) {
+                    continue;
+                }
+                fds.put(fd, entry);
+            } else if (rescan && !resolve(entry, name)) {
+                continue;
+            }
+            entry.lastListed = sample;
+            entry.matched = false;
+        }
+        final long current = sample;
+        fds.removeIf((fd, entry) -> entry.lastListed != current);
+        sockets.clear();
+        fds.forEach(
+                (fd, entry) -> {
+                    if (entry.inode != NOT_A_SOCKET) {
+                        sockets.put(entry.inode, entry);
+                    }
+                });
+    }
+
+    /** Checks whether {@code inode} is a socket of the process and marks it as seen. */
+    boolean contains(long inode) {
+        FdEntry entry = sockets.get(inode);
+        if (entry == null) {
+            return false;
+        }
+        entry.matched = true;
+        return true;
+    }
+
+    /** Evicts the cached sockets that were not found in any tcp table of this sample. */
+    void endSample() {
+        if (cacheEnabled) {
+            fds.removeIf((fd, entry) -> entry.inode != NOT_A_SOCKET && !entry.matched);
+        }
+    }
+
+    int socketCount() {
+        return sockets.size();
+    }
+
+    private boolean resolve(FdEntry entry, String name) {
+        String target;
+        try {
+            target = Files.readSymbolicLink(fdDir.resolve(name)).toString();
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // the fd was closed after the directory was listed
+            return false;
+        }
+        entry.inode = parseSocketInode(target);
+        return true;
+    }
+
+    static long parseSocketInode(String target) {
+        if (!target.startsWith(SOCKET_PREFIX)) {
+            return NOT_A_SOCKET;
+        }
+        long inode = 0;
+        int i = SOCKET_PREFIX.length();
+        for (; i < target.length(); i++) {
+            char c = target.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            inode = inode * 10 + (c - '0');
+        }
+        return i > SOCKET_PREFIX.length() && i < target.length() && target.charAt(i) == ']'
+                ? inode
+                : NOT_A_SOCKET;
+    }
+
+    private static long parseFd(String name) {
+        if (name.isEmpty()) {
+            return -1;
+        }
+        long fd = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            fd = fd * 10 + (c - '0');
+        }
+        return fd;
+    }
+}
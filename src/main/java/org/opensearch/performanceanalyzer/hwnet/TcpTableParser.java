@@ -0,0 +1,276 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.hwnet;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import org.opensearch.performanceanalyzer.collections.LongKeys;
+import org.opensearch.performanceanalyzer.collections.LongObjectHashMap;
+
+/**
+ * Streams /proc/net/tcp and /proc/net/tcp6 through a reused buffer and aggregates the flows of the
+ * sockets owned by the process by destination address.
+ *
+ * <p>Lines are tokenized in place; the hex and decimal fields are only decoded for owned sockets,
+ * and the destination address is decoded into two longs so that the per destination totals are
+ * found without creating a string per flow. A parser is not thread safe.
+ */
+final class TcpTableParser {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    // whitespace separated fields of a /proc/net/tcp line
+    private static final int REM_ADDRESS = 2;
+    private static final int QUEUES = 4;
+    private static final int RETRANSMITS = 6;
+    private static final int INODE = 9;
+    private static final int SND_CWND = 15;
+    private static final int SSTHRESH = 16;
+    private static final int FIELD_COUNT = SSTHRESH + 1;
+
+    private final byte[] buf;
+    private final ByteBuffer readBuffer;
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    private int lineEnd;
+    private int cursor;
+
+    /** Per destination totals, keyed by {@link #addressKey}. */
+    private final LongObjectHashMap<Destination> destinations = new LongObjectHashMap<>();
+    /** Destinations whose key collides with another address; practically always empty. */
+    private final Map<String, Destination> collidingDestinations = new HashMap<>();
+
+    private static final class Destination {
+        final long hi;
+        final long lo;
+        final int width;
+        final String destIP;
+        final NetworkE2E.destTCPFlowMetrics metrics = new NetworkE2E.destTCPFlowMetrics();
+
+        Destination(long hi, long lo, int width, String destIP) {
+            this.hi = hi;
+            this.lo = lo;
+            this.width = width;
+            this.destIP = destIP;
+        }
+
+        boolean matches(long hi, long lo, int width) {
+            return this.hi == hi && this.lo == lo && this.width == width;
+        }
+    }
+
+    TcpTableParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    TcpTableParser(int bufferSize) {
+        this.buf = new byte[bufferSize];
+        this.readBuffer = ByteBuffer.wrap(buf);
+    }
+
+    /** Resets the per destination totals kept from the previous sample. */
+    void beginSample() {
+        destinations.forEach((key, dest) -> dest.metrics.reset());
+        collidingDestinations.clear();
+    }
+
+    /**
+     * Adds the flows of {@code table} whose inode is one of {@code sockets} to the per destination
+     * totals. The first line of the table holds the column names and is skipped.
+     */
+    void parse(Path table, SocketInodeCache sockets) throws IOException {
+        try (FileChannel channel = FileChannel.open(table, StandardOpenOption.READ)) {
+            boolean header = true;
+            boolean discarding = false;
+            int filled = 0;
+            while (true) {
+                readBuffer.limit(buf.length).position(filled);
+                int read = channel.read(readBuffer);
+                int end = read < 0 ? filled : filled + read;
+                int start = 0;
+                int nl;
+                while ((nl = indexOfNewline(start, end)) >= 0) {
+                    if (header || discarding) {
+                        header = false;
+                        discarding = false;
+                    } else {
+                        parseLine(start, nl, sockets);
+                    }
+                    start = nl + 1;
+                }
+                if (read < 0) {
+                    if (start < end && !header && !discarding) {
+                        parseLine(start, end, sockets);
+                    }
+                    return;
+                }
+                if (start == 0 && end == buf.length) {
+                    // a line longer than the buffer; no valid table has one, drop it
+                    discarding = true;
+                    filled = 0;
+                } else {
+                    System.arraycopy(buf, start, buf, 0, end - start);
+                    filled = end - start;
+                }
+            }
+        }
+    }
+
+    /** Puts the totals of every destination that had a flow in this sample into {@code out}. */
+    void endSample(Map<String, NetworkE2E.destTCPFlowMetrics> out) {
+        destinations.removeIf((key, dest) -> dest.metrics.numFlows == 0);
+        destinations.forEach((key, dest) -> out.put(dest.destIP, dest.metrics));
+        for (Destination dest : collidingDestinations.values()) {
+            out.put(dest.destIP, dest.metrics);
+        }
+    }
+
+    private int indexOfNewline(int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buf[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void parseLine(int start, int end, SocketInodeCache sockets) {
+        lineEnd = end;
+        int fields = 0;
+        int i = start;
+        while (fields < FIELD_COUNT) {
+            while (i < end && buf[i] == ' ') {
+                i++;
+            }
+            if (i >= end) {
+                break;
+            }
+            fieldStart[fields++] = i;
+            while (i < end && buf[i] != ' ') {
+                i++;
+            }
+        }
+        if (fields <= INODE || !sockets.contains(parseDecimal(fieldStart[INODE]))) {
+            return;
+        }
+
+        Destination dest = destination(fieldStart[REM_ADDRESS]);
+        long txQueue = parseHex(fieldStart[QUEUES]);
+        long rxQueue = parseHex(cursor + 1);
+        long currentLost = parseHex(fieldStart[RETRANSMITS]);
+        long sendCWND = -1;
+        long ssThresh = -1;
+        if (fields == FIELD_COUNT) {
+            sendCWND = parseDecimal(fieldStart[SND_CWND]);
+            ssThresh = parseDecimal(fieldStart[SSTHRESH]);
+        }
+        dest.metrics.add(txQueue, rxQueue, currentLost, sendCWND, ssThresh);
+    }
+
+    /**
+     * Finds the totals for the address at {@code pos}, which is printed as 8 (IPv4) or 32 (IPv6)
+     * hex digits followed by ':' and the port.
+     */
+    private Destination destination(int pos) {
+        long hi = 0;
+        long lo = 0;
+        int width = 0;
+        for (int i = pos; i < lineEnd; i++, width++) {
+            int digit = hexDigit(buf[i]);
+            if (digit < 0) {
+                break;
+            }
+            hi = (hi << 4) | (lo >>> 60);
+            lo = (lo << 4) | digit;
+        }
+        long key = addressKey(hi, lo);
+        Destination dest = destinations.get(key);
+        if (dest == null) {
+            dest = new Destination(hi, lo, width, addressString(pos, width));
+            destinations.put(key, dest);
+        } else if (!dest.matches(hi, lo, width)) {
+            String destIP = addressString(pos, width);
+            dest = collidingDestinations.get(destIP);
+            if (dest == null) {
+                dest = new Destination(hi, lo, width, destIP);
+                collidingDestinations.put(destIP, dest);
+            }
+        }
+        return dest;
+    }
+
+    private String addressString(int pos, int width) {
+        return new String(buf, pos, width, StandardCharsets.US_ASCII);
+    }
+
+    private static long addressKey(long hi, long lo) {
+        return hi == 0 ? lo : lo ^ LongKeys.mix(hi);
+    }
+
+    /** Decodes the hex number at {@code pos} and leaves {@link #cursor} on the byte after it. */
+    private long parseHex(int pos) {
+        long value = 0;
+        int i = pos;
+        for (int digit; i < lineEnd && (digit = hexDigit(buf[i])) >= 0; i++) {
+            value = (value << 4) | digit;
+        }
+        cursor = i;
+        return value;
+    }
+
+    /** Decodes the optionally negative decimal number at {@code pos}. */
+    private long parseDecimal(int pos) {
+        int i = pos;
+        boolean negative = i < lineEnd && buf[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        for (; i < lineEnd && buf[i] >= '0' && buf[i] <= '9'; i++) {
+            value = value * 10 + (buf[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static int hexDigit(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        return -1;
+    }
+}
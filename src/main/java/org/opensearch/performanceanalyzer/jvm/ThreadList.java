@@ -29,16 +29,22 @@ package org.opensearch.performanceanalyzer.jvm;
 
 import com.sun.tools.attach.VirtualMachine;
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
@@ -47,19 +53,22 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.OSMetricsGeneratorFactory;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.collections.LongObjectHashMap;
 import org.opensearch.performanceanalyzer.collectors.ScheduledMetricCollectorsExecutor;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.core.Util;
 import org.opensearch.performanceanalyzer.metrics.MetricsConfiguration;
+import org.opensearch.performanceanalyzer.os.ProcFileReader;
 import org.opensearch.performanceanalyzer.rca.framework.metrics.WriterMetrics;
 import sun.tools.attach.HotSpotVirtualMachine;
 
 /** Traverses and prints the stack traces for all Java threads in the remote VM */
 public class ThreadList {
-    private static final Map<Long, String> jTidNameMap = new ConcurrentHashMap<>();
-    private static final Map<Long, ThreadState> nativeTidMap = new ConcurrentHashMap<>();
-    private static final Map<Long, ThreadState> oldNativeTidMap = new ConcurrentHashMap<>();
-    private static final Map<Long, ThreadState> jTidMap = new ConcurrentHashMap<>();
-    private static final Map<String, ThreadState> nameMap = new ConcurrentHashMap<>();
+    // Thread states are kept across dumps and only created or dropped when threads come and go.
+    // nativeTidMap is only touched by the collector thread; jTidMap is read by OpenSearch threads,
+    // so it is rebuilt off to the side and published only when the set of threads changed.
+    private static final LongObjectHashMap<ThreadState> nativeTidMap = new LongObjectHashMap<>();
+    private static volatile LongObjectHashMap<ThreadState> jTidMap = new LongObjectHashMap<>();
     private static final String pid = OSMetricsGeneratorFactory.getInstance().getPid();
     static final Logger LOGGER = LogManager.getLogger(ThreadList.class);
     static final int samplingInterval =
@@ -70,6 +79,23 @@ public class ThreadList {
     private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
     private static final Pattern linePattern = Pattern.compile("\"([^\"]*)\"");
     private static long lastRunTime = 0;
+    private static long dumpCount = 0;
+    private static boolean lastDumpSucceeded = false;
+    private static boolean threadsChanged = false;
+
+    // The kernel keeps at most 15 bytes of a thread name in /proc/pid/task/tid/comm.
+    private static final int COMM_NAME_LENGTH = 15;
+    private static final boolean incrementalSampling =
+            PluginSettings.instance().isJvmIncrementalThreadSamplingEnabled();
+    private static final long fullDumpIntervalMillis =
+            TimeUnit.SECONDS.toMillis(
+                    PluginSettings.instance().getJvmFullThreadDumpIntervalSeconds());
+    private static long lastFullDumpTime = 0;
+    // native tids without a java thread in the last full dump, mapped to the last dump they were
+    // seen in, so that they do not force another full dump
+    private static final LongObjectHashMap<long[]> nativeOnlyTids = new LongObjectHashMap<>();
+    // reads the start times of native threads; only used by the collector thread
+    private static final ProcFileReader statReader = new ProcFileReader();
 
     private static Lock vmAttachLock = new ReentrantLock();
 
@@ -89,9 +115,23 @@ public class ThreadList {
         public double avgBlockedTime;
         public double avgWaitedTime;
 
+        // whether this state was also seen in the previous successful dump, so that its counters
+        // can be diffed against the values left over from that dump
+        boolean hasPrevious;
+        long lastSeenDump;
+        // start time of the native thread, in clock ticks since boot, or -1 if unknown; tells a
+        // reused native tid apart from the thread it was first seen with
+        long nativeStartTime;
+
         ThreadState() {
             javaTid = -1;
             nativeTid = -1;
+            nativeStartTime = -1;
+            reset();
+        }
+
+        void reset() {
+            hasPrevious = false;
             heapUsage = -1;
             heapAllocRate = 0;
             blockedCount = 0;
@@ -137,15 +177,22 @@ public class ThreadList {
      * path of OpenSearch request handling. Even for the collector thread, we do a timed wait to
      * acquire this lock and move on if we could not get it.
      *
-     * @return A hashmap of threadId to threadState.
+     * <p>The returned map is updated in place by the next thread dump, so callers should not hold
+     * on to it past the current collection.
+     *
+     * @return A map of native threadId to threadState.
      */
-    public static Map<Long, ThreadState> getNativeTidMap() {
+    public static LongObjectHashMap<ThreadState> getNativeTidMap() {
         if (vmAttachLock.tryLock()) {
             try {
                 // Thread dumps are expensive and therefore we make sure that at least
                 // minRunInterval milliseconds have elapsed between two attempts.
                 if (System.currentTimeMillis() > lastRunTime + minRunInterval) {
-                    runThreadDump(pid, new String[0]);
+                    if (incrementalSampling) {
+                        runIncrementalThreadSample(pid, new String[0]);
+                    } else {
+                        runThreadDump(pid, new String[0]);
+                    }
                 }
             } finally {
                 vmAttachLock.unlock();
@@ -155,11 +202,7 @@ public class ThreadList {
                     WriterMetrics.JVM_ATTACH_LOCK_ACQUISITION_FAILED, "", 1);
         }
 
-        // - sending a copy so that if runThreadDump next iteration clears it; caller still has the
-        // state at the call time
-        // - not too expensive as this is only being called from Scheduled Collectors (only once in
-        // few seconds)
-        return new HashMap<>(nativeTidMap);
+        return nativeTidMap;
     }
 
     /**
@@ -184,7 +227,7 @@ public class ThreadList {
     }
 
     // Attach to pid and perform a thread dump
-    private static void runAttachDump(String pid, String[] args) {
+    private static boolean runAttachDump(String pid, String[] args) {
         VirtualMachine vm = null;
         try {
             vm = VirtualMachine.attach(pid);
@@ -196,19 +239,18 @@ public class ThreadList {
                 PerformanceAnalyzerApp.WRITER_METRICS_AGGREGATOR.updateStat(
                         WriterMetrics.JVM_ATTACH_ERROR, "", 1);
             }
-            // If the thread dump failed then we clean up the old map. So, next time when the
-            // collection
-            // happens as it would after a bootup.
-            oldNativeTidMap.clear();
-            return;
+            // If the thread dump failed then we forget the previous dump. So, next time when the
+            // collection happens as it would after a bootup.
+            return false;
         }
 
+        boolean dumped = true;
         try (InputStream in = ((HotSpotVirtualMachine) vm).remoteDataDump(args); ) {
             createMap(in);
         } catch (Exception ex) {
             PerformanceAnalyzerApp.WRITER_METRICS_AGGREGATOR.updateStat(
                     WriterMetrics.JVM_ATTACH_ERROR, "", 1);
-            oldNativeTidMap.clear();
+            dumped = false;
         }
 
         try {
@@ -219,6 +261,7 @@ public class ThreadList {
             PerformanceAnalyzerApp.WRITER_METRICS_AGGREGATOR.updateStat(
                     WriterMetrics.JVM_ATTACH_ERROR, "", 1);
         }
+        return dumped;
     }
 
     public static void parseAllThreadInfos(ThreadInfo[] infos) {
@@ -249,7 +292,6 @@ public class ThreadList {
 
     private static void parseThreadInfo(final ThreadInfo info) {
         long id = info.getThreadId();
-        String name = info.getThreadName();
         Thread.State state = info.getThreadState();
 
         // following captures cumulative allocated bytes + TLAB used bytes
@@ -260,6 +302,12 @@ public class ThreadList {
         if (t == null) {
             return;
         }
+        // the counters still hold the values of the previous dump
+        long oldHeapUsage = t.heapUsage;
+        long oldBlockedCount = t.blockedCount;
+        long oldBlockedTime = t.blockedTime;
+        long oldWaitedCount = t.waitedCount;
+        long oldWaitedTime = t.waitedTime;
         t.heapUsage = mem;
         t.state = state;
         t.blockedCount = info.getBlockedCount();
@@ -275,15 +323,14 @@ public class ThreadList {
                         : 0);
 
         long curRunTime = System.currentTimeMillis();
-        ThreadState oldt = oldNativeTidMap.get(t.nativeTid);
-        if (curRunTime > lastRunTime && oldt != null) {
+        if (curRunTime > lastRunTime && t.hasPrevious) {
             t.heapAllocRate =
-                    Math.max(t.heapUsage - oldt.heapUsage, 0) * 1.0e3 / (curRunTime - lastRunTime);
-            if (t.blockedTime != -1 && t.blockedCount > oldt.blockedCount) {
+                    Math.max(t.heapUsage - oldHeapUsage, 0) * 1.0e3 / (curRunTime - lastRunTime);
+            if (t.blockedTime != -1 && t.blockedCount > oldBlockedCount) {
                 t.avgBlockedTime =
                         1.0e-3
-                                * (t.blockedTime - oldt.blockedTime)
-                                / (t.blockedCount - oldt.blockedCount);
+                                * (t.blockedTime - oldBlockedTime)
+                                / (t.blockedCount - oldBlockedCount);
             } else {
                 CircularLongArray arr = ThreadHistory.blockedTidHistoryMap.get(t.nativeTid);
                 // NOTE: this is an upper bound
@@ -291,11 +338,11 @@ public class ThreadList {
                     t.avgBlockedTime = 1.0 * arr.getAvgValue() / samplingInterval;
                 }
             }
-            if (t.waitedTime != -1 && t.waitedCount > oldt.waitedCount) {
+            if (t.waitedTime != -1 && t.waitedCount > oldWaitedCount) {
                 t.avgWaitedTime =
                         1.0e-3
-                                * (t.waitedTime - oldt.waitedTime)
-                                / (t.waitedCount - oldt.waitedCount);
+                                * (t.waitedTime - oldWaitedTime)
+                                / (t.waitedCount - oldWaitedCount);
             } else {
                 CircularLongArray arr = ThreadHistory.waitedTidHistoryMap.get(t.nativeTid);
                 // NOTE: this is an upper bound
@@ -304,7 +351,6 @@ public class ThreadList {
                 }
             }
         }
-        jTidNameMap.put(id, name);
     }
 
     static void runThreadDump(String pid, String[] args) {
@@ -315,37 +361,276 @@ public class ThreadList {
                                 ScheduledMetricCollectorsExecutor.class.getSimpleName())
                 : String.format(
                         "Thread dump called from a non os collector thread: %s", currentThreadName);
-        jTidNameMap.clear();
-        oldNativeTidMap.putAll(nativeTidMap);
-        nativeTidMap.clear();
-        jTidMap.clear();
-        nameMap.clear();
-
-        // TODO: make this map update atomic
-        Util.invokePrivileged(() -> runAttachDump(pid, args));
-        // oldNativeTidMap gets cleared if the attach Fails, so that the
-        // metrics collection starts as it would after a restart.
-        if (!oldNativeTidMap.isEmpty()) {
+        dumpCount++;
+        threadsChanged = false;
+        boolean[] dumped = {false};
+        Util.invokePrivileged(() -> dumped[0] = runAttachDump(pid, args));
+
+        publishThreadStates();
+
+        // Deltas are only computed if the previous dump succeeded too, so that the metrics
+        // collection starts as it would after a restart when the attach fails.
+        if (dumped[0] && lastDumpSucceeded) {
             runMXDump();
         }
+        lastDumpSucceeded = dumped[0];
         lastRunTime = System.currentTimeMillis();
     }
 
+    /**
+     * Refreshes the thread states from the ThreadMXBean alone as long as every native thread of the
+     * process can be mapped to a java thread without attaching to the VM. A full thread dump is only
+     * taken when a new native tid cannot be matched to a java thread by name, or when the full dump
+     * interval elapsed. A tracked native tid whose thread start time changed was reused by a new
+     * thread, and is matched again like a new tid.
+     */
+    static void runIncrementalThreadSample(String pid, String[] args) {
+        String[] tids = new File("/proc/" + pid + "/task").list();
+        if (tids == null
+                || !lastDumpSucceeded
+                || System.currentTimeMillis() - lastFullDumpTime >= fullDumpIntervalMillis) {
+            runFullThreadDump(pid, args, tids);
+            return;
+        }
+
+        dropReusedTids(pid, tids);
+        ThreadInfo[] infos = getAllThreadInfos();
+        LongObjectHashMap<ThreadInfo> resolved = resolveUnknownTids(pid, tids, infos);
+        if (resolved == null) {
+            runFullThreadDump(pid, args, tids);
+            return;
+        }
+
+        dumpCount++;
+        threadsChanged = false;
+        for (String tid : tids) {
+            long nativeTid = Long.parseLong(tid);
+            ThreadState t = nativeTidMap.get(nativeTid);
+            if (t != null) {
+                track(nativeTid, t.javaTid);
+                continue;
+            }
+            ThreadInfo info = resolved.get(nativeTid);
+            if (info != null) {
+                t = track(nativeTid, info.getThreadId());
+                t.threadName = info.getThreadName();
+                t.tState = info.getThreadState().name().toLowerCase(Locale.ROOT);
+                continue;
+            }
+            long[] lastSeen = nativeOnlyTids.get(nativeTid);
+            if (lastSeen != null) {
+                lastSeen[0] = dumpCount;
+            }
+        }
+        nativeOnlyTids.removeIf((tid, lastSeen) -> lastSeen[0] != dumpCount);
+        publishThreadStates();
+
+        parseAllThreadInfos(infos);
+        ThreadHistory.cleanup();
+        lastDumpSucceeded = true;
+        lastRunTime = System.currentTimeMillis();
+        PerformanceAnalyzerApp.WRITER_METRICS_AGGREGATOR.updateStat(
+                WriterMetrics.JVM_THREAD_DUMP_AVOIDED, "", 1);
+    }
+
+    private static void runFullThreadDump(String pid, String[] args, String[] tids) {
+        runThreadDump(pid, args);
+        lastFullDumpTime = lastRunTime;
+        nativeOnlyTids.clear();
+        if (tids == null || !lastDumpSucceeded) {
+            return;
+        }
+        // tids listed before the dump that are still unmapped have no java thread
+        for (String tid : tids) {
+            long nativeTid = Long.parseLong(tid);
+            if (!nativeTidMap.containsKey(nativeTid)) {
+                nativeOnlyTids.put(nativeTid, new long[] {dumpCount});
+            }
+        }
+    }
+
+    /**
+     * Stops tracking the native tids whose thread started after the thread they were tracked for,
+     * as the kernel gave the tid of an exited thread to a new one.
+     */
+    private static void dropReusedTids(String pid, String[] tids) {
+        for (String tid : tids) {
+            long nativeTid = Long.parseLong(tid);
+            ThreadState t = nativeTidMap.get(nativeTid);
+            if (t == null) {
+                continue;
+            }
+            long startTime = readStartTime(pid, nativeTid);
+            if (startTime < 0) {
+                // the thread exited since the task directory was listed
+                continue;
+            }
+            if (t.nativeStartTime < 0) {
+                t.nativeStartTime = startTime;
+            } else if (t.nativeStartTime != startTime) {
+                nativeTidMap.remove(nativeTid);
+                PerformanceAnalyzerApp.WRITER_METRICS_AGGREGATOR.updateStat(
+                        WriterMetrics.JVM_NATIVE_TID_REUSED, "", 1);
+            }
+        }
+    }
+
+    /**
+     * Reads the start time of a native thread, field 22 of /proc/pid/task/tid/stat.
+     *
+     * @return the start time in clock ticks since boot, or -1 if it could not be read
+     */
+    static long readStartTime(String pid, long nativeTid) {
+        if (pid == null
+                || !statReader.read(
+                        Paths.get("/proc", pid, "task", Long.toString(nativeTid), "stat"))
+                || !statReader.skipPastLast((byte) ')')) {
+            return -1;
+        }
+        // the cursor is now before field 3 (state)
+        statReader.skipTokens(19);
+        return statReader.nextLong();
+    }
+
+    /**
+     * Maps the native tids that are neither tracked nor known to have no java thread to java
+     * threads by name.
+     *
+     * @return the java thread of each unknown tid, or null if one of them has no unique match
+     */
+    private static LongObjectHashMap<ThreadInfo> resolveUnknownTids(
+            String pid, String[] tids, ThreadInfo[] infos) {
+        LongObjectHashMap<String> unknownComms = new LongObjectHashMap<>();
+        for (String tid : tids) {
+            long nativeTid = Long.parseLong(tid);
+            if (nativeTidMap.containsKey(nativeTid) || nativeOnlyTids.containsKey(nativeTid)) {
+                continue;
+            }
+            try {
+                byte[] comm = Files.readAllBytes(Paths.get("/proc", pid, "task", tid, "comm"));
+                unknownComms.put(nativeTid, new String(comm, StandardCharsets.UTF_8).trim());
+            } catch (IOException e) {
+                // the thread exited since the task directory was listed
+            }
+        }
+        if (unknownComms.isEmpty()) {
+            return new LongObjectHashMap<>(2);
+        }
+
+        List<ThreadInfo> unmapped = new ArrayList<>();
+        LongObjectHashMap<ThreadState> mapped = jTidMap;
+        for (ThreadInfo info : infos) {
+            if (info != null && mapped.get(info.getThreadId()) == null) {
+                unmapped.add(info);
+            }
+        }
+        LongObjectHashMap<ThreadInfo> resolved = matchByComm(unknownComms, unmapped);
+        if (resolved != null) {
+            PerformanceAnalyzerApp.WRITER_METRICS_AGGREGATOR.updateStat(
+                    WriterMetrics.JVM_NATIVE_TID_RESOLVED_BY_NAME, "", resolved.size());
+        }
+        return resolved;
+    }
+
+    /**
+     * Pairs native tids with java threads whose name, truncated like the kernel truncates thread
+     * names, equals the comm of the tid. Both are trimmed, as the comm is read with its newline. A
+     * pair is only made when exactly one tid and exactly one java thread share the name, which is
+     * enough to place a single new thread of a pool whose threads all share the same name prefix.
+     *
+     * @return the java thread of each tid, or null if one of the tids has no unique match
+     */
+    static LongObjectHashMap<ThreadInfo> matchByComm(
+            LongObjectHashMap<String> comms, List<ThreadInfo> candidates) {
+        Map<String, List<Long>> tidsByComm = new HashMap<>();
+        comms.forEach(
+                (tid, comm) -> tidsByComm.computeIfAbsent(comm, k -> new ArrayList<>()).add(tid));
+        Map<String, List<ThreadInfo>> threadsByComm = new HashMap<>();
+        for (ThreadInfo info : candidates) {
+            String comm = toComm(info.getThreadName());
+            if (tidsByComm.containsKey(comm)) {
+                threadsByComm.computeIfAbsent(comm, k -> new ArrayList<>()).add(info);
+            }
+        }
+
+        LongObjectHashMap<ThreadInfo> resolved = new LongObjectHashMap<>(comms.size());
+        for (Map.Entry<String, List<Long>> entry : tidsByComm.entrySet()) {
+            List<ThreadInfo> threads = threadsByComm.get(entry.getKey());
+            if (entry.getValue().size() != 1 || threads == null || threads.size() != 1) {
+                return null;
+            }
+            resolved.put(entry.getValue().get(0), threads.get(0));
+        }
+        return resolved;
+    }
+
+    /**
+     * Truncates a thread name to the first {@link #COMM_NAME_LENGTH} bytes of its UTF-8 encoding,
+     * as the kernel does, and decodes it the way the comm file is decoded.
+     */
+    static String toComm(String threadName) {
+        byte[] bytes = threadName.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= COMM_NAME_LENGTH) {
+            return threadName.trim();
+        }
+        return new String(bytes, 0, COMM_NAME_LENGTH, StandardCharsets.UTF_8).trim();
+    }
+
+    /** Drops the threads that were not seen in the current dump and republishes jTidMap. */
+    private static void publishThreadStates() {
+        if (nativeTidMap.removeIf((tid, t) -> t.lastSeenDump != dumpCount) > 0) {
+            threadsChanged = true;
+        }
+        if (threadsChanged) {
+            LongObjectHashMap<ThreadState> newJTidMap =
+                    new LongObjectHashMap<>(nativeTidMap.size());
+            nativeTidMap.forEach((tid, t) -> newJTidMap.put(t.javaTid, t));
+            jTidMap = newJTidMap;
+        }
+    }
+
+    /**
+     * Returns the state of a thread seen in the current dump, creating it if the thread is new or
+     * its native tid was reused by another java thread.
+     */
+    private static ThreadState track(long nativeTid, long javaTid) {
+        ThreadState t = nativeTidMap.get(nativeTid);
+        if (t == null || t.javaTid != javaTid) {
+            t = new ThreadState();
+            t.javaTid = javaTid;
+            t.nativeTid = nativeTid;
+            t.nativeStartTime = readStartTime(pid, nativeTid);
+            nativeTidMap.put(nativeTid, t);
+            threadsChanged = true;
+        } else {
+            t.hasPrevious = lastDumpSucceeded && t.lastSeenDump == dumpCount - 1;
+            if (!t.hasPrevious) {
+                t.reset();
+            }
+            t.heapAllocRate = 0;
+            t.avgBlockedTime = 0;
+            t.avgWaitedTime = 0;
+        }
+        t.lastSeenDump = dumpCount;
+        return t;
+    }
+
     private static void parseLine(String line) {
         String[] tokens = line.split(" os_prio=[0-9]* ");
-        ThreadState t = new ThreadState();
-        t.javaTid = -1;
+        String threadName;
+        long javaTid = -1;
+        long nativeTid = -1;
 
         Matcher m = linePattern.matcher(tokens[0]);
         if (!m.find()) {
-            t.threadName = tokens[0];
+            threadName = tokens[0];
         } else {
-            t.threadName = m.group(1);
-            if (!tokens[0].equals("\"" + t.threadName + "\"")) {
-                t.javaTid =
+            threadName = m.group(1);
+            if (!tokens[0].equals("\"" + threadName + "\"")) {
+                javaTid =
                         Long.parseLong(
                                 tokens[0]
-                                        .split(Pattern.quote("\"" + t.threadName + "\" "))[1]
+                                        .split(Pattern.quote("\"" + threadName + "\" "))[1]
                                         .split(" ")[0]
                                         .split("#")[1]);
             }
@@ -357,17 +642,17 @@ public class ThreadList {
             if (keyValuePare.length < 2) {
                 continue;
             }
-            if (t.javaTid == -1 && keyValuePare[0].equals("tid")) {
-                t.javaTid = Long.decode(keyValuePare[1]);
+            if (javaTid == -1 && keyValuePare[0].equals("tid")) {
+                javaTid = Long.decode(keyValuePare[1]);
             }
             if (keyValuePare[0].equals("nid")) {
-                t.nativeTid = Long.decode(keyValuePare[1]);
+                nativeTid = Long.decode(keyValuePare[1]);
             }
         }
+
+        ThreadState t = track(nativeTid, javaTid);
+        t.threadName = threadName;
         t.tState = tokens[2]; // TODO: stuff like "in Object.wait()"
-        nativeTidMap.put(t.nativeTid, t);
-        jTidMap.put(t.javaTid, t);
-        nameMap.put(t.threadName, t); // XXX: we assume no collisions
     }
 
     private static void createMap(InputStream in) throws Exception {
@@ -382,8 +667,10 @@ public class ThreadList {
 
     // currently stores thread states to track locking periods
     static class ThreadHistory {
-        public static Map<Long, CircularLongArray> blockedTidHistoryMap = new HashMap<>();
-        public static Map<Long, CircularLongArray> waitedTidHistoryMap = new HashMap<>();
+        public static LongObjectHashMap<CircularLongArray> blockedTidHistoryMap =
+                new LongObjectHashMap<>();
+        public static LongObjectHashMap<CircularLongArray> waitedTidHistoryMap =
+                new LongObjectHashMap<>();
         private static final int HISTORY_SIZE = 60; // 60 * samplingInterval
 
         public static void addBlocked(long tid, long value) {
@@ -400,7 +687,8 @@ public class ThreadList {
             cleanUp(curTime, waitedTidHistoryMap);
         }
 
-        private static void add(long tid, long value, Map<Long, CircularLongArray> tidHistoryMap) {
+        private static void add(
+                long tid, long value, LongObjectHashMap<CircularLongArray> tidHistoryMap) {
             CircularLongArray arr = tidHistoryMap.get(tid);
             if (arr == null) {
                 arr = new CircularLongArray(HISTORY_SIZE);
@@ -411,57 +699,49 @@ public class ThreadList {
             }
         }
 
-        private static void cleanUp(long curTime, Map<Long, CircularLongArray> tidHistoryMap) {
-            for (Iterator<Map.Entry<Long, CircularLongArray>> it =
-                            tidHistoryMap.entrySet().iterator();
-                    it.hasNext(); ) {
-                Map.Entry<Long, CircularLongArray> me = it.next();
-                CircularLongArray arr = me.getValue();
-                // delete items updated older than 300s
-                if (curTime - arr.lastWriteTimestamp > HISTORY_SIZE * samplingInterval * 1.0e3) {
-                    it.remove();
-                }
-            }
+        private static void cleanUp(
+                long curTime, LongObjectHashMap<CircularLongArray> tidHistoryMap) {
+            // delete items updated older than 300s
+            tidHistoryMap.removeIf(
+                    (tid, arr) ->
+                            curTime - arr.lastWriteTimestamp
+                                    > HISTORY_SIZE * samplingInterval * 1.0e3);
         }
     }
 
     // models a fixed-capacity queue that is append-only
     // not thread-safe
     static class CircularLongArray {
-        ArrayList<Long> list = null;
+        private final long[] values;
         public long lastWriteTimestamp;
         private long totalValue;
         private int startidx;
-        private int capacity;
+        private int size;
 
         CircularLongArray(int capacity) {
-            list = new ArrayList<>(capacity);
-            this.capacity = capacity;
+            values = new long[capacity];
             totalValue = 0;
             startidx = 0;
+            size = 0;
             lastWriteTimestamp = 0;
         }
 
         public boolean add(long e) {
             lastWriteTimestamp = System.currentTimeMillis();
-            if (list.size() < capacity) {
-                // can only happen if startidx == 0
-                if (startidx != 0) {
-                    return false;
-                } else {
-                    totalValue += e;
-                    return list.add(e);
-                }
+            if (size < values.length) {
+                totalValue += e;
+                values[size++] = e;
+                return true;
             }
-            totalValue -= list.get(startidx);
+            totalValue -= values[startidx];
             totalValue += e;
-            list.set(startidx, e);
-            startidx = (startidx + 1) % capacity;
+            values[startidx] = e;
+            startidx = (startidx + 1) % values.length;
             return true;
         }
 
         public double getAvgValue() {
-            return list.size() == 0 ? 0 : 1.0 * totalValue / list.size();
+            return size == 0 ? 0 : 1.0 * totalValue / size;
         }
     }
 }
@@ -30,10 +30,14 @@ package org.opensearch.performanceanalyzer.metrics;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import org.opensearch.performanceanalyzer.grpc.MetricsResponse;
+import org.opensearch.performanceanalyzer.grpc.MetricsTable;
+import org.opensearch.performanceanalyzer.metrics.handler.MetricsTableConverter;
 
 public class MetricsRestUtil {
 
@@ -60,6 +64,39 @@ public class MetricsRestUtil {
         return outputJson.toString();
     }
 
+    /**
+     * Same as {@link #nodeJsonBuilder}, for nodes that answered with {@link MetricsResponse}s whose
+     * JSON is rendered here.
+     */
+    public String nodeResponsesJsonBuilder(
+            ConcurrentHashMap<String, List<MetricsResponse>> nodeResponses) {
+        StringBuilder outputJson = new StringBuilder();
+        outputJson.append("{");
+        Set<String> nodeSet = nodeResponses.keySet();
+        String[] nodes = nodeSet.toArray(new String[nodeSet.size()]);
+        for (int i = 0; i < nodes.length; i++) {
+            outputJson.append(i == 0 ? "\"" : ", \"");
+            outputJson.append(nodes[i]);
+            outputJson.append(i == 0 ? "\": " : "\" :");
+            MetricsTableConverter.appendJson(outputJson, nodeResponses.get(nodes[i]));
+        }
+
+        outputJson.append("}");
+        return outputJson.toString();
+    }
+
+    /** Renders the table merged from the responses of all the nodes, under the "cluster" key. */
+    public String clusterJsonBuilder(MetricsTable table) {
+        StringBuilder outputJson = new StringBuilder();
+        outputJson.append("{\"cluster\": ");
+        MetricsTableConverter.appendJson(
+                outputJson,
+                Collections.singletonList(
+                        MetricsResponse.newBuilder().setMetricsTable(table).build()));
+        outputJson.append("}");
+        return outputJson.toString();
+    }
+
     public List<String> parseArrayParam(Map<String, String> params, String name, boolean optional)
             throws InvalidParameterException {
         if (!optional) {
@@ -0,0 +1,258 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metrics.handler;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opensearch.performanceanalyzer.grpc.MetricColumn;
+import org.opensearch.performanceanalyzer.grpc.MetricsTable;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+
+/**
+ * Merges the {@link MetricsTable}s of several nodes into cluster-wide aggregates: rows with the
+ * same dimension values are combined with the aggregation of each metric. Sums, minimums and
+ * maximums merge as such, while averages are weighted by the row counts of the tables, which nodes
+ * return for requests with partial aggregates. A table without row counts counts as one row per
+ * value.
+ */
+public final class ClusterMetricsAggregator {
+
+    private ClusterMetricsAggregator() {}
+
+    /**
+     * Whether the nodes can keep only their own top rows without changing the merged top rows.
+     * This holds when rows are ranked by a maximum: a row in the merged top N has its maximum on
+     * some node, where fewer than N rows can rank higher. It does not hold for sums, minimums or
+     * averages, where a row can make the merged top N without being in the top N of any node.
+     *
+     * <p>It also only holds for a single metric. A row in the merged top N can still be trimmed by
+     * the nodes where it ranks low, and those nodes' values of the other metrics would then be
+     * missing from the merged row, whatever their aggregation.
+     */
+    public static boolean canPushDownLimit(List<String> aggregations) {
+        return aggregations.size() == 1 && MetricsDB.MAX.equals(aggregations.get(0));
+    }
+
+    /**
+     * @param limit if positive, only the rows with the {@code limit} highest values of the first
+     *     metric are kept
+     * @return the merged table, with the latest timestamp of the tables; a table without metric
+     *     columns if none of the tables has any
+     */
+    public static MetricsTable merge(
+            Collection<MetricsTable> tables,
+            List<String> metrics,
+            List<String> aggregations,
+            List<String> dimensions,
+            int limit) {
+        long timestamp = 0;
+        boolean hasColumns = false;
+        Map<List<String>, Row> rows = new LinkedHashMap<>();
+        for (MetricsTable table : tables) {
+            timestamp = Math.max(timestamp, table.getTimestamp());
+            if (table.getMetricColumnsCount() == 0) {
+                continue;
+            }
+            hasColumns = true;
+            int metricCount = Math.min(metrics.size(), table.getMetricColumnsCount());
+            for (int r = 0; r < table.getRowCount(); r++) {
+                String[] key = dimensionValues(table, r);
+                Row row =
+                        rows.computeIfAbsent(Arrays.asList(key), k -> new Row(key, metrics.size()));
+                for (int m = 0; m < metricCount; m++) {
+                    MetricColumn column = table.getMetricColumns(m);
+                    long count = column.getRowCountsCount() > r ? column.getRowCounts(r) : 1;
+                    row.add(m, aggregations.get(m), column.getValues(r), Math.max(1, count));
+                }
+            }
+        }
+        if (!hasColumns) {
+            return MetricsTable.newBuilder().setTimestamp(timestamp).build();
+        }
+
+        List<Row> merged = new ArrayList<>(rows.values());
+        for (Row row : merged) {
+            row.finish(aggregations);
+        }
+        return build(timestamp, dimensions, metrics, aggregations, top(merged, limit), false);
+    }
+
+    /** Returns the table with only the {@code limit} rows with the highest first metric. */
+    public static MetricsTable top(MetricsTable table, int limit) {
+        if (limit <= 0 || table.getRowCount() <= limit || table.getMetricColumnsCount() == 0) {
+            return table;
+        }
+        int metricCount = table.getMetricColumnsCount();
+        List<String> metrics = new ArrayList<>(metricCount);
+        List<String> aggregations = new ArrayList<>(metricCount);
+        boolean rowCounts = false;
+        for (MetricColumn column : table.getMetricColumnsList()) {
+            metrics.add(column.getMetric());
+            aggregations.add(column.getAggregation());
+            rowCounts |= column.getRowCountsCount() > 0;
+        }
+        List<Row> rows = new ArrayList<>(table.getRowCount());
+        for (int r = 0; r < table.getRowCount(); r++) {
+            Row row = new Row(dimensionValues(table, r), metricCount);
+            for (int m = 0; m < metricCount; m++) {
+                MetricColumn column = table.getMetricColumns(m);
+                row.values[m] = column.getValues(r);
+                row.counts[m] = column.getRowCountsCount() > r ? column.getRowCounts(r) : 0;
+            }
+            rows.add(row);
+        }
+        return build(
+                table.getTimestamp(),
+                table.getDimensionNamesList(),
+                metrics,
+                aggregations,
+                top(rows, limit),
+                rowCounts);
+    }
+
+    private static List<Row> top(List<Row> rows, int limit) {
+        if (limit <= 0 || rows.size() <= limit) {
+            return rows;
+        }
+        rows.sort(
+                (a, b) -> {
+                    double x = a.values[0];
+                    double y = b.values[0];
+                    if (Double.isNaN(x) || Double.isNaN(y)) {
+                        return Boolean.compare(Double.isNaN(x), Double.isNaN(y));
+                    }
+                    return Double.compare(y, x);
+                });
+        return rows.subList(0, limit);
+    }
+
+    private static String[] dimensionValues(MetricsTable table, int row) {
+        int dimensionCount = table.getDimensionNamesCount();
+        String[] values = new String[dimensionCount];
+        for (int d = 0; d < dimensionCount; d++) {
+            int id = table.getDimensionValues(row * dimensionCount + d);
+            values[d] = id < 0 ? null : table.getDictionary(id);
+        }
+        return values;
+    }
+
+    private static MetricsTable build(
+            long timestamp,
+            List<String> dimensions,
+            List<String> metrics,
+            List<String> aggregations,
+            List<Row> rows,
+            boolean rowCounts) {
+        MetricsTable.Builder table =
+                MetricsTable.newBuilder()
+                        .setTimestamp(timestamp)
+                        .setRowCount(rows.size())
+                        .addAllDimensionNames(dimensions);
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (Row row : rows) {
+            for (String value : row.dimensions) {
+                if (value == null) {
+                    table.addDimensionValues(-1);
+                    continue;
+                }
+                Integer id = dictionary.get(value);
+                if (id == null) {
+                    id = dictionary.size();
+                    dictionary.put(value, id);
+                    table.addDictionary(value);
+                }
+                table.addDimensionValues(id);
+            }
+        }
+        for (int m = 0; m < metrics.size(); m++) {
+            MetricColumn.Builder column =
+                    MetricColumn.newBuilder()
+                            .setMetric(metrics.get(m))
+                            .setAggregation(aggregations.get(m));
+            for (Row row : rows) {
+                column.addValues(row.values[m]);
+                if (rowCounts) {
+                    column.addRowCounts(row.counts[m]);
+                }
+            }
+            table.addMetricColumns(column);
+        }
+        return table.build();
+    }
+
+    /** The values of one group of dimension values; averages are sums until finished. */
+    private static final class Row {
+        private final String[] dimensions;
+        private final double[] values;
+        private final long[] counts;
+
+        Row(String[] dimensions, int metricCount) {
+            this.dimensions = dimensions;
+            this.values = new double[metricCount];
+            this.counts = new long[metricCount];
+            Arrays.fill(values, Double.NaN);
+        }
+
+        void add(int metric, String aggregation, double value, long count) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            double current = values[metric];
+            switch (aggregation) {
+                case MetricsDB.SUM:
+                    values[metric] = Double.isNaN(current) ? value : current + value;
+                    break;
+                case MetricsDB.MIN:
+                    values[metric] = Double.isNaN(current) ? value : Math.min(current, value);
+                    break;
+                case MetricsDB.MAX:
+                    values[metric] = Double.isNaN(current) ? value : Math.max(current, value);
+                    break;
+                case MetricsDB.AVG:
+                    values[metric] = (Double.isNaN(current) ? 0 : current) + value * count;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown agg type " + aggregation);
+            }
+            counts[metric] += count;
+        }
+
+        void finish(List<String> aggregations) {
+            for (int m = 0; m < values.length; m++) {
+                if (MetricsDB.AVG.equals(aggregations.get(m)) && counts[m] > 0) {
+                    values[m] /= counts[m];
+                }
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ package org.opensearch.performanceanalyzer.metrics.handler;
 
 
 import io.grpc.stub.StreamObserver;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.apache.logging.log4j.LogManager;
@@ -36,6 +37,7 @@ import org.jooq.Record;
 import org.jooq.Result;
 import org.opensearch.performanceanalyzer.grpc.MetricsRequest;
 import org.opensearch.performanceanalyzer.grpc.MetricsResponse;
+import org.opensearch.performanceanalyzer.grpc.MetricsTable;
 import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
 import org.opensearch.performanceanalyzer.reader.ReaderMetricsProcessor;
 
@@ -57,12 +59,42 @@ public class MetricsServerHandler {
             List<String> aggList = request.getAggListList();
             List<String> dimList = request.getDimListList();
 
-            collectStats(db, dbTimestamp, metricList, aggList, dimList, responseObserver);
+            if (request.getStructured()) {
+                collectStructuredStats(db, dbTimestamp, request, responseObserver);
+            } else {
+                collectStats(db, dbTimestamp, metricList, aggList, dimList, responseObserver);
+            }
         } catch (Exception e) {
             LOG.error("Exception during collecting API data", e);
         }
     }
 
+    /**
+     * Answers the StreamMetrics rpc: the query result is sent as tables of at most {@link
+     * MetricsTableConverter#STREAM_CHUNK_ROWS} rows, so that neither side has to hold the whole
+     * result in one message.
+     */
+    public void streamAPIData(
+            MetricsRequest request, StreamObserver<MetricsResponse> responseObserver) {
+        try {
+            ReaderMetricsProcessor mp = ReaderMetricsProcessor.getInstance();
+            Map.Entry<Long, MetricsDB> dbEntry = mp.getMetricsDB();
+            for (MetricsTable table :
+                    queryTables(
+                            dbEntry.getValue(),
+                            dbEntry.getKey(),
+                            request,
+                            MetricsTableConverter.STREAM_CHUNK_ROWS)) {
+                responseObserver.onNext(
+                        MetricsResponse.newBuilder().setMetricsTable(table).build());
+            }
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            LOG.error("Exception during streaming API data", e);
+            responseObserver.onError(e);
+        }
+    }
+
     public void collectStats(
             MetricsDB db,
             Long dbTimestamp,
@@ -88,6 +120,50 @@ public class MetricsServerHandler {
         sendResponse(localResponseWithTimestamp, responseObserver);
     }
 
+    /** Same as {@link #collectStats}, with the result sent as a {@link MetricsTable}. */
+    public void collectStructuredStats(
+            MetricsDB db,
+            Long dbTimestamp,
+            MetricsRequest request,
+            StreamObserver<MetricsResponse> responseObserver)
+            throws Exception {
+        MetricsTable table = queryTables(db, dbTimestamp, request, Integer.MAX_VALUE).get(0);
+        responseObserver.onNext(MetricsResponse.newBuilder().setMetricsTable(table).build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Queries the db for a structured request, in tables of at most {@code maxRows} rows. Requests
+     * for partial aggregates get the row counts of the metric columns and, with a limit the merge
+     * allows to push down, a single table of their top rows.
+     */
+    private static List<MetricsTable> queryTables(
+            MetricsDB db, long timestamp, MetricsRequest request, int maxRows) throws Exception {
+        List<String> metricList = request.getMetricListList();
+        List<String> aggList = request.getAggListList();
+        List<String> dimList = request.getDimListList();
+        boolean partial = request.getPartialAggregates();
+
+        Result<Record> metricResult = null;
+        if (db != null) {
+            metricResult =
+                    partial
+                            ? db.queryMetricPartials(metricList, aggList, dimList)
+                            : db.queryMetric(metricList, aggList, dimList);
+        }
+        if (partial
+                && request.getLimit() > 0
+                && ClusterMetricsAggregator.canPushDownLimit(aggList)) {
+            MetricsTable table =
+                    MetricsTableConverter.toTable(
+                            timestamp, metricResult, metricList, aggList, dimList, true);
+            return Collections.singletonList(
+                    ClusterMetricsAggregator.top(table, request.getLimit()));
+        }
+        return MetricsTableConverter.toTables(
+                timestamp, metricResult, metricList, aggList, dimList, partial, maxRows);
+    }
+
     private void sendResponse(String result, StreamObserver<MetricsResponse> responseObserver) {
         responseObserver.onNext(MetricsResponse.newBuilder().setMetricsResult(result).build());
         responseObserver.onCompleted();
@@ -0,0 +1,300 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metrics.handler;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.opensearch.performanceanalyzer.grpc.MetricColumn;
+import org.opensearch.performanceanalyzer.grpc.MetricsResponse;
+import org.opensearch.performanceanalyzer.grpc.MetricsTable;
+
+/**
+ * Converts the result of {@link org.opensearch.performanceanalyzer.metricsdb.MetricsDB#queryMetric}
+ * into {@link MetricsTable}s for the GetMetrics and StreamMetrics rpcs, and renders the tables of a
+ * node as the JSON the REST api has always returned for it, so that JSON is only built once, on the
+ * node that answers the REST request.
+ */
+public final class MetricsTableConverter {
+    /** Rows per response of the StreamMetrics rpc. */
+    public static final int STREAM_CHUNK_ROWS = 1024;
+
+    private static final String DIMENSION_TYPE = "VARCHAR";
+    private static final String METRIC_TYPE = "DOUBLE";
+
+    private MetricsTableConverter() {}
+
+    /**
+     * @param result the result of a metricsdb query, with one column per dimension followed by one
+     *     column per metric; null if none of the metrics exist
+     */
+    public static MetricsTable toTable(
+            long timestamp,
+            Result<Record> result,
+            List<String> metrics,
+            List<String> aggregations,
+            List<String> dimensions) {
+        return toTable(timestamp, result, metrics, aggregations, dimensions, false);
+    }
+
+    /**
+     * @param rowCounts whether the result is one of {@link
+     *     org.opensearch.performanceanalyzer.metricsdb.MetricsDB#queryMetricPartials}, whose row
+     *     count columns follow the metric columns and go into the row counts of the metric columns
+     */
+    public static MetricsTable toTable(
+            long timestamp,
+            Result<Record> result,
+            List<String> metrics,
+            List<String> aggregations,
+            List<String> dimensions,
+            boolean rowCounts) {
+        return toTable(
+                timestamp,
+                result,
+                metrics,
+                aggregations,
+                dimensions,
+                rowCounts,
+                0,
+                result == null ? 0 : result.size());
+    }
+
+    /**
+     * Same as {@link #toTable}, split into tables of at most {@code maxRows} rows, each with its
+     * own dictionary. There is always at least one table.
+     */
+    public static List<MetricsTable> toTables(
+            long timestamp,
+            Result<Record> result,
+            List<String> metrics,
+            List<String> aggregations,
+            List<String> dimensions,
+            boolean rowCounts,
+            int maxRows) {
+        List<MetricsTable> tables = new ArrayList<>();
+        int rows = result == null ? 0 : result.size();
+        int from = 0;
+        do {
+            int to = Math.min(rows, from + maxRows);
+            tables.add(
+                    toTable(
+                            timestamp,
+                            result,
+                            metrics,
+                            aggregations,
+                            dimensions,
+                            rowCounts,
+                            from,
+                            to));
+            from = to;
+        } while (from < rows);
+        return tables;
+    }
+
+    private static MetricsTable toTable(
+            long timestamp,
+            Result<Record> result,
+            List<String> metrics,
+            List<String> aggregations,
+            List<String> dimensions,
+            boolean rowCounts,
+            int from,
+            int to) {
+        MetricsTable.Builder table = MetricsTable.newBuilder().setTimestamp(timestamp);
+        if (result == null) {
+            return table.build();
+        }
+        table.setRowCount(to - from).addAllDimensionNames(dimensions);
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (int row = from; row < to; row++) {
+            Record record = result.get(row);
+            for (int d = 0; d < dimensions.size(); d++) {
+                Object value = record.get(d);
+                if (value == null) {
+                    table.addDimensionValues(-1);
+                    continue;
+                }
+                String dimension = value.toString();
+                Integer id = dictionary.get(dimension);
+                if (id == null) {
+                    id = dictionary.size();
+                    dictionary.put(dimension, id);
+                    table.addDictionary(dimension);
+                }
+                table.addDimensionValues(id);
+            }
+        }
+
+        for (int m = 0; m < metrics.size(); m++) {
+            MetricColumn.Builder column =
+                    MetricColumn.newBuilder()
+                            .setMetric(metrics.get(m))
+                            .setAggregation(aggregations.get(m));
+            int field = dimensions.size() + m;
+            for (int row = from; row < to; row++) {
+                Object value = result.get(row).get(field);
+                column.addValues(
+                        value instanceof Number ? ((Number) value).doubleValue() : Double.NaN);
+            }
+            if (rowCounts) {
+                int countField = dimensions.size() + metrics.size() + m;
+                for (int row = from; row < to; row++) {
+                    Object count = result.get(row).get(countField);
+                    column.addRowCounts(count instanceof Number ? ((Number) count).longValue() : 0);
+                }
+            }
+            table.addMetricColumns(column);
+        }
+        return table.build();
+    }
+
+    /**
+     * Appends the JSON of a node's responses: the {@code metrics_result} string of a node that does
+     * not return tables, or else the rows of all the tables in the format of {@code
+     * "{"timestamp": ts, "data": result.formatJSON()}"}.
+     */
+    public static void appendJson(StringBuilder out, List<MetricsResponse> responses) {
+        if (responses.isEmpty()) {
+            out.append("{}");
+            return;
+        }
+        if (!responses.get(0).hasMetricsTable()) {
+            out.append(responses.get(0).getMetricsResult());
+            return;
+        }
+        MetricsTable first = responses.get(0).getMetricsTable();
+        out.append("{\"timestamp\": ").append(first.getTimestamp()).append(", \"data\": ");
+        if (first.getMetricColumnsCount() == 0) {
+            out.append("{}}");
+            return;
+        }
+
+        out.append("{\"fields\":[");
+        for (int d = 0; d < first.getDimensionNamesCount(); d++) {
+            appendField(out, first.getDimensionNames(d), DIMENSION_TYPE, d == 0);
+        }
+        for (int m = 0; m < first.getMetricColumnsCount(); m++) {
+            appendField(
+                    out,
+                    first.getMetricColumns(m).getMetric(),
+                    METRIC_TYPE,
+                    m == 0 && first.getDimensionNamesCount() == 0);
+        }
+        out.append("],\"records\":[");
+        boolean firstRow = true;
+        for (MetricsResponse response : responses) {
+            MetricsTable table = response.getMetricsTable();
+            int dimensionCount = table.getDimensionNamesCount();
+            for (int row = 0; row < table.getRowCount(); row++) {
+                out.append(firstRow ? "[" : ",[");
+                firstRow = false;
+                for (int d = 0; d < dimensionCount; d++) {
+                    if (d > 0) {
+                        out.append(',');
+                    }
+                    int id = table.getDimensionValues(row * dimensionCount + d);
+                    if (id < 0) {
+                        out.append("null");
+                    } else {
+                        appendString(out, table.getDictionary(id));
+                    }
+                }
+                for (int m = 0; m < table.getMetricColumnsCount(); m++) {
+                    if (dimensionCount > 0 || m > 0) {
+                        out.append(',');
+                    }
+                    double value = table.getMetricColumns(m).getValues(row);
+                    if (Double.isNaN(value) || Double.isInfinite(value)) {
+                        out.append("null");
+                    } else {
+                        out.append(value);
+                    }
+                }
+                out.append(']');
+            }
+        }
+        out.append("]}}");
+    }
+
+    private static void appendField(StringBuilder out, String name, String type, boolean first) {
+        if (!first) {
+            out.append(',');
+        }
+        out.append("{\"name\":");
+        appendString(out, name);
+        out.append(",\"type\":\"").append(type).append("\"}");
+    }
+
+    /** Appends a JSON string, escaped the way the JSON of jOOQ results is. */
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '/':
+                    out.append("\\/");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c <= '\u001F'
+                            || (c >= '\u007F' && c <= '\u009F')
+                            || (c >= '\u2000' && c <= '\u20FF')) {
+                        out.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -41,6 +41,15 @@ public interface OSMetricsGenerator {
 
     DiskIOMetricsGenerator getDiskIOMetricsGenerator();
 
+    /**
+     * Samples the CPU, paging, scheduler and disk IO metrics of all threads in one pass, in place
+     * of calling addSample on each of the per-thread generators.
+     *
+     * @param threads number of workers used to read the per-thread files; 0 reads them on the
+     *     calling thread
+     */
+    void addThreadSamples(int threads);
+
     TCPMetricsGenerator getTCPMetricsGenerator();
 
     IPMetricsGenerator getIPMetricsGenerator();
@@ -76,9 +76,12 @@ public class LinuxCPUPagingActivityGenerator implements CPUPagingActivityGenerat
     @Override
     public void addSample() {
 
+        ThreadCPU.INSTANCE.addSample();
+    }
+
+    public void clear() {
         cpu.clear();
         pagingActivities.clear();
-        ThreadCPU.INSTANCE.addSample();
     }
 
     public void setCPUUtilization(final String threadId, final Double cpuUtilization) {
@@ -44,6 +44,7 @@ import org.opensearch.performanceanalyzer.os.OSGlobals;
 import org.opensearch.performanceanalyzer.os.ThreadCPU;
 import org.opensearch.performanceanalyzer.os.ThreadDiskIO;
 import org.opensearch.performanceanalyzer.os.ThreadSched;
+import org.opensearch.performanceanalyzer.os.ThreadTaskWalker;
 
 public class LinuxOSMetricsGenerator implements OSMetricsGenerator {
 
@@ -81,6 +82,11 @@ public class LinuxOSMetricsGenerator implements OSMetricsGenerator {
         return ThreadDiskIO.getIOUtilization();
     }
 
+    @Override
+    public void addThreadSamples(int threads) {
+        ThreadTaskWalker.INSTANCE.addSample(threads);
+    }
+
     @Override
     public SchedMetricsGenerator getSchedMetricsGenerator() {
 
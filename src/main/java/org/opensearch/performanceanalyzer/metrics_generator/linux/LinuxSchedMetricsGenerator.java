@@ -67,10 +67,13 @@ public class LinuxSchedMetricsGenerator implements SchedMetricsGenerator {
     @Override
     public void addSample() {
 
-        schedMetricsMap.clear();
         ThreadSched.INSTANCE.addSample();
     }
 
+    public void clear() {
+        schedMetricsMap.clear();
+    }
+
     public void setSchedMetric(final String threadId, final ThreadSched.SchedMetrics schedMetrics) {
 
         schedMetricsMap.put(threadId, schedMetrics);
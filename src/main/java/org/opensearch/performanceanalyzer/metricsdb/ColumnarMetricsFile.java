@@ -0,0 +1,775 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metricsdb;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.opensearch.performanceanalyzer.DBUtils;
+import org.opensearch.performanceanalyzer.reader.Removable;
+
+/**
+ * Immutable, columnar copy of a metricsdb window. The file is written once, sequentially, and can
+ * be queried without opening a JDBC connection.
+ *
+ * <p>Layout: a header (magic, version), one chunk per metric, a footer index mapping each metric
+ * to the offset and length of its chunk and a trailer holding the footer offset and the magic
+ * again. A chunk stores the dimension names, the row count, one dictionary and one code column
+ * per dimension (code -1 is null), the sum, avg, min and max columns as float64 (NaN is null) and
+ * a flag followed, if it is set, by a float64 column of row counts: a row that stands for several
+ * metricsdb rows, like a rollup row, weighs that much in an avg.
+ *
+ * <p>The query methods follow the semantics of the {@link MetricsDB} methods of the same name.
+ */
+public class ColumnarMetricsFile implements Removable {
+
+    private static final Logger LOG = LogManager.getLogger(ColumnarMetricsFile.class);
+
+    public static final String FILE_SUFFIX = ".col";
+    private static final int MAGIC = 0x50414d43;
+    private static final int VERSION = 1;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int NULL_CODE = -1;
+    private static final String[] AGGREGATIONS = {
+        MetricsDB.SUM, MetricsDB.AVG, MetricsDB.MIN, MetricsDB.MAX
+    };
+    private static final Comparator<List<String>> GROUP_ORDER = ColumnarMetricsFile::compareGroups;
+
+    private final long windowStartTime;
+    private final FileChannel channel;
+    private final Map<String, long[]> index;
+    private final Map<String, Chunk> chunks = new HashMap<>();
+    private final DSLContext create = DSL.using(SQLDialect.SQLITE);
+
+    private ColumnarMetricsFile(long windowStartTime, FileChannel channel) throws IOException {
+        this.windowStartTime = windowStartTime;
+        this.channel = channel;
+        this.index = readIndex(channel);
+    }
+
+    public static String getFilePath(long windowStartTime) {
+        return MetricsDB.getDBFilePath(windowStartTime) + FILE_SUFFIX;
+    }
+
+    public static boolean exists(long windowStartTime) {
+        return Files.exists(Paths.get(getFilePath(windowStartTime)));
+    }
+
+    /**
+     * Opens the columnar file written for the given window.
+     *
+     * @param windowStartTime the timestamp associated with an existing metricsdb window
+     * @return a handle on the columnar file
+     * @throws IOException if the file does not exist or is not a valid columnar metrics file
+     */
+    public static ColumnarMetricsFile fetchExisting(long windowStartTime) throws IOException {
+        return open(Paths.get(getFilePath(windowStartTime)), windowStartTime);
+    }
+
+    /**
+     * Opens a columnar file at an arbitrary location.
+     *
+     * @param path the location of the file
+     * @param windowStartTime the timestamp of the data held by the file
+     * @return a handle on the columnar file
+     * @throws IOException if the file does not exist or is not a valid columnar metrics file
+     */
+    public static ColumnarMetricsFile open(Path path, long windowStartTime) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ColumnarMetricsFile(windowStartTime, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes every metric table of a committed metricsdb into the columnar file of its window. When
+     * the metricsdb kept a columnar copy of its rows, the copy is written as is; otherwise every
+     * table is read back from sqlite.
+     *
+     * @param db the metricsdb to copy
+     * @param windowStartTime the timestamp of the window held by the metricsdb
+     */
+    public static void write(MetricsDB db, long windowStartTime) throws IOException, SQLException {
+        Builder builder = db.getColumnarCopy();
+        if (builder == null) {
+            builder = new Builder();
+            scan(db, builder::metric);
+        }
+        builder.writeTo(Paths.get(getFilePath(windowStartTime)));
+    }
+
+    /**
+     * Reads every row of every metric table of a metricsdb. Rows come from the columnar copy of the
+     * metricsdb when it kept one, and from sqlite otherwise.
+     *
+     * @param db the metricsdb to read
+     * @param sinks returns, for a metric and its dimension names, the sink its rows are added to
+     */
+    public static void scan(MetricsDB db, BiFunction<String, List<String>, RowSink> sinks)
+            throws SQLException {
+        Builder copy = db.getColumnarCopy();
+        if (copy != null) {
+            copy.scan(sinks);
+            return;
+        }
+        DSLContext dbCreate = db.getDSLContext();
+        List<String> tables =
+                dbCreate.select(DSL.field("name", String.class))
+                        .from(DSL.table("sqlite_master"))
+                        .where(DSL.field("type", String.class).eq("table"))
+                        .orderBy(DSL.field("name"))
+                        .fetch(0, String.class);
+        for (String table : tables) {
+            try (ResultSet rs =
+                    dbCreate.select().from(DSL.table(DSL.name(table))).fetchResultSet()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                List<String> dimensions = new ArrayList<>();
+                List<Integer> dimensionColumns = new ArrayList<>();
+                int[] aggColumns = new int[AGGREGATIONS.length];
+                for (int col = 1; col <= metaData.getColumnCount(); col++) {
+                    String name = metaData.getColumnName(col);
+                    int agg = Arrays.asList(AGGREGATIONS).indexOf(name);
+                    if (agg >= 0) {
+                        aggColumns[agg] = col;
+                    } else {
+                        dimensions.add(name);
+                        dimensionColumns.add(col);
+                    }
+                }
+                RowSink sink = sinks.apply(table, dimensions);
+                String[] dimensionValues = new String[dimensions.size()];
+                double[] aggValues = new double[AGGREGATIONS.length];
+                while (rs.next()) {
+                    for (int i = 0; i < dimensionValues.length; i++) {
+                        dimensionValues[i] = rs.getString(dimensionColumns.get(i));
+                    }
+                    for (int i = 0; i < aggValues.length; i++) {
+                        aggValues[i] = Double.NaN;
+                        if (aggColumns[i] > 0) {
+                            double value = rs.getDouble(aggColumns[i]);
+                            aggValues[i] = rs.wasNull() ? Double.NaN : value;
+                        }
+                    }
+                    sink.addRow(
+                            dimensionValues,
+                            aggValues[0],
+                            aggValues[1],
+                            aggValues[2],
+                            aggValues[3]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the columnar file associated with the given timestamp if it exists.
+     *
+     * @param windowStartTime the timestamp associated with the columnar file
+     */
+    public static void deleteOnDiskFile(long windowStartTime) {
+        Path path = Paths.get(getFilePath(windowStartTime));
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException | SecurityException e) {
+            LOG.error("Failed to delete columnar metrics file - {}", path, e);
+        }
+    }
+
+    public long getWindowStartTime() {
+        return windowStartTime;
+    }
+
+    public boolean metricExists(String metric) {
+        return index.containsKey(metric);
+    }
+
+    /**
+     * Queries all the data associated with a given metric.
+     *
+     * @param metric the desired metric
+     * @param dimensions the dimensions we want to return for the given metric
+     * @param limit the maximum number of records to return
+     * @return the result of the query, or null if the metric does not exist
+     */
+    public Result<Record> queryMetric(String metric, Collection<String> dimensions, int limit)
+            throws IOException {
+        if (!metricExists(metric)) {
+            return null;
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be non-negative");
+        }
+        Chunk chunk = chunk(metric);
+        int[] dims = chunk.dimensionIndexes(dimensions);
+        List<Field<String>> dimensionFields = stringFields(dimensions);
+        List<Field<Double>> aggFields =
+                DBUtils.getDoubleFieldsFromList(Arrays.asList(AGGREGATIONS));
+        Field<?>[] fields = allFields(dimensionFields, aggFields);
+        Result<Record> result = create.newResult(fields);
+        for (int row = 0, rows = Math.min(limit, chunk.rowCount); row < rows; row++) {
+            Record record = create.newRecord(fields);
+            for (int i = 0; i < dims.length; i++) {
+                record.set(dimensionFields.get(i), chunk.dimensionValue(dims[i], row));
+            }
+            for (int agg = 0; agg < AGGREGATIONS.length; agg++) {
+                record.set(aggFields.get(agg), toObject(chunk.aggregates[agg][row]));
+            }
+            result.add(record);
+        }
+        return result;
+    }
+
+    /**
+     * Groups each metric by the given dimensions and aggregates the column matching its
+     * aggregation type, like {@link MetricsDB#getAggregatedMetricTables(List, List, List)}.
+     *
+     * @return one result per metric, null for the metrics that do not exist
+     * @throws Exception if one of the aggregations is not "sum", "avg", "min" or "max"
+     */
+    public List<Result<Record>> getAggregatedMetricTables(
+            List<String> metrics, List<String> aggregations, List<String> dimensions)
+            throws Exception {
+        List<Field<String>> dimensionFields = stringFields(dimensions);
+        List<Result<Record>> tList = new ArrayList<>();
+        for (int i = 0; i < metrics.size(); i++) {
+            String metric = metrics.get(i);
+            int agg = aggregationIndex(aggregations.get(i));
+            if (!metricExists(metric)) {
+                tList.add(null);
+                continue;
+            }
+            Field<Double> metricField = DSL.field(DSL.name(metric), Double.class);
+            Field<?>[] fields = allFields(dimensionFields, Arrays.asList(metricField));
+            Result<Record> result = create.newResult(fields);
+            for (Map.Entry<List<String>, Double> group :
+                    aggregate(chunk(metric), agg, dimensions).entrySet()) {
+                Record record = create.newRecord(fields);
+                for (int d = 0; d < dimensionFields.size(); d++) {
+                    record.set(dimensionFields.get(d), group.getKey().get(d));
+                }
+                record.set(metricField, group.getValue());
+                result.add(record);
+            }
+            tList.add(result);
+        }
+        return tList;
+    }
+
+    /**
+     * Query metrics from different chunks and merge them into one table, like {@link
+     * MetricsDB#queryMetric(List, List, List)}.
+     *
+     * @return result of query, or null if none of the metrics exist
+     * @throws Exception if one of the aggregations is not "sum", "avg", "min" or "max"
+     */
+    public Result<Record> queryMetric(
+            List<String> metrics, List<String> aggregations, List<String> dimensions)
+            throws Exception {
+        TreeMap<List<String>, Double[]> merged = new TreeMap<>(GROUP_ORDER);
+        boolean found = false;
+        for (int i = 0; i < metrics.size(); i++) {
+            int agg = aggregationIndex(aggregations.get(i));
+            if (!metricExists(metrics.get(i))) {
+                LOG.info(
+                        String.format(
+                                "%s metric table does not exist. "
+                                        + "Returning null for the metric/dimension.",
+                                metrics.get(i)));
+                continue;
+            }
+            found = true;
+            for (Map.Entry<List<String>, Double> group :
+                    aggregate(chunk(metrics.get(i)), agg, dimensions).entrySet()) {
+                Double[] row =
+                        merged.computeIfAbsent(group.getKey(), k -> new Double[metrics.size()]);
+                Double value = group.getValue();
+                if (value != null && (row[i] == null || value > row[i])) {
+                    row[i] = value;
+                }
+            }
+        }
+        if (!found) {
+            return null;
+        }
+
+        List<Field<String>> dimensionFields = stringFields(dimensions);
+        List<Field<Double>> metricFields = DBUtils.getDoubleFieldsFromList(metrics);
+        Field<?>[] fields = allFields(dimensionFields, metricFields);
+        Result<Record> result = create.newResult(fields);
+        for (Map.Entry<List<String>, Double[]> entry : merged.entrySet()) {
+            Record record = create.newRecord(fields);
+            for (int d = 0; d < dimensionFields.size(); d++) {
+                record.set(dimensionFields.get(d), entry.getKey().get(d));
+            }
+            for (int m = 0; m < metricFields.size(); m++) {
+                record.set(metricFields.get(m), entry.getValue()[m]);
+            }
+            result.add(record);
+        }
+        return result;
+    }
+
+    @Override
+    public void remove() throws Exception {
+        chunks.clear();
+        channel.close();
+    }
+
+    private TreeMap<List<String>, Double> aggregate(Chunk chunk, int agg, List<String> dimensions) {
+        int[] dims = chunk.dimensionIndexes(dimensions);
+        double[] column = chunk.aggregates[agg];
+        double[] weights = agg == 1 ? chunk.rowCounts : null;
+        TreeMap<List<String>, double[]> groups = new TreeMap<>(GROUP_ORDER);
+        for (int row = 0; row < chunk.rowCount; row++) {
+            String[] key = new String[dims.length];
+            for (int i = 0; i < dims.length; i++) {
+                key[i] = chunk.dimensionValue(dims[i], row);
+            }
+            // {accumulated value, number of non-null values, or their row counts for an avg}
+            double[] acc = groups.computeIfAbsent(Arrays.asList(key), k -> new double[2]);
+            double value = column[row];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            double weight = weights == null ? 1 : weights[row];
+            if (agg == 1) {
+                acc[0] += value * weight;
+            } else if (acc[1] == 0) {
+                acc[0] = value;
+            } else if (agg == 0) {
+                acc[0] += value;
+            } else if (agg == 2) {
+                acc[0] = Math.min(acc[0], value);
+            } else {
+                acc[0] = Math.max(acc[0], value);
+            }
+            acc[1] += weight;
+        }
+        TreeMap<List<String>, Double> result = new TreeMap<>(GROUP_ORDER);
+        for (Map.Entry<List<String>, double[]> group : groups.entrySet()) {
+            double[] acc = group.getValue();
+            Double value = null;
+            if (acc[1] > 0) {
+                value = agg == 1 ? acc[0] / acc[1] : acc[0];
+            }
+            result.put(group.getKey(), value);
+        }
+        return result;
+    }
+
+    private Chunk chunk(String metric) throws IOException {
+        Chunk chunk = chunks.get(metric);
+        if (chunk == null) {
+            long[] location = index.get(metric);
+            chunk = Chunk.decode(read(channel, location[0], (int) location[1]));
+            chunks.put(metric, chunk);
+        }
+        return chunk;
+    }
+
+    private static Map<String, long[]> readIndex(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < 2 * Integer.BYTES + TRAILER_BYTES
+                || read(channel, 0, Integer.BYTES).getInt() != MAGIC) {
+            throw new IOException("Not a columnar metrics file");
+        }
+        ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+        long footerOffset = trailer.getLong();
+        if (trailer.getInt() != MAGIC || footerOffset < 0 || footerOffset > size - TRAILER_BYTES) {
+            throw new IOException("Corrupt columnar metrics file footer");
+        }
+        ByteBuffer footer =
+                read(channel, footerOffset, (int) (size - TRAILER_BYTES - footerOffset));
+        int metricCount = footer.getInt();
+        Map<String, long[]> index = new HashMap<>(metricCount * 2);
+        for (int i = 0; i < metricCount; i++) {
+            String metric = getString(footer);
+            index.put(metric, new long[] {footer.getLong(), footer.getInt()});
+        }
+        return index;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of columnar metrics file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int aggregationIndex(String aggType) throws Exception {
+        int agg = Arrays.asList(AGGREGATIONS).indexOf(aggType);
+        if (agg < 0) {
+            throw new Exception("Unknown agg type");
+        }
+        return agg;
+    }
+
+    private static Double toObject(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static List<Field<String>> stringFields(Collection<String> names) {
+        List<Field<String>> fields = new ArrayList<>(names.size());
+        for (String name : names) {
+            fields.add(DSL.field(DSL.name(name), String.class));
+        }
+        return fields;
+    }
+
+    private static Field<?>[] allFields(
+            List<Field<String>> dimensions, List<Field<Double>> values) {
+        List<Field<?>> fields = new ArrayList<>(dimensions.size() + values.size());
+        fields.addAll(dimensions);
+        fields.addAll(values);
+        return fields.toArray(new Field<?>[0]);
+    }
+
+    /** Orders groups the way sqlite orders a group by: element-wise, nulls first. */
+    private static int compareGroups(List<String> a, List<String> b) {
+        for (int i = 0; i < a.size(); i++) {
+            String x = a.get(i);
+            String y = b.get(i);
+            if (x == null || y == null) {
+                if (x != y) {
+                    return x == null ? -1 : 1;
+                }
+                continue;
+            }
+            int cmp = x.compareTo(y);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    /** A decoded metric chunk. */
+    private static class Chunk {
+        private final List<String> dimensions;
+        private final String[][] dictionaries;
+        private final int[][] codes;
+        private final double[][] aggregates;
+        // Null when every row counts as one.
+        private final double[] rowCounts;
+        private final int rowCount;
+
+        private Chunk(
+                List<String> dimensions,
+                String[][] dictionaries,
+                int[][] codes,
+                double[][] aggregates,
+                double[] rowCounts,
+                int rowCount) {
+            this.dimensions = dimensions;
+            this.dictionaries = dictionaries;
+            this.codes = codes;
+            this.aggregates = aggregates;
+            this.rowCounts = rowCounts;
+            this.rowCount = rowCount;
+        }
+
+        static Chunk decode(ByteBuffer buffer) {
+            int dimensionCount = buffer.getInt();
+            List<String> dimensions = new ArrayList<>(dimensionCount);
+            for (int i = 0; i < dimensionCount; i++) {
+                dimensions.add(getString(buffer));
+            }
+            int rowCount = buffer.getInt();
+            String[][] dictionaries = new String[dimensionCount][];
+            int[][] codes = new int[dimensionCount][rowCount];
+            for (int i = 0; i < dimensionCount; i++) {
+                dictionaries[i] = new String[buffer.getInt()];
+                for (int j = 0; j < dictionaries[i].length; j++) {
+                    dictionaries[i][j] = getString(buffer);
+                }
+                buffer.asIntBuffer().get(codes[i]);
+                buffer.position(buffer.position() + rowCount * Integer.BYTES);
+            }
+            double[][] aggregates = new double[AGGREGATIONS.length][rowCount];
+            for (double[] column : aggregates) {
+                buffer.asDoubleBuffer().get(column);
+                buffer.position(buffer.position() + rowCount * Double.BYTES);
+            }
+            double[] rowCounts = null;
+            if (buffer.getInt() != 0) {
+                rowCounts = new double[rowCount];
+                buffer.asDoubleBuffer().get(rowCounts);
+                buffer.position(buffer.position() + rowCount * Double.BYTES);
+            }
+            return new Chunk(dimensions, dictionaries, codes, aggregates, rowCounts, rowCount);
+        }
+
+        int[] dimensionIndexes(Collection<String> names) {
+            int[] indexes = new int[names.size()];
+            int i = 0;
+            for (String name : names) {
+                indexes[i] = dimensions.indexOf(name);
+                if (indexes[i] < 0) {
+                    throw new IllegalArgumentException("No such dimension: " + name);
+                }
+                i++;
+            }
+            return indexes;
+        }
+
+        String dimensionValue(int dimension, int row) {
+            int code = codes[dimension][row];
+            return code == NULL_CODE ? null : dictionaries[dimension][code];
+        }
+    }
+
+    /** Receives the rows of one metric. NaN stands for a null aggregate. */
+    public interface RowSink {
+        /** Adds a row. Dimension values follow the order of the metric dimensions. */
+        void addRow(String[] dimensionValues, double sum, double avg, double min, double max);
+    }
+
+    /** Accumulates the rows of one metric before they are written. */
+    public static class ChunkBuilder implements RowSink {
+        private final List<String> dimensions;
+        private final List<Map<String, Integer>> dictionaries;
+        private int[][] codes;
+        private double[][] aggregates;
+        private double[] rowCounts;
+        // Whether a row counts for other than one row, so the row counts have to be written.
+        private boolean weighted;
+        private int rowCount;
+
+        private ChunkBuilder(List<String> dimensions) {
+            this.dimensions = new ArrayList<>(dimensions);
+            this.dictionaries = new ArrayList<>(dimensions.size());
+            for (int i = 0; i < dimensions.size(); i++) {
+                dictionaries.add(new LinkedHashMap<>());
+            }
+            this.codes = new int[dimensions.size()][16];
+            this.aggregates = new double[AGGREGATIONS.length][16];
+            this.rowCounts = new double[16];
+        }
+
+        public List<String> getDimensions() {
+            return dimensions;
+        }
+
+        @Override
+        public void addRow(
+                String[] dimensionValues, double sum, double avg, double min, double max) {
+            addRow(dimensionValues, sum, avg, min, max, 1);
+        }
+
+        /**
+         * Adds a row that stands for {@code rows} rows of a metricsdb, such as a rollup of
+         * several windows. Its avg weighs that much when rows are grouped.
+         */
+        public void addRow(
+                String[] dimensionValues,
+                double sum,
+                double avg,
+                double min,
+                double max,
+                double rows) {
+            if (rowCount == aggregates[0].length) {
+                int capacity = rowCount * 2;
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = Arrays.copyOf(codes[i], capacity);
+                }
+                for (int i = 0; i < aggregates.length; i++) {
+                    aggregates[i] = Arrays.copyOf(aggregates[i], capacity);
+                }
+                rowCounts = Arrays.copyOf(rowCounts, capacity);
+            }
+            for (int i = 0; i < codes.length; i++) {
+                String value = dimensionValues[i];
+                Map<String, Integer> dictionary = dictionaries.get(i);
+                codes[i][rowCount] =
+                        value == null
+                                ? NULL_CODE
+                                : dictionary.computeIfAbsent(value, v -> dictionary.size());
+            }
+            aggregates[0][rowCount] = sum;
+            aggregates[1][rowCount] = avg;
+            aggregates[2][rowCount] = min;
+            aggregates[3][rowCount] = max;
+            rowCounts[rowCount] = rows;
+            weighted |= rows != 1;
+            rowCount++;
+        }
+
+        private void scan(RowSink sink) {
+            String[][] values = new String[dictionaries.size()][];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = dictionaries.get(i).keySet().toArray(new String[0]);
+            }
+            String[] dimensionValues = new String[values.length];
+            for (int row = 0; row < rowCount; row++) {
+                for (int i = 0; i < values.length; i++) {
+                    int code = codes[i][row];
+                    dimensionValues[i] = code == NULL_CODE ? null : values[i][code];
+                }
+                sink.addRow(
+                        dimensionValues,
+                        aggregates[0][row],
+                        aggregates[1][row],
+                        aggregates[2][row],
+                        aggregates[3][row]);
+            }
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(dimensions.size());
+            for (String dimension : dimensions) {
+                putString(out, dimension);
+            }
+            out.writeInt(rowCount);
+            for (int i = 0; i < dimensions.size(); i++) {
+                out.writeInt(dictionaries.get(i).size());
+                for (String value : dictionaries.get(i).keySet()) {
+                    putString(out, value);
+                }
+                for (int row = 0; row < rowCount; row++) {
+                    out.writeInt(codes[i][row]);
+                }
+            }
+            for (double[] column : aggregates) {
+                for (int row = 0; row < rowCount; row++) {
+                    out.writeDouble(column[row]);
+                }
+            }
+            out.writeInt(weighted ? 1 : 0);
+            if (weighted) {
+                for (int row = 0; row < rowCount; row++) {
+                    out.writeDouble(rowCounts[row]);
+                }
+            }
+        }
+    }
+
+    /** Collects metric chunks in memory and writes them out as one columnar file. */
+    public static class Builder {
+        private final Map<String, ChunkBuilder> metrics = new LinkedHashMap<>();
+
+        /** Returns the chunk of the given metric, creating it with the given dimensions. */
+        public ChunkBuilder metric(String metric, List<String> dimensions) {
+            return metrics.computeIfAbsent(metric, m -> new ChunkBuilder(dimensions));
+        }
+
+        /** Returns the chunk of the given metric, or null if it has not been created. */
+        public ChunkBuilder getMetric(String metric) {
+            return metrics.get(metric);
+        }
+
+        /** Adds the rows collected so far to the sinks returned for each metric. */
+        public void scan(BiFunction<String, List<String>, RowSink> sinks) {
+            for (Map.Entry<String, ChunkBuilder> metric : metrics.entrySet()) {
+                ChunkBuilder chunk = metric.getValue();
+                chunk.scan(sinks.apply(metric.getKey(), chunk.getDimensions()));
+            }
+        }
+
+        /**
+         * Serializes all chunks and writes them with a single sequential write. The file is first
+         * written next to its destination and then moved in place, so readers never observe a
+         * partially written file.
+         */
+        public void writeTo(Path path) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, long[]> index = new LinkedHashMap<>();
+            for (Map.Entry<String, ChunkBuilder> metric : metrics.entrySet()) {
+                int offset = out.size();
+                metric.getValue().writeTo(out);
+                index.put(metric.getKey(), new long[] {offset, out.size() - offset});
+            }
+            long footerOffset = out.size();
+            out.writeInt(index.size());
+            for (Map.Entry<String, long[]> entry : index.entrySet()) {
+                putString(out, entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeInt((int) entry.getValue()[1]);
+            }
+            out.writeLong(footerOffset);
+            out.writeInt(MAGIC);
+            out.flush();
+
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(tmp, bytes.toByteArray());
+            Files.move(
+                    tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -38,12 +38,14 @@ import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
@@ -91,8 +93,21 @@ public class MetricsDB implements Removable {
     public static final Set<String> AGG_VALUES =
             Collections.unmodifiableSet(new HashSet<>(Arrays.asList(SUM, AVG, MIN, MAX)));
 
+    /** Suffix of the row count columns of {@link #queryMetricPartials}. */
+    public static final String ROW_COUNT_SUFFIX = "_rows";
+
     private long windowStartTime;
 
+    /**
+     * Columnar copy of the rows written into this metricsdb, or null when none is kept. It lets the
+     * reader write the columnar file and the rollups of the window without reading every table
+     * back from sqlite.
+     */
+    private ColumnarMetricsFile.Builder columnarCopy;
+
+    // False once a row was written that the columnar copy could not capture.
+    private boolean columnarCopyComplete;
+
     public static String getDBFilePath(long windowStartTime) {
         return getFilePrefix() + windowStartTime;
     }
@@ -101,6 +116,10 @@ public class MetricsDB implements Removable {
         return getDBFilePath(windowStartTime);
     }
 
+    public long getWindowStartTime() {
+        return windowStartTime;
+    }
+
     public static String getFilePrefix() {
         return PluginSettings.instance()
                 .getSettingValue(DB_FILE_PREFIX_PATH_CONF_NAME, DB_FILE_PREFIX_PATH_DEFAULT);
@@ -142,7 +161,32 @@ public class MetricsDB implements Removable {
         conn.close();
     }
 
+    /**
+     * Keeps a columnar copy of every row written into this metricsdb from now on. Rows are added
+     * to the copy once their insert has been executed.
+     */
+    public void keepColumnarCopy() {
+        columnarCopy = new ColumnarMetricsFile.Builder();
+        columnarCopyComplete = true;
+    }
+
+    /** Releases the columnar copy kept by {@link #keepColumnarCopy()}. */
+    public void dropColumnarCopy() {
+        columnarCopy = null;
+    }
+
+    /**
+     * Returns the columnar copy of this metricsdb, or null if none is kept or some rows were
+     * written in a way the copy could not capture.
+     */
+    ColumnarMetricsFile.Builder getColumnarCopy() {
+        return columnarCopyComplete ? columnarCopy : null;
+    }
+
     public void createMetric(Metric<?> metric, List<String> dimensions) {
+        if (columnarCopy != null) {
+            columnarCopy.metric(metric.getName(), dimensions);
+        }
         if (DBUtils.checkIfTableExists(create, metric.getName())) {
             return;
         }
@@ -165,7 +209,12 @@ public class MetricsDB implements Removable {
         dummyValues.add(null);
         dummyValues.add(null);
         dummyValues.add(null);
-        return create.batch(create.insertInto(DSL.table(metric.getName())).values(dummyValues));
+        BatchBindStep batch =
+                create.batch(create.insertInto(DSL.table(metric.getName())).values(dummyValues));
+        if (columnarCopy == null) {
+            return batch;
+        }
+        return new ColumnarCopyBatch(batch, columnarCopy.metric(metric.getName(), dimensions));
     }
 
     public BatchBindStep startBatchPut(String tableName, int dimNum) {
@@ -178,7 +227,18 @@ public class MetricsDB implements Removable {
             dummyValues.add(null);
         }
 
-        return create.batch(create.insertInto(DSL.table(tableName)).values(dummyValues));
+        BatchBindStep batch =
+                create.batch(create.insertInto(DSL.table(tableName)).values(dummyValues));
+        if (columnarCopy == null) {
+            return batch;
+        }
+        ColumnarMetricsFile.ChunkBuilder chunk = columnarCopy.getMetric(tableName);
+        if (chunk == null) {
+            // The table was not created through createMetric, so its dimensions are unknown.
+            columnarCopyComplete = false;
+            return batch;
+        }
+        return new ColumnarCopyBatch(batch, chunk);
     }
 
     public void putMetric(Metric<Double> metric, Dimensions dimensions, long windowStartTime) {
@@ -189,6 +249,108 @@ public class MetricsDB implements Removable {
                 .set(DSL.field(MAX, Double.class), metric.getMax())
                 .set(dimensions.getFieldMap())
                 .execute();
+        if (columnarCopy == null) {
+            return;
+        }
+        ColumnarMetricsFile.ChunkBuilder chunk = columnarCopy.getMetric(metric.getName());
+        if (chunk == null) {
+            columnarCopyComplete = false;
+            return;
+        }
+        List<String> names = chunk.getDimensions();
+        String[] dimensionValues = new String[names.size()];
+        for (int i = 0; i < dimensionValues.length; i++) {
+            dimensionValues[i] = dimensions.get(names.get(i));
+        }
+        chunk.addRow(
+                dimensionValues,
+                toDouble(metric.getSum()),
+                toDouble(metric.getAvg()),
+                toDouble(metric.getMin()),
+                toDouble(metric.getMax()));
+    }
+
+    private void copyRow(ColumnarMetricsFile.ChunkBuilder chunk, Object[] row) {
+        int dimensionCount = chunk.getDimensions().size();
+        if (row.length != dimensionCount + AGG_VALUES.size()) {
+            columnarCopyComplete = false;
+            return;
+        }
+        String[] dimensionValues = new String[dimensionCount];
+        for (int i = 0; i < dimensionCount; i++) {
+            dimensionValues[i] = row[i] == null ? null : String.valueOf(row[i]);
+        }
+        chunk.addRow(
+                dimensionValues,
+                toDouble(row[dimensionCount]),
+                toDouble(row[dimensionCount + 1]),
+                toDouble(row[dimensionCount + 2]),
+                toDouble(row[dimensionCount + 3]));
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Binds rows into a sql batch and adds them to the columnar copy once the batch has been
+     * executed, so the copy never holds rows that did not make it into sqlite.
+     */
+    private final class ColumnarCopyBatch implements BatchBindStep {
+        private final BatchBindStep batch;
+        private final ColumnarMetricsFile.ChunkBuilder chunk;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        ColumnarCopyBatch(BatchBindStep batch, ColumnarMetricsFile.ChunkBuilder chunk) {
+            this.batch = batch;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public BatchBindStep bind(Object... values) {
+            batch.bind(values);
+            rows.add(values.clone());
+            return this;
+        }
+
+        @Override
+        public BatchBindStep bind(Object[]... values) {
+            for (Object[] row : values) {
+                bind(row);
+            }
+            return this;
+        }
+
+        @Override
+        public BatchBindStep bind(Map<String, Object> namedValues) {
+            batch.bind(namedValues);
+            columnarCopyComplete = false;
+            return this;
+        }
+
+        @Override
+        @SafeVarargs
+        public final BatchBindStep bind(Map<String, Object>... namedValues) {
+            for (Map<String, Object> row : namedValues) {
+                bind(row);
+            }
+            return this;
+        }
+
+        @Override
+        public int[] execute() {
+            int[] counts = batch.execute();
+            for (Object[] row : rows) {
+                copyRow(chunk, row);
+            }
+            rows.clear();
+            return counts;
+        }
+
+        @Override
+        public int size() {
+            return batch.size();
+        }
     }
 
     /**
@@ -214,22 +376,7 @@ public class MetricsDB implements Removable {
         for (int i = 0; i < metrics.size(); i++) {
             String metric = metrics.get(i);
             List<Field<?>> selectFields = DBUtils.getFieldsFromList(dimensions);
-            String aggType = aggregations.get(i);
-            if (aggType.equals(SUM)) {
-                Field<Double> field = DSL.field(SUM, Double.class);
-                selectFields.add(DSL.sum(field).as(metric));
-            } else if (aggType.equals(AVG)) {
-                Field<Double> field = DSL.field(AVG, Double.class);
-                selectFields.add(DSL.avg(field).as(metric));
-            } else if (aggType.equals(MIN)) {
-                Field<Double> field = DSL.field(MIN, Double.class);
-                selectFields.add(DSL.min(field).as(metric));
-            } else if (aggType.equals(MAX)) {
-                Field<Double> field = DSL.field(MAX, Double.class);
-                selectFields.add(DSL.max(field).as(metric));
-            } else {
-                throw new Exception("Unknown agg type");
-            }
+            selectFields.add(aggregateField(metric, aggregations.get(i)));
             if (!DBUtils.checkIfTableExists(create, metrics.get(i))) {
                 tList.add(null);
             } else {
@@ -243,6 +390,24 @@ public class MetricsDB implements Removable {
         return tList;
     }
 
+    private static Field<?> aggregateField(String metric, String aggType) throws Exception {
+        if (aggType.equals(SUM)) {
+            Field<Double> field = DSL.field(SUM, Double.class);
+            return DSL.sum(field).as(metric);
+        } else if (aggType.equals(AVG)) {
+            Field<Double> field = DSL.field(AVG, Double.class);
+            return DSL.avg(field).as(metric);
+        } else if (aggType.equals(MIN)) {
+            Field<Double> field = DSL.field(MIN, Double.class);
+            return DSL.min(field).as(metric);
+        } else if (aggType.equals(MAX)) {
+            Field<Double> field = DSL.field(MAX, Double.class);
+            return DSL.max(field).as(metric);
+        } else {
+            throw new Exception("Unknown agg type");
+        }
+    }
+
     /**
      * query metrics from different tables and merge to one table.
      *
@@ -307,6 +472,61 @@ public class MetricsDB implements Removable {
         return create.select(allFields).from(finalTable).groupBy(groupByFields).fetch();
     }
 
+    /**
+     * Same as {@link #queryMetric(List, List, List)}, with one more column per metric after the
+     * metric columns: the number of rows of the metric table aggregated into each value, named
+     * after the metric with {@link #ROW_COUNT_SUFFIX}. The counts are what it takes to merge the
+     * averages of several metricsdbs.
+     */
+    public Result<Record> queryMetricPartials(
+            List<String> metrics, List<String> aggregations, List<String> dimensions)
+            throws Exception {
+        List<String> columns = new ArrayList<>(metrics);
+        for (String metric : metrics) {
+            columns.add(metric + ROW_COUNT_SUFFIX);
+        }
+        List<Field<?>> groupByFields = DBUtils.getFieldsFromList(dimensions);
+
+        Select<Record> finalTable = null;
+        for (int i = 0; i < metrics.size(); i++) {
+            String metric = metrics.get(i);
+            if (!DBUtils.checkIfTableExists(create, metric)) {
+                LOG.info(
+                        "{} metric table does not exist. Returning null for the metric/dimension.",
+                        metric);
+                continue;
+            }
+            List<Field<?>> aggregateFields = DBUtils.getFieldsFromList(dimensions);
+            aggregateFields.add(aggregateField(metric, aggregations.get(i)));
+            aggregateFields.add(DSL.count().cast(Double.class).as(metric + ROW_COUNT_SUFFIX));
+            TableLike<Record> metricTable =
+                    create.select(aggregateFields)
+                            .from(DSL.table(metric))
+                            .groupBy(groupByFields)
+                            .asTable();
+
+            List<Field<?>> selectFields = DBUtils.getFieldsFromList(dimensions);
+            for (String column : columns) {
+                if (column.equals(metric) || column.equals(metric + ROW_COUNT_SUFFIX)) {
+                    selectFields.add(DSL.field(column, Double.class).as(column));
+                } else {
+                    selectFields.add(DSL.val(null, Double.class).as(column));
+                }
+            }
+            Select<Record> curTable = create.select(selectFields).from(metricTable);
+            finalTable = finalTable == null ? curTable : finalTable.union(curTable);
+        }
+        if (finalTable == null) {
+            return null;
+        }
+
+        List<Field<?>> allFields = DBUtils.getFieldsFromList(dimensions);
+        for (String column : columns) {
+            allFields.add(DSL.max(DSL.field(column, Double.class)).as(column));
+        }
+        return create.select(allFields).from(finalTable).groupBy(groupByFields).fetch();
+    }
+
     /**
      * Queries all the data associated with the given metric.
      *
@@ -317,6 +537,17 @@ public class MetricsDB implements Removable {
         return create.select().from(DSL.table(metric)).fetch();
     }
 
+    /**
+     * Queries all the data associated with the given metric without materializing the rows as
+     * records. The caller has to close the returned result set.
+     *
+     * @param metric the desired metric
+     * @return the rows of the metric table
+     */
+    public ResultSet queryMetricResultSet(String metric) throws DataAccessException {
+        return create.select().from(DSL.table(metric)).fetchResultSet();
+    }
+
     /**
      * Queries all the data associated with a given metric.
      *
@@ -356,11 +587,13 @@ public class MetricsDB implements Removable {
     }
 
     /**
-     * Deletes the metricsdb file associated with the given timestamp if it exists.
+     * Deletes the metricsdb file associated with the given timestamp, and its columnar copy, if it
+     * exists.
      *
      * @param windowStartTime the timestamp associated with an existing metricsdb file
      */
     public static void deleteOnDiskFile(long windowStartTime) {
+        ColumnarMetricsFile.deleteOnDiskFile(windowStartTime);
         Path dbFilePath = Paths.get(getDBFilePath(windowStartTime));
         try {
             Files.delete(dbFilePath);
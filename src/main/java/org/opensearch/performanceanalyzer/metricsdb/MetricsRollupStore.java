@@ -0,0 +1,344 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metricsdb;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.metricsdb.ColumnarMetricsFile.RowSink;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.ExceptionsAndErrors;
+
+/**
+ * Downsampling tier for the batch metrics api. Closed metricsdb windows are rolled into 1 minute
+ * and 10 minute buckets, and every bucket is written as a {@link ColumnarMetricsFile} once the
+ * first window of the next bucket arrives.
+ *
+ * <p>For every metric and dimension combination a bucket keeps the sum of the sums, the minimum of
+ * the mins and the maximum of the maxes. The avg is the mean of the avgs of the metricsdb rows of
+ * the bucket, and the bucket row keeps how many rows that is. The columnar file weighs the avg by
+ * that count when rows are grouped, so a combination seen in every window counts for more than one
+ * seen in a single window.
+ *
+ * <p>Open buckets only live in memory. The windows added to them before a restart are lost, and
+ * those buckets are written with the windows that arrive after it.
+ */
+public class MetricsRollupStore {
+
+    private static final Logger LOG = LogManager.getLogger(MetricsRollupStore.class);
+
+    private static final String FILE_INFIX = "rollup_";
+
+    public enum Resolution {
+        ONE_MINUTE("1m", TimeUnit.MINUTES.toMillis(1)),
+        TEN_MINUTES("10m", TimeUnit.MINUTES.toMillis(10));
+
+        private final String label;
+        private final long periodMillis;
+
+        Resolution(String label, long periodMillis) {
+            this.label = label;
+            this.periodMillis = periodMillis;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getPeriodMillis() {
+            return periodMillis;
+        }
+
+        /** Returns the resolution with the given label, or null if there is none. */
+        public static Resolution fromLabel(String label) {
+            for (Resolution resolution : values()) {
+                if (resolution.label.equals(label)) {
+                    return resolution;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final long retentionMillis;
+    private final Map<Resolution, Bucket> openBuckets = new EnumMap<>(Resolution.class);
+    // Accessed concurrently by the metrics processor thread and the query handler threads.
+    private final Map<Resolution, ConcurrentSkipListSet<Long>> closedBuckets =
+            new EnumMap<>(Resolution.class);
+
+    public MetricsRollupStore(long retentionPeriodMinutes) {
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionPeriodMinutes);
+        long oldest = System.currentTimeMillis() - retentionMillis;
+        for (Resolution resolution : Resolution.values()) {
+            ConcurrentSkipListSet<Long> closed = new ConcurrentSkipListSet<>();
+            for (Long bucketStartTime : listOnDiskFiles(resolution)) {
+                if (bucketStartTime < oldest) {
+                    deleteOnDiskFile(resolution, bucketStartTime);
+                } else {
+                    closed.add(bucketStartTime);
+                }
+            }
+            closedBuckets.put(resolution, closed);
+        }
+    }
+
+    public static String getFilePath(Resolution resolution, long bucketStartTime) {
+        return getFilePrefix(resolution) + bucketStartTime + ColumnarMetricsFile.FILE_SUFFIX;
+    }
+
+    private static String getFilePrefix(Resolution resolution) {
+        return MetricsDB.getFilePrefix() + FILE_INFIX + resolution.label + "_";
+    }
+
+    /**
+     * Opens a closed rollup bucket.
+     *
+     * @param resolution the resolution of the bucket
+     * @param bucketStartTime the start time of the bucket
+     * @return a handle on the columnar file of the bucket
+     * @throws IOException if the bucket does not exist on disk
+     */
+    public static ColumnarMetricsFile fetchExisting(Resolution resolution, long bucketStartTime)
+            throws IOException {
+        return ColumnarMetricsFile.open(
+                Paths.get(getFilePath(resolution, bucketStartTime)), bucketStartTime);
+    }
+
+    /**
+     * Returns the start times of the buckets of the given resolution that are on disk.
+     *
+     * @param resolution the desired resolution
+     * @return an immutable copy of the bucket start times, in ascending order
+     */
+    public NavigableSet<Long> getRollups(Resolution resolution) {
+        return Collections.unmodifiableNavigableSet(new TreeSet<>(closedBuckets.get(resolution)));
+    }
+
+    /**
+     * Adds a committed metricsdb window to the buckets it belongs to. Buckets that the window does
+     * not belong to are closed and written to disk first, and buckets that fell out of the
+     * retention period are deleted.
+     *
+     * @param db the metricsdb of the window
+     * @param windowStartTime the start time of the window
+     */
+    public synchronized void addWindow(MetricsDB db, long windowStartTime)
+            throws IOException, SQLException {
+        for (Resolution resolution : Resolution.values()) {
+            long bucketStartTime = windowStartTime - windowStartTime % resolution.periodMillis;
+            Bucket bucket = openBuckets.get(resolution);
+            if (bucket != null && bucket.startTime != bucketStartTime) {
+                openBuckets.remove(resolution);
+                close(resolution, bucket);
+                bucket = null;
+            }
+            if (bucket == null) {
+                openBuckets.put(resolution, new Bucket(bucketStartTime));
+            }
+            trim(resolution, windowStartTime - retentionMillis);
+        }
+
+        ColumnarMetricsFile.scan(
+                db,
+                (metric, dimensions) -> {
+                    RowSink[] sinks = new RowSink[openBuckets.size()];
+                    int i = 0;
+                    for (Bucket bucket : openBuckets.values()) {
+                        sinks[i++] = bucket.metric(metric, dimensions);
+                    }
+                    return (dimensionValues, sum, avg, min, max) -> {
+                        for (RowSink sink : sinks) {
+                            sink.addRow(dimensionValues, sum, avg, min, max);
+                        }
+                    };
+                });
+    }
+
+    private void close(Resolution resolution, Bucket bucket) throws IOException {
+        ColumnarMetricsFile.Builder builder = new ColumnarMetricsFile.Builder();
+        for (Map.Entry<String, MetricRollup> metric : bucket.metrics.entrySet()) {
+            MetricRollup rollup = metric.getValue();
+            rollup.writeTo(builder.metric(metric.getKey(), rollup.dimensions));
+        }
+        builder.writeTo(Paths.get(getFilePath(resolution, bucket.startTime)));
+        closedBuckets.get(resolution).add(bucket.startTime);
+    }
+
+    private void trim(Resolution resolution, long oldest) {
+        ConcurrentSkipListSet<Long> closed = closedBuckets.get(resolution);
+        while (!closed.isEmpty() && closed.first() < oldest) {
+            deleteOnDiskFile(resolution, closed.pollFirst());
+        }
+    }
+
+    private static void deleteOnDiskFile(Resolution resolution, long bucketStartTime) {
+        Path path = Paths.get(getFilePath(resolution, bucketStartTime));
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException | SecurityException e) {
+            LOG.error(
+                    "Failed to delete File - {} with ExceptionCode: {}",
+                    path,
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS,
+                    e);
+            PerformanceAnalyzerApp.ERRORS_AND_EXCEPTIONS_AGGREGATOR.updateStat(
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS, "", 1);
+        }
+    }
+
+    private static NavigableSet<Long> listOnDiskFiles(Resolution resolution) {
+        String prefix = getFilePrefix(resolution);
+        Path parentPath = Paths.get(prefix).getParent();
+        Pattern pattern =
+                Pattern.compile(
+                        Pattern.quote(prefix)
+                                + "(\\d+)"
+                                + Pattern.quote(ColumnarMetricsFile.FILE_SUFFIX));
+        NavigableSet<Long> found = new TreeSet<>();
+        try (Stream<Path> paths = Files.list(parentPath)) {
+            paths.forEach(
+                    path -> {
+                        Matcher matcher = pattern.matcher(path.toString());
+                        if (matcher.matches()) {
+                            found.add(Long.parseLong(matcher.group(1)));
+                        }
+                    });
+        } catch (IOException | SecurityException e) {
+            LOG.error(
+                    "Failed to access metricsdb directory - {} with ExceptionCode: {}",
+                    parentPath,
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS,
+                    e);
+            PerformanceAnalyzerApp.ERRORS_AND_EXCEPTIONS_AGGREGATOR.updateStat(
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS, "", 1);
+        }
+        return found;
+    }
+
+    /** The rollups of every metric for one bucket. */
+    private static class Bucket {
+        private final long startTime;
+        private final Map<String, MetricRollup> metrics = new LinkedHashMap<>();
+
+        Bucket(long startTime) {
+            this.startTime = startTime;
+        }
+
+        RowSink metric(String metric, List<String> dimensions) {
+            MetricRollup rollup =
+                    metrics.computeIfAbsent(metric, m -> new MetricRollup(dimensions));
+            return rollup.sink(dimensions);
+        }
+    }
+
+    /** Rolled up aggregates of one metric, per dimension combination. */
+    private static class MetricRollup {
+        private static final int SUM = 0;
+        private static final int AVG_SUM = 1;
+        // The number of rows with an avg.
+        private static final int ROWS = 2;
+        private static final int MIN = 3;
+        private static final int MAX = 4;
+
+        private final List<String> dimensions;
+        private final Map<List<String>, double[]> groups = new LinkedHashMap<>();
+
+        MetricRollup(List<String> dimensions) {
+            this.dimensions = dimensions;
+        }
+
+        /**
+         * Returns a sink for rows whose dimensions are in the given order. Dimensions the rollup
+         * does not know about are dropped and the missing ones are null.
+         */
+        RowSink sink(List<String> rowDimensions) {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < rowDimensions.size(); i++) {
+                positions.put(rowDimensions.get(i), i);
+            }
+            int[] mapping = new int[dimensions.size()];
+            for (int i = 0; i < mapping.length; i++) {
+                mapping[i] = positions.getOrDefault(dimensions.get(i), -1);
+            }
+            return (dimensionValues, sum, avg, min, max) -> {
+                String[] key = new String[mapping.length];
+                for (int i = 0; i < mapping.length; i++) {
+                    key[i] = mapping[i] < 0 ? null : dimensionValues[mapping[i]];
+                }
+                double[] acc =
+                        groups.computeIfAbsent(
+                                Arrays.asList(key),
+                                k -> new double[] {Double.NaN, 0, 0, Double.NaN, Double.NaN});
+                if (!Double.isNaN(sum)) {
+                    acc[SUM] = Double.isNaN(acc[SUM]) ? sum : acc[SUM] + sum;
+                }
+                if (!Double.isNaN(avg)) {
+                    acc[AVG_SUM] += avg;
+                    acc[ROWS]++;
+                }
+                if (!Double.isNaN(min)) {
+                    acc[MIN] = Double.isNaN(acc[MIN]) ? min : Math.min(acc[MIN], min);
+                }
+                if (!Double.isNaN(max)) {
+                    acc[MAX] = Double.isNaN(acc[MAX]) ? max : Math.max(acc[MAX], max);
+                }
+            };
+        }
+
+        void writeTo(ColumnarMetricsFile.ChunkBuilder chunk) {
+            for (Map.Entry<List<String>, double[]> group : groups.entrySet()) {
+                double[] acc = group.getValue();
+                chunk.addRow(
+                        group.getKey().toArray(new String[0]),
+                        acc[SUM],
+                        acc[ROWS] == 0 ? Double.NaN : acc[AVG_SUM] / acc[ROWS],
+                        acc[MIN],
+                        acc[MAX],
+                        acc[ROWS]);
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.net;
+
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
+import org.opensearch.performanceanalyzer.collectors.StatsCollector;
+import org.opensearch.performanceanalyzer.grpc.MetricsRequest;
+import org.opensearch.performanceanalyzer.grpc.MetricsResponse;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.ReaderMetrics;
+import org.opensearch.performanceanalyzer.rca.framework.util.InstanceDetails;
+
+/**
+ * Sends a metrics request to a set of nodes and collects their responses within a time budget.
+ *
+ * <p>At most {@code maxInFlight} rpcs are outstanding at any time, across all the queries sent
+ * through this instance. Every rpc carries a gRPC deadline of what is left of the budget, so a node
+ * stops working on a request nobody waits for anymore. When hedging is enabled, a node that has not
+ * answered after the hedge delay, or whose rpc failed, is sent the request once more and the first
+ * of the two to complete is used. The hedge delay of a node is the 95th percentile of its latency,
+ * and never less than the configured delay. The query returns once all the nodes answered or the
+ * budget is spent, with the nodes that did not answer.
+ *
+ * <p>The permits for the first rpcs are taken one node after the other, in the order of the nodes.
+ * While all the permits are held, for instance by concurrent queries, the query waits for one to
+ * be released and may spend its whole budget doing so. The nodes it could not send a request to
+ * within the budget are reported as timed out, and also listed as unsent in the {@link Outcome}.
+ * The permit limit guards the reader against fanning out too many rpcs at once, so these nodes are
+ * not contacted past it.
+ */
+public class MetricsFanOut {
+    private static final Logger LOG = LogManager.getLogger(MetricsFanOut.class);
+
+    /** Samples a node needs before its own latency is used for its hedge delay. */
+    private static final long MIN_SAMPLES_FOR_HEDGE_PERCENTILE = 20;
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private final NetClient netClient;
+    private final boolean streaming;
+    private final long timeoutMillis;
+    private final long hedgeDelayMillis;
+    private final Semaphore inFlight;
+    private final ScheduledExecutorService hedgeScheduler;
+    private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * @param streaming whether the nodes are queried with the StreamMetrics rpc
+     * @param maxInFlight the maximum number of outstanding rpcs
+     * @param timeoutMillis the time budget of a query
+     * @param hedgeDelayMillis the minimum time after which a slow node is sent a second request; 0
+     *     disables hedging
+     */
+    public MetricsFanOut(
+            NetClient netClient,
+            boolean streaming,
+            int maxInFlight,
+            long timeoutMillis,
+            long hedgeDelayMillis) {
+        this.netClient = netClient;
+        this.streaming = streaming;
+        this.timeoutMillis = timeoutMillis;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.hedgeScheduler =
+                hedgeDelayMillis > 0
+                        ? Executors.newSingleThreadScheduledExecutor(
+                                new ThreadFactoryBuilder()
+                                        .setNameFormat("pa-metrics-hedge-%d")
+                                        .setDaemon(true)
+                                        .build())
+                        : null;
+    }
+
+    /**
+     * Queries the nodes and waits for their responses for at most the time budget. The responses of
+     * a node are put in {@code nodeResponses} under its id when its rpc completed; a node whose rpc
+     * completes after this method returned is ignored. A node is only sent a request once an
+     * in-flight permit is free, so while the permits are held elsewhere the later nodes may not be
+     * contacted at all before the budget is spent.
+     *
+     * @return the nodes that did not answer
+     */
+    public Outcome collect(
+            List<InstanceDetails> nodes,
+            MetricsRequest request,
+            ConcurrentMap<String, List<MetricsResponse>> nodeResponses)
+            throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        CountDownLatch doneSignal = new CountDownLatch(nodes.size());
+        List<NodeQuery> queries = new ArrayList<>(nodes.size());
+        for (InstanceDetails node : nodes) {
+            NodeQuery query =
+                    new NodeQuery(node, request, nodeResponses, doneSignal, deadlineNanos);
+            queries.add(query);
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos > 0 && inFlight.tryAcquire(remainingNanos, TimeUnit.NANOSECONDS)) {
+                query.start();
+            }
+        }
+        doneSignal.await(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+        List<String> timedOutNodes = new ArrayList<>();
+        List<String> unsentNodes = new ArrayList<>();
+        List<String> failedNodes = new ArrayList<>();
+        for (NodeQuery query : queries) {
+            switch (query.abandon()) {
+                case TIMED_OUT:
+                    timedOutNodes.add(query.nodeId);
+                    if (!query.sent()) {
+                        unsentNodes.add(query.nodeId);
+                    }
+                    PerformanceAnalyzerApp.READER_METRICS_AGGREGATOR.updateStat(
+                            ReaderMetrics.METRICS_QUERY_NODE_TIMEOUT, query.nodeId, 1);
+                    break;
+                case FAILED:
+                    failedNodes.add(query.nodeId);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (!timedOutNodes.isEmpty() || !failedNodes.isEmpty()) {
+            LOG.debug(
+                    "Metrics : no response from nodes, timed out: {} (not sent: {}), failed: {}",
+                    timedOutNodes,
+                    unsentNodes,
+                    failedNodes);
+            StatsCollector.instance().logException(StatExceptionCode.REQUEST_REMOTE_ERROR);
+        }
+        return new Outcome(timedOutNodes, unsentNodes, failedNodes);
+    }
+
+    /** Returns the latencies of the successful rpcs to a node, or null if it was never queried. */
+    public LatencyHistogram getLatencyHistogram(String nodeId) {
+        return latencies.get(nodeId);
+    }
+
+    @VisibleForTesting
+    int availableInFlightPermits() {
+        return inFlight.availablePermits();
+    }
+
+    /** Stops the thread that sends the hedged requests. */
+    public void stop() {
+        if (hedgeScheduler != null) {
+            hedgeScheduler.shutdownNow();
+        }
+    }
+
+    private long hedgeDelayMillis(String nodeId) {
+        LatencyHistogram histogram = latencies.get(nodeId);
+        if (histogram == null || histogram.getCount() < MIN_SAMPLES_FOR_HEDGE_PERCENTILE) {
+            return hedgeDelayMillis;
+        }
+        return Math.max(hedgeDelayMillis, histogram.getPercentile(HEDGE_PERCENTILE));
+    }
+
+    /** The nodes that did not answer a query in time, and those whose rpcs all failed. */
+    public static final class Outcome {
+        private final List<String> timedOutNodes;
+        private final List<String> unsentNodes;
+        private final List<String> failedNodes;
+
+        Outcome(List<String> timedOutNodes, List<String> unsentNodes, List<String> failedNodes) {
+            this.timedOutNodes = Collections.unmodifiableList(timedOutNodes);
+            this.unsentNodes = Collections.unmodifiableList(unsentNodes);
+            this.failedNodes = Collections.unmodifiableList(failedNodes);
+        }
+
+        public List<String> getTimedOutNodes() {
+            return timedOutNodes;
+        }
+
+        /**
+         * The timed out nodes that were never sent a request, because no in-flight permit freed up
+         * within the budget.
+         */
+        public List<String> getUnsentNodes() {
+            return unsentNodes;
+        }
+
+        public List<String> getFailedNodes() {
+            return failedNodes;
+        }
+
+        public boolean isPartial() {
+            return !timedOutNodes.isEmpty() || !failedNodes.isEmpty();
+        }
+    }
+
+    private enum State {
+        PENDING,
+        SUCCEEDED,
+        FAILED,
+        TIMED_OUT
+    }
+
+    /**
+     * The rpcs of a query to one node. All the state transitions happen under the lock of this
+     * object, and the first transition out of {@link State#PENDING} counts the query down.
+     */
+    private final class NodeQuery {
+        private final InstanceDetails node;
+        private final String nodeId;
+        private final MetricsRequest request;
+        private final ConcurrentMap<String, List<MetricsResponse>> nodeResponses;
+        private final CountDownLatch doneSignal;
+        private final long deadlineNanos;
+        private final List<Attempt> attempts = new ArrayList<>(2);
+        private State state = State.PENDING;
+        private boolean hedged;
+        private ScheduledFuture<?> hedgeTimer;
+
+        NodeQuery(
+                InstanceDetails node,
+                MetricsRequest request,
+                ConcurrentMap<String, List<MetricsResponse>> nodeResponses,
+                CountDownLatch doneSignal,
+                long deadlineNanos) {
+            this.node = node;
+            this.nodeId = node.getInstanceId().toString();
+            this.request = request;
+            this.nodeResponses = nodeResponses;
+            this.doneSignal = doneSignal;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /** Sends the first rpc, for which the caller acquired an in-flight permit. */
+        synchronized void start() {
+            send();
+            if (hedgeScheduler != null && state == State.PENDING) {
+                long delayNanos = TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis(nodeId));
+                if (System.nanoTime() + delayNanos < deadlineNanos) {
+                    hedgeTimer =
+                            hedgeScheduler.schedule(this::hedge, delayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        /** Sends the second rpc, if the node has not answered and an in-flight permit is free. */
+        synchronized void hedge() {
+            if (state != State.PENDING
+                    || hedged
+                    || System.nanoTime() >= deadlineNanos
+                    || !inFlight.tryAcquire()) {
+                return;
+            }
+            hedged = true;
+            PerformanceAnalyzerApp.READER_METRICS_AGGREGATOR.updateStat(
+                    ReaderMetrics.METRICS_QUERY_HEDGED_REQUESTS, "", 1);
+            send();
+        }
+
+        private void send() {
+            Attempt attempt = new Attempt(this);
+            attempts.add(attempt);
+            long remainingMillis =
+                    Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+            try {
+                if (streaming) {
+                    netClient.streamMetrics(node, request, attempt, remainingMillis);
+                } else {
+                    netClient.getMetrics(node, request, attempt, remainingMillis);
+                }
+            } catch (Exception e) {
+                onFailed(attempt, e);
+            }
+        }
+
+        synchronized void onCompleted(Attempt attempt) {
+            attempt.finish();
+            if (state != State.PENDING) {
+                return;
+            }
+            state = State.SUCCEEDED;
+            if (!attempt.responses.isEmpty()) {
+                nodeResponses.putIfAbsent(nodeId, attempt.responses);
+            }
+            long latencyMillis =
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attempt.startNanos);
+            latencies.computeIfAbsent(nodeId, k -> new LatencyHistogram()).record(latencyMillis);
+            PerformanceAnalyzerApp.READER_METRICS_AGGREGATOR.updateStat(
+                    ReaderMetrics.METRICS_QUERY_NODE_LATENCY, nodeId, latencyMillis);
+            cancelRemaining("another request to the node completed");
+            doneSignal.countDown();
+        }
+
+        synchronized void onFailed(Attempt attempt, Throwable t) {
+            attempt.finish();
+            if (state != State.PENDING) {
+                return;
+            }
+            LOG.debug("Metrics : Error occurred while getting Metrics for {}", node, t);
+            if (hedgeScheduler != null) {
+                // A failed rpc is retried right away instead of waiting for the hedge delay.
+                hedge();
+                if (state != State.PENDING) {
+                    return;
+                }
+            }
+            for (Attempt a : attempts) {
+                if (!a.finished) {
+                    return;
+                }
+            }
+            state = State.FAILED;
+            cancelRemaining("all the requests to the node failed");
+            doneSignal.countDown();
+        }
+
+        /** Whether the node was sent a request at all. */
+        synchronized boolean sent() {
+            return !attempts.isEmpty();
+        }
+
+        /** Gives up on the node once the query returned, and reports how it ended. */
+        synchronized State abandon() {
+            if (state == State.PENDING) {
+                state = State.TIMED_OUT;
+                cancelRemaining("the metrics query timed out");
+            }
+            return state;
+        }
+
+        private void cancelRemaining(String reason) {
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            for (Attempt a : attempts) {
+                if (!a.finished) {
+                    a.cancel(reason);
+                }
+            }
+        }
+    }
+
+    /** One rpc to a node, holding an in-flight permit until it completes, fails or is cancelled. */
+    private final class Attempt implements ClientResponseObserver<MetricsRequest, MetricsResponse> {
+        private final NodeQuery query;
+        private final long startNanos = System.nanoTime();
+        private final List<MetricsResponse> responses = new ArrayList<>();
+        private volatile ClientCallStreamObserver<MetricsRequest> call;
+        // Guarded by the lock of the query.
+        private boolean finished;
+
+        Attempt(NodeQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<MetricsRequest> requestStream) {
+            this.call = requestStream;
+        }
+
+        @Override
+        public void onNext(MetricsResponse value) {
+            responses.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            query.onFailed(this, t);
+        }
+
+        @Override
+        public void onCompleted() {
+            query.onCompleted(this);
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                inFlight.release();
+            }
+        }
+
+        void cancel(String reason) {
+            finish();
+            if (call != null) {
+                call.cancel(reason, null);
+            }
+        }
+    }
+}
@@ -32,12 +32,14 @@ import io.grpc.stub.StreamObserver;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
 import org.opensearch.performanceanalyzer.collectors.StatsCollector;
+import org.opensearch.performanceanalyzer.grpc.FlowUnitBatch;
 import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
 import org.opensearch.performanceanalyzer.grpc.InterNodeRpcServiceGrpc;
 import org.opensearch.performanceanalyzer.grpc.MetricsRequest;
@@ -70,6 +72,9 @@ public class NetClient {
     private ConcurrentMap<InstanceDetails.Id, AtomicReference<StreamObserver<FlowUnitMessage>>>
             perHostOpenDataStreamMap = new ConcurrentHashMap<>();
 
+    private ConcurrentMap<InstanceDetails.Id, AtomicReference<StreamObserver<FlowUnitBatch>>>
+            perHostOpenBatchStreamMap = new ConcurrentHashMap<>();
+
     /**
      * Sends a subscribe request to a remote host. If the subscribe request fails because the remote
      * host is not ready/encountered an exception, we still retry subscribing when we try reading
@@ -129,6 +134,42 @@ public class NetClient {
         }
     }
 
+    /**
+     * Same as {@link #publish}, with the flow units sent as one message on the PublishBatch stream
+     * of the remote host. Hosts that do not implement PublishBatch fail the stream with
+     * UNIMPLEMENTED.
+     *
+     * @param remoteHost The remote host to which we need to send flow units to.
+     * @param flowUnitBatch The flow units to send to the remote host.
+     * @param serverResponseStream The stream for the server to communicate back on.
+     */
+    public void publishBatch(
+            final InstanceDetails remoteHost,
+            final FlowUnitBatch flowUnitBatch,
+            final StreamObserver<PublishResponse> serverResponseStream) {
+        LOG.debug(
+                "Publishing a batch of {} flow units to {}",
+                flowUnitBatch.getFlowUnitsCount(),
+                remoteHost);
+        try {
+            final StreamObserver<FlowUnitBatch> stream =
+                    getBatchStreamForHost(remoteHost, serverResponseStream);
+            stream.onNext(flowUnitBatch);
+            for (final FlowUnitMessage flowUnitMessage : flowUnitBatch.getFlowUnitsList()) {
+                PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                        RcaGraphMetrics.NET_BYTES_OUT,
+                        flowUnitMessage.getGraphNode(),
+                        flowUnitMessage.getSerializedSize());
+            }
+        } catch (StatusRuntimeException sre) {
+            LOG.error(
+                    "rca: Encountered an error trying to publish a flow unit batch. Status: {}",
+                    sre.getStatus(),
+                    sre);
+            StatsCollector.instance().logException(StatExceptionCode.RCA_NETWORK_ERROR);
+        }
+    }
+
     public void getMetrics(
             InstanceDetails remoteNodeIP,
             MetricsRequest request,
@@ -138,6 +179,46 @@ public class NetClient {
         stub.getMetrics(request, responseObserver);
     }
 
+    /** Same as {@link #getMetrics}, with the result split into responses of bounded size. */
+    public void streamMetrics(
+            InstanceDetails remoteNodeIP,
+            MetricsRequest request,
+            StreamObserver<MetricsResponse> responseObserver) {
+        InterNodeRpcServiceGrpc.InterNodeRpcServiceStub stub =
+                connectionManager.getClientStubForHost(remoteNodeIP);
+        stub.streamMetrics(request, responseObserver);
+    }
+
+    /**
+     * Same as {@link #getMetrics}, failing with DEADLINE_EXCEEDED if the node did not answer after
+     * {@code deadlineMillis}.
+     */
+    public void getMetrics(
+            InstanceDetails remoteNodeIP,
+            MetricsRequest request,
+            StreamObserver<MetricsResponse> responseObserver,
+            long deadlineMillis) {
+        connectionManager
+                .getClientStubForHost(remoteNodeIP)
+                .withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS)
+                .getMetrics(request, responseObserver);
+    }
+
+    /**
+     * Same as {@link #streamMetrics}, failing with DEADLINE_EXCEEDED if the node did not complete
+     * the stream after {@code deadlineMillis}.
+     */
+    public void streamMetrics(
+            InstanceDetails remoteNodeIP,
+            MetricsRequest request,
+            StreamObserver<MetricsResponse> responseObserver,
+            long deadlineMillis) {
+        connectionManager
+                .getClientStubForHost(remoteNodeIP)
+                .withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS)
+                .streamMetrics(request, responseObserver);
+    }
+
     public void stop() {
         LOG.debug("Shutting down client streaming connections..");
         closeAllDataStreams();
@@ -146,6 +227,7 @@ public class NetClient {
     public void flushStream(final InstanceDetails.Id remoteHost) {
         LOG.debug("removing data streams for {} as we are no publishing to it.", remoteHost);
         perHostOpenDataStreamMap.remove(remoteHost);
+        perHostOpenBatchStreamMap.remove(remoteHost);
     }
 
     private void closeAllDataStreams() {
@@ -157,6 +239,12 @@ public class NetClient {
             entry.getValue().get().onCompleted();
             perHostOpenDataStreamMap.remove(entry.getKey());
         }
+        for (Map.Entry<InstanceDetails.Id, AtomicReference<StreamObserver<FlowUnitBatch>>> entry :
+                perHostOpenBatchStreamMap.entrySet()) {
+            LOG.debug("Closing batch stream for host: {}", entry.getKey());
+            entry.getValue().get().onCompleted();
+            perHostOpenBatchStreamMap.remove(entry.getKey());
+        }
     }
 
     private StreamObserver<FlowUnitMessage> getDataStreamForHost(
@@ -188,4 +276,34 @@ public class NetClient {
         perHostOpenDataStreamMap.get(remoteHost.getInstanceId()).set(dataStream);
         return dataStream;
     }
+
+    private StreamObserver<FlowUnitBatch> getBatchStreamForHost(
+            final InstanceDetails remoteHost,
+            final StreamObserver<PublishResponse> serverResponseStream) {
+        final AtomicReference<StreamObserver<FlowUnitBatch>> streamObserverAtomicReference =
+                perHostOpenBatchStreamMap.get(remoteHost.getInstanceId());
+        if (streamObserverAtomicReference != null) {
+            return streamObserverAtomicReference.get();
+        }
+        return addOrUpdateBatchStreamForHost(remoteHost, serverResponseStream);
+    }
+
+    /**
+     * Builds or updates a flow unit batch stream to a host. Callers: Flow unit batch flush thread.
+     *
+     * @param remoteHost The host to which we want to open a stream to.
+     * @param serverResponseStream The response stream object.
+     * @return A stream to the host.
+     */
+    private synchronized StreamObserver<FlowUnitBatch> addOrUpdateBatchStreamForHost(
+            final InstanceDetails remoteHost,
+            final StreamObserver<PublishResponse> serverResponseStream) {
+        InterNodeRpcServiceGrpc.InterNodeRpcServiceStub stub =
+                connectionManager.getClientStubForHost(remoteHost);
+        final StreamObserver<FlowUnitBatch> batchStream = stub.publishBatch(serverResponseStream);
+        perHostOpenBatchStreamMap.computeIfAbsent(
+                remoteHost.getInstanceId(), s -> new AtomicReference<>());
+        perHostOpenBatchStreamMap.get(remoteHost.getInstanceId()).set(batchStream);
+        return batchStream;
+    }
 }
@@ -44,6 +44,7 @@ import javax.net.ssl.SSLException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.CertificateUtils;
+import org.opensearch.performanceanalyzer.grpc.FlowUnitBatch;
 import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
 import org.opensearch.performanceanalyzer.grpc.InterNodeRpcServiceGrpc;
 import org.opensearch.performanceanalyzer.grpc.MetricsRequest;
@@ -181,6 +182,26 @@ public class NetServer extends InterNodeRpcServiceGrpc.InterNodeRpcServiceImplBa
         throw new UnsupportedOperationException("No rpc handler found for publish/");
     }
 
+    /**
+     *
+     *
+     * <pre>
+     * Sends the flowunits queued for a node in batches.
+     * </pre>
+     *
+     * @param responseObserver The response stream.
+     */
+    @Override
+    public StreamObserver<FlowUnitBatch> publishBatch(
+            final StreamObserver<PublishResponse> responseObserver) {
+        LOG.debug("publishBatch received");
+        if (sendDataHandler != null) {
+            return sendDataHandler.getBatchClientStream(responseObserver);
+        }
+
+        throw new UnsupportedOperationException("No rpc handler found for publishBatch/");
+    }
+
     /**
      *
      *
@@ -212,6 +233,18 @@ public class NetServer extends InterNodeRpcServiceGrpc.InterNodeRpcServiceImplBa
         }
     }
 
+    @Override
+    public void streamMetrics(
+            MetricsRequest request, StreamObserver<MetricsResponse> responseObserver) {
+        if (metricsServerHandler != null) {
+            metricsServerHandler.streamAPIData(request, responseObserver);
+        } else {
+            LOG.error("StreamMetrics request received before handler is set.");
+            responseObserver.onError(
+                    new UnsupportedOperationException("No rpc handler found for streamMetrics/"));
+        }
+    }
+
     public void setSubscribeHandler(SubscribeServerHandler subscribeHandler) {
         this.subscribeHandler = subscribeHandler;
     }
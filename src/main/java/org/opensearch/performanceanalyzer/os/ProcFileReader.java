@@ -0,0 +1,169 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.os;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads small procfs files into a reusable direct buffer and parses numeric fields in place.
+ *
+ * <p>A reader is not thread safe; each sampler keeps its own instance. Files larger than the
+ * buffer are truncated, which is fine for the per-thread stat, schedstat and io files.
+ */
+public final class ProcFileReader {
+    private static final Logger LOGGER = LogManager.getLogger(ProcFileReader.class);
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final ByteBuffer buffer;
+    private int pos;
+    private int limit;
+
+    public ProcFileReader() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public ProcFileReader(int bufferSize) {
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /**
+     * Loads the file into the buffer and rewinds the parse cursor.
+     *
+     * @return false if the file could not be read, e.g. because the thread exited
+     */
+    public boolean read(Path path) {
+        buffer.clear();
+        pos = 0;
+        limit = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {}
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            LOGGER.debug("Error reading {}: {}", () -> path, () -> e.toString());
+            return false;
+        }
+        limit = buffer.position();
+        return limit > 0;
+    }
+
+    public boolean hasRemaining() {
+        return pos < limit;
+    }
+
+    /** Moves the cursor past the last occurrence of {@code b}; returns false if absent. */
+    public boolean skipPastLast(byte b) {
+        for (int i = limit - 1; i >= pos; i--) {
+            if (buffer.get(i) == b) {
+                pos = i + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Skips {@code count} whitespace separated tokens. */
+    public void skipTokens(int count) {
+        for (int i = 0; i < count; i++) {
+            skipWhitespace();
+            while (pos < limit && !isWhitespace(buffer.get(pos))) {
+                pos++;
+            }
+        }
+    }
+
+    /** Moves the cursor to the start of the next line. */
+    public void skipLine() {
+        while (pos < limit && buffer.get(pos) != '\n') {
+            pos++;
+        }
+        if (pos < limit) {
+            pos++;
+        }
+    }
+
+    /**
+     * Checks whether the current line starts with {@code key} immediately followed by ':' and,
+     * if so, moves the cursor past the separator.
+     */
+    public boolean matchKey(byte[] key) {
+        if (pos + key.length >= limit) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(pos + i) != key[i]) {
+                return false;
+            }
+        }
+        if (buffer.get(pos + key.length) != ':') {
+            return false;
+        }
+        pos += key.length + 1;
+        return true;
+    }
+
+    /**
+     * Parses the next whitespace separated token as an unsigned decimal.
+     *
+     * @return the value, or -1 if no number is present at the cursor
+     */
+    public long nextLong() {
+        skipWhitespace();
+        if (pos >= limit) {
+            return -1;
+        }
+        long value = 0;
+        int start = pos;
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            pos++;
+        }
+        return pos == start ? -1 : value;
+    }
+
+    private void skipWhitespace() {
+        while (pos < limit && isWhitespace(buffer.get(pos))) {
+            pos++;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n';
+    }
+}
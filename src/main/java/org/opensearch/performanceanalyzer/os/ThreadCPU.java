@@ -27,9 +27,7 @@
 package org.opensearch.performanceanalyzer.os;
 
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
@@ -42,108 +40,20 @@ public final class ThreadCPU {
     private long scClkTck = 0;
     private String pid = null;
     private List<String> tids = null;
-    private Map<String, Map<String, Object>> tidKVMap = new HashMap<>();
-    private Map<String, Map<String, Object>> oldtidKVMap = new HashMap<>();
+    private final TidSampleTable table;
+    private final ProcFileReader reader = new ProcFileReader();
     private long kvTimestamp = 0;
     private long oldkvTimestamp = 0;
     private LinuxCPUPagingActivityGenerator cpuPagingActivityMap =
             new LinuxCPUPagingActivityGenerator();
 
-    // these two arrays map 1-1
-    private static String[] statKeys = {
-        "pid",
-        "comm",
-        "state",
-        "ppid",
-        "pgrp",
-        "session",
-        "ttynr",
-        "tpgid",
-        "flags",
-        "minflt",
-        "cminflt",
-        "majflt",
-        "cmajflt",
-        "utime",
-        "stime",
-        "cutime",
-        "cstime",
-        "prio",
-        "nice",
-        "nthreads",
-        "itrealvalue",
-        "starttime",
-        "vsize",
-        "rss",
-        "rsslim",
-        "startcode",
-        "endcode",
-        "startstack",
-        "kstkesp",
-        "kstkeip",
-        "signal",
-        "blocked",
-        "sigignore",
-        "sigcatch",
-        "wchan",
-        "nswap",
-        "cnswap",
-        "exitsig",
-        "cpu",
-        "rtprio",
-        "schedpolicy",
-        "bio_ticks",
-        "vmtime",
-        "cvmtime"
-        // more that we ignore
-    };
-
-    private static SchemaFileParser.FieldTypes[] statTypes = {
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.STRING,
-        SchemaFileParser.FieldTypes.CHAR,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.ULONG, // 10
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG, // 20
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG, // 30
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT, // 40
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT,
-        SchemaFileParser.FieldTypes.INT
-    };
+    // fields of /proc/pid/task/tid/stat kept per tid
+    static final int MINFLT = 0;
+    static final int MAJFLT = 1;
+    static final int UTIME = 2;
+    static final int STIME = 3;
+    static final int RSS = 4;
+    static final int STAT_WIDTH = 5;
 
     private ThreadCPU() {
         try {
@@ -158,82 +68,100 @@ public final class ThreadCPU {
                                             "Error In Initializing ThreadCPU: {}", e.toString()),
                     e);
         }
+        table = new TidSampleTable(pid, "stat", STAT_WIDTH);
     }
 
     public synchronized void addSample() {
         tids = OSGlobals.getTids();
 
-        oldtidKVMap.clear();
-        oldtidKVMap.putAll(tidKVMap);
-
-        tidKVMap.clear();
-        oldkvTimestamp = kvTimestamp;
-        kvTimestamp = System.currentTimeMillis();
+        beginSample(System.currentTimeMillis());
         for (String tid : tids) {
-            Map<String, Object> sample =
-                    // (new SchemaFileParser("/proc/"+tid+"/stat",
-                    (new SchemaFileParser(
-                                    "/proc/" + pid + "/task/" + tid + "/stat",
-                                    statKeys,
-                                    statTypes,
-                                    true))
-                            .parse();
-            tidKVMap.put(tid, sample);
+            int slot = acquire(tid);
+            if (slot >= 0 && read(reader, slot)) {
+                publish(slot);
+            }
         }
+        endSample();
+    }
 
-        calculateCPUDetails();
-        calculatePagingActivity();
+    synchronized void beginSample(long timestamp) {
+        oldkvTimestamp = kvTimestamp;
+        kvTimestamp = timestamp;
+        cpuPagingActivityMap.clear();
+        table.beginSample();
     }
 
-    private void calculateCPUDetails() {
-        if (oldkvTimestamp == kvTimestamp) {
-            return;
-        }
+    synchronized int acquire(String tid) {
+        return table.acquire(tid);
+    }
 
-        for (Map.Entry<String, Map<String, Object>> entry : tidKVMap.entrySet()) {
-            Map<String, Object> v = entry.getValue();
-            Map<String, Object> oldv = oldtidKVMap.get(entry.getKey());
-            if (v != null && oldv != null) {
-                if (!v.containsKey("utime") || !oldv.containsKey("utime")) {
-                    continue;
-                }
-                long diff =
-                        ((long) (v.getOrDefault("utime", 0L))
-                                        - (long) (oldv.getOrDefault("utime", 0L)))
-                                + ((long) (v.getOrDefault("stime", 0L))
-                                        - (long) (oldv.getOrDefault("stime", 0L)));
-                double util = (1.0e3 * diff / scClkTck) / (kvTimestamp - oldkvTimestamp);
-                cpuPagingActivityMap.setCPUUtilization(entry.getKey(), util);
-            }
+    /**
+     * Reads the stat file of an acquired slot. Not synchronized: the task walker calls this from
+     * its workers for distinct slots while it holds the lock.
+     */
+    boolean read(ProcFileReader reader, int slot) {
+        if (!reader.read(table.getPath(slot)) || !parseStat(reader, table, slot)) {
+            table.discard(slot);
+            return false;
         }
+        return true;
     }
 
-    /** Note: major faults include mmap()'ed accesses */
-    private void calculatePagingActivity() {
-        if (oldkvTimestamp == kvTimestamp) {
-            return;
+    synchronized void publish(int slot) {
+        if (table.isSampled(slot) && table.hasPrevious(slot) && oldkvTimestamp != kvTimestamp) {
+            calculateCPUDetails(slot);
+            calculatePagingActivity(slot);
         }
+    }
 
-        for (Map.Entry<String, Map<String, Object>> entry : tidKVMap.entrySet()) {
-            Map<String, Object> v = entry.getValue();
-            Map<String, Object> oldv = oldtidKVMap.get(entry.getKey());
-            if (v != null && oldv != null) {
-                if (!v.containsKey("majflt") || !oldv.containsKey("majflt")) {
-                    continue;
-                }
-                double majdiff =
-                        ((long) (v.getOrDefault("majflt", 0L))
-                                - (long) (oldv.getOrDefault("majflt", 0L)));
-                majdiff /= 1.0e-3 * (kvTimestamp - oldkvTimestamp);
-                double mindiff =
-                        ((long) (v.getOrDefault("minflt", 0L))
-                                - (long) (oldv.getOrDefault("minflt", 0L)));
-                mindiff /= 1.0e-3 * (kvTimestamp - oldkvTimestamp);
-
-                Double[] fltarr = {majdiff, mindiff, (double) ((long) v.getOrDefault("rss", 0L))};
-                cpuPagingActivityMap.setPagingActivities(entry.getKey(), fltarr);
-            }
+    synchronized void endSample() {
+        table.endSample();
+    }
+
+    /**
+     * Parses the fields we track out of a stat file. The thread name is wrapped in "()" and may
+     * itself contain spaces or parentheses, so fields are counted from the last ')'.
+     */
+    static boolean parseStat(ProcFileReader reader, TidSampleTable table, int slot) {
+        if (!reader.skipPastLast((byte) ')')) {
+            return false;
         }
+        // the cursor is now before field 3 (state); minflt is field 10
+        reader.skipTokens(7);
+        long minflt = reader.nextLong();
+        reader.skipTokens(1);
+        long majflt = reader.nextLong();
+        reader.skipTokens(1);
+        long utime = reader.nextLong();
+        long stime = reader.nextLong();
+        reader.skipTokens(8);
+        long rss = reader.nextLong();
+        if (minflt < 0 || majflt < 0 || utime < 0 || stime < 0 || rss < 0) {
+            return false;
+        }
+        table.set(slot, MINFLT, minflt);
+        table.set(slot, MAJFLT, majflt);
+        table.set(slot, UTIME, utime);
+        table.set(slot, STIME, stime);
+        table.set(slot, RSS, rss);
+        return true;
+    }
+
+    private void calculateCPUDetails(int slot) {
+        long diff = table.delta(slot, UTIME) + table.delta(slot, STIME);
+        double util = (1.0e3 * diff / scClkTck) / (kvTimestamp - oldkvTimestamp);
+        cpuPagingActivityMap.setCPUUtilization(table.getTid(slot), util);
+    }
+
+    /** Note: major faults include mmap()'ed accesses */
+    private void calculatePagingActivity(int slot) {
+        double majdiff = table.delta(slot, MAJFLT);
+        majdiff /= 1.0e-3 * (kvTimestamp - oldkvTimestamp);
+        double mindiff = table.delta(slot, MINFLT);
+        mindiff /= 1.0e-3 * (kvTimestamp - oldkvTimestamp);
+
+        Double[] fltarr = {majdiff, mindiff, (double) table.get(slot, RSS)};
+        cpuPagingActivityMap.setPagingActivities(table.getTid(slot), fltarr);
     }
 
     public LinuxCPUPagingActivityGenerator getCPUPagingActivity() {
@@ -27,26 +27,36 @@
 package org.opensearch.performanceanalyzer.os;
 
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Map;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
-import org.opensearch.performanceanalyzer.collectors.StatsCollector;
 import org.opensearch.performanceanalyzer.metrics_generator.linux.LinuxDiskIOMetricsGenerator;
 
 public class ThreadDiskIO {
     private static String pid = OSGlobals.getPid();
     private static List<String> tids = null;
-    private static final Logger LOGGER = LogManager.getLogger(ThreadDiskIO.class);
 
-    private static Map<String, Map<String, Long>> tidKVMap = new HashMap<>();
-    private static Map<String, Map<String, Long>> oldtidKVMap = new HashMap<>();
+    // fields of /proc/pid/task/tid/io kept per tid
+    static final int RCHAR = 0;
+    static final int WCHAR = 1;
+    static final int SYSCR = 2;
+    static final int SYSCW = 3;
+    static final int READ_BYTES = 4;
+    static final int WRITE_BYTES = 5;
+    static final int IO_WIDTH = 6;
+    private static final byte[][] IO_KEYS = {
+        "rchar".getBytes(StandardCharsets.US_ASCII),
+        "wchar".getBytes(StandardCharsets.US_ASCII),
+        "syscr".getBytes(StandardCharsets.US_ASCII),
+        "syscw".getBytes(StandardCharsets.US_ASCII),
+        "read_bytes".getBytes(StandardCharsets.US_ASCII),
+        "write_bytes".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private static final TidSampleTable table = new TidSampleTable(pid, "io", IO_WIDTH);
+    private static final ProcFileReader reader = new ProcFileReader();
+    private static LinuxDiskIOMetricsGenerator ioMetricsGenerator =
+            new LinuxDiskIOMetricsGenerator();
+    private static LinuxDiskIOMetricsGenerator pendingIOMetricsGenerator = ioMetricsGenerator;
     private static long kvTimestamp = 0;
     private static long oldkvTimestamp = 0;
 
@@ -109,83 +119,101 @@ public class ThreadDiskIO {
         }
     }
 
-    private static void addSampleTid(String tid) {
-        try (FileReader fileReader =
-                        new FileReader(new File("/proc/" + pid + "/task/" + tid + "/io"));
-                BufferedReader bufferedReader = new BufferedReader(fileReader); ) {
-            String line = null;
-            Map<String, Long> kvmap = new HashMap<>();
-            while ((line = bufferedReader.readLine()) != null) {
-                String[] toks = line.split("[: ]+");
-                String key = toks[0];
-                long val = Long.parseLong(toks[1]);
-                kvmap.put(key, val);
-            }
-            tidKVMap.put(tid, kvmap);
-        } catch (FileNotFoundException e) {
-            LOGGER.debug("FileNotFound in parse with exception: {}", () -> e.toString());
-        } catch (Exception e) {
-            LOGGER.debug(
-                    "Error In addSample Tid for: {}  with error: {} with ExceptionCode: {}",
-                    () -> tid,
-                    () -> e.toString(),
-                    () -> StatExceptionCode.THREAD_IO_ERROR.toString());
-            StatsCollector.instance().logException(StatExceptionCode.THREAD_IO_ERROR);
-        }
-    }
-
     public static synchronized void addSample() {
         tids = OSGlobals.getTids();
-        oldtidKVMap.clear();
-        oldtidKVMap.putAll(tidKVMap);
 
-        tidKVMap.clear();
-        oldkvTimestamp = kvTimestamp;
-        kvTimestamp = System.currentTimeMillis();
+        beginSample(System.currentTimeMillis());
         for (String tid : tids) {
-            addSampleTid(tid);
+            int slot = acquire(tid);
+            if (slot >= 0 && read(reader, slot)) {
+                publish(slot);
+            }
         }
+        endSample();
     }
 
-    public static synchronized LinuxDiskIOMetricsGenerator getIOUtilization() {
+    static synchronized void beginSample(long timestamp) {
+        oldkvTimestamp = kvTimestamp;
+        kvTimestamp = timestamp;
+        pendingIOMetricsGenerator = new LinuxDiskIOMetricsGenerator();
+        table.beginSample();
+    }
+
+    static synchronized int acquire(String tid) {
+        return table.acquire(tid);
+    }
 
-        LinuxDiskIOMetricsGenerator linuxDiskIOMetricsHandler = new LinuxDiskIOMetricsGenerator();
-        if (oldkvTimestamp == kvTimestamp) {
-            return linuxDiskIOMetricsHandler;
+    /** Reads the io file of an acquired slot; see {@link ThreadCPU#read}. */
+    static boolean read(ProcFileReader reader, int slot) {
+        if (!reader.read(table.getPath(slot)) || !parseIO(reader, table, slot)) {
+            table.discard(slot);
+            return false;
         }
+        return true;
+    }
+
+    static synchronized void publish(int slot) {
+        if (table.isSampled(slot) && table.hasPrevious(slot) && oldkvTimestamp != kvTimestamp) {
+            calculateIOMetrics(slot, pendingIOMetricsGenerator);
+        }
+    }
+
+    static synchronized void endSample() {
+        table.endSample();
+        ioMetricsGenerator = pendingIOMetricsGenerator;
+    }
 
-        for (Map.Entry<String, Map<String, Long>> entry : tidKVMap.entrySet()) {
-            Map<String, Long> v = entry.getValue();
-            Map<String, Long> oldv = oldtidKVMap.get(entry.getKey());
-            if (v != null && oldv != null) {
-                double duration = 1.0e-3 * (kvTimestamp - oldkvTimestamp);
-                double readBytes = v.get("read_bytes") - oldv.get("read_bytes");
-                double writeBytes = v.get("write_bytes") - oldv.get("write_bytes");
-                double readSyscalls = v.get("syscr") - oldv.get("syscr");
-                double writeSyscalls = v.get("syscw") - oldv.get("syscw");
-                double readPcBytes = v.get("rchar") - oldv.get("rchar") - readBytes;
-                double writePcBytes = v.get("wchar") - oldv.get("wchar") - writeBytes;
-                readBytes /= duration;
-                readSyscalls /= duration;
-                writeBytes /= duration;
-                writeSyscalls /= duration;
-                readPcBytes /= duration;
-                writePcBytes /= duration;
-
-                linuxDiskIOMetricsHandler.setDiskIOMetrics(
-                        entry.getKey(),
-                        new IOMetrics(
-                                readBytes,
-                                readSyscalls,
-                                writeBytes,
-                                writeSyscalls,
-                                readBytes + writeBytes,
-                                readSyscalls + writeSyscalls,
-                                readPcBytes,
-                                writePcBytes,
-                                readPcBytes + writePcBytes));
+    static boolean parseIO(ProcFileReader reader, TidSampleTable table, int slot) {
+        int found = 0;
+        while (reader.hasRemaining()) {
+            for (int field = 0; field < IO_WIDTH; field++) {
+                if (reader.matchKey(IO_KEYS[field])) {
+                    long value = reader.nextLong();
+                    if (value < 0) {
+                        return false;
+                    }
+                    table.set(slot, field, value);
+                    found |= 1 << field;
+                    break;
+                }
             }
+            reader.skipLine();
         }
-        return linuxDiskIOMetricsHandler;
+        return found == (1 << IO_WIDTH) - 1;
+    }
+
+    private static void calculateIOMetrics(
+            int slot, LinuxDiskIOMetricsGenerator linuxDiskIOMetricsHandler) {
+        double duration = 1.0e-3 * (kvTimestamp - oldkvTimestamp);
+        double readBytes = table.delta(slot, READ_BYTES);
+        double writeBytes = table.delta(slot, WRITE_BYTES);
+        double readSyscalls = table.delta(slot, SYSCR);
+        double writeSyscalls = table.delta(slot, SYSCW);
+        double readPcBytes = table.delta(slot, RCHAR) - readBytes;
+        double writePcBytes = table.delta(slot, WCHAR) - writeBytes;
+        readBytes /= duration;
+        readSyscalls /= duration;
+        writeBytes /= duration;
+        writeSyscalls /= duration;
+        readPcBytes /= duration;
+        writePcBytes /= duration;
+
+        linuxDiskIOMetricsHandler.setDiskIOMetrics(
+                table.getTid(slot),
+                new IOMetrics(
+                        readBytes,
+                        readSyscalls,
+                        writeBytes,
+                        writeSyscalls,
+                        readBytes + writeBytes,
+                        readSyscalls + writeSyscalls,
+                        readPcBytes,
+                        writePcBytes,
+                        readPcBytes + writePcBytes));
+    }
+
+    /** Returns the per-thread rates computed by the latest {@link #addSample()}. */
+    public static synchronized LinuxDiskIOMetricsGenerator getIOUtilization() {
+        return ioMetricsGenerator;
     }
 }
@@ -27,9 +27,7 @@
 package org.opensearch.performanceanalyzer.os;
 
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
@@ -42,8 +40,8 @@ public final class ThreadSched {
     public static final ThreadSched INSTANCE = new ThreadSched();
     private String pid = null;
     private List<String> tids = null;
-    private Map<String, Map<String, Object>> tidKVMap = new HashMap<>();
-    private Map<String, Map<String, Object>> oldtidKVMap = new HashMap<>();
+    private final TidSampleTable table;
+    private final ProcFileReader reader = new ProcFileReader();
     private long kvTimestamp = 0;
     private long oldkvTimestamp = 0;
 
@@ -73,13 +71,11 @@ public final class ThreadSched {
 
     private LinuxSchedMetricsGenerator schedLatencyMap = new LinuxSchedMetricsGenerator();
 
-    private static String[] schedKeys = {"runticks", "waitticks", "totctxsws"};
-
-    private static SchemaFileParser.FieldTypes[] schedTypes = {
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG,
-        SchemaFileParser.FieldTypes.ULONG
-    };
+    // fields of /proc/pid/task/tid/schedstat, in file order
+    static final int RUNTICKS = 0;
+    static final int WAITTICKS = 1;
+    static final int TOTCTXSWS = 2;
+    static final int SCHED_WIDTH = 3;
 
     private ThreadSched() {
         try {
@@ -93,68 +89,79 @@ public final class ThreadSched {
                                             "Error In Initializing ThreadCPU: {}", e.toString()),
                     e);
         }
+        table = new TidSampleTable(pid, "schedstat", SCHED_WIDTH);
     }
 
     public synchronized void addSample() {
         tids = OSGlobals.getTids();
 
-        oldtidKVMap.clear();
-        oldtidKVMap.putAll(tidKVMap);
-
-        tidKVMap.clear();
-        oldkvTimestamp = kvTimestamp;
-        kvTimestamp = System.currentTimeMillis();
+        beginSample(System.currentTimeMillis());
         for (String tid : tids) {
-            Map<String, Object> sample =
-                    (new SchemaFileParser(
-                                    "/proc/" + pid + "/task/" + tid + "/schedstat",
-                                    schedKeys,
-                                    schedTypes))
-                            .parse();
-            tidKVMap.put(tid, sample);
+            int slot = acquire(tid);
+            if (slot >= 0 && read(reader, slot)) {
+                publish(slot);
+            }
         }
+        endSample();
+    }
+
+    synchronized void beginSample(long timestamp) {
+        oldkvTimestamp = kvTimestamp;
+        kvTimestamp = timestamp;
+        schedLatencyMap.clear();
+        table.beginSample();
+    }
+
+    synchronized int acquire(String tid) {
+        return table.acquire(tid);
+    }
 
-        calculateSchedLatency();
+    /** Reads the schedstat file of an acquired slot; see {@link ThreadCPU#read}. */
+    boolean read(ProcFileReader reader, int slot) {
+        if (!reader.read(table.getPath(slot)) || !parseSchedstat(reader, table, slot)) {
+            table.discard(slot);
+            return false;
+        }
+        return true;
     }
 
-    private void calculateSchedLatency() {
-        if (oldkvTimestamp == kvTimestamp) {
-            return;
+    synchronized void publish(int slot) {
+        if (table.isSampled(slot) && table.hasPrevious(slot) && oldkvTimestamp != kvTimestamp) {
+            calculateSchedLatency(slot);
         }
+    }
+
+    synchronized void endSample() {
+        table.endSample();
+    }
 
-        for (Map.Entry<String, Map<String, Object>> entry : tidKVMap.entrySet()) {
-            Map<String, Object> v = entry.getValue();
-            Map<String, Object> oldv = oldtidKVMap.get(entry.getKey());
-            if (v != null && oldv != null) {
-                if (!v.containsKey("totctxsws") || !oldv.containsKey("totctxsws")) {
-                    continue;
-                }
-                long ctxdiff =
-                        (long) v.getOrDefault("totctxsws", 0L)
-                                - (long) oldv.getOrDefault("totctxsws", 0L);
-                double avgRuntime =
-                        1.0e-9
-                                * ((long) v.getOrDefault("runticks", 0L)
-                                        - (long) oldv.getOrDefault("runticks", 0L));
-                double avgWaittime =
-                        1.0e-9
-                                * ((long) v.getOrDefault("waitticks", 0L)
-                                        - (long) oldv.getOrDefault("waitticks", 0L));
-                if (ctxdiff == 0) {
-                    avgRuntime = 0;
-                    avgWaittime = 0;
-                } else {
-                    avgRuntime /= 1.0 * ctxdiff;
-                    avgWaittime /= 1.0 * ctxdiff;
-                }
-                double contextSwitchRate = ctxdiff;
-                contextSwitchRate /= 1.0e-3 * (kvTimestamp - oldkvTimestamp);
-
-                schedLatencyMap.setSchedMetric(
-                        entry.getKey(),
-                        new SchedMetrics(avgRuntime, avgWaittime, contextSwitchRate));
+    static boolean parseSchedstat(ProcFileReader reader, TidSampleTable table, int slot) {
+        for (int field = 0; field < SCHED_WIDTH; field++) {
+            long value = reader.nextLong();
+            if (value < 0) {
+                return false;
             }
+            table.set(slot, field, value);
         }
+        return true;
+    }
+
+    private void calculateSchedLatency(int slot) {
+        long ctxdiff = table.delta(slot, TOTCTXSWS);
+        double avgRuntime = 1.0e-9 * table.delta(slot, RUNTICKS);
+        double avgWaittime = 1.0e-9 * table.delta(slot, WAITTICKS);
+        if (ctxdiff == 0) {
+            avgRuntime = 0;
+            avgWaittime = 0;
+        } else {
+            avgRuntime /= 1.0 * ctxdiff;
+            avgWaittime /= 1.0 * ctxdiff;
+        }
+        double contextSwitchRate = ctxdiff;
+        contextSwitchRate /= 1.0e-3 * (kvTimestamp - oldkvTimestamp);
+
+        schedLatencyMap.setSchedMetric(
+                table.getTid(slot), new SchedMetrics(avgRuntime, avgWaittime, contextSwitchRate));
     }
 
     public synchronized SchedMetricsGenerator getSchedLatency() {
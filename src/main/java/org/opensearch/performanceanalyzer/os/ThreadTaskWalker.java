@@ -0,0 +1,191 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.os;
+
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Samples the stat, schedstat and io files of every thread in a single walk of the task
+ * directory. The files of a tid are read back-to-back and the three samplers share one timestamp,
+ * so the CPU, scheduler and disk IO metrics of a thread describe the same interval.
+ *
+ * <p>The per-tid reads can be spread over a small fork-join pool that is partitioned by tid range.
+ * Slots are acquired and deltas are published on the calling thread, so the workers only parse
+ * files into disjoint slots of the sample tables.
+ */
+public final class ThreadTaskWalker {
+    private static final Logger LOGGER = LogManager.getLogger(ThreadTaskWalker.class);
+    public static final ThreadTaskWalker INSTANCE = new ThreadTaskWalker();
+
+    /** Smallest tid range handed to a single worker. */
+    private static final int MIN_TIDS_PER_TASK = 64;
+
+    private final File taskDir;
+    private final ProcFileReader reader = new ProcFileReader();
+    private final ThreadLocal<ProcFileReader> workerReaders =
+            ThreadLocal.withInitial(ProcFileReader::new);
+
+    private int[] cpuSlots = new int[0];
+    private int[] schedSlots = new int[0];
+    private int[] ioSlots = new int[0];
+
+    private ForkJoinPool pool;
+    private int poolThreads;
+
+    private ThreadTaskWalker() {
+        taskDir = new File("/proc/" + OSGlobals.getPid() + "/task");
+    }
+
+    /**
+     * Walks the task directory once and feeds {@link ThreadCPU}, {@link ThreadSched} and {@link
+     * ThreadDiskIO}.
+     *
+     * @param threads number of workers to read the per-thread files with; 0 reads them on the
+     *     calling thread
+     */
+    public synchronized void addSample(int threads) {
+        String[] tids = taskDir.list();
+        if (tids == null) {
+            LOGGER.debug("Unable to list {}", taskDir);
+            return;
+        }
+        ensureCapacity(tids.length);
+
+        ThreadCPU cpu = ThreadCPU.INSTANCE;
+        ThreadSched sched = ThreadSched.INSTANCE;
+        synchronized (cpu) {
+            synchronized (sched) {
+                synchronized (ThreadDiskIO.class) {
+                    long timestamp = System.currentTimeMillis();
+                    cpu.beginSample(timestamp);
+                    sched.beginSample(timestamp);
+                    ThreadDiskIO.beginSample(timestamp);
+                    for (int i = 0; i < tids.length; i++) {
+                        cpuSlots[i] = cpu.acquire(tids[i]);
+                        schedSlots[i] = sched.acquire(tids[i]);
+                        ioSlots[i] = ThreadDiskIO.acquire(tids[i]);
+                    }
+
+                    if (threads > 0 && tids.length > MIN_TIDS_PER_TASK) {
+                        int rangeSize = Math.max(MIN_TIDS_PER_TASK, tids.length / threads);
+                        getPool(threads).invoke(new ReadRange(0, tids.length, rangeSize));
+                    } else {
+                        readRange(reader, 0, tids.length);
+                    }
+
+                    for (int i = 0; i < tids.length; i++) {
+                        if (cpuSlots[i] >= 0) {
+                            cpu.publish(cpuSlots[i]);
+                        }
+                        if (schedSlots[i] >= 0) {
+                            sched.publish(schedSlots[i]);
+                        }
+                        if (ioSlots[i] >= 0) {
+                            ThreadDiskIO.publish(ioSlots[i]);
+                        }
+                    }
+                    cpu.endSample();
+                    sched.endSample();
+                    ThreadDiskIO.endSample();
+                }
+            }
+        }
+    }
+
+    private void readRange(ProcFileReader rangeReader, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (cpuSlots[i] >= 0) {
+                ThreadCPU.INSTANCE.read(rangeReader, cpuSlots[i]);
+            }
+            if (schedSlots[i] >= 0) {
+                ThreadSched.INSTANCE.read(rangeReader, schedSlots[i]);
+            }
+            if (ioSlots[i] >= 0) {
+                ThreadDiskIO.read(rangeReader, ioSlots[i]);
+            }
+        }
+    }
+
+    private void ensureCapacity(int count) {
+        if (cpuSlots.length < count) {
+            int capacity = Math.max(count, cpuSlots.length * 2);
+            cpuSlots = new int[capacity];
+            schedSlots = new int[capacity];
+            ioSlots = new int[capacity];
+        }
+    }
+
+    private ForkJoinPool getPool(int threads) {
+        if (pool == null || poolThreads != threads) {
+            if (pool != null) {
+                pool.shutdown();
+            }
+            pool =
+                    new ForkJoinPool(
+                            threads,
+                            forkJoinPool -> {
+                                ForkJoinWorkerThread worker =
+                                        ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(
+                                                forkJoinPool);
+                                worker.setName("pa-task-walker-" + worker.getPoolIndex());
+                                return worker;
+                            },
+                            null,
+                            false);
+            poolThreads = threads;
+        }
+        return pool;
+    }
+
+    private class ReadRange extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int rangeSize;
+
+        ReadRange(int from, int to, int rangeSize) {
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= rangeSize) {
+                readRange(workerReaders.get(), from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ReadRange(from, mid, rangeSize), new ReadRange(mid, to, rangeSize));
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.os;
+
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.opensearch.performanceanalyzer.collections.LongKeys;
+
+/**
+ * Per-thread sample store keyed by native tid. Each tid owns a slot and the sampled values for
+ * that slot live in flat {@code long[]} arrays, so a sample only allocates when a thread is seen
+ * for the first time. Slots of threads that were not sampled in the latest pass are dropped in
+ * {@link #endSample()}.
+ */
+final class TidSampleTable {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int width;
+    private final String taskDir;
+    private final String fileName;
+
+    private int size;
+    private int generation;
+    private long[] tids;
+    private String[] names;
+    private Path[] paths;
+    private int[] seenGeneration;
+    private boolean[] hasPrevious;
+    private long[] current;
+    private long[] previous;
+
+    // open addressing index from tid to slot; a key of 0 marks an empty bucket
+    private long[] indexKeys;
+    private int[] indexSlots;
+
+    /**
+     * @param pid the process whose threads are sampled
+     * @param fileName the file under /proc/pid/task/tid to read
+     * @param width number of values kept per tid
+     */
+    TidSampleTable(String pid, String fileName, int width) {
+        this(Paths.get("/proc", pid, "task"), fileName, width);
+    }
+
+    /** @param taskDir the directory with one subdirectory per tid, e.g. /proc/pid/task */
+    TidSampleTable(Path taskDir, String fileName, int width) {
+        this.width = width;
+        this.taskDir = taskDir.toString() + "/";
+        this.fileName = fileName;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        tids = new long[capacity];
+        names = new String[capacity];
+        paths = new Path[capacity];
+        seenGeneration = new int[capacity];
+        hasPrevious = new boolean[capacity];
+        current = new long[capacity * width];
+        previous = new long[capacity * width];
+        indexKeys = new long[capacity * 2];
+        indexSlots = new int[capacity * 2];
+    }
+
+    void beginSample() {
+        generation++;
+    }
+
+    /**
+     * Returns the slot to fill for {@code tid} in the current sample, rolling its last values
+     * into the previous buffer. Returns -1 if the tid is malformed or was already sampled in this
+     * pass.
+     */
+    int acquire(String tid) {
+        long key = LongKeys.parseId(tid);
+        if (key <= 0) {
+            return -1;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            slot = add(key, tid);
+            hasPrevious[slot] = false;
+        } else if (seenGeneration[slot] == generation) {
+            return -1;
+        } else {
+            System.arraycopy(current, slot * width, previous, slot * width, width);
+            hasPrevious[slot] = true;
+        }
+        seenGeneration[slot] = generation;
+        return slot;
+    }
+
+    /** Marks a slot acquired in this pass as not sampled, e.g. because its file is gone. */
+    void discard(int slot) {
+        seenGeneration[slot] = generation - 1;
+    }
+
+    /** Drops every tid that was not sampled in the current pass. */
+    void endSample() {
+        boolean removed = false;
+        int slot = 0;
+        while (slot < size) {
+            if (seenGeneration[slot] == generation) {
+                slot++;
+                continue;
+            }
+            removed = true;
+            int last = --size;
+            if (slot != last) {
+                move(last, slot);
+            }
+            names[last] = null;
+            paths[last] = null;
+        }
+        if (removed) {
+            rebuildIndex();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    String getTid(int slot) {
+        return names[slot];
+    }
+
+    Path getPath(int slot) {
+        return paths[slot];
+    }
+
+    /** Whether the slot was acquired and not discarded in the current pass. */
+    boolean isSampled(int slot) {
+        return seenGeneration[slot] == generation;
+    }
+
+    boolean hasPrevious(int slot) {
+        return hasPrevious[slot];
+    }
+
+    void set(int slot, int field, long value) {
+        current[slot * width + field] = value;
+    }
+
+    long get(int slot, int field) {
+        return current[slot * width + field];
+    }
+
+    long delta(int slot, int field) {
+        int idx = slot * width + field;
+        return current[idx] - previous[idx];
+    }
+
+    private void move(int from, int to) {
+        tids[to] = tids[from];
+        names[to] = names[from];
+        paths[to] = paths[from];
+        seenGeneration[to] = seenGeneration[from];
+        hasPrevious[to] = hasPrevious[from];
+        System.arraycopy(current, from * width, current, to * width, width);
+        System.arraycopy(previous, from * width, previous, to * width, width);
+    }
+
+    private int add(long key, String tid) {
+        if (size == tids.length) {
+            grow();
+        }
+        int slot = size++;
+        tids[slot] = key;
+        names[slot] = tid;
+        paths[slot] = Paths.get(taskDir + tid + "/" + fileName);
+        insert(key, slot);
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = tids.length * 2;
+        tids = Arrays.copyOf(tids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        paths = Arrays.copyOf(paths, capacity);
+        seenGeneration = Arrays.copyOf(seenGeneration, capacity);
+        hasPrevious = Arrays.copyOf(hasPrevious, capacity);
+        current = Arrays.copyOf(current, capacity * width);
+        previous = Arrays.copyOf(previous, capacity * width);
+        indexKeys = new long[capacity * 2];
+        indexSlots = new int[capacity * 2];
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(indexKeys, 0L);
+        for (int slot = 0; slot < size; slot++) {
+            insert(tids[slot], slot);
+        }
+    }
+
+    private void insert(long key, int slot) {
+        int mask = indexKeys.length - 1;
+        int bucket = LongKeys.hash(key) & mask;
+        while (indexKeys[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        indexKeys[bucket] = key;
+        indexSlots[bucket] = slot;
+    }
+
+    private int find(long key) {
+        int mask = indexKeys.length - 1;
+        int bucket = LongKeys.hash(key) & mask;
+        while (indexKeys[bucket] != 0) {
+            if (indexKeys[bucket] == key) {
+                return indexSlots[bucket];
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        return -1;
+    }
+}
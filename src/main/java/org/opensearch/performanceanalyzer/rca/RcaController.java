@@ -68,6 +68,7 @@ import org.opensearch.performanceanalyzer.rca.framework.metrics.ReaderMetrics;
 import org.opensearch.performanceanalyzer.rca.framework.util.InstanceDetails;
 import org.opensearch.performanceanalyzer.rca.framework.util.RcaConsts;
 import org.opensearch.performanceanalyzer.rca.framework.util.RcaUtil;
+import org.opensearch.performanceanalyzer.rca.net.FlowUnitBatcher;
 import org.opensearch.performanceanalyzer.rca.net.NodeStateManager;
 import org.opensearch.performanceanalyzer.rca.net.ReceivedFlowUnitStore;
 import org.opensearch.performanceanalyzer.rca.net.SubscriptionManager;
@@ -136,6 +137,7 @@ public class RcaController {
     // replace the threadpool instance, we want the update to be visible to all others holding a
     // reference.
     private AtomicReference<ExecutorService> networkThreadPoolReference = new AtomicReference<>();
+    private FlowUnitBatcher flowUnitBatcher;
     private ReceivedFlowUnitStore receivedFlowUnitStore;
 
     private final AppContext appContext;
@@ -216,7 +218,21 @@ public class RcaController {
             queryRcaRequestHandler.setPersistable(persistenceProvider);
             addActionsRequestHandler();
             queryActionRequestHandler.setPersistable(persistenceProvider);
-            receivedFlowUnitStore = new ReceivedFlowUnitStore(rcaConf.getPerVertexBufferLength());
+            receivedFlowUnitStore =
+                    new ReceivedFlowUnitStore(
+                            rcaConf.getPerVertexBufferLength(),
+                            ReceivedFlowUnitStore.OverflowPolicy.fromConfigValue(
+                                    rcaConf.getVertexBufferOverflowPolicy()));
+            if (PluginSettings.instance().isRcaFlowUnitBatchingEnabled()) {
+                flowUnitBatcher =
+                        new FlowUnitBatcher(
+                                rcaNetClient,
+                                subscriptionManager,
+                                appContext,
+                                PluginSettings.instance().getRcaFlowUnitBatchMaxSize(),
+                                PluginSettings.instance().getRcaFlowUnitBatchLingerMillis(),
+                                rcaConf.getNetworkQueueLength());
+            }
             WireHopper net =
                     new WireHopper(
                             nodeStateManager,
@@ -224,7 +240,8 @@ public class RcaController {
                             subscriptionManager,
                             networkThreadPoolReference,
                             receivedFlowUnitStore,
-                            appContext);
+                            appContext,
+                            flowUnitBatcher);
 
             // RcaScheduler should be started with a snapshot of the AppContext as RcaController
             // monitors it for stale state and always restarts the scheduler if it finds its state
@@ -284,6 +301,10 @@ public class RcaController {
 
     private void stop() {
         rcaScheduler.shutdown();
+        if (flowUnitBatcher != null) {
+            flowUnitBatcher.stop();
+            flowUnitBatcher = null;
+        }
         rcaNetClient.stop();
         rcaNetServer.stop();
         receivedFlowUnitStore.drainAll();
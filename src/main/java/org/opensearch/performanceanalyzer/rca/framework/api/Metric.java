@@ -30,12 +30,11 @@ package org.opensearch.performanceanalyzer.rca.framework.api;
 import java.util.Collections;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jooq.Record;
-import org.jooq.Result;
 import org.jooq.exception.DataAccessException;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.metrics.AllMetrics;
 import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ColumnarMetricData;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.MetricFlowUnit;
 import org.opensearch.performanceanalyzer.rca.framework.core.LeafNode;
 import org.opensearch.performanceanalyzer.rca.framework.core.Queryable;
@@ -80,8 +79,8 @@ public abstract class Metric extends LeafNode<MetricFlowUnit> {
             return MetricFlowUnit.generic();
         }
         try {
-            Result<Record> result = queryable.queryMetrics(db, name);
-            return new MetricFlowUnit(queryable.getDBTimestamp(db), result);
+            ColumnarMetricData columns = queryable.queryMetricColumns(db, name);
+            return new MetricFlowUnit(queryable.getDBTimestamp(db), columns);
         } catch (DataAccessException dex) {
             // This can happen if the RCA started querying for metrics before the Reader obtained
             // them.
@@ -68,7 +68,11 @@ public class BucketizedSlidingWindow extends PersistableSlidingWindow {
             int BUCKET_WINDOW_SIZE,
             TimeUnit timeUnit,
             Path persistFilePath) {
-        super(SLIDING_WINDOW_SIZE, timeUnit, persistFilePath);
+        super(
+                SLIDING_WINDOW_SIZE,
+                timeUnit,
+                capacityFor(SLIDING_WINDOW_SIZE, timeUnit, BUCKET_WINDOW_SIZE, timeUnit),
+                persistFilePath);
         if (BUCKET_WINDOW_SIZE >= SLIDING_WINDOW_SIZE) {
             throw new IllegalArgumentException(
                     "BucketWindow size should be less than SlidingWindow size");
@@ -86,11 +90,11 @@ public class BucketizedSlidingWindow extends PersistableSlidingWindow {
 
     @Override
     public void next(SlidingWindowData e) {
-        if (!windowDeque.isEmpty()) {
-            SlidingWindowData firstElement = windowDeque.getFirst();
-            if ((e.getTimeStamp() - firstElement.getTimeStamp()) < BUCKET_WINDOW_SIZE) {
-                firstElement.value += e.getValue();
-                add(e);
+        int stored = storedEntries();
+        if (stored > 0) {
+            long newestTimeStamp = timeStampAt(stored - 1);
+            if ((e.getTimeStamp() - newestTimeStamp) < BUCKET_WINDOW_SIZE) {
+                addToNewest(e.getValue());
                 pruneExpiredEntries(e.getTimeStamp());
                 try {
                     write(); // Try to persist the data whenever we complete writing a bucket
@@ -105,7 +109,7 @@ public class BucketizedSlidingWindow extends PersistableSlidingWindow {
 
     public int size() {
         pruneExpiredEntries(System.currentTimeMillis());
-        return windowDeque.size();
+        return super.size();
     }
 
     @Override
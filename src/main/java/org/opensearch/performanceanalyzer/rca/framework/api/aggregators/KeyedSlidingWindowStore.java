@@ -0,0 +1,175 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.rca.framework.api.aggregators;
+
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A keyed time-series store for RCAs that track metrics per entity, e.g. per shard. Every key holds
+ * one {@link RingBufferSlidingWindow} per metric column, and the key object of the first sample is
+ * the one kept for the lifetime of the entry, so repeated lookups with equal keys do not retain
+ * duplicates.
+ *
+ * <p>A key that has not received a sample for longer than the idle TTL is dropped by {@link
+ * #evictIdle(long)}. Without it, the windows of shards that were deleted or relocated would be kept
+ * (and reported) forever.
+ *
+ * <p>Entries are iterated in the order their keys were first seen. This class is not thread-safe;
+ * it is meant to be owned by a single RCA node.
+ *
+ * @param <K> the key type, which must implement {@code equals} and {@code hashCode}
+ */
+public class KeyedSlidingWindowStore<K> {
+    private final int columns;
+    private final int slidingWindowSize;
+    private final TimeUnit timeUnit;
+    private final long sampleIntervalMillis;
+    private final long idleTtlMillis;
+    private final Map<K, Entry<K>> entries;
+
+    /**
+     * @param columns Number of metric columns kept per key
+     * @param slidingWindowSize Length of each window in units of time
+     * @param timeUnit The unit of time of the window
+     * @param sampleIntervalMillis Expected time between two samples of a column, used to size the
+     *     windows
+     * @param idleTtlMillis Time after its last sample after which a key is evicted
+     */
+    public KeyedSlidingWindowStore(
+            int columns,
+            int slidingWindowSize,
+            TimeUnit timeUnit,
+            long sampleIntervalMillis,
+            long idleTtlMillis) {
+        if (columns <= 0) {
+            throw new IllegalArgumentException("KeyedSlidingWindowStore needs at least one column");
+        }
+        this.columns = columns;
+        this.slidingWindowSize = slidingWindowSize;
+        this.timeUnit = timeUnit;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.idleTtlMillis = idleTtlMillis;
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /** Adds a sample for {@code column} of {@code key}, creating the entry if needed. */
+    public void next(K key, int column, long timeStamp, double value) {
+        Entry<K> entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry<>(key, columns);
+            entries.put(key, entry);
+        }
+        RingBufferSlidingWindow window = entry.windows[column];
+        if (window == null) {
+            window =
+                    new RingBufferSlidingWindow(
+                            slidingWindowSize,
+                            timeUnit,
+                            sampleIntervalMillis,
+                            TimeUnit.MILLISECONDS);
+            entry.windows[column] = window;
+        }
+        window.next(new SlidingWindowData(timeStamp, value));
+        entry.lastUpdated = Math.max(entry.lastUpdated, timeStamp);
+    }
+
+    /** Returns the entry of {@code key}, or null if the key has no samples. */
+    public Entry<K> get(K key) {
+        return entries.get(key);
+    }
+
+    /** A read-only view of the entries, in the order their keys were first seen. */
+    public Collection<Entry<K>> entries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Drops every key whose latest sample is older than the idle TTL.
+     *
+     * @param currTimeStamp the current time in milliseconds
+     * @return the number of keys that were evicted
+     */
+    public int evictIdle(long currTimeStamp) {
+        int evicted = 0;
+        Iterator<Entry<K>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (currTimeStamp - it.next().lastUpdated > idleTtlMillis) {
+                it.remove();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /** The metric columns of a single key. */
+    public static final class Entry<K> {
+        private final K key;
+        private final RingBufferSlidingWindow[] windows;
+        private long lastUpdated;
+
+        private Entry(K key, int columns) {
+            this.key = key;
+            this.windows = new RingBufferSlidingWindow[columns];
+            this.lastUpdated = Long.MIN_VALUE;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getLastUpdated() {
+            return lastUpdated;
+        }
+
+        /** The window of {@code column}, or null if the column never received a sample. */
+        public SampleWindow<SlidingWindowData> getWindow(int column) {
+            return windows[column];
+        }
+
+        /**
+         * The time-based average of {@code column}, see {@link SampleWindow#readAvg(TimeUnit)}, or
+         * {@code defaultValue} if the column never received a sample.
+         */
+        public double readAvg(int column, TimeUnit timeUnit, double defaultValue) {
+            RingBufferSlidingWindow window = windows[column];
+            return window == null ? defaultValue : window.readAvg(timeUnit);
+        }
+    }
+}
@@ -35,7 +35,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
-import java.util.Iterator;
 import java.util.concurrent.TimeUnit;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.LineIterator;
@@ -46,7 +45,7 @@ import org.opensearch.performanceanalyzer.rca.persistence.FileRotate;
 /**
  * PersistableSlidingWindow is a SlidingWindow which can have its data written to and read from disk
  */
-public class PersistableSlidingWindow extends SlidingWindow<SlidingWindowData> {
+public class PersistableSlidingWindow extends RingBufferSlidingWindow {
     private static final Logger LOG = LogManager.getLogger(PersistableSlidingWindow.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
     // The time to wait between writes, currently 5 minutes TODO (make this configurable)
@@ -57,7 +56,12 @@ public class PersistableSlidingWindow extends SlidingWindow<SlidingWindowData> {
     private long lastWriteTimeEpochMs;
 
     public PersistableSlidingWindow(int slidingWindowSize, TimeUnit timeUnit, Path filePath) {
-        super(slidingWindowSize, timeUnit);
+        this(slidingWindowSize, timeUnit, DEFAULT_CAPACITY, filePath);
+    }
+
+    protected PersistableSlidingWindow(
+            int slidingWindowSize, TimeUnit timeUnit, int capacity, Path filePath) {
+        super(slidingWindowSize, timeUnit, capacity);
         this.pathToFile = filePath;
         this.enablePersistence = this.pathToFile != null;
         if (!enablePersistence) {
@@ -124,9 +128,9 @@ public class PersistableSlidingWindow extends SlidingWindow<SlidingWindowData> {
             Files.createFile(tmpPath);
         }
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmpFile, false))) {
-            Iterator<SlidingWindowData> it = windowDeque.descendingIterator();
-            while (it.hasNext()) {
-                writer.write(objectMapper.writeValueAsString(it.next()));
+            for (int i = 0; i < storedEntries(); i++) {
+                SlidingWindowData data = new SlidingWindowData(timeStampAt(i), valueAt(i));
+                writer.write(objectMapper.writeValueAsString(data));
                 writer.write(System.lineSeparator());
             }
             // write to temporary file
@@ -0,0 +1,214 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.rca.framework.api.aggregators;
+
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SampleWindow} of {timestamp, value} pairs kept in two parallel primitive arrays used as
+ * a ring buffer, instead of the linked list of {@link SlidingWindowData} objects of a {@link
+ * SlidingWindow}. Once the ring is
+ * sized for the window, a sample costs a long and a double and inserting it allocates nothing.
+ *
+ * <p>The ring is sized from the window length and the expected interval between samples. If
+ * samples arrive faster than that, the ring doubles so no data point in the window is lost.
+ *
+ * <p>Entries are addressed from the oldest (index 0) to the newest (index {@code
+ * storedEntries() - 1}).
+ */
+public class RingBufferSlidingWindow implements SampleWindow<SlidingWindowData> {
+    static final int DEFAULT_CAPACITY = 16;
+
+    protected final long SLIDING_WINDOW_SIZE;
+    protected double sum;
+
+    private long[] timeStamps;
+    private double[] values;
+    // index of the oldest entry
+    private int head;
+    private int count;
+
+    /** Creates a window with a default initial capacity that grows on demand. */
+    public RingBufferSlidingWindow(int slidingWindowSize, TimeUnit timeUnit) {
+        this(slidingWindowSize, timeUnit, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a window sized to hold one sample every {@code sampleInterval} for the whole window.
+     *
+     * @param slidingWindowSize Length of the window in units of time
+     * @param timeUnit The unit of time of the window
+     * @param sampleInterval Expected time between two consecutive samples
+     * @param sampleTimeUnit The unit of time of the sample interval
+     */
+    public RingBufferSlidingWindow(
+            int slidingWindowSize,
+            TimeUnit timeUnit,
+            long sampleInterval,
+            TimeUnit sampleTimeUnit) {
+        this(
+                slidingWindowSize,
+                timeUnit,
+                capacityFor(slidingWindowSize, timeUnit, sampleInterval, sampleTimeUnit));
+    }
+
+    protected RingBufferSlidingWindow(int slidingWindowSize, TimeUnit timeUnit, int capacity) {
+        this.SLIDING_WINDOW_SIZE = timeUnit.toSeconds(slidingWindowSize);
+        this.timeStamps = new long[capacity];
+        this.values = new double[capacity];
+    }
+
+    /**
+     * The number of entries needed to keep one sample every {@code sampleInterval} for a window
+     * of {@code slidingWindowSize}. Entries are pruned once they are more than the window size
+     * (in whole seconds) older than the newest one, so the window spans up to one extra second.
+     */
+    static int capacityFor(
+            long slidingWindowSize,
+            TimeUnit timeUnit,
+            long sampleInterval,
+            TimeUnit sampleTimeUnit) {
+        long intervalMillis = sampleTimeUnit.toMillis(sampleInterval);
+        if (intervalMillis <= 0) {
+            return DEFAULT_CAPACITY;
+        }
+        long spanMillis = TimeUnit.SECONDS.toMillis(timeUnit.toSeconds(slidingWindowSize) + 1);
+        long capacity = (spanMillis + intervalMillis - 1) / intervalMillis + 1;
+        return (int) Math.min(Math.max(capacity, 2), Integer.MAX_VALUE - 8);
+    }
+
+    protected void pruneExpiredEntries(long endTimeStamp) {
+        while (count > 0
+                && TimeUnit.MILLISECONDS.toSeconds(endTimeStamp - timeStamps[head])
+                        > SLIDING_WINDOW_SIZE) {
+            sum -= values[head];
+            head = advance(head);
+            count--;
+        }
+    }
+
+    @Override
+    public void next(SlidingWindowData e) {
+        append(e.getTimeStamp(), e.getValue());
+    }
+
+    /** Prunes the entries that expire at {@code timeStamp} and appends a new newest entry. */
+    protected void append(long timeStamp, double value) {
+        pruneExpiredEntries(timeStamp);
+        if (count == timeStamps.length) {
+            grow();
+        }
+        int tail = index(count);
+        timeStamps[tail] = timeStamp;
+        values[tail] = value;
+        count++;
+        sum += value;
+    }
+
+    @Override
+    public double readAvg() {
+        if (count > 0) {
+            return sum / (double) count;
+        }
+        return Double.NaN;
+    }
+
+    @Override
+    public double readAvg(TimeUnit timeUnit) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long timeStampDiff = timeStamps[index(count - 1)] - timeStamps[head];
+        if (timeStampDiff > 0) {
+            return sum / ((double) timeStampDiff / (double) timeUnit.toMillis(1));
+        }
+        return Double.NaN;
+    }
+
+    @Override
+    public double readSum() {
+        return sum;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        head = 0;
+        count = 0;
+        sum = 0.0;
+    }
+
+    /** The number of entries currently held, without pruning expired ones first. */
+    protected int storedEntries() {
+        return count;
+    }
+
+    protected long timeStampAt(int i) {
+        return timeStamps[index(i)];
+    }
+
+    protected double valueAt(int i) {
+        return values[index(i)];
+    }
+
+    /** Adds {@code delta} to the value of the newest entry, e.g. to fold a sample into a bucket. */
+    protected void addToNewest(double delta) {
+        values[index(count - 1)] += delta;
+        sum += delta;
+    }
+
+    int capacity() {
+        return timeStamps.length;
+    }
+
+    private int index(int i) {
+        int idx = head + i;
+        return idx < timeStamps.length ? idx : idx - timeStamps.length;
+    }
+
+    private int advance(int idx) {
+        return idx + 1 < timeStamps.length ? idx + 1 : 0;
+    }
+
+    private void grow() {
+        int capacity = Math.max(timeStamps.length * 2, 2);
+        long[] newTimeStamps = new long[capacity];
+        double[] newValues = new double[capacity];
+        int firstPart = Math.min(count, timeStamps.length - head);
+        System.arraycopy(timeStamps, head, newTimeStamps, 0, firstPart);
+        System.arraycopy(values, head, newValues, 0, firstPart);
+        System.arraycopy(timeStamps, 0, newTimeStamps, firstPart, count - firstPart);
+        System.arraycopy(values, 0, newValues, firstPart, count - firstPart);
+        timeStamps = newTimeStamps;
+        values = newValues;
+        head = 0;
+    }
+}
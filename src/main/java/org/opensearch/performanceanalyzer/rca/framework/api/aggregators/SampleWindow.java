@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.rca.framework.api.aggregators;
+
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A window of {timestamp, value} samples that keeps the samples of the last configured length of
+ * time. {@link SlidingWindow} stores the samples in a deque of {@link SlidingWindowData} objects,
+ * {@link RingBufferSlidingWindow} in primitive arrays.
+ */
+public interface SampleWindow<E extends SlidingWindowData> {
+
+    /** insert data into the sliding window */
+    void next(E e);
+
+    /** read the sliding window average based on sliding window size */
+    double readAvg();
+
+    /** read the sliding window average based on timestamp */
+    double readAvg(TimeUnit timeUnit);
+
+    /** read the sliding window sum */
+    double readSum();
+
+    int size();
+
+    void clear();
+}
@@ -35,7 +35,7 @@ import java.util.concurrent.TimeUnit;
  * This is a generic sliding window for RCA sampling. The default behavior is to store the
  * {timestap, value} pair and maintain the sum of all data entries within this sliding window.
  */
-public class SlidingWindow<E extends SlidingWindowData> {
+public class SlidingWindow<E extends SlidingWindowData> implements SampleWindow<E> {
 
     protected final Deque<E> windowDeque;
     protected final long SLIDING_WINDOW_SIZE;
@@ -68,6 +68,7 @@ public class SlidingWindow<E extends SlidingWindowData> {
     }
 
     /** insert data into the sliding window */
+    @Override
     public void next(E e) {
         pruneExpiredEntries(e.getTimeStamp());
         add(e);
@@ -75,6 +76,7 @@ public class SlidingWindow<E extends SlidingWindowData> {
     }
 
     /** read the sliding window average based on sliding window size */
+    @Override
     public double readAvg() {
         if (!windowDeque.isEmpty()) {
             return sum / (double) windowDeque.size();
@@ -83,6 +85,7 @@ public class SlidingWindow<E extends SlidingWindowData> {
     }
 
     /** read the sliding window average based on timestamp */
+    @Override
     public double readAvg(TimeUnit timeUnit) {
         if (windowDeque.isEmpty()) {
             return Double.NaN;
@@ -96,14 +99,17 @@ public class SlidingWindow<E extends SlidingWindowData> {
     }
 
     /** read the sliding window sum */
+    @Override
     public double readSum() {
         return this.sum;
     }
 
+    @Override
     public int size() {
         return windowDeque.size();
     }
 
+    @Override
     public void clear() {
         this.windowDeque.clear();
     }
@@ -0,0 +1,429 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.rca.framework.api.flow_units;
+
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.opensearch.performanceanalyzer.DBUtils;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+
+/**
+ * A column oriented, typed view of the rows of a {@link MetricFlowUnit}. Dimension columns hold
+ * dictionary ids into a per column table of distinct strings, and aggregate columns hold primitive
+ * doubles, so RCAs can read a metric by column index without per-row string lookups, type
+ * conversion or boxing.
+ *
+ * <p>A column is an aggregate if its type is numeric or its name is one of the metricsDB
+ * aggregations ("sum", "avg", "min", "max"); every other column is a dimension. Missing or
+ * unparsable aggregate values are read as {@link Double#NaN}, missing dimensions as null.
+ */
+public class ColumnarMetricData {
+    private static final DSLContext CREATE = DSL.using(SQLDialect.SQLITE);
+    public static final ColumnarMetricData EMPTY =
+            new ColumnarMetricData(
+                    new String[0],
+                    new String[0][],
+                    new int[0][],
+                    new String[0],
+                    new double[0][],
+                    0);
+
+    private final String[] dimensionNames;
+    private final String[][] dictionaries;
+    private final int[][] dimensionIds;
+    private final String[] aggregateNames;
+    private final double[][] aggregates;
+    private final int rowCount;
+
+    private ColumnarMetricData(
+            String[] dimensionNames,
+            String[][] dictionaries,
+            int[][] dimensionIds,
+            String[] aggregateNames,
+            double[][] aggregates,
+            int rowCount) {
+        this.dimensionNames = dimensionNames;
+        this.dictionaries = dictionaries;
+        this.dimensionIds = dimensionIds;
+        this.aggregateNames = aggregateNames;
+        this.aggregates = aggregates;
+        this.rowCount = rowCount;
+    }
+
+    /** Converts a query result in a single pass over its rows. */
+    public static ColumnarMetricData fromResult(Result<Record> result) {
+        if (result == null) {
+            return EMPTY;
+        }
+        Field<?>[] fields = result.fields();
+        Builder builder = new Builder();
+        int[] columns = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (isAggregate(
+                    fields[i].getName(), Number.class.isAssignableFrom(fields[i].getType()))) {
+                columns[i] = ~builder.addAggregate(fields[i].getName());
+            } else {
+                columns[i] = builder.addDimension(fields[i].getName());
+            }
+        }
+        for (Record record : result) {
+            builder.startRow();
+            for (int i = 0; i < fields.length; i++) {
+                Object value = record.get(i);
+                if (columns[i] >= 0) {
+                    builder.setDimension(columns[i], value == null ? null : value.toString());
+                } else {
+                    builder.setAggregate(~columns[i], toDouble(value));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads the rows of a JDBC result set straight into columns, without creating a record or
+     * boxing a value per cell. The result set is consumed but not closed.
+     */
+    public static ColumnarMetricData fromResultSet(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        Builder builder = new Builder();
+        int[] columns = new int[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            String name = metaData.getColumnLabel(i + 1);
+            if (isAggregate(name, isNumeric(metaData.getColumnType(i + 1)))) {
+                columns[i] = ~builder.addAggregate(name);
+            } else {
+                columns[i] = builder.addDimension(name);
+            }
+        }
+        while (resultSet.next()) {
+            builder.startRow();
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i] >= 0) {
+                    builder.setDimension(columns[i], resultSet.getString(i + 1));
+                } else {
+                    double value = resultSet.getDouble(i + 1);
+                    builder.setAggregate(~columns[i], resultSet.wasNull() ? Double.NaN : value);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0;
+    }
+
+    public int dimensionCount() {
+        return dimensionNames.length;
+    }
+
+    public int aggregateCount() {
+        return aggregateNames.length;
+    }
+
+    /** The index of the dimension column {@code name}, or -1 if there is none. */
+    public int dimensionIndex(String name) {
+        return indexOf(dimensionNames, name);
+    }
+
+    /** The index of the aggregate column {@code name}, or -1 if there is none. */
+    public int aggregateIndex(String name) {
+        return indexOf(aggregateNames, name);
+    }
+
+    public String getDimensionName(int column) {
+        return dimensionNames[column];
+    }
+
+    public String getAggregateName(int column) {
+        return aggregateNames[column];
+    }
+
+    public String getDimension(int row, int column) {
+        int id = dimensionIds[column][row];
+        return id < 0 ? null : dictionaries[column][id];
+    }
+
+    /**
+     * The dictionary id of a dimension value: rows with equal values in a column share an id, and
+     * ids are dense from 0 in the order values are first seen. A missing value has id -1.
+     */
+    public int getDimensionId(int row, int column) {
+        return dimensionIds[column][row];
+    }
+
+    /** The distinct values of a dimension column, indexed by dictionary id. */
+    public String getDimensionValue(int column, int id) {
+        return dictionaries[column][id];
+    }
+
+    public int distinctDimensionValues(int column) {
+        return dictionaries[column].length;
+    }
+
+    public double getAggregate(int row, int column) {
+        return aggregates[column][row];
+    }
+
+    /** The values of an aggregate column. The returned array must not be modified. */
+    public double[] getAggregateColumn(int column) {
+        return aggregates[column];
+    }
+
+    /** Sums an aggregate column, skipping missing values. */
+    public double sum(int column) {
+        double sum = 0;
+        for (double value : aggregates[column]) {
+            if (!Double.isNaN(value)) {
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Builds a jOOQ result with the same rows for graph nodes that still read {@link Record}s.
+     * Dimension columns come first as strings, followed by the aggregate columns as doubles.
+     */
+    public Result<Record> toResult() {
+        List<Field<String>> dimensionFields =
+                DBUtils.getStringFieldsFromList(Arrays.asList(dimensionNames));
+        List<Field<Double>> aggregateFields =
+                DBUtils.getDoubleFieldsFromList(Arrays.asList(aggregateNames));
+        List<Field<?>> allFields = new ArrayList<>(dimensionFields);
+        allFields.addAll(aggregateFields);
+        Field<?>[] fields = allFields.toArray(new Field<?>[0]);
+        Result<Record> result = CREATE.newResult(fields);
+        for (int row = 0; row < rowCount; row++) {
+            Record record = CREATE.newRecord(fields);
+            for (int i = 0; i < dimensionFields.size(); i++) {
+                record.set(dimensionFields.get(i), getDimension(row, i));
+            }
+            for (int i = 0; i < aggregateFields.size(); i++) {
+                double value = aggregates[i][row];
+                record.set(aggregateFields.get(i), Double.isNaN(value) ? null : value);
+            }
+            result.add(record);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Arrays.toString(dimensionNames)).append(Arrays.toString(aggregateNames));
+        for (int row = 0; row < rowCount; row++) {
+            sb.append(System.lineSeparator());
+            for (int i = 0; i < dimensionNames.length; i++) {
+                sb.append(getDimension(row, i)).append(' ');
+            }
+            for (int i = 0; i < aggregateNames.length; i++) {
+                sb.append(aggregates[i][row]).append(' ');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isAggregate(String name, boolean numeric) {
+        if (numeric) {
+            return true;
+        }
+        switch (name) {
+            case MetricsDB.SUM:
+            case MetricsDB.AVG:
+            case MetricsDB.MIN:
+            case MetricsDB.MAX:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a {@link ColumnarMetricData} row by row. Columns are declared first, then each row is
+     * started with {@link #startRow()} and its cells set; cells that are not set are missing.
+     */
+    public static class Builder {
+        private static final int INITIAL_ROWS = 16;
+
+        private final List<String> dimensionNames = new ArrayList<>();
+        private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+        private final List<String> aggregateNames = new ArrayList<>();
+        private int[][] dimensionIds = new int[0][];
+        private double[][] aggregates = new double[0][];
+        private int capacity = INITIAL_ROWS;
+        private int rowCount;
+
+        /** Declares a dimension column and returns its index. */
+        public int addDimension(String name) {
+            checkNoRows();
+            dimensionNames.add(name);
+            dictionaries.add(new HashMap<>());
+            dimensionIds = Arrays.copyOf(dimensionIds, dimensionNames.size());
+            dimensionIds[dimensionIds.length - 1] = new int[capacity];
+            return dimensionNames.size() - 1;
+        }
+
+        /** Declares an aggregate column and returns its index. */
+        public int addAggregate(String name) {
+            checkNoRows();
+            aggregateNames.add(name);
+            aggregates = Arrays.copyOf(aggregates, aggregateNames.size());
+            aggregates[aggregates.length - 1] = new double[capacity];
+            return aggregateNames.size() - 1;
+        }
+
+        public Builder startRow() {
+            if (rowCount == capacity) {
+                capacity *= 2;
+                for (int i = 0; i < dimensionIds.length; i++) {
+                    dimensionIds[i] = Arrays.copyOf(dimensionIds[i], capacity);
+                }
+                for (int i = 0; i < aggregates.length; i++) {
+                    aggregates[i] = Arrays.copyOf(aggregates[i], capacity);
+                }
+            }
+            for (int[] ids : dimensionIds) {
+                ids[rowCount] = -1;
+            }
+            for (double[] values : aggregates) {
+                values[rowCount] = Double.NaN;
+            }
+            rowCount++;
+            return this;
+        }
+
+        public Builder setDimension(int column, String value) {
+            int id = -1;
+            if (value != null) {
+                Map<String, Integer> dictionary = dictionaries.get(column);
+                Integer known = dictionary.get(value);
+                if (known == null) {
+                    known = dictionary.size();
+                    dictionary.put(value, known);
+                }
+                id = known;
+            }
+            dimensionIds[column][rowCount - 1] = id;
+            return this;
+        }
+
+        public Builder setAggregate(int column, double value) {
+            aggregates[column][rowCount - 1] = value;
+            return this;
+        }
+
+        public ColumnarMetricData build() {
+            String[][] values = new String[dictionaries.size()][];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new String[dictionaries.get(i).size()];
+                for (Map.Entry<String, Integer> entry : dictionaries.get(i).entrySet()) {
+                    values[i][entry.getValue()] = entry.getKey();
+                }
+            }
+            int[][] ids = new int[dimensionIds.length][];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = Arrays.copyOf(dimensionIds[i], rowCount);
+            }
+            double[][] aggs = new double[aggregates.length][];
+            for (int i = 0; i < aggs.length; i++) {
+                aggs[i] = Arrays.copyOf(aggregates[i], rowCount);
+            }
+            return new ColumnarMetricData(
+                    dimensionNames.toArray(new String[0]),
+                    values,
+                    ids,
+                    aggregateNames.toArray(new String[0]),
+                    aggs,
+                    rowCount);
+        }
+
+        private void checkNoRows() {
+            if (rowCount > 0) {
+                throw new IllegalStateException("Columns must be declared before the first row");
+            }
+        }
+    }
+}
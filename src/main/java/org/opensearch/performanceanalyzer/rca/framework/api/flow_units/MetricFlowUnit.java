@@ -33,9 +33,16 @@ import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
 import org.opensearch.performanceanalyzer.rca.framework.core.GenericFlowUnit;
 import org.opensearch.performanceanalyzer.rca.framework.util.InstanceDetails;
 
+/**
+ * The rows of a metric gathered for a single evaluation. The rows can be read either as a jOOQ
+ * {@link Result} or as typed {@link ColumnarMetricData}; whichever form the flow unit was not
+ * created with is converted once, on first access. Metrics gather their rows straight into
+ * columns, so records are only built for graph nodes that still call {@link #getData()}.
+ */
 public class MetricFlowUnit extends GenericFlowUnit {
 
     private Result<Record> data = null;
+    private ColumnarMetricData columns = null;
 
     public MetricFlowUnit(long timeStamp) {
         super(timeStamp);
@@ -47,15 +54,36 @@ public class MetricFlowUnit extends GenericFlowUnit {
         this.empty = false;
     }
 
+    public MetricFlowUnit(long timeStamp, ColumnarMetricData columns) {
+        super(timeStamp);
+        this.columns = columns;
+        this.empty = false;
+    }
+
     /**
      * read SQL result from flowunit
      *
      * @return SQL result
      */
-    public Result<Record> getData() {
+    public synchronized Result<Record> getData() {
+        if (data == null && columns != null) {
+            data = columns.toResult();
+        }
         return data;
     }
 
+    /**
+     * read the rows of this flowunit column by column
+     *
+     * @return the typed columns, or null if the flowunit carries no data
+     */
+    public synchronized ColumnarMetricData getColumns() {
+        if (columns == null && data != null) {
+            columns = ColumnarMetricData.fromResult(data);
+        }
+        return columns;
+    }
+
     public static MetricFlowUnit generic() {
         return new MetricFlowUnit(System.currentTimeMillis());
     }
@@ -72,6 +100,7 @@ public class MetricFlowUnit extends GenericFlowUnit {
 
     @Override
     public String toString() {
-        return String.format("%d: %s", this.getTimeStamp(), this.getData());
+        return String.format(
+                "%d: %s", this.getTimeStamp(), data != null ? data : columns);
     }
 }
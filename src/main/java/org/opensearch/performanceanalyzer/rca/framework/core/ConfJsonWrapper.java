@@ -49,6 +49,7 @@ class ConfJsonWrapper {
     public static final String ANALYSIS_GRAPH_IMPL = "analysis-graph-implementor";
     public static final String NETWORK_QUEUE_LEN = "network-queue-length";
     public static final String MAX_FLOW_UNIT_PER_VERTEX = "max-flow-units-per-vertex-buffer";
+    public static final String VERTEX_BUFFER_OVERFLOW_POLICY = "vertex-buffer-overflow-policy";
     public static final String RCA_CONFIG_SETTINGS = "rca-config-settings";
     public static final String MUTED_RCAS = "muted-rcas";
     public static final String MUTED_DECIDERS = "muted-deciders";
@@ -68,6 +69,7 @@ class ConfJsonWrapper {
     private final String analysisGraphEntryPoint;
     private final int networkQueueLength;
     private final int perVertexBufferLength;
+    private final String vertexBufferOverflowPolicy;
     private final Map<String, Object> rcaConfigSettings;
     private final List<String> mutedRcaList;
     private final List<String> mutedDeciderList;
@@ -116,6 +118,10 @@ class ConfJsonWrapper {
         return perVertexBufferLength;
     }
 
+    @Nullable String getVertexBufferOverflowPolicy() {
+        return vertexBufferOverflowPolicy;
+    }
+
     List<String> getMutedRcaList() {
         return mutedRcaList;
     }
@@ -159,6 +165,7 @@ class ConfJsonWrapper {
             @JsonProperty(ANALYSIS_GRAPH_IMPL) String analysisGraphEntryPoint,
             @JsonProperty(NETWORK_QUEUE_LEN) int networkQueueLength,
             @JsonProperty(MAX_FLOW_UNIT_PER_VERTEX) int perVertexBufferLength,
+            @JsonProperty(VERTEX_BUFFER_OVERFLOW_POLICY) String vertexBufferOverflowPolicy,
             @JsonProperty(RCA_CONFIG_SETTINGS) Map<String, Object> rcaConfigSettings,
             @JsonProperty(MUTED_RCAS) List<String> mutedRcas,
             @JsonProperty(MUTED_DECIDERS) List<String> mutedDeciders,
@@ -177,6 +184,7 @@ class ConfJsonWrapper {
         this.analysisGraphEntryPoint = analysisGraphEntryPoint;
         this.networkQueueLength = networkQueueLength;
         this.perVertexBufferLength = perVertexBufferLength;
+        this.vertexBufferOverflowPolicy = vertexBufferOverflowPolicy;
         this.rcaConfigSettings = rcaConfigSettings;
         this.mutedRcaList =
                 mutedRcas == null ? ImmutableList.of() : ImmutableList.copyOf(mutedRcas);
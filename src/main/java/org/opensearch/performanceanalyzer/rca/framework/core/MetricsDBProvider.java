@@ -27,18 +27,59 @@
 package org.opensearch.performanceanalyzer.rca.framework.core;
 
 
+import com.google.common.annotations.VisibleForTesting;
+import java.sql.ResultSet;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jooq.Record;
 import org.jooq.Result;
+import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ColumnarMetricData;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.RcaGraphMetrics;
 import org.opensearch.performanceanalyzer.reader.ReaderMetricsProcessor;
 
 public class MetricsDBProvider implements Queryable {
     private static final Logger LOG = LogManager.getLogger(MetricsDBProvider.class);
 
+    /**
+     * If set, query results are cached per MetricsDB window, so that graph nodes that gather the
+     * same metric share a single query.
+     */
+    private final boolean gatherCacheEnabled;
+
+    // Whether metric flow units carry the start of the MetricsDB window as their timestamp, so
+    // that the scheduler can tell whether a metric changed since the last evaluation.
+    private final boolean incrementalEvaluationEnabled;
+
+    // Holds Result<Record> or ColumnarMetricData values, depending on the form in the key.
+    private final Map<GatherKey, Object> gatherCache = new ConcurrentHashMap<>();
+
+    // The MetricsDB the cached results were queried from.
+    private MetricsDB gatherCacheDb = null;
+
+    public MetricsDBProvider() {
+        this(
+                PluginSettings.instance().isRcaGatherCacheEnabled(),
+                PluginSettings.instance().isRcaIncrementalEvaluationEnabled());
+    }
+
+    @VisibleForTesting
+    public MetricsDBProvider(boolean gatherCacheEnabled) {
+        this(gatherCacheEnabled, false);
+    }
+
+    @VisibleForTesting
+    public MetricsDBProvider(boolean gatherCacheEnabled, boolean incrementalEvaluationEnabled) {
+        this.gatherCacheEnabled = gatherCacheEnabled;
+        this.incrementalEvaluationEnabled = incrementalEvaluationEnabled;
+    }
+
     @Override
     public MetricsDB getMetricsDB() throws Exception {
         ReaderMetricsProcessor processor = ReaderMetricsProcessor.getInstance();
@@ -66,7 +107,40 @@ public class MetricsDBProvider implements Queryable {
      */
     @Override
     public Result<Record> queryMetrics(MetricsDB db, String metricName) {
-        return db.queryMetric(metricName);
+        if (!gatherCacheEnabled) {
+            return db.queryMetric(metricName);
+        }
+        return gather(
+                db,
+                new GatherKey(db, metricName, null, null, false),
+                () -> db.queryMetric(metricName));
+    }
+
+    /**
+     * Reads all the rows of the given metric straight from the JDBC result set into columns, so
+     * the rows are never boxed into records.
+     *
+     * @param db The MetricsDB file to query
+     * @param metricName The table for the metric that will be queried.
+     * @return Returns the metrics data column by column.
+     */
+    @Override
+    public ColumnarMetricData queryMetricColumns(final MetricsDB db, final String metricName)
+            throws Exception {
+        Query<ColumnarMetricData> query =
+                () -> {
+                    try (ResultSet resultSet = db.queryMetricResultSet(metricName)) {
+                        return ColumnarMetricData.fromResultSet(resultSet);
+                    }
+                };
+        if (!gatherCacheEnabled) {
+            return query.run();
+        }
+        try {
+            return gather(db, new GatherKey(db, metricName, null, null, true), query);
+        } catch (QueryException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
@@ -76,16 +150,121 @@ public class MetricsDBProvider implements Queryable {
             final String dimension,
             final String aggregation)
             throws Exception {
-        Result<Record> queryResult =
-                db.queryMetric(
-                        Collections.singletonList(metricName),
-                        Collections.singletonList(aggregation),
-                        Collections.singletonList(dimension));
-        return queryResult;
+        Query<Result<Record>> query =
+                () ->
+                        db.queryMetric(
+                                Collections.singletonList(metricName),
+                                Collections.singletonList(aggregation),
+                                Collections.singletonList(dimension));
+        if (!gatherCacheEnabled) {
+            return query.run();
+        }
+        try {
+            return gather(
+                    db, new GatherKey(db, metricName, dimension, aggregation, false), query);
+        } catch (QueryException e) {
+            throw e.getCause();
+        }
     }
 
     @Override
     public long getDBTimestamp(MetricsDB db) {
-        return 0;
+        return incrementalEvaluationEnabled ? db.getWindowStartTime() : 0;
+    }
+
+    /**
+     * Returns the cached result for the key, running the query on a miss. Concurrent lookups of
+     * the same key wait for the first one instead of querying again. Null results are not cached.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T gather(MetricsDB db, GatherKey key, Query<T> query) {
+        synchronized (gatherCache) {
+            if (gatherCacheDb != db) {
+                // A new window was published, the cached results are stale.
+                gatherCache.clear();
+                gatherCacheDb = db;
+            }
+        }
+        boolean[] miss = {false};
+        T result =
+                (T)
+                        gatherCache.computeIfAbsent(
+                                key,
+                                k -> {
+                                    miss[0] = true;
+                                    try {
+                                        return query.run();
+                                    } catch (RuntimeException e) {
+                                        throw e;
+                                    } catch (Exception e) {
+                                        throw new QueryException(e);
+                                    }
+                                });
+        PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                miss[0]
+                        ? RcaGraphMetrics.METRIC_GATHER_CACHE_MISS
+                        : RcaGraphMetrics.METRIC_GATHER_CACHE_HIT,
+                key.metricName,
+                1);
+        return result;
+    }
+
+    private interface Query<T> {
+        T run() throws Exception;
+    }
+
+    /** Carries a checked query exception through {@link Map#computeIfAbsent}. */
+    private static class QueryException extends RuntimeException {
+        QueryException(Exception cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized Exception getCause() {
+            return (Exception) super.getCause();
+        }
+    }
+
+    private static class GatherKey {
+        private final long windowStartTime;
+        private final String metricName;
+        private final String dimension;
+        private final String aggregation;
+        // Whether the rows are cached as ColumnarMetricData rather than as a Result.
+        private final boolean columnar;
+
+        GatherKey(
+                MetricsDB db,
+                String metricName,
+                String dimension,
+                String aggregation,
+                boolean columnar) {
+            this.windowStartTime = db.getWindowStartTime();
+            this.metricName = metricName;
+            this.dimension = dimension;
+            this.aggregation = aggregation;
+            this.columnar = columnar;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GatherKey)) {
+                return false;
+            }
+            GatherKey other = (GatherKey) o;
+            return windowStartTime == other.windowStartTime
+                    && columnar == other.columnar
+                    && metricName.equals(other.metricName)
+                    && Objects.equals(dimension, other.dimension)
+                    && Objects.equals(aggregation, other.aggregation);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(windowStartTime, metricName, dimension, aggregation, columnar);
+        }
     }
 }
@@ -188,6 +188,20 @@ public abstract class Node<T extends GenericFlowUnit> {
         this.localFlowUnit = localFlowUnit;
     }
 
+    /**
+     * Captures the flow units the node currently exposes.
+     *
+     * @return an action that exposes the captured flow units again
+     */
+    public Runnable captureFlowUnits() {
+        final List<T> capturedFlowUnits = flowUnits;
+        final T capturedLocalFlowUnit = localFlowUnit;
+        return () -> {
+            flowUnits = capturedFlowUnits;
+            localFlowUnit = capturedLocalFlowUnit;
+        };
+    }
+
     /**
      * callback function to parse local rca.conf file and set RCA thresholds accordingly The default
      * callback function does nothing because we assume most of the RCA vertices does not read
@@ -30,6 +30,7 @@ package org.opensearch.performanceanalyzer.rca.framework.core;
 import org.jooq.Record;
 import org.jooq.Result;
 import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ColumnarMetricData;
 
 public interface Queryable {
 
@@ -37,6 +38,16 @@ public interface Queryable {
 
     Result<Record> queryMetrics(MetricsDB db, String metricName);
 
+    /**
+     * Reads all the rows of a metric column by column. The default converts the result of {@link
+     * #queryMetrics(MetricsDB, String)}; implementations that can read the rows directly should
+     * override it.
+     */
+    default ColumnarMetricData queryMetricColumns(MetricsDB db, String metricName)
+            throws Exception {
+        return ColumnarMetricData.fromResult(queryMetrics(db, metricName));
+    }
+
     Result<Record> queryMetrics(
             MetricsDB db, String metricName, String dimension, String aggregation) throws Exception;
 
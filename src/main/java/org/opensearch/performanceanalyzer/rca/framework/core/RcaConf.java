@@ -176,6 +176,11 @@ public class RcaConf {
         return conf.getPerVertexBufferLength();
     }
 
+    /** Returns the vertex-buffer-overflow-policy of the conf file, null if it is not set. */
+    public String getVertexBufferOverflowPolicy() {
+        return conf.getVertexBufferOverflowPolicy();
+    }
+
     public AdmissionControlRcaConfig getAdmissionControlRcaConfig() {
         return new AdmissionControlRcaConfig(this);
     }
@@ -57,6 +57,18 @@ public enum RcaGraphMetrics implements MeasurementSet {
             "millis",
             Arrays.asList(Statistics.MAX, Statistics.MEAN, Statistics.SUM)),
 
+    /** Number of metric queries answered from the gather cache, per metric. */
+    METRIC_GATHER_CACHE_HIT(
+            "MetricGatherCacheHit",
+            "namedCount",
+            Collections.singletonList(Statistics.NAMED_COUNTERS)),
+
+    /** Number of metric queries that missed the gather cache, per metric. */
+    METRIC_GATHER_CACHE_MISS(
+            "MetricGatherCacheMiss",
+            "namedCount",
+            Collections.singletonList(Statistics.NAMED_COUNTERS)),
+
     NUM_GRAPH_NODES("NumGraphNodes", "count", Collections.singletonList(Statistics.SAMPLE)),
 
     NUM_GRAPH_NODES_MUTED(
@@ -68,6 +80,12 @@ public enum RcaGraphMetrics implements MeasurementSet {
     NUM_NODES_EXECUTED_REMOTELY(
             "NodesExecutedRemotely", "count", Collections.singletonList(Statistics.COUNT)),
 
+    /** Number of evaluations skipped per node because none of its inputs changed. */
+    RCA_NODES_SKIPPED_UNCHANGED_INPUT(
+            "RcaNodesSkippedUnchangedInput",
+            "namedCount",
+            Collections.singletonList(Statistics.NAMED_COUNTERS)),
+
     /** Measures number of bytes that was sent out as part of a protobuf message. */
     NET_BYTES_OUT("TotalRcaBytesOutSerialized", "bytes", Collections.singletonList(Statistics.SUM)),
 
@@ -96,12 +114,54 @@ public enum RcaGraphMetrics implements MeasurementSet {
             "namedCount",
             Collections.singletonList(Statistics.NAMED_COUNTERS)),
 
+    /**
+     * Number of flow units per node that were dropped because the outbound queue of a downstream
+     * host was full.
+     */
+    RCA_NODES_FU_PUBLISH_DROPPED(
+            "RcaFlowUnitPublishDropped",
+            "namedCount",
+            Collections.singletonList(Statistics.NAMED_COUNTERS)),
+
+    /** Number of flow units in the outbound queue of a downstream host, per host. */
+    RCA_NODES_FU_PUBLISH_QUEUE_DEPTH(
+            "RcaFlowUnitPublishQueueDepth",
+            "count",
+            Arrays.asList(Statistics.MAX, Statistics.MEAN)),
+
+    /** Number of flow units sent in one batch, per downstream host. */
+    RCA_NODES_FU_PUBLISH_BATCH_SIZE(
+            "RcaFlowUnitPublishBatchSize",
+            "count",
+            Arrays.asList(Statistics.MAX, Statistics.MEAN, Statistics.COUNT)),
+
     /** Number of nodes that are currently receiving flow units from upstream nodes. */
     RCA_NODES_FU_CONSUME_COUNT(
             "RcaFlowUnitConsumeCount",
             "namedCount",
             Collections.singletonList(Statistics.NAMED_COUNTERS)),
 
+    /** Number of flow units queued for a vertex when its tasklet drains them, per vertex. */
+    RCA_VERTEX_RX_BUFFER_OCCUPANCY(
+            "RcaVertexRxBufferOccupancy",
+            "count",
+            Arrays.asList(Statistics.MAX, Statistics.MEAN)),
+
+    /** Number of received flow units dropped because the vertex buffer was full, per vertex. */
+    RCA_VERTEX_RX_BUFFER_DROPPED(
+            "RcaVertexRxBufferDropped",
+            "namedCount",
+            Collections.singletonList(Statistics.NAMED_COUNTERS)),
+
+    /**
+     * Number of received flow units that replaced a queued flow unit from the same node, per
+     * vertex.
+     */
+    RCA_VERTEX_RX_BUFFER_COALESCED(
+            "RcaVertexRxBufferCoalesced",
+            "namedCount",
+            Collections.singletonList(Statistics.NAMED_COUNTERS)),
+
     /** Number of subscription requests sent per node. */
     RCA_NODES_SUB_REQ_COUNT(
             "RcaSubscriptionRequestCount",
@@ -76,6 +76,30 @@ public enum ReaderMetrics implements MeasurementSet {
             "millis",
             Arrays.asList(Statistics.MAX, Statistics.MEAN, Statistics.SUM)),
 
+    /**
+     * Time spent by each event processor when events are dispatched in parallel, keyed by the
+     * processor name.
+     */
+    READER_EVENT_PROCESSOR_TIME(
+            "ReaderEventProcessorTime",
+            "millis",
+            Arrays.asList(Statistics.MAX, Statistics.MEAN, Statistics.SUM)),
+
+    /**
+     * Latency of the metrics queries sent to the other nodes for the metrics api, keyed by the id
+     * of the node.
+     */
+    METRICS_QUERY_NODE_LATENCY(
+            "MetricsQueryNodeLatency",
+            "millis",
+            Arrays.asList(Statistics.MAX, Statistics.MEAN, Statistics.COUNT)),
+
+    /** Number of metrics queries that a node did not answer in time, per node id. */
+    METRICS_QUERY_NODE_TIMEOUT("MetricsQueryNodeTimeout", "namedCount", Statistics.NAMED_COUNTERS),
+
+    /** Number of metrics queries sent a second time to a node that was slow or failed. */
+    METRICS_QUERY_HEDGED_REQUESTS("MetricsQueryHedgedRequests", "count", Statistics.COUNT),
+
     /**
      * Tracks scheduler restart issued at {@link
      * org.opensearch.performanceanalyzer.rca.RcaController#restart}
@@ -66,6 +66,15 @@ public enum WriterMetrics implements MeasurementSet {
      */
     JVM_THREAD_DUMP_SUCCESSFUL("JvmThreadDumpSuccessful"),
 
+    /** Thread states were refreshed from the ThreadMXBean without attaching for a thread dump. */
+    JVM_THREAD_DUMP_AVOIDED("JvmThreadDumpAvoided"),
+
+    /** New native thread ids mapped to java threads by name instead of by a thread dump. */
+    JVM_NATIVE_TID_RESOLVED_BY_NAME("JvmNativeTidResolvedByName"),
+
+    /** Tracked native thread ids that the kernel gave to a new thread. */
+    JVM_NATIVE_TID_REUSED("JvmNativeTidReused"),
+
     /** Thread ID is no loner exists */
     JVM_THREAD_ID_NO_LONGER_EXISTS("JVMThreadIdNoLongerExists"),
 
@@ -0,0 +1,371 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.rca.net;
+
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.performanceanalyzer.AppContext;
+import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.grpc.FlowUnitBatch;
+import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
+import org.opensearch.performanceanalyzer.grpc.PublishResponse;
+import org.opensearch.performanceanalyzer.grpc.PublishResponse.PublishResponseStatus;
+import org.opensearch.performanceanalyzer.net.NetClient;
+import org.opensearch.performanceanalyzer.rca.framework.core.GenericFlowUnit;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.RcaGraphMetrics;
+import org.opensearch.performanceanalyzer.rca.framework.util.InstanceDetails;
+import org.opensearch.performanceanalyzer.rca.messages.DataMsg;
+import org.opensearch.performanceanalyzer.rca.util.ClusterUtils;
+
+/**
+ * Queues the flow units this node publishes per downstream host and sends each queue as {@link
+ * FlowUnitBatch} messages on the PublishBatch stream of the host. A queue is sent once it holds
+ * {@code maxBatchSize} flow units, or {@code lingerMillis} after a flow unit was queued into it.
+ * All the batches are sent from a single thread, so that every stream has a single writer.
+ *
+ * <p>A full queue drops its oldest flow unit, which is counted per graph node in {@link
+ * RcaGraphMetrics#RCA_NODES_FU_PUBLISH_DROPPED}. Hosts that do not implement PublishBatch are sent
+ * their flow units one by one with Publish; the flow units already written to their PublishBatch
+ * stream are lost, and are counted as dropped too. The queue of a host that left the cluster is
+ * dropped along with its subscriptions.
+ */
+public class FlowUnitBatcher {
+
+    private static final Logger LOG = LogManager.getLogger(FlowUnitBatcher.class);
+    private static final String FLUSH_THREAD_NAME_FORMAT = "rca-net-batch-%d";
+
+    /** The client object to make the publish RPC calls. */
+    private final NetClient client;
+
+    /** The subscription manager for getting who to send the flow units to. */
+    private final SubscriptionManager subscriptionManager;
+
+    private final AppContext appContext;
+    private final int maxBatchSize;
+    private final long lingerMillis;
+    private final int queueCapacity;
+    private final ScheduledExecutorService flushExecutor;
+    private final ConcurrentMap<InstanceDetails.Id, Destination> destinations =
+            new ConcurrentHashMap<>();
+
+    /**
+     * @param maxBatchSize maximum number of flow units sent to a host in one batch
+     * @param lingerMillis how long a queued flow unit waits for more flow units to the same host
+     * @param queueCapacity maximum number of flow units queued per host
+     */
+    public FlowUnitBatcher(
+            final NetClient client,
+            final SubscriptionManager subscriptionManager,
+            final AppContext appContext,
+            final int maxBatchSize,
+            final long lingerMillis,
+            final int queueCapacity) {
+        this.client = client;
+        this.subscriptionManager = subscriptionManager;
+        this.appContext = appContext;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerMillis = lingerMillis;
+        this.queueCapacity = Math.max(queueCapacity, maxBatchSize);
+        this.flushExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactoryBuilder()
+                                .setNameFormat(FLUSH_THREAD_NAME_FORMAT)
+                                .setDaemon(true)
+                                .build());
+    }
+
+    /**
+     * Queues the flow units of the message for every host subscribed to its graph node. Callers:
+     * the rca scheduler threads.
+     *
+     * @param dataMsg The flow units a graph node just produced.
+     */
+    public void enqueue(final DataMsg dataMsg) {
+        final String sourceGraphNode = dataMsg.getSourceGraphNode();
+        if (!subscriptionManager.isNodeSubscribed(sourceGraphNode)) {
+            LOG.debug("No subscribers for {}.", sourceGraphNode);
+            return;
+        }
+
+        final Set<InstanceDetails.Id> downstreamHostIds =
+                subscriptionManager.getSubscribersFor(sourceGraphNode);
+        LOG.debug("{} has downstream subscribers: {}", sourceGraphNode, downstreamHostIds);
+        final InstanceDetails.Id myInstanceId = appContext.getMyInstanceDetails().getInstanceId();
+        final List<FlowUnitMessage> flowUnitMessages = new ArrayList<>();
+        for (final GenericFlowUnit flowUnit : dataMsg.getFlowUnits()) {
+            flowUnitMessages.add(flowUnit.buildFlowUnitMessage(sourceGraphNode, myInstanceId));
+        }
+        final List<InstanceDetails> clusterInstances = appContext.getAllClusterInstances();
+        removeDepartedHosts(clusterInstances);
+        for (final InstanceDetails.Id downstreamHostId : downstreamHostIds) {
+            if (!ClusterUtils.isHostIdInCluster(downstreamHostId, clusterInstances)) {
+                subscriptionManager.unsubscribeAndTerminateConnection(
+                        sourceGraphNode, downstreamHostId);
+                continue;
+            }
+            destinations
+                    .computeIfAbsent(downstreamHostId, Destination::new)
+                    .enqueue(flowUnitMessages);
+        }
+    }
+
+    /** Drops the queues of the hosts that are no longer part of the cluster. */
+    private void removeDepartedHosts(final List<InstanceDetails> clusterInstances) {
+        for (final InstanceDetails.Id hostId : destinations.keySet()) {
+            if (!ClusterUtils.isHostIdInCluster(hostId, clusterInstances)) {
+                final Destination destination = destinations.remove(hostId);
+                if (destination != null) {
+                    LOG.info("rca: {} left the cluster, dropping its queued flow units", hostId);
+                    destination.discard();
+                }
+            }
+        }
+    }
+
+    /** Stops sending batches. The flow units that are still queued are dropped. */
+    public void stop() {
+        flushExecutor.shutdownNow();
+        destinations.clear();
+    }
+
+    @VisibleForTesting
+    int getQueueDepth(final InstanceDetails.Id hostId) {
+        final Destination destination = destinations.get(hostId);
+        return destination == null ? 0 : destination.queue.size();
+    }
+
+    /** The outbound queue of a downstream host, and the observer of its publish streams. */
+    private class Destination implements StreamObserver<PublishResponse> {
+
+        private final InstanceDetails.Id hostId;
+        private final BlockingQueue<FlowUnitMessage> queue;
+
+        /** Set while a flush is scheduled to run after the linger. */
+        private final AtomicBoolean lingerFlushScheduled = new AtomicBoolean();
+
+        /** Set while a flush is scheduled to run right away because a batch is full. */
+        private final AtomicBoolean fullFlushScheduled = new AtomicBoolean();
+
+        /** Graph nodes that published to the host since its stream was opened. */
+        private final Set<String> graphNodes = ConcurrentHashMap.newKeySet();
+
+        /** Whether the host answered PublishBatch with UNIMPLEMENTED. */
+        private volatile boolean batchUnimplemented;
+
+        /**
+         * Flow units written to the PublishBatch stream of the host since it was opened, per graph
+         * node. The server does not acknowledge batches, so these are all lost if the host turns
+         * out not to implement PublishBatch. Counted and reported under the destination lock.
+         */
+        private final Map<String, Long> batchedFlowUnits = new ConcurrentHashMap<>();
+
+        Destination(final InstanceDetails.Id hostId) {
+            this.hostId = hostId;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        void enqueue(final List<FlowUnitMessage> flowUnitMessages) {
+            for (final FlowUnitMessage flowUnitMessage : flowUnitMessages) {
+                while (!queue.offer(flowUnitMessage)) {
+                    final FlowUnitMessage dropped = queue.poll();
+                    if (dropped != null) {
+                        LOG.debug(
+                                "rca: Dropped a {} flow unit queued for {}",
+                                dropped.getGraphNode(),
+                                hostId);
+                        PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                                RcaGraphMetrics.RCA_NODES_FU_PUBLISH_DROPPED,
+                                dropped.getGraphNode(),
+                                1);
+                    }
+                }
+            }
+
+            final int depth = queue.size();
+            PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                    RcaGraphMetrics.RCA_NODES_FU_PUBLISH_QUEUE_DEPTH, hostId.toString(), depth);
+            if (depth >= maxBatchSize) {
+                if (fullFlushScheduled.compareAndSet(false, true)) {
+                    schedule(0);
+                }
+            } else if (lingerFlushScheduled.compareAndSet(false, true)) {
+                schedule(lingerMillis);
+            }
+        }
+
+        private void schedule(final long delayMillis) {
+            try {
+                flushExecutor.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException ree) {
+                LOG.debug("rca: Not sending the flow units queued for {} after stop", hostId);
+            }
+        }
+
+        /** Sends everything that is queued, in batches of at most maxBatchSize flow units. */
+        private void flush() {
+            // Reset the flags first, so that flow units queued while sending schedule a new flush.
+            lingerFlushScheduled.set(false);
+            fullFlushScheduled.set(false);
+            final List<FlowUnitMessage> batch = new ArrayList<>(maxBatchSize);
+            while (queue.drainTo(batch, maxBatchSize) > 0) {
+                send(batch);
+                batch.clear();
+            }
+        }
+
+        private void send(final List<FlowUnitMessage> batch) {
+            final InstanceDetails remoteHost = appContext.getInstanceById(hostId);
+            for (final FlowUnitMessage flowUnitMessage : batch) {
+                graphNodes.add(flowUnitMessage.getGraphNode());
+            }
+            // Locked against onBatchUnimplemented(), so that every flow unit written to the
+            // PublishBatch stream is either counted there or sent again with Publish.
+            synchronized (this) {
+                if (batchUnimplemented) {
+                    for (final FlowUnitMessage flowUnitMessage : batch) {
+                        LOG.debug(
+                                "rca: [pub-tx]: {} -> {}", flowUnitMessage.getGraphNode(), hostId);
+                        client.publish(remoteHost, flowUnitMessage, this);
+                    }
+                } else {
+                    LOG.debug("rca: [pub-tx]: {} flow units -> {}", batch.size(), hostId);
+                    // Counted before the rpc, as the client can report UNIMPLEMENTED within it.
+                    for (final FlowUnitMessage flowUnitMessage : batch) {
+                        batchedFlowUnits.merge(flowUnitMessage.getGraphNode(), 1L, Long::sum);
+                    }
+                    client.publishBatch(
+                            remoteHost,
+                            FlowUnitBatch.newBuilder().addAllFlowUnits(batch).build(),
+                            this);
+                    PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                            RcaGraphMetrics.RCA_NODES_FU_PUBLISH_BATCH_SIZE,
+                            hostId.toString(),
+                            batch.size());
+                }
+            }
+            for (final FlowUnitMessage flowUnitMessage : batch) {
+                PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                        RcaGraphMetrics.RCA_NODES_FU_PUBLISH_COUNT,
+                        flowUnitMessage.getGraphNode(),
+                        1);
+            }
+        }
+
+        /** Drops the queued flow units and the subscriptions of a host that left the cluster. */
+        private void discard() {
+            final List<FlowUnitMessage> dropped = new ArrayList<>();
+            queue.drainTo(dropped);
+            for (final FlowUnitMessage flowUnitMessage : dropped) {
+                PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                        RcaGraphMetrics.RCA_NODES_FU_PUBLISH_DROPPED,
+                        flowUnitMessage.getGraphNode(),
+                        1);
+            }
+            unsubscribeAndFlushStream();
+        }
+
+        @Override
+        public void onNext(final PublishResponse value) {
+            LOG.debug(
+                    "rca: Received acknowledgement from the server. status: {}",
+                    value.getDataStatus());
+            if (value.getDataStatus() == PublishResponseStatus.NODE_SHUTDOWN) {
+                unsubscribeAndFlushStream();
+            }
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            if (Status.fromThrowable(t).getCode() == Status.Code.UNIMPLEMENTED
+                    && onBatchUnimplemented()) {
+                return;
+            }
+
+            for (final String graphNode : graphNodes) {
+                PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                        RcaGraphMetrics.RCA_NETWORK_ERROR, graphNode, 1);
+            }
+            LOG.error("rca: Encountered an exception at the server: ", t);
+            unsubscribeAndFlushStream();
+        }
+
+        @Override
+        public void onCompleted() {
+            LOG.debug("rca: Server closed the data channel!");
+        }
+
+        /**
+         * Switches the host over to Publish, and counts the flow units that were written to its
+         * PublishBatch stream as dropped.
+         *
+         * @return false if the host had already been switched over.
+         */
+        private synchronized boolean onBatchUnimplemented() {
+            if (batchUnimplemented) {
+                return false;
+            }
+            LOG.info("rca: {} does not implement PublishBatch, publishing one by one", hostId);
+            batchUnimplemented = true;
+            for (final Map.Entry<String, Long> entry : batchedFlowUnits.entrySet()) {
+                PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                        RcaGraphMetrics.RCA_NODES_FU_PUBLISH_DROPPED,
+                        entry.getKey(),
+                        entry.getValue());
+            }
+            batchedFlowUnits.clear();
+            client.flushStream(hostId);
+            return true;
+        }
+
+        private void unsubscribeAndFlushStream() {
+            for (final String graphNode : graphNodes) {
+                subscriptionManager.unsubscribeAndTerminateConnection(graphNode, hostId);
+            }
+            graphNodes.clear();
+            batchedFlowUnits.clear();
+            client.flushStream(hostId);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.rca.net;
+
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free FIFO queue over a ring of slots, each with a sequence number that tells
+ * whether the slot is free for the producer or filled for the consumer at a given position. Meant
+ * for many network threads offering and one tasklet polling, but any thread may poll, which the
+ * drop-oldest overflow policy relies on.
+ *
+ * @param <T> type of the queued elements
+ */
+final class FlowUnitRingBuffer<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<T> elements;
+    private final AtomicLongArray sequences;
+
+    /** Position of the next element to poll. */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Position of the next element to offer. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** @param capacity maximum number of queued elements, at least 1 */
+    FlowUnitRingBuffer(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        int ringSize = Integer.highestOneBit(capacity);
+        if (ringSize < capacity) {
+            ringSize <<= 1;
+        }
+        this.mask = ringSize - 1;
+        this.elements = new AtomicReferenceArray<>(ringSize);
+        this.sequences = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Queues the element, or returns false if the buffer holds {@code capacity} elements. If the
+     * buffer has room but the consumer that took the element of the previous lap from the next slot
+     * has not released the slot yet, the offer waits for it, which takes the consumer a few
+     * instructions.
+     */
+    boolean offer(final T element) {
+        long pos = tail.get();
+        while (true) {
+            // head only moves forward, so a stale head can only make the buffer look fuller.
+            if (pos - head.get() >= capacity) {
+                return false;
+            }
+            final int index = (int) (pos & mask);
+            final long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    elements.lazySet(index, element);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // The consumer of the previous lap has not released the slot yet; the capacity
+                // check above fails once the buffer is really full.
+                Thread.yield();
+                pos = tail.get();
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** Removes and returns the oldest element, or null if the buffer is empty. */
+    T poll() {
+        long pos = head.get();
+        while (true) {
+            final int index = (int) (pos & mask);
+            final long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    final T element = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.set(index, pos + mask + 1);
+                    return element;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /** Number of queued elements, which may be stale by the time it is returned. */
+    int size() {
+        final long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
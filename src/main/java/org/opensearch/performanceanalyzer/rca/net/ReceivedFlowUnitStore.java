@@ -27,41 +27,99 @@
 package org.opensearch.performanceanalyzer.rca.net;
 
 
-import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
 import org.opensearch.performanceanalyzer.collectors.StatsCollector;
 import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.RcaGraphMetrics;
 import org.opensearch.performanceanalyzer.rca.framework.util.RcaConsts;
 
 /**
  * An intermediate buffer that holds flow units received for different vertices from across the
  * cluster.
+ *
+ * <p>Each vertex has a bounded lock-free ring buffer that the network threads write to and the
+ * tasklet of the vertex drains. What happens when a buffer is full depends on the {@link
+ * OverflowPolicy}.
  */
 public class ReceivedFlowUnitStore {
 
     private static final Logger LOG = LogManager.getLogger(ReceivedFlowUnitStore.class);
 
-    /** Map of vertex to a queue of flow units received for that vertex. */
-    private ConcurrentMap<String, BlockingQueue<FlowUnitMessage>> flowUnitMap =
-            new ConcurrentHashMap<>();
+    /** What a vertex buffer does with a flow unit that does not fit. */
+    public enum OverflowPolicy {
+        /** The new flow unit is dropped. */
+        DROP_NEWEST("drop-newest"),
+
+        /** The oldest queued flow unit is dropped to make room for the new one. */
+        DROP_OLDEST("drop-oldest"),
+
+        /**
+         * The new flow unit replaces the latest queued flow unit from the same node, or is dropped
+         * if that node has none queued, so that a node sending too much only loses its own.
+         */
+        KEEP_LATEST_PER_SENDER("keep-latest-per-sender"),
+
+        /**
+         * Even if the buffer is not full, the new flow unit replaces the latest queued flow unit
+         * from the same node, so that the vertex only reads the latest flow unit of each node.
+         */
+        COALESCE_BY_SENDER("coalesce-by-sender");
+
+        private final String configValue;
+
+        OverflowPolicy(final String configValue) {
+            this.configValue = configValue;
+        }
+
+        public String getConfigValue() {
+            return configValue;
+        }
+
+        /** Parses the rca.conf value of the policy, falling back to {@link #DROP_NEWEST}. */
+        public static OverflowPolicy fromConfigValue(final String configValue) {
+            if (configValue == null) {
+                return DROP_NEWEST;
+            }
+            for (final OverflowPolicy policy : values()) {
+                if (policy.configValue.equals(configValue)) {
+                    return policy;
+                }
+            }
+            LOG.warn("Unknown flow unit buffer overflow policy {}, using drop-newest", configValue);
+            return DROP_NEWEST;
+        }
+    }
+
+    /** Map of vertex to a buffer of flow units received for that vertex. */
+    private final ConcurrentMap<String, VertexBuffer> flowUnitMap = new ConcurrentHashMap<>();
 
     /** The per vertex flow unit queue size. */
     private final int perNodeFlowUnitQSize;
 
+    private final OverflowPolicy overflowPolicy;
+
     public ReceivedFlowUnitStore() {
         this(RcaConsts.DEFAULT_PER_NODE_FLOWUNIT_Q_SIZE);
     }
 
     public ReceivedFlowUnitStore(final int perNodeFlowUnitQSize) {
+        this(perNodeFlowUnitQSize, OverflowPolicy.DROP_NEWEST);
+    }
+
+    public ReceivedFlowUnitStore(
+            final int perNodeFlowUnitQSize, final OverflowPolicy overflowPolicy) {
         this.perNodeFlowUnitQSize = perNodeFlowUnitQSize;
+        this.overflowPolicy = overflowPolicy;
     }
 
     /**
@@ -72,17 +130,18 @@ public class ReceivedFlowUnitStore {
      * @param graphNode The vertex for which we need to store the remote flow units for.
      * @param flowUnitMessage The actual flow unit message protobuf object that we received from the
      *     network that needs to be stored.
-     * @return true if the enqueue operation succeeded, false if the queue was full and we have to
-     *     drop the flow unit.
+     * @return true if the flow unit was stored, possibly in place of another one, false if the
+     *     queue was full and we have to drop the flow unit.
      */
     public boolean enqueue(final String graphNode, final FlowUnitMessage flowUnitMessage) {
-        flowUnitMap.computeIfAbsent(graphNode, s -> new ArrayBlockingQueue<>(perNodeFlowUnitQSize));
-        BlockingQueue<FlowUnitMessage> existingQueue = flowUnitMap.get(graphNode);
-        boolean retValue = existingQueue.offer(flowUnitMessage);
+        VertexBuffer buffer = flowUnitMap.get(graphNode);
+        if (buffer == null) {
+            buffer = flowUnitMap.computeIfAbsent(graphNode, VertexBuffer::new);
+        }
+        final boolean retValue = buffer.offer(flowUnitMessage);
         if (!retValue) {
             LOG.warn("Dropped flow unit because per vertex queue is full");
-            StatsCollector.instance()
-                    .logException(StatExceptionCode.RCA_VERTEX_RX_BUFFER_FULL_ERROR);
+            dropped(graphNode);
         }
 
         return retValue;
@@ -92,27 +151,140 @@ public class ReceivedFlowUnitStore {
      * Drain the flow units enqueued for the vertex.
      *
      * @param graphNode The vertex whose flow units needed to be drained.
-     * @return An immutable list containing the flow units received from the network for the vertex.
+     * @return An unmodifiable list containing the flow units received from the network for the
+     *     vertex, in the order they were received.
      */
-    public ImmutableList<FlowUnitMessage> drainNode(final String graphNode) {
-        final List<FlowUnitMessage> tempList = new ArrayList<>();
-        BlockingQueue<FlowUnitMessage> existing = flowUnitMap.get(graphNode);
+    public List<FlowUnitMessage> drainNode(final String graphNode) {
+        final VertexBuffer existing = flowUnitMap.get(graphNode);
         if (existing == null) {
-            return ImmutableList.of();
+            return Collections.emptyList();
         }
 
-        existing.drainTo(tempList);
-
-        return ImmutableList.copyOf(tempList);
+        return existing.drain();
     }
 
     /** Drains out all the flow units for all nodes. */
     public List<FlowUnitMessage> drainAll() {
         List<FlowUnitMessage> drained = new ArrayList<>();
         for (final String graphNode : flowUnitMap.keySet()) {
-            ImmutableList<FlowUnitMessage> messages = drainNode(graphNode);
-            drained.addAll(messages);
+            drained.addAll(drainNode(graphNode));
         }
         return drained;
     }
+
+    private static void dropped(final String graphNode) {
+        StatsCollector.instance().logException(StatExceptionCode.RCA_VERTEX_RX_BUFFER_FULL_ERROR);
+        PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                RcaGraphMetrics.RCA_VERTEX_RX_BUFFER_DROPPED, graphNode, 1);
+    }
+
+    /** A queued flow unit, which the sender policies may swap for a newer one until drained. */
+    private static final class Slot {
+        private final String sender;
+        private final AtomicReference<FlowUnitMessage> flowUnit;
+
+        Slot(final String sender, final FlowUnitMessage flowUnit) {
+            this.sender = sender;
+            this.flowUnit = new AtomicReference<>(flowUnit);
+        }
+
+        /** Replaces the flow unit, unless the slot was already drained. */
+        boolean replace(final FlowUnitMessage newer) {
+            FlowUnitMessage current;
+            while ((current = flowUnit.get()) != null) {
+                if (flowUnit.compareAndSet(current, newer)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        FlowUnitMessage take() {
+            return flowUnit.getAndSet(null);
+        }
+    }
+
+    private class VertexBuffer {
+        private final String graphNode;
+        private final FlowUnitRingBuffer<Slot> ring;
+
+        /** The latest slot queued per sender, only kept for the sender policies. */
+        private final ConcurrentMap<String, Slot> latestBySender;
+
+        VertexBuffer(final String graphNode) {
+            this.graphNode = graphNode;
+            this.ring = new FlowUnitRingBuffer<>(perNodeFlowUnitQSize);
+            this.latestBySender =
+                    overflowPolicy == OverflowPolicy.KEEP_LATEST_PER_SENDER
+                                    || overflowPolicy == OverflowPolicy.COALESCE_BY_SENDER
+                            ? new ConcurrentHashMap<>()
+                            : null;
+        }
+
+        boolean offer(final FlowUnitMessage flowUnitMessage) {
+            final String sender = flowUnitMessage.getNode();
+            if (overflowPolicy == OverflowPolicy.COALESCE_BY_SENDER
+                    && replaceLatest(sender, flowUnitMessage)) {
+                return true;
+            }
+
+            final Slot slot = new Slot(sender, flowUnitMessage);
+            while (!ring.offer(slot)) {
+                switch (overflowPolicy) {
+                    case DROP_OLDEST:
+                        final Slot oldest = ring.poll();
+                        if (oldest != null && oldest.take() != null) {
+                            dropped(graphNode);
+                        }
+                        break;
+                    case KEEP_LATEST_PER_SENDER:
+                        return replaceLatest(sender, flowUnitMessage);
+                    default:
+                        return false;
+                }
+            }
+            if (latestBySender != null) {
+                latestBySender.put(sender, slot);
+            }
+            return true;
+        }
+
+        private boolean replaceLatest(final String sender, final FlowUnitMessage flowUnitMessage) {
+            final Slot latest = latestBySender.get(sender);
+            if (latest == null || !latest.replace(flowUnitMessage)) {
+                return false;
+            }
+            PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                    RcaGraphMetrics.RCA_VERTEX_RX_BUFFER_COALESCED, graphNode, 1);
+            return true;
+        }
+
+        /**
+         * Polls the flow units queued so far into an array that is handed out as is, flow units
+         * received meanwhile are left for the next drain.
+         */
+        List<FlowUnitMessage> drain() {
+            final int queued = ring.size();
+            PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                    RcaGraphMetrics.RCA_VERTEX_RX_BUFFER_OCCUPANCY, graphNode, queued);
+            if (queued == 0) {
+                return Collections.emptyList();
+            }
+
+            final FlowUnitMessage[] drained = new FlowUnitMessage[queued];
+            int count = 0;
+            Slot slot;
+            while (count < queued && (slot = ring.poll()) != null) {
+                if (latestBySender != null) {
+                    latestBySender.remove(slot.sender, slot);
+                }
+                final FlowUnitMessage flowUnitMessage = slot.take();
+                if (flowUnitMessage != null) {
+                    drained[count++] = flowUnitMessage;
+                }
+            }
+            final List<FlowUnitMessage> list = Arrays.asList(drained);
+            return Collections.unmodifiableList(count == queued ? list : list.subList(0, count));
+        }
+    }
 }
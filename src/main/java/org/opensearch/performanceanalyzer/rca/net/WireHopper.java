@@ -64,6 +64,9 @@ public class WireHopper {
     private final ReceivedFlowUnitStore receivedFlowUnitStore;
     private final AppContext appContext;
 
+    /** Queues the flow units to send in batches, or null to send them one by one. */
+    private final FlowUnitBatcher flowUnitBatcher;
+
     public WireHopper(
             final NodeStateManager nodeStateManager,
             final NetClient netClient,
@@ -71,12 +74,31 @@ public class WireHopper {
             final AtomicReference<ExecutorService> executorReference,
             final ReceivedFlowUnitStore receivedFlowUnitStore,
             final AppContext appContext) {
+        this(
+                nodeStateManager,
+                netClient,
+                subscriptionManager,
+                executorReference,
+                receivedFlowUnitStore,
+                appContext,
+                null);
+    }
+
+    public WireHopper(
+            final NodeStateManager nodeStateManager,
+            final NetClient netClient,
+            final SubscriptionManager subscriptionManager,
+            final AtomicReference<ExecutorService> executorReference,
+            final ReceivedFlowUnitStore receivedFlowUnitStore,
+            final AppContext appContext,
+            final FlowUnitBatcher flowUnitBatcher) {
         this.netClient = netClient;
         this.subscriptionManager = subscriptionManager;
         this.nodeStateManager = nodeStateManager;
         this.executorReference = executorReference;
         this.receivedFlowUnitStore = receivedFlowUnitStore;
         this.appContext = appContext;
+        this.flowUnitBatcher = flowUnitBatcher;
     }
 
     public void sendIntent(IntentMsg msg) {
@@ -95,6 +117,10 @@ public class WireHopper {
     }
 
     public void sendData(DataMsg msg) {
+        if (flowUnitBatcher != null) {
+            flowUnitBatcher.enqueue(msg);
+            return;
+        }
         ExecutorService executor = executorReference.get();
         if (executor != null) {
             try {
@@ -116,8 +142,7 @@ public class WireHopper {
     public List<FlowUnitMessage> readFromWire(Node<?> node) {
         final String nodeName = node.name();
         final long intervalInSeconds = node.getEvaluationIntervalSeconds();
-        final ImmutableList<FlowUnitMessage> remoteFlowUnits =
-                receivedFlowUnitStore.drainNode(nodeName);
+        final List<FlowUnitMessage> remoteFlowUnits = receivedFlowUnitStore.drainNode(nodeName);
 
         // Publishers are a set of cluster-instances that send out flowUnits for the corresponding
         // graph node,
@@ -165,6 +190,9 @@ public class WireHopper {
     @VisibleForTesting
     public void shutdownAll() {
         executorReference.get().shutdown();
+        if (flowUnitBatcher != null) {
+            flowUnitBatcher.stop();
+        }
         netClient.stop();
         netClient.getConnectionManager().shutdown();
     }
@@ -39,6 +39,7 @@ import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
 import org.opensearch.performanceanalyzer.collectors.StatsCollector;
+import org.opensearch.performanceanalyzer.grpc.FlowUnitBatch;
 import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
 import org.opensearch.performanceanalyzer.grpc.PublishResponse;
 import org.opensearch.performanceanalyzer.grpc.PublishResponse.PublishResponseStatus;
@@ -47,7 +48,7 @@ import org.opensearch.performanceanalyzer.rca.net.NodeStateManager;
 import org.opensearch.performanceanalyzer.rca.net.ReceivedFlowUnitStore;
 import org.opensearch.performanceanalyzer.rca.net.tasks.FlowUnitRxTask;
 
-/** Service handler for the /sendData RPC. */
+/** Service handler for the /sendData RPC and its batched variant. */
 public class PublishRequestHandler {
 
     private static final Logger LOG = LogManager.getLogger(PublishRequestHandler.class);
@@ -72,6 +73,40 @@ public class PublishRequestHandler {
         return new SendDataClientStreamUpdateConsumer(serviceResponse);
     }
 
+    public StreamObserver<FlowUnitBatch> getBatchClientStream(
+            final StreamObserver<PublishResponse> serviceResponse) {
+        upstreamResponseStreamList.add(serviceResponse);
+        return new SendBatchClientStreamUpdateConsumer(serviceResponse);
+    }
+
+    /**
+     * Hands the flow units received in one message over to the network thread pool.
+     *
+     * @param flowUnitMessages The flow units that the client just streamed to the server.
+     */
+    private void receive(final List<FlowUnitMessage> flowUnitMessages) {
+        final ExecutorService executorService = executorReference.get();
+        if (executorService != null) {
+            try {
+                executorService.execute(
+                        new FlowUnitRxTask(
+                                nodeStateManager, receivedFlowUnitStore, flowUnitMessages));
+                for (final FlowUnitMessage flowUnitMessage : flowUnitMessages) {
+                    PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                            RcaGraphMetrics.NET_BYTES_IN,
+                            flowUnitMessage.getGraphNode(),
+                            flowUnitMessage.getSerializedSize());
+                }
+            } catch (final RejectedExecutionException ree) {
+                LOG.warn(
+                        "Dropped handling received flow unit because the netwwork threadpool queue is "
+                                + "full");
+                StatsCollector.instance()
+                        .logException(StatExceptionCode.RCA_NETWORK_THREADPOOL_QUEUE_FULL_ERROR);
+            }
+        }
+    }
+
     public void terminateUpstreamConnections() {
         for (final StreamObserver<PublishResponse> responseStream : upstreamResponseStreamList) {
             responseStream.onNext(
@@ -82,42 +117,14 @@ public class PublishRequestHandler {
         }
     }
 
-    private class SendDataClientStreamUpdateConsumer implements StreamObserver<FlowUnitMessage> {
+    private abstract class ClientStreamUpdateConsumer<T> implements StreamObserver<T> {
 
         private final StreamObserver<PublishResponse> serviceResponse;
 
-        SendDataClientStreamUpdateConsumer(final StreamObserver<PublishResponse> serviceResponse) {
+        ClientStreamUpdateConsumer(final StreamObserver<PublishResponse> serviceResponse) {
             this.serviceResponse = serviceResponse;
         }
 
-        /**
-         * Persist the flow unit sent by the client.
-         *
-         * @param flowUnitMessage The flow unit that the client just streamed to the server.
-         */
-        @Override
-        public void onNext(FlowUnitMessage flowUnitMessage) {
-            final ExecutorService executorService = executorReference.get();
-            if (executorService != null) {
-                try {
-                    executorService.execute(
-                            new FlowUnitRxTask(
-                                    nodeStateManager, receivedFlowUnitStore, flowUnitMessage));
-                    PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
-                            RcaGraphMetrics.NET_BYTES_IN,
-                            flowUnitMessage.getGraphNode(),
-                            flowUnitMessage.getSerializedSize());
-                } catch (final RejectedExecutionException ree) {
-                    LOG.warn(
-                            "Dropped handling received flow unit because the netwwork threadpool queue is "
-                                    + "full");
-                    StatsCollector.instance()
-                            .logException(
-                                    StatExceptionCode.RCA_NETWORK_THREADPOOL_QUEUE_FULL_ERROR);
-                }
-            }
-        }
-
         /**
          * Client ran into an error while streaming FlowUnits.
          *
@@ -139,4 +146,41 @@ public class PublishRequestHandler {
             return PublishResponse.newBuilder().setDataStatus(status).build();
         }
     }
+
+    private class SendDataClientStreamUpdateConsumer
+            extends ClientStreamUpdateConsumer<FlowUnitMessage> {
+
+        SendDataClientStreamUpdateConsumer(final StreamObserver<PublishResponse> serviceResponse) {
+            super(serviceResponse);
+        }
+
+        /**
+         * Persist the flow unit sent by the client.
+         *
+         * @param flowUnitMessage The flow unit that the client just streamed to the server.
+         */
+        @Override
+        public void onNext(FlowUnitMessage flowUnitMessage) {
+            receive(Collections.singletonList(flowUnitMessage));
+        }
+    }
+
+    private class SendBatchClientStreamUpdateConsumer
+            extends ClientStreamUpdateConsumer<FlowUnitBatch> {
+
+        SendBatchClientStreamUpdateConsumer(
+                final StreamObserver<PublishResponse> serviceResponse) {
+            super(serviceResponse);
+        }
+
+        /**
+         * Persist the flow units sent by the client.
+         *
+         * @param flowUnitBatch The flow units that the client just streamed to the server.
+         */
+        @Override
+        public void onNext(FlowUnitBatch flowUnitBatch) {
+            receive(flowUnitBatch.getFlowUnitsList());
+        }
+    }
 }
@@ -27,6 +27,8 @@
 package org.opensearch.performanceanalyzer.rca.net.tasks;
 
 
+import java.util.Collections;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
@@ -46,16 +48,23 @@ public class FlowUnitRxTask implements Runnable {
     /** The buffer for holding received flow units till they are consumed by the vertices. */
     private final ReceivedFlowUnitStore receivedFlowUnitStore;
 
-    /** The flow unit message object to buffer. */
-    private final FlowUnitMessage flowUnitMessage;
+    /** The flow unit message objects to buffer. */
+    private final List<FlowUnitMessage> flowUnitMessages;
 
     public FlowUnitRxTask(
             final NodeStateManager nodeStateManager,
             final ReceivedFlowUnitStore receivedFlowUnitStore,
             final FlowUnitMessage flowUnitMessage) {
+        this(nodeStateManager, receivedFlowUnitStore, Collections.singletonList(flowUnitMessage));
+    }
+
+    public FlowUnitRxTask(
+            final NodeStateManager nodeStateManager,
+            final ReceivedFlowUnitStore receivedFlowUnitStore,
+            final List<FlowUnitMessage> flowUnitMessages) {
         this.nodeStateManager = nodeStateManager;
         this.receivedFlowUnitStore = receivedFlowUnitStore;
-        this.flowUnitMessage = flowUnitMessage;
+        this.flowUnitMessages = flowUnitMessages;
     }
 
     /**
@@ -65,6 +74,12 @@ public class FlowUnitRxTask implements Runnable {
      */
     @Override
     public void run() {
+        for (final FlowUnitMessage flowUnitMessage : flowUnitMessages) {
+            receive(flowUnitMessage);
+        }
+    }
+
+    private void receive(final FlowUnitMessage flowUnitMessage) {
         final InstanceDetails.Id host = new InstanceDetails.Id(flowUnitMessage.getNode());
         final String vertex = flowUnitMessage.getGraphNode();
 
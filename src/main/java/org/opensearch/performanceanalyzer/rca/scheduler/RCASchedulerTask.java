@@ -42,6 +42,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.AppContext;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.rca.framework.core.ConnectedComponent;
 import org.opensearch.performanceanalyzer.rca.framework.core.Node;
 import org.opensearch.performanceanalyzer.rca.framework.core.Queryable;
@@ -105,6 +106,9 @@ public class RCASchedulerTask implements Runnable {
      */
     private final List<List<Tasklet>> locallyExecutableTasklets;
 
+    /** Whether locally executed tasklets are skipped when their inputs did not change. */
+    private final boolean incrementalEvaluation;
+
     // TODO: Q/ : maybe the max Ticks should be determined by what the max periodicity the user has
     // specified for a
     //  graph node? If this periodicity is lower than that, then some nodes may never get executed.
@@ -124,6 +128,7 @@ public class RCASchedulerTask implements Runnable {
         this.maxTicks = maxTicks;
         this.executorPool = executorPool;
         this.remotelyDesirableNodeSet = new HashMap<>();
+        this.incrementalEvaluation = PluginSettings.instance().isRcaIncrementalEvaluationEnabled();
         Map<Node<?>, Tasklet> nodeTaskletMap = new HashMap<>();
 
         List<List<Tasklet>> dependencyOrderedLocallyExecutables = Collections.emptyList();
@@ -323,6 +328,7 @@ public class RCASchedulerTask implements Runnable {
                         remotelyDesirableNodeSet,
                         hopper,
                         GraphNodeOperations::readFromLocal);
+        tasklet.setIncremental(incrementalEvaluation);
         CreatedTasklets ret = new CreatedTasklets(tasklet);
 
         final String aggregationLocus =
@@ -29,6 +29,7 @@ package org.opensearch.performanceanalyzer.rca.scheduler;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -37,8 +38,14 @@ import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
+import org.opensearch.performanceanalyzer.rca.framework.api.Symptom;
+import org.opensearch.performanceanalyzer.rca.framework.core.GenericFlowUnit;
 import org.opensearch.performanceanalyzer.rca.framework.core.Node;
 import org.opensearch.performanceanalyzer.rca.framework.core.Queryable;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.RcaGraphMetrics;
 import org.opensearch.performanceanalyzer.rca.messages.DataMsg;
 import org.opensearch.performanceanalyzer.rca.net.WireHopper;
 import org.opensearch.performanceanalyzer.rca.persistence.NetPersistor;
@@ -66,6 +73,15 @@ public class Tasklet {
     private Consumer<FlowUnitOperationArgWrapper> exec;
     private boolean isNet = false;
 
+    // If set, the tasklet is only evaluated when its inputs changed since its last evaluation.
+    private boolean incremental = false;
+    // The newest flow unit timestamp of each predecessor at the last evaluation.
+    private final Map<Tasklet, Long> consumedTimestamps = new HashMap<>();
+    // The MetricsDB a metric node gathered from at its last evaluation.
+    private MetricsDB consumedMetricsDB = null;
+    // Exposes the flow units of the last evaluation again when an evaluation is skipped.
+    private Runnable lastFlowUnits = null;
+
     /**
      * A tasklet is always built on top of a Node.
      *
@@ -103,6 +119,10 @@ public class Tasklet {
         return this;
     }
 
+    void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     public CompletableFuture<Void> execute(
             ExecutorService executorPool,
             Map<Tasklet, CompletableFuture<Void>> taskletToFutureMap) {
@@ -128,8 +148,19 @@ public class Tasklet {
         CompletableFuture<Void> retCompletableFuture =
                 completedPredecessorTasks.thenAcceptAsync(
                         a -> {
+                            if (incremental && canSkipUnchangedInputs() && !consumeNewInputs()) {
+                                lastFlowUnits.run();
+                                PerformanceAnalyzerApp.RCA_GRAPH_METRICS_AGGREGATOR.updateStat(
+                                        RcaGraphMetrics.RCA_NODES_SKIPPED_UNCHANGED_INPUT,
+                                        node.name(),
+                                        1);
+                                return;
+                            }
                             exec.accept(
                                     new FlowUnitOperationArgWrapper(node, db, persistable, hopper));
+                            if (incremental) {
+                                lastFlowUnits = node.captureFlowUnits();
+                            }
                             sendToRemote();
                         },
                         executorPool);
@@ -137,6 +168,89 @@ public class Tasklet {
         return retCompletableFuture;
     }
 
+    /**
+     * Whether an evaluation of the node can be skipped when its inputs did not change. Only the
+     * flow units of metrics and symptoms are a function of their inputs alone. RCAs, deciders and
+     * the other nodes keep state across evaluations, such as the number of samples to take before
+     * emitting a summary, so they are evaluated on every tick; a skipped evaluation would stretch
+     * their period.
+     */
+    private boolean canSkipUnchangedInputs() {
+        return node instanceof Metric || node instanceof Symptom;
+    }
+
+    /**
+     * Checks whether the inputs of the node changed since its last evaluation and, if so, marks
+     * them as consumed. The inputs of a node with predecessors changed if the newest flow unit of
+     * one of them has a different timestamp than at the last evaluation. Empty flow units count,
+     * as they carry results such as a healthy resource state; a predecessor that was not due
+     * exposes no flow units at all. The input of a metric node changed if the reader published a
+     * new MetricsDB. Other nodes without predecessors read from the wire or from sources the
+     * scheduler does not track, and are always evaluated.
+     */
+    private boolean consumeNewInputs() {
+        if (lastFlowUnits == null) {
+            // Never evaluated.
+            recordConsumedInputs();
+            return true;
+        }
+        if (predecessors.isEmpty()) {
+            if (!(node instanceof Metric)) {
+                return true;
+            }
+            MetricsDB current;
+            try {
+                current = db.getMetricsDB();
+            } catch (Exception e) {
+                // Let the metric report the failure.
+                return true;
+            }
+            if (current == consumedMetricsDB) {
+                return false;
+            }
+            consumedMetricsDB = current;
+            return true;
+        }
+        boolean changed = false;
+        for (Tasklet predecessor : predecessors) {
+            Long newest = newestTimestamp(predecessor.getNode());
+            if (newest != null && !newest.equals(consumedTimestamps.get(predecessor))) {
+                changed = true;
+            }
+        }
+        if (changed) {
+            recordConsumedInputs();
+        }
+        return changed;
+    }
+
+    private void recordConsumedInputs() {
+        for (Tasklet predecessor : predecessors) {
+            Long newest = newestTimestamp(predecessor.getNode());
+            if (newest != null) {
+                consumedTimestamps.put(predecessor, newest);
+            }
+        }
+        if (predecessors.isEmpty() && node instanceof Metric) {
+            try {
+                consumedMetricsDB = db.getMetricsDB();
+            } catch (Exception e) {
+                consumedMetricsDB = null;
+            }
+        }
+    }
+
+    /** Returns the newest timestamp of the flow units a node exposes, or null if it has none. */
+    private static Long newestTimestamp(Node<?> node) {
+        Long newest = null;
+        for (GenericFlowUnit flowUnit : node.getFlowUnits()) {
+            if (newest == null || flowUnit.getTimeStamp() > newest) {
+                newest = flowUnit.getTimeStamp();
+            }
+        }
+        return newest;
+    }
+
     private void sendToRemote() {
         if (remotelyDesirableNodeSet.containsKey(node)) {
             LOG.debug("Publishing to subscribers: {}", node.name());
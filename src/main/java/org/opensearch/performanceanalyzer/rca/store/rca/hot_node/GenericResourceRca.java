@@ -32,16 +32,15 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jooq.Record;
-import org.jooq.Result;
-import org.jooq.exception.DataTypeException;
 import org.opensearch.performanceanalyzer.grpc.Resource;
 import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
 import org.opensearch.performanceanalyzer.rca.framework.api.Rca;
 import org.opensearch.performanceanalyzer.rca.framework.api.Resources;
-import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.RingBufferSlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SampleWindow;
 import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindowData;
 import org.opensearch.performanceanalyzer.rca.framework.api.contexts.ResourceContext;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ColumnarMetricData;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.MetricFlowUnit;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ResourceFlowUnit;
 import org.opensearch.performanceanalyzer.rca.framework.api.summaries.HotResourceSummary;
@@ -58,7 +57,7 @@ public class GenericResourceRca extends Rca<ResourceFlowUnit<HotResourceSummary>
     private static final int SLIDING_WINDOW_IN_MIN = 10;
     private static final int DEFAULT_TOP_K = 3;
     private static final double DEFAULT_LOWER_BOUND_THRESHOLD = 0.0;
-    private final SlidingWindow<SlidingWindowData> slidingWindow;
+    private final SampleWindow<SlidingWindowData> slidingWindow;
     private final Metric resourceUsageGroupByConsumer;
     private final int rcaPeriod;
     private int counter;
@@ -83,7 +82,12 @@ public class GenericResourceRca extends Rca<ResourceFlowUnit<HotResourceSummary>
             final M resourceUsageGroupByConsumer) {
         super(5);
         this.resourceUsageGroupByConsumer = resourceUsageGroupByConsumer;
-        slidingWindow = new SlidingWindow<>(SLIDING_WINDOW_IN_MIN, TimeUnit.MINUTES);
+        slidingWindow =
+                new RingBufferSlidingWindow(
+                        SLIDING_WINDOW_IN_MIN,
+                        TimeUnit.MINUTES,
+                        evaluationIntervalSeconds,
+                        TimeUnit.SECONDS);
         this.rcaPeriod = rcaPeriod;
         this.counter = 0;
         this.clock = Clock.systemUTC();
@@ -129,32 +133,30 @@ public class GenericResourceRca extends Rca<ResourceFlowUnit<HotResourceSummary>
             if (flowunit.isEmpty()) {
                 continue;
             }
-            final Result<Record> result = flowunit.getData();
-            if (result == null) {
+            final ColumnarMetricData columns = flowunit.getColumns();
+            if (columns == null) {
                 continue;
             }
             boolean recordParsingError = false;
             double totalUsage = 0.0;
-            for (Record record : result) {
-                int fieldSize = record.size();
-                if (fieldSize < 2) {
-                    LOG.error(
-                            "Field size {} is less than 2, the SQL record has wrong data format",
-                            fieldSize);
-                    recordParsingError = true;
-                    break;
-                }
-                try {
-                    double num = record.getValue(fieldSize - 1, Double.class);
-                    totalUsage += num;
-                } catch (DataTypeException de) {
+            int usageColumn = columns.aggregateCount() - 1;
+            if (!columns.isEmpty() && (usageColumn < 0 || columns.dimensionCount() < 1)) {
+                LOG.error(
+                        "{} dimensions and {} aggregates, the SQL record has wrong data format",
+                        columns.dimensionCount(),
+                        columns.aggregateCount());
+                recordParsingError = true;
+            }
+            for (int row = 0; !recordParsingError && row < columns.rowCount(); row++) {
+                double num = columns.getAggregate(row, usageColumn);
+                if (Double.isNaN(num)) {
                     LOG.error(
-                            "Fail to data field from SQL record, field index : {}, trace : {}",
-                            fieldSize - 1,
-                            de.getStackTrace());
+                            "Fail to data field from SQL record, field : {}",
+                            columns.getAggregateName(usageColumn));
                     recordParsingError = true;
                     break;
                 }
+                totalUsage += num;
             }
             if (!recordParsingError) {
                 slidingWindow.next(new SlidingWindowData(this.clock.millis(), totalUsage));
@@ -194,23 +196,27 @@ public class GenericResourceRca extends Rca<ResourceFlowUnit<HotResourceSummary>
     // pick the top k from the list.
     private void addTopConsumerSummary(HotResourceSummary summary) {
         List<MetricFlowUnit> flowUnits = resourceUsageGroupByConsumer.getFlowUnits();
-        if (!flowUnits.isEmpty() && flowUnits.get(0).getData() != null) {
-            for (Record record : flowUnits.get(0).getData()) {
-                if (summary.getNestedSummaryList().size() >= this.topK) {
-                    break;
-                }
-                int fieldSize = record.size();
-                try {
-                    double num = record.getValue(fieldSize - 1, Double.class);
-                    String name = record.getValue(0, String.class);
-                    summary.appendNestedSummary(new TopConsumerSummary(name, num));
-                } catch (DataTypeException de) {
-                    LOG.error(
-                            "Fail to read some field from SQL record, trace : {}",
-                            de.getStackTrace());
-                    break;
-                }
+        if (flowUnits.isEmpty() || flowUnits.get(0).getColumns() == null) {
+            return;
+        }
+        ColumnarMetricData columns = flowUnits.get(0).getColumns();
+        int usageColumn = columns.aggregateCount() - 1;
+        if (usageColumn < 0 || columns.dimensionCount() < 1) {
+            return;
+        }
+        for (int row = 0; row < columns.rowCount(); row++) {
+            if (summary.getNestedSummaryList().size() >= this.topK) {
+                break;
+            }
+            double num = columns.getAggregate(row, usageColumn);
+            if (Double.isNaN(num)) {
+                LOG.error(
+                        "Fail to read field {} from SQL record",
+                        columns.getAggregateName(usageColumn));
+                break;
             }
+            String name = columns.getDimension(row, 0);
+            summary.appendNestedSummary(new TopConsumerSummary(name, num));
         }
     }
 
@@ -37,7 +37,8 @@ import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.rca.configs.HighHeapUsageOldGenRcaConfig;
 import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
 import org.opensearch.performanceanalyzer.rca.framework.api.Resources;
-import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.RingBufferSlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SampleWindow;
 import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindowData;
 import org.opensearch.performanceanalyzer.rca.framework.api.contexts.ResourceContext;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ResourceFlowUnit;
@@ -79,7 +80,7 @@ public class HighHeapUsageOldGenRca extends OldGenRca<ResourceFlowUnit<HotResour
     // The lower bound threshold in percentage to decide whether to send out summary.
     // e.g. if lowerBoundThreshold = 0.2, then we only send out summary if value > 0.2*threshold
     private final double lowerBoundThreshold;
-    private final SlidingWindow<SlidingWindowData> gcEventSlidingWindow;
+    private final SampleWindow<SlidingWindowData> gcEventSlidingWindow;
     private final MinOldGenSlidingWindow minOldGenSlidingWindow;
     // Keep the sliding window large enough to avoid false positive
     private static final int SLIDING_WINDOW_SIZE_IN_MINS = 10;
@@ -105,7 +106,12 @@ public class HighHeapUsageOldGenRca extends OldGenRca<ResourceFlowUnit<HotResour
                         ? lowerBoundThreshold
                         : 1.0;
         this.counter = 0;
-        gcEventSlidingWindow = new SlidingWindow<>(SLIDING_WINDOW_SIZE_IN_MINS, TimeUnit.MINUTES);
+        gcEventSlidingWindow =
+                new RingBufferSlidingWindow(
+                        SLIDING_WINDOW_SIZE_IN_MINS,
+                        TimeUnit.MINUTES,
+                        evaluationIntervalSeconds,
+                        TimeUnit.SECONDS);
         minOldGenSlidingWindow =
                 new MinOldGenSlidingWindow(SLIDING_WINDOW_SIZE_IN_MINS, TimeUnit.MINUTES);
         this.nodeStatAggregators = new ArrayList<>();
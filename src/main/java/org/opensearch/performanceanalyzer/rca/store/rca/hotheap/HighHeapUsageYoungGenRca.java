@@ -42,6 +42,8 @@ import org.opensearch.performanceanalyzer.rca.configs.HighHeapUsageYoungGenRcaCo
 import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
 import org.opensearch.performanceanalyzer.rca.framework.api.Rca;
 import org.opensearch.performanceanalyzer.rca.framework.api.Resources;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.RingBufferSlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SampleWindow;
 import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindow;
 import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindowData;
 import org.opensearch.performanceanalyzer.rca.framework.api.contexts.ResourceContext;
@@ -84,10 +86,10 @@ public class HighHeapUsageYoungGenRca extends Rca<ResourceFlowUnit<HotResourceSu
     // e.g. if lowerBoundThreshold = 0.2, then we only send out summary if value > 0.2*threshold
     private final double lowerBoundThreshold;
     private int counter;
-    private final SlidingWindow<SlidingWindowData> minorGcTimeDeque;
-    private final SlidingWindow<SlidingWindowData> fullGcTimeDeque;
-    private final SlidingWindow<SlidingWindowData> promotionRateDeque;
-    private final SlidingWindow<SlidingWindowData> garbagePromotedDeque;
+    private final SampleWindow<SlidingWindowData> minorGcTimeDeque;
+    private final SampleWindow<SlidingWindowData> fullGcTimeDeque;
+    private final SampleWindow<SlidingWindowData> promotionRateDeque;
+    private final SampleWindow<SlidingWindowData> garbagePromotedDeque;
     // promotion rate in mb/s
     private int promotionRateThreshold;
     // young gc time in ms per second
@@ -120,16 +122,28 @@ public class HighHeapUsageYoungGenRca extends Rca<ResourceFlowUnit<HotResourceSu
                         : 1.0;
         this.counter = 0;
         this.minorGcTimeDeque =
-                new SlidingWindow<>(PROMOTION_RATE_SLIDING_WINDOW_IN_MINS, TimeUnit.MINUTES);
+                new RingBufferSlidingWindow(
+                        PROMOTION_RATE_SLIDING_WINDOW_IN_MINS,
+                        TimeUnit.MINUTES,
+                        evaluationIntervalSeconds,
+                        TimeUnit.SECONDS);
         this.fullGcTimeDeque =
-                new SlidingWindow<>(PROMOTION_RATE_SLIDING_WINDOW_IN_MINS, TimeUnit.MINUTES);
+                new RingBufferSlidingWindow(
+                        PROMOTION_RATE_SLIDING_WINDOW_IN_MINS,
+                        TimeUnit.MINUTES,
+                        evaluationIntervalSeconds,
+                        TimeUnit.SECONDS);
         this.promotionRateThreshold =
                 HighHeapUsageYoungGenRcaConfig.DEFAULT_PROMOTION_RATE_THRESHOLD_IN_MB_PER_SEC;
         this.youngGenGcTimeThreshold =
                 HighHeapUsageYoungGenRcaConfig.DEFAULT_YOUNG_GEN_GC_TIME_THRESHOLD_IN_MS_PER_SEC;
 
         this.garbagePromotedDeque =
-                new SlidingWindow<>(PROMOTION_RATE_SLIDING_WINDOW_IN_MINS, TimeUnit.MINUTES);
+                new RingBufferSlidingWindow(
+                        PROMOTION_RATE_SLIDING_WINDOW_IN_MINS,
+                        TimeUnit.MINUTES,
+                        evaluationIntervalSeconds,
+                        TimeUnit.SECONDS);
         this.promotionRateDeque =
                 new SlidingWindow<SlidingWindowData>(
                         PROMOTION_RATE_SLIDING_WINDOW_IN_MINS, TimeUnit.MINUTES) {
@@ -29,14 +29,10 @@ package org.opensearch.performanceanalyzer.rca.store.rca.hotshard;
 
 import java.time.Clock;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jooq.Record;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
 import org.opensearch.performanceanalyzer.metrics.AllMetrics;
@@ -45,9 +41,9 @@ import org.opensearch.performanceanalyzer.rca.configs.HotShardRcaConfig;
 import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
 import org.opensearch.performanceanalyzer.rca.framework.api.Rca;
 import org.opensearch.performanceanalyzer.rca.framework.api.Resources;
-import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindow;
-import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindowData;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.KeyedSlidingWindowStore;
 import org.opensearch.performanceanalyzer.rca.framework.api.contexts.ResourceContext;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ColumnarMetricData;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.MetricFlowUnit;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ResourceFlowUnit;
 import org.opensearch.performanceanalyzer.rca.framework.api.summaries.HotNodeSummary;
@@ -72,6 +68,13 @@ public class HotShardRca extends Rca<ResourceFlowUnit<HotNodeSummary>> {
 
     private static final Logger LOG = LogManager.getLogger(HotShardRca.class);
     private static final int SLIDING_WINDOW_IN_SECONDS = 60;
+    // shards that have not reported any metric for this long are dropped from the store
+    private static final long SHARD_IDLE_TTL_IN_SECONDS = 2 * SLIDING_WINDOW_IN_SECONDS;
+
+    private static final int CPU_UTILIZATION = 0;
+    private static final int IO_TOT_THROUGHPUT = 1;
+    private static final int IO_TOT_SYSCALL_RATE = 2;
+    private static final int NUM_COLUMNS = 3;
 
     private double cpuUtilizationThreshold;
     private double ioTotThroughputThreshold;
@@ -84,10 +87,8 @@ public class HotShardRca extends Rca<ResourceFlowUnit<HotNodeSummary>> {
     private int counter;
     protected Clock clock;
 
-    // HashMap with IndexShardKey object as key and SlidingWindowData object of metric data as value
-    private HashMap<IndexShardKey, SlidingWindow<SlidingWindowData>> cpuUtilizationMap;
-    private HashMap<IndexShardKey, SlidingWindow<SlidingWindowData>> ioTotThroughputMap;
-    private HashMap<IndexShardKey, SlidingWindow<SlidingWindowData>> ioTotSyscallRateMap;
+    // CPU_Utilization, IO_TotThroughput and IO_TotalSyscallRate windows of every shard
+    private final KeyedSlidingWindowStore<IndexShardKey> shardStore;
 
     public <M extends Metric> HotShardRca(
             final long evaluationIntervalSeconds,
@@ -102,9 +103,13 @@ public class HotShardRca extends Rca<ResourceFlowUnit<HotNodeSummary>> {
         this.rcaPeriod = rcaPeriod;
         this.counter = 0;
         this.clock = Clock.systemUTC();
-        this.cpuUtilizationMap = new HashMap<>();
-        this.ioTotThroughputMap = new HashMap<>();
-        this.ioTotSyscallRateMap = new HashMap<>();
+        this.shardStore =
+                new KeyedSlidingWindowStore<>(
+                        NUM_COLUMNS,
+                        SLIDING_WINDOW_IN_SECONDS,
+                        TimeUnit.SECONDS,
+                        TimeUnit.SECONDS.toMillis(evaluationIntervalSeconds),
+                        TimeUnit.SECONDS.toMillis(SHARD_IDLE_TTL_IN_SECONDS));
         this.cpuUtilizationThreshold = HotShardRcaConfig.DEFAULT_CPU_UTILIZATION_THRESHOLD;
         this.ioTotThroughputThreshold =
                 HotShardRcaConfig.DEFAULT_IO_TOTAL_THROUGHPUT_THRESHOLD_IN_BYTE_PER_SEC;
@@ -113,54 +118,58 @@ public class HotShardRca extends Rca<ResourceFlowUnit<HotNodeSummary>> {
     }
 
     private void consumeFlowUnit(
-            final MetricFlowUnit metricFlowUnit,
-            final String metricType,
-            final HashMap<IndexShardKey, SlidingWindow<SlidingWindowData>> metricMap) {
-        for (Record record : metricFlowUnit.getData()) {
-            try {
-                String indexName =
-                        record.getValue(
-                                AllMetrics.CommonDimension.INDEX_NAME.toString(), String.class);
-                Integer shardId =
-                        record.getValue(
-                                AllMetrics.CommonDimension.SHARD_ID.toString(), Integer.class);
-                if (indexName != null && shardId != null) {
-                    IndexShardKey indexShardKey = IndexShardKey.buildIndexShardKey(record);
-                    double usage = record.getValue(MetricsDB.SUM, Double.class);
-                    SlidingWindow<SlidingWindowData> usageDeque = metricMap.get(indexShardKey);
-                    if (null == usageDeque) {
-                        usageDeque =
-                                new SlidingWindow<>(SLIDING_WINDOW_IN_SECONDS, TimeUnit.SECONDS);
-                        metricMap.put(indexShardKey, usageDeque);
-                    }
-                    usageDeque.next(new SlidingWindowData(this.clock.millis(), usage));
-                }
-            } catch (Exception e) {
+            final ColumnarMetricData columns, final String metricType, final int column) {
+        int indexNameColumn =
+                columns.dimensionIndex(AllMetrics.CommonDimension.INDEX_NAME.toString());
+        int shardIdColumn = columns.dimensionIndex(AllMetrics.CommonDimension.SHARD_ID.toString());
+        int sumColumn = columns.aggregateIndex(MetricsDB.SUM);
+        if (indexNameColumn < 0 || shardIdColumn < 0 || sumColumn < 0) {
+            if (!columns.isEmpty()) {
+                PerformanceAnalyzerApp.RCA_VERTICES_METRICS_AGGREGATOR.updateStat(
+                        RcaVerticesMetrics.HOT_SHARD_RCA_ERROR, "", 1);
+                LOG.error("Missing shard dimensions or sum in FlowUnit from {}", metricType);
+            }
+            return;
+        }
+        long timeStamp = this.clock.millis();
+        for (int row = 0; row < columns.rowCount(); row++) {
+            String indexName = columns.getDimension(row, indexNameColumn);
+            String shardId = columns.getDimension(row, shardIdColumn);
+            if (indexName == null || shardId == null) {
+                continue;
+            }
+            double usage = columns.getAggregate(row, sumColumn);
+            int shard = parseShardId(shardId);
+            if (shard < 0 || Double.isNaN(usage)) {
                 PerformanceAnalyzerApp.RCA_VERTICES_METRICS_AGGREGATOR.updateStat(
                         RcaVerticesMetrics.HOT_SHARD_RCA_ERROR, "", 1);
-                LOG.error("Failed to parse metric in FlowUnit: {} from {}", record, metricType, e);
+                LOG.error(
+                        "Failed to parse metric in FlowUnit: [{}][{}] {} from {}",
+                        indexName,
+                        shardId,
+                        usage,
+                        metricType);
+                continue;
             }
+            shardStore.next(new IndexShardKey(indexName, shard), column, timeStamp, usage);
         }
     }
 
-    private void consumeMetrics(
-            final Metric metric,
-            final HashMap<IndexShardKey, SlidingWindow<SlidingWindowData>> metricMap) {
-        for (MetricFlowUnit metricFlowUnit : metric.getFlowUnits()) {
-            if (metricFlowUnit.getData() != null) {
-                consumeFlowUnit(metricFlowUnit, metric.getClass().getName(), metricMap);
-            }
+    private static int parseShardId(String shardId) {
+        try {
+            return Integer.parseInt(shardId);
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
 
-    private double fetchUsageValueFromMap(
-            HashMap<IndexShardKey, SlidingWindow<SlidingWindowData>> usageMap,
-            IndexShardKey indexShardKey) {
-        double value = 0;
-        if (usageMap.get(indexShardKey) != null) {
-            value = usageMap.get(indexShardKey).readAvg(TimeUnit.SECONDS);
+    private void consumeMetrics(final Metric metric, final int column) {
+        for (MetricFlowUnit metricFlowUnit : metric.getFlowUnits()) {
+            ColumnarMetricData columns = metricFlowUnit.getColumns();
+            if (columns != null) {
+                consumeFlowUnit(columns, metric.getClass().getName(), column);
+            }
         }
-        return value;
     }
 
     /**
@@ -174,30 +183,30 @@ public class HotShardRca extends Rca<ResourceFlowUnit<HotNodeSummary>> {
     public ResourceFlowUnit<HotNodeSummary> operate() {
         counter += 1;
 
-        // Populate the Resource HashMaps
-        consumeMetrics(cpuUtilization, cpuUtilizationMap);
-        consumeMetrics(ioTotThroughput, ioTotThroughputMap);
-        consumeMetrics(ioTotSyscallRate, ioTotSyscallRateMap);
-        ;
+        // Populate the per shard resource windows
+        consumeMetrics(cpuUtilization, CPU_UTILIZATION);
+        consumeMetrics(ioTotThroughput, IO_TOT_THROUGHPUT);
+        consumeMetrics(ioTotSyscallRate, IO_TOT_SYSCALL_RATE);
 
         if (counter == rcaPeriod) {
             ResourceContext context = new ResourceContext(Resources.State.HEALTHY);
 
             InstanceDetails instanceDetails = getInstanceDetails();
 
-            Set<IndexShardKey> indexShardKeySet = new HashSet<>(cpuUtilizationMap.keySet());
-            indexShardKeySet.addAll(ioTotThroughputMap.keySet());
-            indexShardKeySet.addAll(ioTotSyscallRateMap.keySet());
+            int evicted = shardStore.evictIdle(this.clock.millis());
+            if (evicted > 0) {
+                LOG.debug("Evicted {} idle shards from Hot Shard RCA", evicted);
+            }
 
             HotNodeSummary nodeSummary =
                     new HotNodeSummary(
                             instanceDetails.getInstanceId(), instanceDetails.getInstanceIp());
-            for (IndexShardKey indexShardKey : indexShardKeySet) {
-                double avgCpuUtilization = fetchUsageValueFromMap(cpuUtilizationMap, indexShardKey);
-                double avgIoTotThroughput =
-                        fetchUsageValueFromMap(ioTotThroughputMap, indexShardKey);
+            for (KeyedSlidingWindowStore.Entry<IndexShardKey> entry : shardStore.entries()) {
+                IndexShardKey indexShardKey = entry.getKey();
+                double avgCpuUtilization = entry.readAvg(CPU_UTILIZATION, TimeUnit.SECONDS, 0);
+                double avgIoTotThroughput = entry.readAvg(IO_TOT_THROUGHPUT, TimeUnit.SECONDS, 0);
                 double avgIoTotSyscallRate =
-                        fetchUsageValueFromMap(ioTotSyscallRateMap, indexShardKey);
+                        entry.readAvg(IO_TOT_SYSCALL_RATE, TimeUnit.SECONDS, 0);
 
                 if (avgCpuUtilization > cpuUtilizationThreshold
                         || avgIoTotThroughput > ioTotThroughputThreshold
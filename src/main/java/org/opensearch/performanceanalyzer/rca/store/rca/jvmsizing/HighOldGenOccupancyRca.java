@@ -34,7 +34,8 @@ import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.rca.configs.HighOldGenOccupancyRcaConfig;
 import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
 import org.opensearch.performanceanalyzer.rca.framework.api.Resources;
-import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.RingBufferSlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SampleWindow;
 import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindowData;
 import org.opensearch.performanceanalyzer.rca.framework.api.contexts.ResourceContext;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ResourceFlowUnit;
@@ -54,7 +55,7 @@ public class HighOldGenOccupancyRca extends OldGenRca<ResourceFlowUnit<HotResour
     private final Metric heapUsed;
     private final Metric heapMax;
     private final Metric gcType;
-    private final SlidingWindow<SlidingWindowData> oldGenUtilizationSlidingWindow;
+    private final SampleWindow<SlidingWindowData> oldGenUtilizationSlidingWindow;
 
     private long heapUtilizationThreshold;
     private long rcaEvaluationIntervalInS;
@@ -86,7 +87,9 @@ public class HighOldGenOccupancyRca extends OldGenRca<ResourceFlowUnit<HotResour
             final long heapUtilizationThreshold,
             final long rcaEvaluationIntervalInS) {
         super(EVAL_INTERVAL_IN_S, heapUsed, heapMax, null, gcType);
-        this.oldGenUtilizationSlidingWindow = new SlidingWindow<>(1, TimeUnit.MINUTES);
+        this.oldGenUtilizationSlidingWindow =
+                new RingBufferSlidingWindow(
+                        1, TimeUnit.MINUTES, EVAL_INTERVAL_IN_S, TimeUnit.SECONDS);
         this.heapUsed = heapUsed;
         this.heapMax = heapMax;
         this.gcType = gcType;
@@ -31,7 +31,8 @@ import java.util.concurrent.TimeUnit;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
 import org.opensearch.performanceanalyzer.rca.framework.api.Resources;
-import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.RingBufferSlidingWindow;
+import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SampleWindow;
 import org.opensearch.performanceanalyzer.rca.framework.api.aggregators.SlidingWindowData;
 import org.opensearch.performanceanalyzer.rca.framework.api.contexts.ResourceContext;
 import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ResourceFlowUnit;
@@ -48,7 +49,7 @@ public class OldGenReclamationRca extends OldGenRca<ResourceFlowUnit<HotResource
     private static final int DEFAULT_RCA_EVALUATION_INTERVAL_IN_S = 60;
 
     private final MinOldGenSlidingWindow minOldGenSlidingWindow;
-    private final SlidingWindow<SlidingWindowData> gcEventsSlidingWindow;
+    private final SampleWindow<SlidingWindowData> gcEventsSlidingWindow;
 
     private HotResourceSummary prevSummary;
     private ResourceContext prevContext;
@@ -84,7 +85,9 @@ public class OldGenReclamationRca extends OldGenRca<ResourceFlowUnit<HotResource
         this.rcaPeriod = rcaEvaluationIntervalInS / EVAL_INTERVAL_IN_S;
         this.samples = 0;
         this.minOldGenSlidingWindow = new MinOldGenSlidingWindow(1, TimeUnit.MINUTES);
-        this.gcEventsSlidingWindow = new SlidingWindow<>(1, TimeUnit.MINUTES);
+        this.gcEventsSlidingWindow =
+                new RingBufferSlidingWindow(
+                        1, TimeUnit.MINUTES, EVAL_INTERVAL_IN_S, TimeUnit.SECONDS);
         this.prevContext = new ResourceContext(Resources.State.UNKNOWN);
         this.prevSummary = null;
     }
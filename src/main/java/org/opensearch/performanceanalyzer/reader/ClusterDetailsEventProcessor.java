@@ -135,6 +135,11 @@ public class ClusterDetailsEventProcessor implements EventProcessor {
     @Override
     public void commitBatchIfRequired() {}
 
+    @Override
+    public boolean usesSharedConnection() {
+        return false;
+    }
+
     public void setNodesDetails(final List<NodeDetails> nodesDetails) {
         this.nodesDetails = ImmutableList.copyOf(nodesDetails);
     }
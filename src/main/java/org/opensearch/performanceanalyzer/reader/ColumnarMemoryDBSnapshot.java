@@ -0,0 +1,488 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jooq.BatchBindStep;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SelectHavingStep;
+import org.jooq.impl.DSL;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+
+/**
+ * A {@link MemoryDBSnapshot} that keeps its rows in primitive columns instead of a table in the
+ * in-memory sqlite database. Every dimension column is dictionary encoded into an int column and
+ * every metric column is a double column where NaN stands for a null value.
+ *
+ * <p>The snapshot supports the same operations the reader performs on the sqlite backed snapshot:
+ * appending rows, aligning two windows and computing the sum/avg/min/max of every metric grouped by
+ * the dimensions, without going through JDBC for every row. Callers that need the snapshot in a SQL
+ * query, through {@link #selectAll()} or {@link #selectMetadataSource()}, get the rows copied into
+ * a table of the in-memory database first.
+ */
+public class ColumnarMemoryDBSnapshot extends MemoryDBSnapshot {
+    private static final Logger LOG = LogManager.getLogger(ColumnarMemoryDBSnapshot.class);
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int dimensionCount;
+    private final int metricCount;
+    private final List<String> metricTableNames;
+
+    // dimensionDictionaries.get(i) maps a value of the i-th dimension to its code, and
+    // dimensionValues.get(i).get(code) maps the code back to the value. Null is a valid value.
+    private final List<Map<String, Integer>> dimensionDictionaries;
+    private final List<List<String>> dimensionValues;
+
+    private int[][] dimensionColumns;
+    private double[][] metricColumns;
+    private int capacity;
+    private int rowCount;
+    private boolean materialized;
+
+    public ColumnarMemoryDBSnapshot(
+            Connection conn,
+            AllMetrics.MetricName tableNamePrefix,
+            long windowEndTime,
+            boolean aligned) {
+        super(conn, tableNamePrefix, windowEndTime, aligned, false);
+        this.dimensionCount = getDimensions().size();
+        this.metricCount = getMetrics().size();
+        this.metricTableNames =
+                MetricPropertiesConfig.getInstance()
+                        .getProperty(tableNamePrefix)
+                        .getMetadataTableNames();
+        this.dimensionDictionaries = new ArrayList<>(dimensionCount);
+        this.dimensionValues = new ArrayList<>(dimensionCount);
+        for (int i = 0; i < dimensionCount; i++) {
+            dimensionDictionaries.add(new HashMap<>());
+            dimensionValues.add(new ArrayList<>());
+        }
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public ColumnarMemoryDBSnapshot(
+            Connection conn, AllMetrics.MetricName tableNamePrefix, long windowEndTime) {
+        this(conn, tableNamePrefix, windowEndTime, false);
+    }
+
+    /**
+     * Appends a row to the snapshot.
+     *
+     * @param values dimension values followed by metric values, in the same order as the columns
+     *     of the sqlite backed snapshot.
+     */
+    public void appendRow(Object[] values) {
+        if (values.length != dimensionCount + metricCount) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Expected %d values for %s, got %d",
+                            dimensionCount + metricCount, tableName, values.length));
+        }
+        ensureCapacity(rowCount + 1);
+        for (int i = 0; i < dimensionCount; i++) {
+            dimensionColumns[i][rowCount] =
+                    encode(i, values[i] == null ? null : values[i].toString());
+        }
+        for (int i = 0; i < metricCount; i++) {
+            metricColumns[i][rowCount] = toDouble(values[dimensionCount + i]);
+        }
+        rowCount++;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    @Override
+    public void insertMultiRows(Object[][] values) {
+        if (values == null) {
+            return;
+        }
+        for (Object[] row : values) {
+            appendRow(row);
+        }
+    }
+
+    /** @return a batch that appends its rows to the columns when it is executed. */
+    @Override
+    public BatchBindStep startBatchPut() {
+        return new ColumnarBatch();
+    }
+
+    /**
+     * The returned query reads a copy of the rows the snapshot holds at the time of this call; rows
+     * appended afterwards are not visible to it.
+     */
+    @Override
+    public SelectHavingStep<Record> selectAll() {
+        materialize();
+        return super.selectAll();
+    }
+
+    /**
+     * The returned queries read a copy of the rows the snapshot holds at the time of this call.
+     * {@link #aggregateMetadata()} computes the same aggregates without the copy.
+     */
+    @Override
+    public Map<String, SelectHavingStep<Record>> selectMetadataSource() {
+        materialize();
+        return super.selectMetadataSource();
+    }
+
+    @Override
+    public Result<Record> fetchAll() {
+        List<Field<?>> fields = new ArrayList<>(dimensionCount + metricCount);
+        fields.addAll(getDimensions());
+        fields.addAll(getMetrics());
+        Field<?>[] fieldArray = fields.toArray(new Field<?>[0]);
+        Result<Record> result = create.newResult(fieldArray);
+        for (int row = 0; row < rowCount; row++) {
+            Record record = create.newRecord(fieldArray);
+            for (int i = 0; i < dimensionCount; i++) {
+                record.set(getDimensions().get(i), dimensionValue(i, row));
+            }
+            int i = 0;
+            for (Field<Double> metric : getMetrics()) {
+                double value = metricColumns[i++][row];
+                record.set(metric, Double.isNaN(value) ? null : value);
+            }
+            result.add(record);
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean dbTableExists() {
+        return materialized;
+    }
+
+    @Override
+    public void remove() {
+        LOG.debug("Dropping columnar snapshot {}", this.tableName);
+        super.remove();
+        materialized = false;
+        rowCount = 0;
+        for (int i = 0; i < dimensionCount; i++) {
+            dimensionDictionaries.get(i).clear();
+            dimensionValues.get(i).clear();
+        }
+        allocate(0);
+    }
+
+    /**
+     * Same semantics as {@link MemoryDBSnapshot#alignWindow}: every metric of the aligned window is
+     * the time weighted average of the left and right window values, grouped by the dimensions.
+     * Null values do not contribute to the weighted sum but their rows still contribute weight.
+     */
+    @Override
+    public void alignWindow(
+            MemoryDBSnapshot leftWindow, MemoryDBSnapshot rightWindow, long t, long a, long b) {
+        if (!(leftWindow instanceof ColumnarMemoryDBSnapshot)
+                || !(rightWindow instanceof ColumnarMemoryDBSnapshot)) {
+            throw new IllegalArgumentException(
+                    "Columnar snapshots can only be aligned with columnar snapshots");
+        }
+
+        Map<GroupKey, Integer> groups = new HashMap<>();
+        double[] weights = new double[INITIAL_CAPACITY];
+        ColumnarMemoryDBSnapshot[] windows = {
+            (ColumnarMemoryDBSnapshot) leftWindow, (ColumnarMemoryDBSnapshot) rightWindow
+        };
+        double[] windowWeights = {t - a, b - t};
+
+        for (int w = 0; w < windows.length; w++) {
+            ColumnarMemoryDBSnapshot window = windows[w];
+            double weight = windowWeights[w];
+            for (int row = 0; row < window.rowCount; row++) {
+                int[] codes = new int[dimensionCount];
+                for (int i = 0; i < dimensionCount; i++) {
+                    codes[i] = encode(i, window.dimensionValue(i, row));
+                }
+                GroupKey key = new GroupKey(codes);
+                Integer group = groups.get(key);
+                if (group == null) {
+                    group = appendGroup(codes);
+                    groups.put(key, group);
+                    if (group >= weights.length) {
+                        weights = Arrays.copyOf(weights, weights.length * 2);
+                    }
+                }
+                weights[group] += weight;
+                for (int i = 0; i < metricCount; i++) {
+                    double value = window.metricColumns[i][row];
+                    if (Double.isNaN(value)) {
+                        continue;
+                    }
+                    double sum = metricColumns[i][group];
+                    metricColumns[i][group] =
+                            Double.isNaN(sum) ? value * weight : sum + value * weight;
+                }
+            }
+        }
+
+        for (int group = 0; group < rowCount; group++) {
+            for (int i = 0; i < metricCount; i++) {
+                metricColumns[i][group] /= weights[group];
+            }
+        }
+    }
+
+    /**
+     * Computes, for every metric, the sum, average, min and max of the non null values grouped by
+     * the dimensions. This is the columnar counterpart of {@link #selectMetadataSource()}.
+     *
+     * @return map from metricsdb table name to rows of dimension values followed by sum, avg, min
+     *     and max. The table names are the customized ones of the metric properties, if any.
+     */
+    public Map<String, List<Object[]>> aggregateMetadata() {
+        Map<String, List<Object[]>> tables = new LinkedHashMap<>();
+        for (int i = 0; i < metricCount; i++) {
+            tables.put(metricTableNames.get(i), aggregate(metricColumns[i]));
+        }
+        return tables;
+    }
+
+    /** Copies the rows into the table of the in-memory database, creating it if needed. */
+    private void materialize() {
+        if (materialized) {
+            create.deleteFrom(DSL.table(tableName)).execute();
+        } else {
+            LOG.debug("Materializing columnar snapshot {}", tableName);
+            create.createTable(tableName).columns(getDimensions()).columns(getMetrics()).execute();
+            materialized = true;
+        }
+        if (rowCount == 0) {
+            return;
+        }
+        BatchBindStep handle = super.startBatchPut();
+        for (int row = 0; row < rowCount; row++) {
+            Object[] values = new Object[dimensionCount + metricCount];
+            for (int i = 0; i < dimensionCount; i++) {
+                values[i] = dimensionValue(i, row);
+            }
+            for (int i = 0; i < metricCount; i++) {
+                double value = metricColumns[i][row];
+                values[dimensionCount + i] = Double.isNaN(value) ? null : value;
+            }
+            handle.bind(values);
+        }
+        handle.execute();
+    }
+
+    private List<Object[]> aggregate(double[] column) {
+        Map<GroupKey, double[]> groups = new LinkedHashMap<>();
+        for (int row = 0; row < rowCount; row++) {
+            double value = column[row];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            int[] codes = new int[dimensionCount];
+            for (int i = 0; i < dimensionCount; i++) {
+                codes[i] = dimensionColumns[i][row];
+            }
+            // sum, count, min, max
+            GroupKey key = new GroupKey(codes);
+            double[] stats = groups.get(key);
+            if (stats == null) {
+                groups.put(key, new double[] {value, 1, value, value});
+            } else {
+                stats[0] += value;
+                stats[1] += 1;
+                stats[2] = Math.min(stats[2], value);
+                stats[3] = Math.max(stats[3], value);
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<GroupKey, double[]> entry : groups.entrySet()) {
+            int[] codes = entry.getKey().codes;
+            double[] stats = entry.getValue();
+            Object[] row = new Object[dimensionCount + 4];
+            for (int i = 0; i < dimensionCount; i++) {
+                row[i] = dimensionValues.get(i).get(codes[i]);
+            }
+            row[dimensionCount] = stats[0];
+            row[dimensionCount + 1] = stats[0] / stats[1];
+            row[dimensionCount + 2] = stats[2];
+            row[dimensionCount + 3] = stats[3];
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private int appendGroup(int[] codes) {
+        ensureCapacity(rowCount + 1);
+        for (int i = 0; i < dimensionCount; i++) {
+            dimensionColumns[i][rowCount] = codes[i];
+        }
+        for (int i = 0; i < metricCount; i++) {
+            metricColumns[i][rowCount] = Double.NaN;
+        }
+        return rowCount++;
+    }
+
+    private String dimensionValue(int dimension, int row) {
+        return dimensionValues.get(dimension).get(dimensionColumns[dimension][row]);
+    }
+
+    private int encode(int dimension, String value) {
+        Map<String, Integer> dictionary = dimensionDictionaries.get(dimension);
+        Integer code = dictionary.get(value);
+        if (code == null) {
+            List<String> values = dimensionValues.get(dimension);
+            code = values.size();
+            values.add(value);
+            dictionary.put(value, code);
+        }
+        return code;
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1d : 0d;
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private void allocate(int capacity) {
+        this.dimensionColumns = new int[dimensionCount][capacity];
+        this.metricColumns = new double[metricCount][capacity];
+        this.capacity = capacity;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, Math.max(INITIAL_CAPACITY, capacity * 2));
+        for (int i = 0; i < dimensionCount; i++) {
+            dimensionColumns[i] = Arrays.copyOf(dimensionColumns[i], newCapacity);
+        }
+        for (int i = 0; i < metricCount; i++) {
+            metricColumns[i] = Arrays.copyOf(metricColumns[i], newCapacity);
+        }
+        capacity = newCapacity;
+    }
+
+    /** Buffers the bound rows and appends them to the snapshot on {@link #execute()}. */
+    private final class ColumnarBatch implements BatchBindStep {
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public BatchBindStep bind(Object... values) {
+            rows.add(values);
+            return this;
+        }
+
+        @Override
+        public BatchBindStep bind(Object[]... values) {
+            for (Object[] row : values) {
+                bind(row);
+            }
+            return this;
+        }
+
+        @Override
+        public BatchBindStep bind(Map<String, Object> namedValues) {
+            Object[] row = new Object[dimensionCount + metricCount];
+            int i = 0;
+            for (Field<String> dimension : getDimensions()) {
+                row[i++] = namedValues.get(dimension.getName());
+            }
+            for (Field<Double> metric : getMetrics()) {
+                row[i++] = namedValues.get(metric.getName());
+            }
+            return bind(row);
+        }
+
+        @Override
+        @SafeVarargs
+        public final BatchBindStep bind(Map<String, Object>... namedValues) {
+            for (Map<String, Object> row : namedValues) {
+                bind(row);
+            }
+            return this;
+        }
+
+        @Override
+        public int[] execute() {
+            int[] counts = new int[rows.size()];
+            for (int i = 0; i < counts.length; i++) {
+                appendRow(rows.get(i));
+                counts[i] = 1;
+            }
+            rows.clear();
+            return counts;
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
+    }
+
+    private static final class GroupKey {
+        private final int[] codes;
+        private final int hash;
+
+        GroupKey(int[] codes) {
+            this.codes = codes;
+            this.hash = Arrays.hashCode(codes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GroupKey && Arrays.equals(codes, ((GroupKey) o).codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -55,6 +55,12 @@ public class EventDispatcher {
         }
     }
 
+    /**
+     * Called instead of {@link #finalizeProcessing()} when the events could not be read to the
+     * end, so that the dispatcher can release whatever it holds for the current window.
+     */
+    void abortProcessing() {}
+
     public void processEvent(Event event) {
         boolean eventProcessed = false;
         for (EventProcessor p : eventProcessors) {
@@ -41,4 +41,13 @@ public interface EventProcessor {
     boolean shouldProcessEvent(Event event);
 
     void commitBatchIfRequired();
+
+    /**
+     * Whether this processor writes through the reader's SQLite connection. The connection
+     * serializes its callers, so {@link ParallelEventDispatcher} runs all such processors on the
+     * same lane.
+     */
+    default boolean usesSharedConnection() {
+        return true;
+    }
 }
@@ -0,0 +1,418 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jooq.BatchBindStep;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+import org.opensearch.performanceanalyzer.metricsdb.Metric;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+
+/**
+ * In-JVM counterparts of {@link MetricsEmitter#emitAggregatedOSMetrics}, {@link
+ * MetricsEmitter#emitWorkloadMetrics} and {@link MetricsEmitter#emitHttpMetrics}. Instead of
+ * joining and grouping the request and OS tables in sqlite, the rows are streamed out of the
+ * snapshots once, joined on tid through a hash map and aggregated into primitive accumulators keyed
+ * by (shard, index, operation, role), which are then written straight into the metricsdb batches.
+ * The request aggregate snapshots of the streaming request processors are emitted the same way,
+ * without reading any request rows at all.
+ */
+final class HashJoinMetricsEmitter {
+    private static final Logger LOG = LogManager.getLogger(HashJoinMetricsEmitter.class);
+
+    private static final List<String> SHARD_DIMENSIONS =
+            Arrays.asList(
+                    AllMetrics.CommonDimension.SHARD_ID.toString(),
+                    AllMetrics.CommonDimension.INDEX_NAME.toString(),
+                    AllMetrics.CommonDimension.OPERATION.toString(),
+                    AllMetrics.CommonDimension.SHARD_ROLE.toString());
+
+    private static final List<String> SHARD_OP_DIMENSIONS =
+            Arrays.asList(
+                    ShardRequestMetricsSnapshot.Fields.OPERATION.toString(),
+                    ShardRequestMetricsSnapshot.Fields.SHARD_ID.toString(),
+                    ShardRequestMetricsSnapshot.Fields.INDEX_NAME.toString(),
+                    ShardRequestMetricsSnapshot.Fields.SHARD_ROLE.toString());
+
+    private static final List<String> HTTP_DIMENSIONS =
+            Arrays.asList(
+                    HttpRequestMetricsSnapshot.Fields.OPERATION.toString(),
+                    HttpRequestMetricsSnapshot.Fields.EXCEPTION.toString(),
+                    HttpRequestMetricsSnapshot.Fields.INDICES.toString(),
+                    HttpRequestMetricsSnapshot.Fields.HTTP_RESP_CODE.toString());
+
+    private HashJoinMetricsEmitter() {}
+
+    /**
+     * Attributes the OS metrics of every thread to the shard requests that ran on it, weighted by
+     * the thread utilization of each request, and writes sum/avg/min/max per (shard, index,
+     * operation, role) for every OS metric.
+     */
+    static void emitAggregatedOSMetrics(
+            final MetricsDB db,
+            final OSMetricsSnapshot osMetricsSnap,
+            final ShardRequestMetricsSnapshot rqMetricsSnap)
+            throws Exception {
+        long mCurrT = System.currentTimeMillis();
+        List<String> metricColumns = new ArrayList<>(osMetricsSnap.getMetricColumns());
+        int metricCount = metricColumns.size();
+        Map<String, List<double[]>> osRowsByTid = readOSRowsByTid(osMetricsSnap, metricCount);
+
+        // probe side: one row per request with its share of the thread time.
+        Map<List<String>, MetricAccumulator> groups = new LinkedHashMap<>();
+        try (ResultSet rs = rqMetricsSnap.fetchThreadUtilizationRatioTable().fetchResultSet()) {
+            int tidColumn = rs.findColumn(ShardRequestMetricsSnapshot.Fields.TID.toString());
+            int tUtilColumn = rs.findColumn(ShardRequestMetricsSnapshot.Fields.TUTIL.toString());
+            int[] dimensionColumns = shardDimensionColumns(rs);
+            while (rs.next()) {
+                List<double[]> osRows = osRowsByTid.get(rs.getString(tidColumn));
+                if (osRows == null) {
+                    continue;
+                }
+                addWeightedOSRows(
+                        groups,
+                        readDimensions(rs, dimensionColumns),
+                        getDouble(rs, tUtilColumn),
+                        osRows,
+                        metricCount);
+            }
+        }
+        long mFinalT = System.currentTimeMillis();
+        LOG.debug("Total time taken for tid corelation: {}", mFinalT - mCurrT);
+
+        writeAggregatedOSMetrics(db, metricColumns, groups);
+    }
+
+    /**
+     * Same as {@link #emitAggregatedOSMetrics(MetricsDB, OSMetricsSnapshot,
+     * ShardRequestMetricsSnapshot)}, with the thread utilization of each request taken from the
+     * requests a {@link RequestEventProcessor} matched in streaming mode.
+     */
+    static void emitAggregatedOSMetrics(
+            final MetricsDB db,
+            final OSMetricsSnapshot osMetricsSnap,
+            final ShardRequestAggregateSnapshot rqAggregateSnap)
+            throws Exception {
+        long mCurrT = System.currentTimeMillis();
+        List<String> metricColumns = new ArrayList<>(osMetricsSnap.getMetricColumns());
+        int metricCount = metricColumns.size();
+        Map<String, List<double[]>> osRowsByTid = readOSRowsByTid(osMetricsSnap, metricCount);
+
+        Map<List<String>, MetricAccumulator> groups = new LinkedHashMap<>();
+        rqAggregateSnap.forEachThreadUtilization(
+                (request, tUtil) -> {
+                    List<double[]> osRows = osRowsByTid.get(request.getTid());
+                    if (osRows != null) {
+                        addWeightedOSRows(
+                                groups, request.getDimensions(), tUtil, osRows, metricCount);
+                    }
+                });
+        long mFinalT = System.currentTimeMillis();
+        LOG.debug("Total time taken for tid corelation: {}", mFinalT - mCurrT);
+
+        writeAggregatedOSMetrics(db, metricColumns, groups);
+    }
+
+    /** build side of the OS join: OS rows by tid. Columns are tid, tName, metrics..., time. */
+    private static Map<String, List<double[]>> readOSRowsByTid(
+            OSMetricsSnapshot osMetricsSnap, int metricCount) throws SQLException {
+        Map<String, List<double[]>> osRowsByTid = new HashMap<>();
+        try (ResultSet rs = osMetricsSnap.selectAll().fetchResultSet()) {
+            while (rs.next()) {
+                String tid = rs.getString(1);
+                if (tid == null) {
+                    continue;
+                }
+                double[] values = new double[metricCount];
+                for (int m = 0; m < metricCount; m++) {
+                    values[m] = getDouble(rs, m + 3);
+                }
+                osRowsByTid.computeIfAbsent(tid, k -> new ArrayList<>(1)).add(values);
+            }
+        }
+        return osRowsByTid;
+    }
+
+    private static void addWeightedOSRows(
+            Map<List<String>, MetricAccumulator> groups,
+            List<String> dimensions,
+            double tUtil,
+            List<double[]> osRows,
+            int metricCount) {
+        MetricAccumulator accumulator =
+                groups.computeIfAbsent(dimensions, k -> new MetricAccumulator(metricCount));
+        for (double[] osRow : osRows) {
+            for (int m = 0; m < metricCount; m++) {
+                accumulator.add(m, tUtil * osRow[m]);
+            }
+        }
+    }
+
+    private static void writeAggregatedOSMetrics(
+            MetricsDB db, List<String> metricColumns, Map<List<String>, MetricAccumulator> groups) {
+        long mCurrT = System.currentTimeMillis();
+        for (int m = 0; m < metricColumns.size(); m++) {
+            Metric<Double> metric = new Metric<Double>(metricColumns.get(m), 0d);
+            db.createMetric(metric, SHARD_DIMENSIONS);
+            BatchBindStep handle = db.startBatchPut(metric, SHARD_DIMENSIONS);
+            for (Map.Entry<List<String>, MetricAccumulator> entry : groups.entrySet()) {
+                MetricAccumulator accumulator = entry.getValue();
+                if (accumulator.getCount(m) == 0) {
+                    continue;
+                }
+                List<String> dims = entry.getKey();
+                handle.bind(
+                        dims.get(0),
+                        dims.get(1),
+                        dims.get(2),
+                        dims.get(3),
+                        accumulator.getSum(m),
+                        accumulator.getAvg(m),
+                        accumulator.getMin(m),
+                        accumulator.getMax(m));
+            }
+            if (handle.size() > 0) {
+                handle.execute();
+            }
+        }
+        long mFinalT = System.currentTimeMillis();
+        LOG.debug("Total time taken for writing resource metrics metricsdb: {}", mFinalT - mCurrT);
+    }
+
+    /**
+     * Writes the latency, operation count and bulk doc count of the shard requests completed in the
+     * window, grouped by (shard, index, operation, role).
+     */
+    static void emitWorkloadMetrics(
+            final MetricsDB db, final ShardRequestMetricsSnapshot rqMetricsSnap)
+            throws Exception {
+        Map<List<String>, MetricAccumulator> groups = new LinkedHashMap<>();
+        try (ResultSet rs = rqMetricsSnap.fetchLatency().fetchResultSet()) {
+            int latColumn = rs.findColumn(ShardRequestMetricsSnapshot.Fields.LAT.toString());
+            int docCountColumn =
+                    rs.findColumn(ShardRequestMetricsSnapshot.Fields.DOC_COUNT.toString());
+            int[] dimensionColumns = shardDimensionColumns(rs);
+            while (rs.next()) {
+                MetricAccumulator accumulator =
+                        groups.computeIfAbsent(
+                                readDimensions(rs, dimensionColumns),
+                                k ->
+                                        new MetricAccumulator(
+                                                ShardRequestAggregateSnapshot.WORKLOAD_SLOTS));
+                accumulator.addRow();
+                accumulator.add(
+                        ShardRequestAggregateSnapshot.LATENCY_SLOT, getDouble(rs, latColumn));
+                accumulator.add(
+                        ShardRequestAggregateSnapshot.DOC_COUNT_SLOT,
+                        getDouble(rs, docCountColumn));
+            }
+        }
+        writeWorkloadMetrics(db, groups);
+    }
+
+    /**
+     * Same as {@link #emitWorkloadMetrics(MetricsDB, ShardRequestMetricsSnapshot)}, with the
+     * per-group aggregates a {@link RequestEventProcessor} kept in streaming mode.
+     */
+    static void emitWorkloadMetrics(
+            final MetricsDB db, final ShardRequestAggregateSnapshot rqAggregateSnap) {
+        writeWorkloadMetrics(db, rqAggregateSnap.getWorkloadGroups());
+    }
+
+    /** @param groups accumulators of latency and doc count by (shard, index, operation, role) */
+    private static void writeWorkloadMetrics(
+            MetricsDB db, Map<List<String>, MetricAccumulator> groups) {
+        long mCurrT = System.currentTimeMillis();
+        int lat = ShardRequestAggregateSnapshot.LATENCY_SLOT;
+        int docs = ShardRequestAggregateSnapshot.DOC_COUNT_SLOT;
+
+        Metric<Double> latency = new Metric<Double>(AllMetrics.CommonMetric.LATENCY.toString(), 0d);
+        db.createMetric(latency, MetricsEmitter.LATENCY_TABLE_DIMENSIONS);
+        BatchBindStep handle = db.startBatchPut(latency, MetricsEmitter.LATENCY_TABLE_DIMENSIONS);
+
+        Metric<Double> opCount =
+                new Metric<Double>(AllMetrics.ShardOperationMetric.SHARD_OP_COUNT.toString(), 0d);
+        db.createMetric(opCount, SHARD_OP_DIMENSIONS);
+        BatchBindStep countHandle = db.startBatchPut(opCount, SHARD_OP_DIMENSIONS);
+
+        Metric<Double> docCount =
+                new Metric<Double>(AllMetrics.ShardBulkMetric.DOC_COUNT.toString(), 0d);
+        db.createMetric(docCount, SHARD_OP_DIMENSIONS);
+        BatchBindStep bulkDocHandle = db.startBatchPut(docCount, SHARD_OP_DIMENSIONS);
+
+        for (Map.Entry<List<String>, MetricAccumulator> entry : groups.entrySet()) {
+            // dims are shard, index, operation, role
+            List<String> dims = entry.getKey();
+            MetricAccumulator accumulator = entry.getValue();
+
+            handle.bind(
+                    dims.get(2),
+                    null,
+                    null,
+                    null,
+                    dims.get(0),
+                    dims.get(1),
+                    dims.get(3),
+                    accumulator.getSum(lat),
+                    accumulator.getAvg(lat),
+                    accumulator.getMin(lat),
+                    accumulator.getMax(lat));
+
+            double count = accumulator.getRows();
+            countHandle.bind(
+                    dims.get(2), dims.get(0), dims.get(1), dims.get(3), count, count, count, count);
+
+            if (accumulator.getCount(docs) > 0) {
+                double bulkDocCount = accumulator.getSum(docs);
+                bulkDocHandle.bind(
+                        dims.get(2),
+                        dims.get(0),
+                        dims.get(1),
+                        dims.get(3),
+                        bulkDocCount,
+                        bulkDocCount,
+                        bulkDocCount,
+                        bulkDocCount);
+            }
+        }
+        if (handle.size() > 0) {
+            handle.execute();
+        }
+        if (countHandle.size() > 0) {
+            countHandle.execute();
+        }
+        if (bulkDocHandle.size() > 0) {
+            bulkDocHandle.execute();
+        }
+        long mFinalT = System.currentTimeMillis();
+        LOG.debug("Total time taken for writing workload metrics metricsdb: {}", mFinalT - mCurrT);
+    }
+
+    /**
+     * Writes the latency, request count and request doc count of the http requests an {@link
+     * HttpRequestEventProcessor} completed in streaming mode, grouped by (operation, exception,
+     * indices, status) like {@link MetricsEmitter#emitHttpMetrics}.
+     */
+    static void emitHttpMetrics(final MetricsDB db, final HttpRequestAggregateSnapshot rqSnap) {
+        long mCurrT = System.currentTimeMillis();
+        int lat = HttpRequestAggregateSnapshot.LATENCY_SLOT;
+        int docs = HttpRequestAggregateSnapshot.DOC_COUNT_SLOT;
+
+        Metric<Double> latency = new Metric<Double>(AllMetrics.CommonMetric.LATENCY.toString(), 0d);
+        db.createMetric(latency, MetricsEmitter.LATENCY_TABLE_DIMENSIONS);
+        BatchBindStep handle = db.startBatchPut(latency, MetricsEmitter.LATENCY_TABLE_DIMENSIONS);
+
+        Metric<Double> totalRequests =
+                new Metric<Double>(AllMetrics.HttpMetric.HTTP_TOTAL_REQUESTS.toString(), 0d);
+        db.createMetric(totalRequests, HTTP_DIMENSIONS);
+        BatchBindStep countHandle = db.startBatchPut(totalRequests, HTTP_DIMENSIONS);
+
+        Metric<Double> requestDocs =
+                new Metric<Double>(AllMetrics.HttpMetric.HTTP_REQUEST_DOCS.toString(), 0d);
+        db.createMetric(requestDocs, HTTP_DIMENSIONS);
+        BatchBindStep docHandle = db.startBatchPut(requestDocs, HTTP_DIMENSIONS);
+
+        for (Map.Entry<List<String>, MetricAccumulator> entry : rqSnap.getGroups().entrySet()) {
+            // dims are operation, exception, indices, status
+            List<String> dims = entry.getKey();
+            MetricAccumulator accumulator = entry.getValue();
+
+            handle.bind(
+                    dims.get(0),
+                    dims.get(1),
+                    dims.get(2),
+                    dims.get(3),
+                    null,
+                    null,
+                    null,
+                    accumulator.getSum(lat),
+                    accumulator.getAvg(lat),
+                    accumulator.getMin(lat),
+                    accumulator.getMax(lat));
+
+            double count = accumulator.getRows();
+            countHandle.bind(
+                    dims.get(0), dims.get(1), dims.get(2), dims.get(3), count, count, count, count);
+
+            if (accumulator.getCount(docs) > 0) {
+                docHandle.bind(
+                        dims.get(0),
+                        dims.get(1),
+                        dims.get(2),
+                        dims.get(3),
+                        accumulator.getSum(docs),
+                        accumulator.getAvg(docs),
+                        accumulator.getMin(docs),
+                        accumulator.getMax(docs));
+            }
+        }
+        if (handle.size() > 0) {
+            handle.execute();
+        }
+        if (countHandle.size() > 0) {
+            countHandle.execute();
+        }
+        if (docHandle.size() > 0) {
+            docHandle.execute();
+        }
+        long mFinalT = System.currentTimeMillis();
+        LOG.debug("Total time taken for writing http metrics metricsdb: {}", mFinalT - mCurrT);
+    }
+
+    /** @return the columns of shard, index, operation and role, in that order */
+    private static int[] shardDimensionColumns(ResultSet rs) throws SQLException {
+        return new int[] {
+            rs.findColumn(ShardRequestMetricsSnapshot.Fields.SHARD_ID.toString()),
+            rs.findColumn(ShardRequestMetricsSnapshot.Fields.INDEX_NAME.toString()),
+            rs.findColumn(ShardRequestMetricsSnapshot.Fields.OPERATION.toString()),
+            rs.findColumn(ShardRequestMetricsSnapshot.Fields.SHARD_ROLE.toString())
+        };
+    }
+
+    private static List<String> readDimensions(ResultSet rs, int[] columns) throws SQLException {
+        return Arrays.asList(
+                rs.getString(columns[0]),
+                rs.getString(columns[1]),
+                rs.getString(columns[2]),
+                rs.getString(columns[3]));
+    }
+
+    /** @return the column value, or NaN if it is null */
+    private static double getDouble(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+}
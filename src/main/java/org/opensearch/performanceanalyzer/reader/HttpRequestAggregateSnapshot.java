@@ -0,0 +1,180 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.opensearch.performanceanalyzer.collections.LongKeys;
+import org.opensearch.performanceanalyzer.collections.LongObjectHashMap;
+
+/**
+ * Streaming counterpart of {@link HttpRequestMetricsSnapshot}. Start and finish events are matched
+ * by rid in a primitive keyed map as they arrive; once both events of a request were seen, its
+ * latency and doc count are folded into the aggregates of its (operation, exception, indices,
+ * status) group and the request is forgotten. Only the requests still waiting for an event are
+ * kept, and the unfinished ones are rolled over into the next snapshot until they expire after
+ * {@link #EXPIRE_AFTER}, like {@link HttpRequestMetricsSnapshot#rolloverInflightRequests} does.
+ *
+ * <p>Not thread-safe; it is only updated by the processor that owns it.
+ */
+class HttpRequestAggregateSnapshot implements Removable {
+    static final int LATENCY_SLOT = 0;
+    static final int DOC_COUNT_SLOT = 1;
+    private static final int SLOTS = 2;
+
+    private static final long EXPIRE_AFTER = 600000L;
+    private static final long MISSING = -1L;
+
+    final long windowStartTime;
+    private final LongObjectHashMap<HttpRequest> pendingRequests;
+    private final Map<List<String>, MetricAccumulator> groups;
+
+    HttpRequestAggregateSnapshot(long windowStartTime) {
+        this.windowStartTime = windowStartTime;
+        this.pendingRequests = new LongObjectHashMap<>();
+        this.groups = new LinkedHashMap<>();
+    }
+
+    /** @return false if the request id is malformed and the event was dropped */
+    boolean putStartMetric(
+            String rid, String operation, String indices, long itemCount, long startTime) {
+        long id = LongKeys.parseId(rid);
+        if (id < 0) {
+            return false;
+        }
+        HttpRequest request = getOrCreate(id, operation);
+        if (request.startTime == MISSING) {
+            request.startTime = startTime;
+            request.indices = indices;
+            request.itemCount = itemCount;
+            complete(id, request);
+        }
+        return true;
+    }
+
+    /** @return false if the request id is malformed and the event was dropped */
+    boolean putFinishMetric(
+            String rid, String operation, String status, String exception, long finishTime) {
+        long id = LongKeys.parseId(rid);
+        if (id < 0) {
+            return false;
+        }
+        HttpRequest request = getOrCreate(id, operation);
+        if (request.finishTime == MISSING) {
+            request.finishTime = finishTime;
+            request.status = status;
+            request.exception = exception;
+            complete(id, request);
+        }
+        return true;
+    }
+
+    private HttpRequest getOrCreate(long id, String operation) {
+        HttpRequest request = pendingRequests.get(id);
+        if (request == null) {
+            request = new HttpRequest(operation);
+            pendingRequests.put(id, request);
+        }
+        return request;
+    }
+
+    private void complete(long id, HttpRequest request) {
+        if (request.startTime == MISSING || request.finishTime == MISSING) {
+            return;
+        }
+        MetricAccumulator accumulator =
+                groups.computeIfAbsent(
+                        Arrays.asList(
+                                request.operation,
+                                request.exception,
+                                request.indices,
+                                request.status),
+                        k -> new MetricAccumulator(SLOTS));
+        accumulator.addRow();
+        accumulator.add(LATENCY_SLOT, request.finishTime - request.startTime);
+        accumulator.add(DOC_COUNT_SLOT, request.itemCount);
+        pendingRequests.remove(id);
+    }
+
+    /**
+     * @return the latency and doc count accumulators of the requests completed in this window, by
+     *     (operation, exception, indices, status)
+     */
+    Map<List<String>, MetricAccumulator> getGroups() {
+        return Collections.unmodifiableMap(groups);
+    }
+
+    /** Copies the requests of {@code prevSnap} that started but did not finish yet. */
+    void rolloverInflightRequests(HttpRequestAggregateSnapshot prevSnap) {
+        prevSnap.pendingRequests.forEach(
+                (rid, request) -> {
+                    if (request.startTime != MISSING
+                            && request.finishTime == MISSING
+                            && request.startTime > prevSnap.windowStartTime - EXPIRE_AFTER) {
+                        pendingRequests.put(rid, request.copy());
+                    }
+                });
+    }
+
+    /** @return the number of requests still waiting for their start or finish event */
+    int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
+
+    @Override
+    public void remove() {
+        pendingRequests.clear();
+        groups.clear();
+    }
+
+    /** The start and finish events of one http request. */
+    private static final class HttpRequest {
+        private final String operation;
+        private String indices;
+        private String status;
+        private String exception;
+        private long itemCount;
+        private long startTime = MISSING;
+        private long finishTime = MISSING;
+
+        private HttpRequest(String operation) {
+            this.operation = operation;
+        }
+
+        private HttpRequest copy() {
+            HttpRequest copy = new HttpRequest(operation);
+            copy.indices = indices;
+            copy.itemCount = itemCount;
+            copy.startTime = startTime;
+            return copy;
+        }
+    }
+}
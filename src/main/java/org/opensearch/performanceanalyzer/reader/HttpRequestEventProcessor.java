@@ -44,6 +44,8 @@ public class HttpRequestEventProcessor implements EventProcessor {
 
     private static final Logger LOG = LogManager.getLogger(HttpRequestEventProcessor.class);
     private HttpRequestMetricsSnapshot httpSnap;
+    // Set instead of httpSnap in streaming mode, where no request rows are written to sqlite.
+    private HttpRequestAggregateSnapshot httpAggregateSnap;
     private BatchBindStep handle;
     private long startTime;
     private long endTime;
@@ -52,6 +54,10 @@ public class HttpRequestEventProcessor implements EventProcessor {
         this.httpSnap = httpSnap;
     }
 
+    private HttpRequestEventProcessor(HttpRequestAggregateSnapshot httpAggregateSnap) {
+        this.httpAggregateSnap = httpAggregateSnap;
+    }
+
     static HttpRequestEventProcessor buildHttpRequestMetricEventsProcessor(
             long currWindowStartTime,
             long currWindowEndTime,
@@ -72,14 +78,36 @@ public class HttpRequestEventProcessor implements EventProcessor {
         }
     }
 
+    /**
+     * Builds a processor that matches the start and finish events of the http requests in memory
+     * and keeps their aggregates in a {@link HttpRequestAggregateSnapshot}, instead of writing a
+     * row per event into a {@link HttpRequestMetricsSnapshot}.
+     */
+    static HttpRequestEventProcessor buildStreamingHttpRequestMetricEventsProcessor(
+            long currWindowStartTime,
+            long currWindowEndTime,
+            NavigableMap<Long, HttpRequestAggregateSnapshot> httpRqAggregateMap) {
+        HttpRequestAggregateSnapshot httpAggregateSnap =
+                httpRqAggregateMap.get(currWindowStartTime);
+        if (httpAggregateSnap == null) {
+            httpAggregateSnap = new HttpRequestAggregateSnapshot(currWindowStartTime);
+            Map.Entry<Long, HttpRequestAggregateSnapshot> entry = httpRqAggregateMap.lastEntry();
+            if (entry != null) {
+                httpAggregateSnap.rolloverInflightRequests(entry.getValue());
+            }
+            httpRqAggregateMap.put(currWindowStartTime, httpAggregateSnap);
+        }
+        return new HttpRequestEventProcessor(httpAggregateSnap);
+    }
+
     public void initializeProcessing(long startTime, long endTime) {
         this.startTime = startTime;
         this.endTime = endTime;
-        this.handle = httpSnap.startBatchPut();
+        this.handle = httpSnap == null ? null : httpSnap.startBatchPut();
     }
 
     public void finalizeProcessing() {
-        if (handle.size() > 0) {
+        if (handle != null && handle.size() > 0) {
             handle.execute();
         }
     }
@@ -103,12 +131,17 @@ public class HttpRequestEventProcessor implements EventProcessor {
 
     @Override
     public void commitBatchIfRequired() {
-        if (handle.size() > BATCH_LIMIT) {
+        if (handle != null && handle.size() > BATCH_LIMIT) {
             handle.execute();
             handle = httpSnap.startBatchPut();
         }
     }
 
+    @Override
+    public boolean usesSharedConnection() {
+        return httpSnap != null;
+    }
+
     // A keyItem is of the form : [threads, http, bulk, 43369, start]
     //
     // Example value part of the entry is:
@@ -130,7 +163,11 @@ public class HttpRequestEventProcessor implements EventProcessor {
             // A keyItem is of the form : [threads, http, bulk, 43369, start]
             String rid = keyItems[3];
             String operation = keyItems[2];
-            handle.bind(rid, operation, indices, null, null, itemCount, st, null);
+            if (httpAggregateSnap == null) {
+                handle.bind(rid, operation, indices, null, null, itemCount, st, null);
+            } else if (!httpAggregateSnap.putStartMetric(rid, operation, indices, itemCount, st)) {
+                logMalformedRequestId(rid);
+            }
         } catch (NumberFormatException e) {
             LOG.error(
                     "Unable to parse string. StartTime:{}, itemCount:{}, ExcepionCode: {},\n startMetrics:{}",
@@ -159,7 +196,11 @@ public class HttpRequestEventProcessor implements EventProcessor {
             long ft = Long.parseLong(finishTimeVal);
             String rid = keyItems[3];
             String operation = keyItems[2];
-            handle.bind(rid, operation, null, status, exception, null, null, ft);
+            if (httpAggregateSnap == null) {
+                handle.bind(rid, operation, null, status, exception, null, null, ft);
+            } else if (!httpAggregateSnap.putFinishMetric(rid, operation, status, exception, ft)) {
+                logMalformedRequestId(rid);
+            }
         } catch (NumberFormatException e) {
             LOG.error(
                     "Unable to parse string. FinishTime:{} ExcepionCode: {} \n finishMetrics:{}",
@@ -170,4 +211,12 @@ public class HttpRequestEventProcessor implements EventProcessor {
             throw e;
         }
     }
+
+    private void logMalformedRequestId(String rid) {
+        LOG.error(
+                "Unable to parse request id:{}, ExcepionCode: {}",
+                rid,
+                StatExceptionCode.READER_PARSER_ERROR.toString());
+        StatsCollector.instance().logException(StatExceptionCode.READER_PARSER_ERROR);
+    }
 }
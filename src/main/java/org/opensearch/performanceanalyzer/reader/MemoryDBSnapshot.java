@@ -99,6 +99,19 @@ public class MemoryDBSnapshot implements Removable {
             AllMetrics.MetricName tableNamePrefix,
             long windowEndTime,
             boolean aligned) {
+        this(conn, tableNamePrefix, windowEndTime, aligned, true);
+    }
+
+    /**
+     * @param createTable whether to create the backing table in the in-memory database. Subclasses
+     *     that keep the rows outside of the database pass false.
+     */
+    protected MemoryDBSnapshot(
+            Connection conn,
+            AllMetrics.MetricName tableNamePrefix,
+            long windowEndTime,
+            boolean aligned,
+            boolean createTable) {
         this.create = DSL.using(conn, SQLDialect.SQLITE);
         this.isAligned = aligned;
         String tableNameSuffix = aligned ? "_aligned" : "";
@@ -129,6 +142,10 @@ public class MemoryDBSnapshot implements Removable {
                         .getProperty(tableNamePrefix)
                         .getTableWhereClauseMap();
 
+        if (!createTable) {
+            return;
+        }
+
         // the tables should have columns in order:
         // dimensions columns, metrics columns
         LOG.debug("Creating a new snapshot table - {}", tableName);
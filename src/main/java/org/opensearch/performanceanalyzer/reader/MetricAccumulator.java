@@ -0,0 +1,91 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+/**
+ * sum/count/min/max of the non null values of a fixed number of slots, like the SQL aggregates,
+ * plus the number of rows that were added.
+ */
+final class MetricAccumulator {
+    private final double[] sum;
+    private final double[] min;
+    private final double[] max;
+    private final long[] count;
+    private long rows;
+
+    MetricAccumulator(int slots) {
+        this.sum = new double[slots];
+        this.min = new double[slots];
+        this.max = new double[slots];
+        this.count = new long[slots];
+    }
+
+    /** Adds a value to a slot; NaN stands for a null value and is ignored. */
+    void add(int slot, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (count[slot] == 0) {
+            sum[slot] = value;
+            min[slot] = value;
+            max[slot] = value;
+        } else {
+            sum[slot] += value;
+            min[slot] = Math.min(min[slot], value);
+            max[slot] = Math.max(max[slot], value);
+        }
+        count[slot]++;
+    }
+
+    void addRow() {
+        rows++;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    long getCount(int slot) {
+        return count[slot];
+    }
+
+    double getSum(int slot) {
+        return sum[slot];
+    }
+
+    double getAvg(int slot) {
+        return sum[slot] / count[slot];
+    }
+
+    double getMin(int slot) {
+        return min[slot];
+    }
+
+    double getMax(int slot) {
+        return max[slot];
+    }
+}
@@ -310,10 +310,34 @@ public class MetricProperties {
     }
 
     boolean processJsonLine(String line, BatchBindStep batchHandle, Object[] templateMetricVals) {
+        Object[] metricVals = parseJsonLine(line, templateMetricVals);
+        if (metricVals == null) {
+            return false;
+        }
+
+        batchHandle.bind(metricVals);
+        return true;
+    }
+
+    boolean processJsonLine(
+            String line, ColumnarMemoryDBSnapshot snap, Object[] templateMetricVals) {
+        Object[] metricVals = parseJsonLine(line, templateMetricVals);
+        if (metricVals == null) {
+            return false;
+        }
+
+        snap.appendRow(metricVals);
+        return true;
+    }
+
+    /**
+     * @return the row values in table column order, or null if the line has no metrics
+     */
+    private Object[] parseJsonLine(String line, Object[] templateMetricVals) {
         Map<String, Object> map = JsonConverter.createMapFrom(line);
 
         if (map.isEmpty()) {
-            return false;
+            return null;
         }
 
         Object[] metricVals = templateMetricVals.clone();
@@ -330,9 +354,7 @@ public class MetricProperties {
                 metricVals[startIndex + i] = map.get(key);
             }
         }
-
-        batchHandle.bind(metricVals);
-        return true;
+        return metricVals;
     }
 
     /**
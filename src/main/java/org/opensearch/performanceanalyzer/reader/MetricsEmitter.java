@@ -81,7 +81,7 @@ public class MetricsEmitter {
     private static final Pattern TRANS_WORKER_PATTERN =
             Pattern.compile(".*opensearch.*\\[transport_worker.*");
 
-    private static final List<String> LATENCY_TABLE_DIMENSIONS =
+    static final List<String> LATENCY_TABLE_DIMENSIONS =
             new ArrayList<String>() {
                 {
                     this.add(ShardRequestMetricsSnapshot.Fields.OPERATION.toString());
@@ -996,6 +996,11 @@ public class MetricsEmitter {
             final DSLContext create, final MetricsDB db, final MemoryDBSnapshot snap)
             throws Exception {
 
+        if (snap instanceof ColumnarMemoryDBSnapshot) {
+            emitColumnarNodeMetrics(db, (ColumnarMemoryDBSnapshot) snap);
+            return;
+        }
+
         Map<String, SelectHavingStep<Record>> metadataTable = snap.selectMetadataSource();
 
         Map<String, List<Field<?>>> selectField = snap.getTableSelectFieldsMap();
@@ -1041,6 +1046,36 @@ public class MetricsEmitter {
         }
     }
 
+    private static void emitColumnarNodeMetrics(
+            final MetricsDB db, final ColumnarMemoryDBSnapshot snap) throws Exception {
+        List<String> dimensionNames = snap.getDimensionNames();
+        Map<String, List<Field<?>>> selectField = snap.getTableSelectFieldsMap();
+
+        for (Map.Entry<String, List<Object[]>> entry : snap.aggregateMetadata().entrySet()) {
+            String tableName = entry.getKey();
+            List<Object[]> rows = entry.getValue();
+            if (rows.isEmpty()) {
+                LOG.debug("No data to emit: {}", tableName);
+                continue;
+            }
+
+            long mCurrT = System.currentTimeMillis();
+            db.createMetric(new Metric<Double>(tableName, 0d), dimensionNames);
+
+            BatchBindStep handle = db.startBatchPut(tableName, selectField.get(tableName).size());
+            for (Object[] row : rows) {
+                handle.bind(row);
+            }
+            handle.execute();
+
+            long mFinalT = System.currentTimeMillis();
+            LOG.debug(
+                    "Total time taken for writing {} metrics metricsdb: {}",
+                    tableName,
+                    mFinalT - mCurrT);
+        }
+    }
+
     public static void emitFaultDetectionMetrics(
             MetricsDB db, FaultDetectionMetricsSnapshot faultDetectionSnapshot) {
 
@@ -31,9 +31,11 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jooq.BatchBindStep;
@@ -50,6 +52,8 @@ public class NodeMetricsEventProcessor implements EventProcessor {
 
     private Map<AllMetrics.MetricName, MemoryDBSnapshot> metricsSnapshotMap;
     private Map<AllMetrics.MetricName, BatchBindStep> metricsBatchBindMap;
+    // Metrics whose columnar snapshot received rows in this round.
+    private Set<AllMetrics.MetricName> updatedColumnarMetrics;
     private long startTime;
     private long endTime;
     private AllMetrics.MetricName lastUpdatedMetric;
@@ -59,12 +63,14 @@ public class NodeMetricsEventProcessor implements EventProcessor {
             Map<AllMetrics.MetricName, MemoryDBSnapshot> metricsSnapshotMap) {
         this.metricsSnapshotMap = metricsSnapshotMap;
         this.metricsBatchBindMap = new HashMap<>();
+        this.updatedColumnarMetrics = EnumSet.noneOf(AllMetrics.MetricName.class);
     }
 
     static NodeMetricsEventProcessor buildNodeMetricEventsProcessor(
             long currTimestamp,
             Connection conn,
-            Map<AllMetrics.MetricName, NavigableMap<Long, MemoryDBSnapshot>> nodeMetricsMap)
+            Map<AllMetrics.MetricName, NavigableMap<Long, MemoryDBSnapshot>> nodeMetricsMap,
+            boolean columnarSnapshots)
             throws Exception {
         Map<AllMetrics.MetricName, MemoryDBSnapshot> metricSnapshotMap = new HashMap<>();
 
@@ -72,7 +78,10 @@ public class NodeMetricsEventProcessor implements EventProcessor {
             NavigableMap<Long, MemoryDBSnapshot> currMetricMap = nodeMetricsMap.get(metric);
             MemoryDBSnapshot currSnap = currMetricMap.get(currTimestamp);
             if (currSnap == null) {
-                currSnap = new MemoryDBSnapshot(conn, metric, currTimestamp);
+                currSnap =
+                        columnarSnapshots
+                                ? new ColumnarMemoryDBSnapshot(conn, metric, currTimestamp)
+                                : new MemoryDBSnapshot(conn, metric, currTimestamp);
                 currMetricMap.put(currTimestamp, currSnap);
             }
             metricSnapshotMap.put(metric, currSnap);
@@ -93,7 +102,9 @@ public class NodeMetricsEventProcessor implements EventProcessor {
         this.endTime = endTime;
         for (AllMetrics.MetricName metric : AllMetrics.MetricName.values()) {
             MemoryDBSnapshot dbSnap = metricsSnapshotMap.get(metric);
-            metricsBatchBindMap.put(metric, dbSnap.startBatchPut());
+            if (!(dbSnap instanceof ColumnarMemoryDBSnapshot)) {
+                metricsBatchBindMap.put(metric, dbSnap.startBatchPut());
+            }
         }
     }
 
@@ -106,6 +117,9 @@ public class NodeMetricsEventProcessor implements EventProcessor {
                 batchHandle.execute();
                 NavigableMap<Long, MemoryDBSnapshot> currMap = nodeMetricsMap.get(metric);
                 currMap.put(dbSnap.getLastUpdatedTime(), dbSnap);
+            } else if (updatedColumnarMetrics.contains(metric)) {
+                NavigableMap<Long, MemoryDBSnapshot> currMap = nodeMetricsMap.get(metric);
+                currMap.put(dbSnap.getLastUpdatedTime(), dbSnap);
             }
         }
     }
@@ -124,7 +138,8 @@ public class NodeMetricsEventProcessor implements EventProcessor {
     public void commitBatchIfRequired() {
         if (lastUpdatedMetric != null) {
             BatchBindStep handle = metricsBatchBindMap.get(lastUpdatedMetric);
-            if (handle.size() > BATCH_LIMIT) {
+            // Columnar snapshots have no pending batch.
+            if (handle != null && handle.size() > BATCH_LIMIT) {
                 handle.execute();
                 metricsBatchBindMap.put(
                         lastUpdatedMetric,
@@ -141,10 +156,15 @@ public class NodeMetricsEventProcessor implements EventProcessor {
 
         MemoryDBSnapshot snap = metricsSnapshotMap.get(name);
         BatchBindStep batchHandler =
-                metricsBatchBindMap.computeIfAbsent(name, k -> snap.startBatchPut());
+                snap instanceof ColumnarMemoryDBSnapshot
+                        ? null
+                        : metricsBatchBindMap.computeIfAbsent(name, k -> snap.startBatchPut());
         MetricProperties currParser = MetricPropertiesConfig.getInstance().getProperty(name);
         if (processEvent(nodeMetric, snap, startTime, batchHandler, currParser)) {
             lastUpdatedMetric = name;
+            if (batchHandler == null) {
+                updatedColumnarMetrics.add(name);
+            }
         }
     }
 
@@ -222,11 +242,21 @@ public class NodeMetricsEventProcessor implements EventProcessor {
         // https://bugs.java.com/bugdatabase/view_bug.do?bug_id=6939260
 
         boolean processed = false;
+        // There is no batch handle when the snapshot is columnar.
         for (int lineNum = 1; lineNum < lines.length; lineNum++) {
-            processed =
-                    metricProperties.processJsonLine(
-                                    lines[lineNum], batchHandle, templateMetricVals)
-                            || processed;
+            if (batchHandle == null) {
+                processed =
+                        metricProperties.processJsonLine(
+                                        lines[lineNum],
+                                        (ColumnarMemoryDBSnapshot) snap,
+                                        templateMetricVals)
+                                || processed;
+            } else {
+                processed =
+                        metricProperties.processJsonLine(
+                                        lines[lineNum], batchHandle, templateMetricVals)
+                                || processed;
+            }
         }
         return processed;
     }
@@ -28,6 +28,7 @@ package org.opensearch.performanceanalyzer.reader;
 
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -181,6 +182,17 @@ public class OSMetricsSnapshot implements Removable {
         return create.select(getFields()).from(this.tableName);
     }
 
+    /**
+     * @return all the rows ordered by the numeric value of the tid, in the column order of {@link
+     *     #getFields()}. The caller is responsible for closing the result set.
+     */
+    ResultSet fetchAllOrderedByTid() {
+        return create.select(getFields())
+                .from(this.tableName)
+                .orderBy(DSL.field(Fields.tid.name()).cast(Long.class))
+                .fetchResultSet();
+    }
+
     @Override
     public void remove() {
         LOG.debug("Dropping {}", this.tableName);
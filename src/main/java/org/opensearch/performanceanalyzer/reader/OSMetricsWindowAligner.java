@@ -0,0 +1,253 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jooq.BatchBindStep;
+
+/**
+ * Aligns two OS metrics windows by merging their rows in tid order in a single pass, instead of
+ * joining the two snapshot tables in SQL. Produces the same rows as {@link
+ * OSMetricsSnapshot#alignWindow}:
+ *
+ * <ul>
+ *   <li>a tid present in both windows gets the time weighted average of the left and right values
+ *       and the left window update time;
+ *   <li>a tid present only in the left window keeps its left values and update time;
+ *   <li>a tid present only in the right window keeps its right values and has no update time.
+ * </ul>
+ *
+ * <p>A tid is present in a window when it has a non null update time there. Duplicate rows of a
+ * tid within a window are collapsed by taking the max of each column.
+ */
+final class OSMetricsWindowAligner {
+    private static final Logger LOG = LogManager.getLogger(OSMetricsWindowAligner.class);
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private OSMetricsWindowAligner() {}
+
+    /**
+     * @param leftWindow a snapshot of the left window metrics
+     * @param rightWindow a snapshot of the right window metrics
+     * @param alignedWindow snapshot the aligned rows are inserted into
+     * @param a aligned window start time
+     * @param b aligned window end time
+     * @return false if the windows cannot be merged in tid order, e.g. because a tid is not
+     *     numeric. Nothing is written to the aligned window in that case and the caller should
+     *     fall back to the SQL alignment.
+     */
+    static boolean align(
+            OSMetricsSnapshot leftWindow,
+            OSMetricsSnapshot rightWindow,
+            OSMetricsSnapshot alignedWindow,
+            long a,
+            long b)
+            throws SQLException {
+        int metricCount = alignedWindow.getMetricColumns().size();
+        Window left = Window.load(leftWindow, metricCount);
+        if (left == null) {
+            return false;
+        }
+        Window right = Window.load(rightWindow, metricCount);
+        if (right == null) {
+            return false;
+        }
+
+        BatchBindStep handle = alignedWindow.startBatchPut();
+        double span = b - a;
+        int i = 0;
+        int j = 0;
+        while (i < left.size || j < right.size) {
+            int cmp;
+            if (i >= left.size) {
+                cmp = 1;
+            } else if (j >= right.size) {
+                cmp = -1;
+            } else {
+                cmp = Long.compare(left.tids[i], right.tids[j]);
+            }
+
+            boolean hasLeft = cmp <= 0 && left.hasUpdateTime[i];
+            boolean hasRight = cmp >= 0 && right.hasUpdateTime[j];
+            Object[] row = new Object[metricCount + 3];
+            if (hasLeft && hasRight) {
+                long leftUpdateTime = left.updateTimes[i];
+                row[0] = left.tidNames[i];
+                row[1] = left.threadNames[i];
+                for (int m = 0; m < metricCount; m++) {
+                    row[m + 2] =
+                            toObject(
+                                    ((leftUpdateTime - a) * left.metrics[m][i]
+                                                    + (b - leftUpdateTime) * right.metrics[m][j])
+                                            / span);
+                }
+                row[metricCount + 2] = leftUpdateTime;
+            } else if (hasLeft) {
+                left.copyTo(i, row);
+                row[metricCount + 2] = left.updateTimes[i];
+            } else if (hasRight) {
+                right.copyTo(j, row);
+                // Matches the SQL path, which takes the update time from the left window.
+                row[metricCount + 2] = null;
+            } else {
+                row = null;
+            }
+            if (row != null) {
+                handle.bind(row);
+            }
+
+            if (cmp <= 0) {
+                i++;
+            }
+            if (cmp >= 0) {
+                j++;
+            }
+        }
+
+        if (handle.size() > 0) {
+            handle.execute();
+        }
+        return true;
+    }
+
+    private static Long parseTid(String tid) {
+        if (tid == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(tid);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Object toObject(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    /** One window of OS metrics held in tid ordered primitive columns, NaN standing for null. */
+    private static final class Window {
+        private final int metricCount;
+        private long[] tids;
+        private String[] tidNames;
+        private String[] threadNames;
+        private long[] updateTimes;
+        private boolean[] hasUpdateTime;
+        private double[][] metrics;
+        private int size;
+
+        private Window(int metricCount) {
+            this.metricCount = metricCount;
+            this.tids = new long[INITIAL_CAPACITY];
+            this.tidNames = new String[INITIAL_CAPACITY];
+            this.threadNames = new String[INITIAL_CAPACITY];
+            this.updateTimes = new long[INITIAL_CAPACITY];
+            this.hasUpdateTime = new boolean[INITIAL_CAPACITY];
+            this.metrics = new double[metricCount][INITIAL_CAPACITY];
+        }
+
+        /** @return the loaded window, or null if its tids cannot be merged in numeric order */
+        static Window load(OSMetricsSnapshot snapshot, int metricCount) throws SQLException {
+            Window window = new Window(metricCount);
+            // columns: tid, tName, metrics..., lastUpdateTime
+            try (ResultSet rs = snapshot.fetchAllOrderedByTid()) {
+                while (rs.next()) {
+                    String tidName = rs.getString(1);
+                    Long tid = parseTid(tidName);
+                    if (tid == null) {
+                        LOG.debug("Non numeric tid {} in {}", tidName, snapshot.getTableName());
+                        return null;
+                    }
+
+                    int last = window.size - 1;
+                    boolean duplicate = last >= 0 && window.tids[last] == tid;
+                    if ((last >= 0 && window.tids[last] > tid)
+                            || (duplicate && !window.tidNames[last].equals(tidName))) {
+                        // The SQL path groups by the tid string, so tids that are only
+                        // numerically equal would end up in different rows.
+                        return null;
+                    }
+
+                    int row = duplicate ? last : window.add(tid, tidName, rs.getString(2));
+                    for (int m = 0; m < metricCount; m++) {
+                        double value = rs.getDouble(m + 3);
+                        if (!rs.wasNull()) {
+                            double current = window.metrics[m][row];
+                            window.metrics[m][row] =
+                                    duplicate && !Double.isNaN(current)
+                                            ? Math.max(current, value)
+                                            : value;
+                        }
+                    }
+                    long updateTime = rs.getLong(metricCount + 3);
+                    if (!rs.wasNull()) {
+                        window.updateTimes[row] =
+                                window.hasUpdateTime[row]
+                                        ? Math.max(window.updateTimes[row], updateTime)
+                                        : updateTime;
+                        window.hasUpdateTime[row] = true;
+                    }
+                }
+            }
+            return window;
+        }
+
+        private int add(long tid, String tidName, String threadName) {
+            if (size == tids.length) {
+                int capacity = size * 2;
+                tids = Arrays.copyOf(tids, capacity);
+                tidNames = Arrays.copyOf(tidNames, capacity);
+                threadNames = Arrays.copyOf(threadNames, capacity);
+                updateTimes = Arrays.copyOf(updateTimes, capacity);
+                hasUpdateTime = Arrays.copyOf(hasUpdateTime, capacity);
+                for (int m = 0; m < metricCount; m++) {
+                    metrics[m] = Arrays.copyOf(metrics[m], capacity);
+                }
+            }
+            tids[size] = tid;
+            tidNames[size] = tidName;
+            threadNames[size] = threadName;
+            for (int m = 0; m < metricCount; m++) {
+                metrics[m][size] = Double.NaN;
+            }
+            return size++;
+        }
+
+        private void copyTo(int index, Object[] row) {
+            row[0] = tidNames[index];
+            row[1] = threadNames[index];
+            for (int m = 0; m < metricCount; m++) {
+                row[m + 2] = toObject(metrics[m][index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.ReaderMetrics;
+import org.opensearch.performanceanalyzer.reader_writer_shared.Event;
+
+/**
+ * An {@link EventDispatcher} that decouples decoding the event log file from processing the events.
+ * The reader thread only decodes the file and routes each event by its key to the processor that
+ * claims it; the processors themselves run on a fixed number of worker lanes. A processor is
+ * always bound to the same lane, so it sees its events in file order and never runs on two threads
+ * at once. {@link #finalizeProcessing()} waits for all lanes to drain, which makes the processed
+ * snapshots visible to the reader thread before the metrics are emitted.
+ *
+ * <p>The snapshots live in one in-memory SQLite database, which is private to the reader's
+ * connection, so the lanes cannot each open a connection of their own. As the connection
+ * serializes its callers, every processor that {@link EventProcessor#usesSharedConnection() writes
+ * through it} is bound to the first lane and only the processors that keep their state in memory
+ * are spread across the other lanes. The reader thread is left with decoding the file either way.
+ */
+public class ParallelEventDispatcher extends EventDispatcher {
+    private static final Logger LOG = LogManager.getLogger(ParallelEventDispatcher.class);
+
+    private static final int LANE_QUEUE_CAPACITY = 4 * EventProcessor.BATCH_LIMIT;
+    private static final RoutedEvent END_OF_EVENTS = new RoutedEvent(-1, null);
+
+    private final ExecutorService executor;
+    private final List<EventProcessor> eventProcessors = new ArrayList<>();
+    private final List<Lane> lanes;
+    private final List<Future<?>> laneFutures = new ArrayList<>();
+    private int[] laneOfProcessor;
+    private long[] processingNanos;
+
+    /**
+     * @param executor The executor that runs the lanes. It must be able to run {@code laneCount}
+     *     tasks concurrently, as every lane blocks waiting for events until the end of the file.
+     * @param laneCount The number of lanes the processors are spread across.
+     */
+    public ParallelEventDispatcher(ExecutorService executor, int laneCount) {
+        this.executor = executor;
+        this.lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new Lane());
+        }
+    }
+
+    @Override
+    void registerEventProcessor(EventProcessor processor) {
+        eventProcessors.add(processor);
+    }
+
+    @Override
+    void initializeProcessing(long startTime, long endTime) {
+        processingNanos = new long[eventProcessors.size()];
+        laneOfProcessor = new int[eventProcessors.size()];
+        int nextInMemoryLane = 0;
+        for (int i = 0; i < eventProcessors.size(); i++) {
+            EventProcessor p = eventProcessors.get(i);
+            if (!p.usesSharedConnection() && lanes.size() > 1) {
+                laneOfProcessor[i] = 1 + nextInMemoryLane++ % (lanes.size() - 1);
+            }
+            p.initializeProcessing(startTime, endTime);
+        }
+        for (Lane lane : lanes) {
+            laneFutures.add(executor.submit(lane));
+        }
+    }
+
+    @Override
+    void finalizeProcessing() {
+        for (Lane lane : lanes) {
+            lane.enqueue(END_OF_EVENTS);
+        }
+        Throwable failure = null;
+        for (Future<?> future : laneFutures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+            }
+        }
+        laneFutures.clear();
+        if (failure != null) {
+            throw new RuntimeException("Parallel event processing failed", failure);
+        }
+
+        for (int i = 0; i < eventProcessors.size(); i++) {
+            EventProcessor p = eventProcessors.get(i);
+            long start = System.nanoTime();
+            p.finalizeProcessing();
+            processingNanos[i] += System.nanoTime() - start;
+            PerformanceAnalyzerApp.READER_METRICS_AGGREGATOR.updateStat(
+                    ReaderMetrics.READER_EVENT_PROCESSOR_TIME,
+                    p.getClass().getSimpleName(),
+                    processingNanos[i] / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Stops the lanes without processing the events that are still queued. The lanes may be
+     * blocked waiting for events or busy with a full queue, so the queues are cleared before the
+     * end marker is handed over and the lanes are interrupted as well. The processors are not
+     * finalized, so nothing from the current window is committed.
+     */
+    @Override
+    void abortProcessing() {
+        for (Lane lane : lanes) {
+            lane.queue.clear();
+            lane.queue.offer(END_OF_EVENTS);
+        }
+        for (Future<?> future : laneFutures) {
+            future.cancel(true);
+        }
+        laneFutures.clear();
+    }
+
+    @Override
+    public void processEvent(Event event) {
+        for (int i = 0; i < eventProcessors.size(); i++) {
+            if (eventProcessors.get(i).shouldProcessEvent(event)) {
+                lanes.get(laneOfProcessor[i]).enqueue(new RoutedEvent(i, event));
+                return;
+            }
+        }
+        LOG.error("Event not processed - {}", event.key);
+    }
+
+    private static final class RoutedEvent {
+        private final int processorIdx;
+        private final Event event;
+
+        RoutedEvent(int processorIdx, Event event) {
+            this.processorIdx = processorIdx;
+            this.event = event;
+        }
+    }
+
+    private final class Lane implements Runnable {
+        private final BlockingQueue<RoutedEvent> queue =
+                new ArrayBlockingQueue<>(LANE_QUEUE_CAPACITY);
+
+        void enqueue(RoutedEvent routedEvent) {
+            try {
+                queue.put(routedEvent);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while dispatching events", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            Throwable failure = null;
+            while (true) {
+                RoutedEvent routed;
+                try {
+                    routed = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while processing events", e);
+                }
+                if (routed == END_OF_EVENTS) {
+                    break;
+                }
+                // Keep draining after a failure so that the reader thread is never blocked on a
+                // full queue; the failure is reported once all the events are consumed.
+                if (failure != null) {
+                    continue;
+                }
+                EventProcessor p = eventProcessors.get(routed.processorIdx);
+                long start = System.nanoTime();
+                try {
+                    p.processEvent(routed.event);
+                    p.commitBatchIfRequired();
+                } catch (Throwable t) {
+                    LOG.error("Error processing event {}", routed.event.key, t);
+                    failure = t;
+                }
+                processingNanos[routed.processorIdx] += System.nanoTime() - start;
+            }
+            if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ package org.opensearch.performanceanalyzer.reader;
 
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -46,6 +47,8 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
@@ -61,7 +64,10 @@ import org.opensearch.performanceanalyzer.core.Util;
 import org.opensearch.performanceanalyzer.metrics.AllMetrics;
 import org.opensearch.performanceanalyzer.metrics.MetricsConfiguration;
 import org.opensearch.performanceanalyzer.metrics.PerformanceAnalyzerMetrics;
+import org.opensearch.performanceanalyzer.metricsdb.ColumnarMetricsFile;
 import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsRollupStore;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.ExceptionsAndErrors;
 import org.opensearch.performanceanalyzer.rca.framework.metrics.ReaderMetrics;
 import org.opensearch.performanceanalyzer.reader_writer_shared.EventLog;
 import org.opensearch.performanceanalyzer.reader_writer_shared.EventLogFileHandler;
@@ -79,6 +85,8 @@ public class ReaderMetricsProcessor implements Runnable {
     private NavigableMap<Long, OSMetricsSnapshot> osMetricsMap;
     private NavigableMap<Long, ShardRequestMetricsSnapshot> shardRqMetricsMap;
     private NavigableMap<Long, HttpRequestMetricsSnapshot> httpRqMetricsMap;
+    private NavigableMap<Long, ShardRequestAggregateSnapshot> shardRqAggregateMap;
+    private NavigableMap<Long, HttpRequestAggregateSnapshot> httpRqAggregateMap;
     private NavigableMap<Long, MasterEventMetricsSnapshot> masterEventMetricsMap;
     private NavigableMap<Long, GarbageCollectorInfoSnapshot> gcInfoMap;
     private Map<AllMetrics.MetricName, NavigableMap<Long, MemoryDBSnapshot>> nodeMetricsMap;
@@ -108,9 +116,24 @@ public class ReaderMetricsProcessor implements Runnable {
     // This needs to be concurrent since it may be concurrently accessed by the metrics processor
     // thread and the query handler thread.
     private ConcurrentSkipListSet<Long> batchMetricsDBSet;
+    // 1 minute and 10 minute rollups of the batch metrics windows. Null if rollups are disabled.
+    private final MetricsRollupStore rollupStore;
 
     private final boolean processNewFormat;
     private final EventLogFileHandler eventLogFileHandler;
+    // Number of lanes used to process events in parallel. 0 means events are processed serially.
+    private final int dispatchThreads;
+    private final ExecutorService dispatchExecutor;
+    // Whether node metrics snapshots are kept in columns instead of in-memory sqlite tables.
+    private final boolean columnarSnapshots;
+    // Whether OS metrics windows are aligned with OSMetricsWindowAligner before falling back to SQL.
+    private final boolean osMergeAlign;
+    // Whether shard request metrics are joined and aggregated by HashJoinMetricsEmitter.
+    private final boolean hashJoinEmit;
+    // Whether shard and http request events are matched and aggregated as they are processed.
+    private final boolean streamingRequests;
+    // Whether every metricsdb window is also written as a ColumnarMetricsFile.
+    private final boolean columnarMetricsFiles;
     // This needs to be volatile to avoid failure caused by thread local cached values.
     private static volatile ReaderMetricsProcessor current = null;
 
@@ -135,6 +158,8 @@ public class ReaderMetricsProcessor implements Runnable {
         osMetricsMap = new TreeMap<>();
         shardRqMetricsMap = new TreeMap<>();
         httpRqMetricsMap = new TreeMap<>();
+        shardRqAggregateMap = new TreeMap<>();
+        httpRqAggregateMap = new TreeMap<>();
         masterEventMetricsMap = new TreeMap<>();
         faultDetectionMetricsMap = new TreeMap<>();
         shardStateMetricsMap = new TreeMap<>();
@@ -150,6 +175,25 @@ public class ReaderMetricsProcessor implements Runnable {
             nodeMetricsMap.put(names[i], new TreeMap<>());
         }
         eventLogFileHandler = new EventLogFileHandler(new EventLog(), rootLocation);
+        dispatchThreads = PluginSettings.instance().getReaderDispatchThreads();
+        columnarSnapshots = PluginSettings.instance().isReaderColumnarSnapshotsEnabled();
+        osMergeAlign = PluginSettings.instance().isReaderOSMergeAlignEnabled();
+        hashJoinEmit = PluginSettings.instance().isReaderHashJoinEmitEnabled();
+        streamingRequests = PluginSettings.instance().isReaderStreamingRequestsEnabled();
+        columnarMetricsFiles = PluginSettings.instance().isMetricsDBColumnarFilesEnabled();
+        long rollupRetentionMinutes =
+                PluginSettings.instance().getBatchMetricsRollupRetentionPeriodMinutes();
+        rollupStore =
+                rollupRetentionMinutes > 0 ? new MetricsRollupStore(rollupRetentionMinutes) : null;
+        dispatchExecutor =
+                dispatchThreads > 0
+                        ? Executors.newFixedThreadPool(
+                                dispatchThreads,
+                                new ThreadFactoryBuilder()
+                                        .setNameFormat("pa-reader-dispatch-%d")
+                                        .setDaemon(true)
+                                        .build())
+                        : null;
         this.processNewFormat = processNewFormat;
         this.appContext = appContext;
         batchMetricsEnabled = defaultBatchMetricsEnabled;
@@ -227,6 +271,9 @@ public class ReaderMetricsProcessor implements Runnable {
     }
 
     public void shutdown() {
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdownNow();
+        }
         try {
             conn.close();
         } catch (Exception e) {
@@ -273,6 +320,8 @@ public class ReaderMetricsProcessor implements Runnable {
         trimMap(osMetricsMap, OS_SNAPSHOTS);
         trimMap(shardRqMetricsMap, RQ_SNAPSHOTS);
         trimMap(httpRqMetricsMap, HTTP_RQ_SNAPSHOTS);
+        trimMap(shardRqAggregateMap, RQ_SNAPSHOTS);
+        trimMap(httpRqAggregateMap, HTTP_RQ_SNAPSHOTS);
         trimMap(masterEventMetricsMap, MASTER_EVENT_SNAPSHOTS);
         trimMap(faultDetectionMetricsMap, FAULT_DETECTION_SNAPSHOTS);
         trimMap(shardStateMetricsMap, SHARD_STATE_SNAPSHOTS);
@@ -395,18 +444,33 @@ public class ReaderMetricsProcessor implements Runnable {
 
         mCurrT = System.currentTimeMillis();
         MetricsDB metricsDB = createMetricsDB(prevWindowStartTime);
+        if (columnarMetricsFiles || rollupStore != null) {
+            // The columnar file and the rollups are built from the rows as they are emitted
+            // instead of reading every table back after the commit.
+            metricsDB.keepColumnarCopy();
+        }
 
         emitGarbageCollectionInfo(prevWindowStartTime, metricsDB);
         emitAdmissionControlMetrics(prevWindowStartTime, metricsDB);
         emitMasterMetrics(prevWindowStartTime, metricsDB);
-        emitShardRequestMetrics(prevWindowStartTime, alignedOSSnapHolder, osAlignedSnap, metricsDB);
-        emitHttpRequestMetrics(prevWindowStartTime, metricsDB);
+        if (streamingRequests) {
+            emitShardRequestAggregates(
+                    prevWindowStartTime, alignedOSSnapHolder, osAlignedSnap, metricsDB);
+            emitHttpRequestAggregates(prevWindowStartTime, metricsDB);
+        } else {
+            emitShardRequestMetrics(
+                    prevWindowStartTime, alignedOSSnapHolder, osAlignedSnap, metricsDB);
+            emitHttpRequestMetrics(prevWindowStartTime, metricsDB);
+        }
         emitNodeMetrics(currWindowStartTime, metricsDB);
         emitFaultDetectionMetrics(prevWindowStartTime, metricsDB);
         emitMasterThrottlingMetrics(prevWindowStartTime, metricsDB);
         emitShardStateMetrics(prevWindowStartTime, metricsDB);
 
         metricsDB.commit();
+        if (columnarMetricsFiles) {
+            writeColumnarMetricsFile(metricsDB, prevWindowStartTime);
+        }
         metricsDBMap.put(prevWindowStartTime, metricsDB);
         PerformanceAnalyzerApp.READER_METRICS_AGGREGATOR.updateStat(
                 ReaderMetrics.METRICSDB_FILE_SIZE,
@@ -414,13 +478,46 @@ public class ReaderMetricsProcessor implements Runnable {
                 new File(metricsDB.getDBFilePath()).length());
         if (batchMetricsEnabled) {
             batchMetricsDBSet.add(prevWindowStartTime);
+            if (rollupStore != null) {
+                rollUpMetricsDB(metricsDB, prevWindowStartTime);
+            }
         }
+        metricsDB.dropColumnarCopy();
         mFinalT = System.currentTimeMillis();
         PerformanceAnalyzerApp.READER_METRICS_AGGREGATOR.updateStat(
                 ReaderMetrics.READER_METRICS_EMIT_TIME, "", (double) (mFinalT - mCurrT));
         LOG.debug("Total time taken for emitting Metrics: {}", mFinalT - mCurrT);
     }
 
+    private void rollUpMetricsDB(MetricsDB metricsDB, long windowStartTime) {
+        try {
+            rollupStore.addWindow(metricsDB, windowStartTime);
+        } catch (Exception e) {
+            LOG.error(
+                    "Failed to roll up metricsdb {} with ExceptionCode: {}",
+                    windowStartTime,
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS,
+                    e);
+            PerformanceAnalyzerApp.ERRORS_AND_EXCEPTIONS_AGGREGATOR.updateStat(
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS, "", 1);
+        }
+    }
+
+    private void writeColumnarMetricsFile(MetricsDB metricsDB, long windowStartTime) {
+        try {
+            ColumnarMetricsFile.write(metricsDB, windowStartTime);
+        } catch (Exception e) {
+            // The sqlite file is still there, so readers fall back to it.
+            LOG.error(
+                    "Failed to write columnar metrics file for {} with ExceptionCode: {}",
+                    windowStartTime,
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS,
+                    e);
+            PerformanceAnalyzerApp.ERRORS_AND_EXCEPTIONS_AGGREGATOR.updateStat(
+                    ExceptionsAndErrors.READER_METRICSDB_ACCESS_ERRORS, "", 1);
+        }
+    }
+
     private void emitFaultDetectionMetrics(long prevWindowStartTime, MetricsDB metricsDB) {
         if (faultDetectionMetricsMap.containsKey(prevWindowStartTime)) {
 
@@ -492,6 +589,42 @@ public class ReaderMetricsProcessor implements Runnable {
         }
     }
 
+    private void emitHttpRequestAggregates(long prevWindowStartTime, MetricsDB metricsDB) {
+        HttpRequestAggregateSnapshot prevHttpRqAggregateSnap =
+                httpRqAggregateMap.get(prevWindowStartTime);
+        if (prevHttpRqAggregateSnap != null) {
+            HashJoinMetricsEmitter.emitHttpMetrics(metricsDB, prevHttpRqAggregateSnap);
+        } else {
+            LOG.debug(
+                    "Http request aggregates for the previous window do not exist. Not emitting metrics.");
+        }
+    }
+
+    private void emitShardRequestAggregates(
+            long prevWindowStartTime,
+            OSMetricsSnapshot alignedOSSnapHolder,
+            OSMetricsSnapshot osAlignedSnap,
+            MetricsDB metricsDB)
+            throws Exception {
+        ShardRequestAggregateSnapshot prevRqAggregateSnap =
+                shardRqAggregateMap.get(prevWindowStartTime);
+        if (prevRqAggregateSnap != null) {
+            HashJoinMetricsEmitter.emitWorkloadMetrics(metricsDB, prevRqAggregateSnap);
+            if (osAlignedSnap != null) {
+                HashJoinMetricsEmitter.emitAggregatedOSMetrics(
+                        metricsDB, osAlignedSnap, prevRqAggregateSnap);
+                MetricsEmitter.emitThreadNameMetrics(
+                        create, metricsDB, osAlignedSnap); // threads other than bulk and query
+            } else {
+                LOG.debug("OS METRICS NULL");
+            }
+            alignedOSSnapHolder.remove();
+        } else {
+            LOG.debug(
+                    "Shard request aggregates for the previous window do not exist. Not emitting metrics.");
+        }
+    }
+
     private void emitShardRequestMetrics(
             long prevWindowStartTime,
             OSMetricsSnapshot alignedOSSnapHolder,
@@ -507,16 +640,26 @@ public class ReaderMetricsProcessor implements Runnable {
                     "shard emit time {}, {}",
                     prevWindowStartTime,
                     preShardRequestMetricsSnapshot.windowStartTime);
-            MetricsEmitter.emitWorkloadMetrics(
-                    create, metricsDB, preShardRequestMetricsSnapshot); // calculate latency
+            if (hashJoinEmit) {
+                HashJoinMetricsEmitter.emitWorkloadMetrics(
+                        metricsDB, preShardRequestMetricsSnapshot);
+            } else {
+                MetricsEmitter.emitWorkloadMetrics(
+                        create, metricsDB, preShardRequestMetricsSnapshot); // calculate latency
+            }
             if (osAlignedSnap != null) {
                 // LOG.info(osAlignedSnap.fetchAll());
                 // LOG.info(preShardRequestMetricsSnapshot.fetchAll());
-                MetricsEmitter.emitAggregatedOSMetrics(
-                        create,
-                        metricsDB,
-                        osAlignedSnap,
-                        preShardRequestMetricsSnapshot); // table join
+                if (hashJoinEmit) {
+                    HashJoinMetricsEmitter.emitAggregatedOSMetrics(
+                            metricsDB, osAlignedSnap, preShardRequestMetricsSnapshot);
+                } else {
+                    MetricsEmitter.emitAggregatedOSMetrics(
+                            create,
+                            metricsDB,
+                            osAlignedSnap,
+                            preShardRequestMetricsSnapshot); // table join
+                }
                 MetricsEmitter.emitThreadNameMetrics(
                         create, metricsDB, osAlignedSnap); // threads other than bulk and query
             } else {
@@ -613,11 +756,17 @@ public class ReaderMetricsProcessor implements Runnable {
                 OSEventProcessor.buildOSMetricEventsProcessor(
                         currWindowStartTime, currWindowEndTime, conn, osMetricsMap);
         EventProcessor requestProcessor =
-                RequestEventProcessor.buildRequestMetricEventsProcessor(
-                        currWindowStartTime, currWindowEndTime, conn, shardRqMetricsMap);
+                streamingRequests
+                        ? RequestEventProcessor.buildStreamingRequestMetricEventsProcessor(
+                                currWindowStartTime, currWindowEndTime, shardRqAggregateMap)
+                        : RequestEventProcessor.buildRequestMetricEventsProcessor(
+                                currWindowStartTime, currWindowEndTime, conn, shardRqMetricsMap);
         EventProcessor httpProcessor =
-                HttpRequestEventProcessor.buildHttpRequestMetricEventsProcessor(
-                        currWindowStartTime, currWindowEndTime, conn, httpRqMetricsMap);
+                streamingRequests
+                        ? HttpRequestEventProcessor.buildStreamingHttpRequestMetricEventsProcessor(
+                                currWindowStartTime, currWindowEndTime, httpRqAggregateMap)
+                        : HttpRequestEventProcessor.buildHttpRequestMetricEventsProcessor(
+                                currWindowStartTime, currWindowEndTime, conn, httpRqMetricsMap);
         EventProcessor faultDetectionProcessor =
                 FaultDetectionMetricsProcessor.buildFaultDetectionMetricsProcessor(
                         currWindowStartTime, conn, faultDetectionMetricsMap);
@@ -626,7 +775,7 @@ public class ReaderMetricsProcessor implements Runnable {
                         currWindowStartTime, conn, masterEventMetricsMap);
         EventProcessor nodeEventsProcessor =
                 NodeMetricsEventProcessor.buildNodeMetricEventsProcessor(
-                        currWindowStartTime, conn, nodeMetricsMap);
+                        currWindowStartTime, conn, nodeMetricsMap, columnarSnapshots);
         EventProcessor shardStateMetricsProcessor =
                 ShardStateMetricsProcessor.buildShardStateMetricEventsProcessor(
                         currWindowStartTime, conn, shardStateMetricsMap);
@@ -651,7 +800,12 @@ public class ReaderMetricsProcessor implements Runnable {
         // is
         // called.
         // After all events have been processed, we call the finalizeProcessing function.
-        EventDispatcher eventDispatcher = new EventDispatcher();
+        // In the parallel mode, finalizeProcessing also waits for all the processors to drain
+        // their events, so everything is processed by the time we emit the metrics.
+        EventDispatcher eventDispatcher =
+                dispatchExecutor == null
+                        ? new EventDispatcher()
+                        : new ParallelEventDispatcher(dispatchExecutor, dispatchThreads);
 
         eventDispatcher.registerEventProcessor(osProcessor);
         eventDispatcher.registerEventProcessor(requestProcessor);
@@ -668,7 +822,17 @@ public class ReaderMetricsProcessor implements Runnable {
         eventDispatcher.initializeProcessing(
                 currWindowStartTime, currWindowStartTime + MetricsConfiguration.SAMPLING_INTERVAL);
 
-        eventLogFileHandler.read(currWindowStartTime, eventDispatcher);
+        boolean read = false;
+        try {
+            eventLogFileHandler.read(currWindowStartTime, eventDispatcher);
+            read = true;
+        } finally {
+            if (!read) {
+                // Release the lanes of the parallel dispatcher, which would otherwise wait for
+                // the rest of the events forever.
+                eventDispatcher.abortProcessing();
+            }
+        }
 
         eventDispatcher.finalizeProcessing();
 
@@ -751,6 +915,11 @@ public class ReaderMetricsProcessor implements Runnable {
         LOG.debug("Adding new scaled OS snapshot- actualTime {}", startTime);
         OSMetricsSnapshot leftWindow = osMetricsMap.get(t1);
         OSMetricsSnapshot rightWindow = osMetricsMap.get(t2);
+        if (osMergeAlign
+                && OSMetricsWindowAligner.align(
+                        leftWindow, rightWindow, alignedWindow, startTime, endTime)) {
+            return alignedWindow;
+        }
         OSMetricsSnapshot.alignWindow(
                 leftWindow, rightWindow, alignedWindow.getTableName(), startTime, endTime);
         return alignedWindow;
@@ -926,6 +1095,20 @@ public class ReaderMetricsProcessor implements Runnable {
         return null;
     }
 
+    /**
+     * This is called by operations outside of the ReaderMetricsProcessor.
+     *
+     * @param resolution the resolution of the rollups
+     * @return The start times of the closed rollup buckets of the given resolution. Null if batch
+     *     metrics or rollups are disabled.
+     */
+    public NavigableSet<Long> getRollupMetrics(MetricsRollupStore.Resolution resolution) {
+        if (batchMetricsEnabled && rollupStore != null) {
+            return rollupStore.getRollups(resolution);
+        }
+        return null;
+    }
+
     /**
      * Enrich event data with node metrics and calculate aggregated metrics on dimensions like
      * (shard, index, operation, role). The aggregated metrics are then written to a metricsDB.
@@ -952,7 +1135,11 @@ public class ReaderMetricsProcessor implements Runnable {
             // reader cycle.
 
             MemoryDBSnapshot alignedSnapshotHolder =
-                    new MemoryDBSnapshot(getConnection(), metricName, currWindowStartTime, true);
+                    columnarSnapshots
+                            ? new ColumnarMemoryDBSnapshot(
+                                    getConnection(), metricName, currWindowStartTime, true)
+                            : new MemoryDBSnapshot(
+                                    getConnection(), metricName, currWindowStartTime, true);
             MemoryDBSnapshot alignedSnapshot =
                     alignNodeMetrics(
                             metricName,
@@ -1059,6 +1246,16 @@ public class ReaderMetricsProcessor implements Runnable {
         return httpRqMetricsMap;
     }
 
+    @VisibleForTesting
+    NavigableMap<Long, ShardRequestAggregateSnapshot> getShardRequestAggregateMap() {
+        return shardRqAggregateMap;
+    }
+
+    @VisibleForTesting
+    NavigableMap<Long, HttpRequestAggregateSnapshot> getHttpRqAggregateMap() {
+        return httpRqAggregateMap;
+    }
+
     @VisibleForTesting
     NavigableMap<Long, MasterEventMetricsSnapshot> getMasterEventMetricsMap() {
         return masterEventMetricsMap;
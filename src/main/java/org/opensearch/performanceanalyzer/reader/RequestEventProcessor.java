@@ -34,6 +34,8 @@ import java.util.NavigableMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jooq.BatchBindStep;
+import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
+import org.opensearch.performanceanalyzer.collectors.StatsCollector;
 import org.opensearch.performanceanalyzer.metrics.AllMetrics;
 import org.opensearch.performanceanalyzer.metrics.PerformanceAnalyzerMetrics;
 import org.opensearch.performanceanalyzer.reader_writer_shared.Event;
@@ -43,6 +45,8 @@ public class RequestEventProcessor implements EventProcessor {
     private static final Logger LOG = LogManager.getLogger(RequestEventProcessor.class);
 
     private ShardRequestMetricsSnapshot rqSnap;
+    // Set instead of rqSnap in streaming mode, where no request rows are written to sqlite.
+    private ShardRequestAggregateSnapshot rqAggregateSnap;
     private BatchBindStep handle;
     private long startTime;
     private long endTime;
@@ -51,6 +55,10 @@ public class RequestEventProcessor implements EventProcessor {
         this.rqSnap = rqSnap;
     }
 
+    private RequestEventProcessor(ShardRequestAggregateSnapshot rqAggregateSnap) {
+        this.rqAggregateSnap = rqAggregateSnap;
+    }
+
     static RequestEventProcessor buildRequestMetricEventsProcessor(
             long currWindowStartTime,
             long currWindowEndTime,
@@ -72,6 +80,28 @@ public class RequestEventProcessor implements EventProcessor {
         }
     }
 
+    /**
+     * Builds a processor that matches the start and finish events of the shard requests in memory
+     * and keeps their aggregates in a {@link ShardRequestAggregateSnapshot}, instead of writing a
+     * row per event into a {@link ShardRequestMetricsSnapshot}.
+     */
+    static RequestEventProcessor buildStreamingRequestMetricEventsProcessor(
+            long currWindowStartTime,
+            long currWindowEndTime,
+            NavigableMap<Long, ShardRequestAggregateSnapshot> shardRqAggregateMap) {
+        ShardRequestAggregateSnapshot rqAggregateSnap =
+                shardRqAggregateMap.get(currWindowStartTime);
+        if (rqAggregateSnap == null) {
+            rqAggregateSnap = new ShardRequestAggregateSnapshot(currWindowStartTime);
+            Map.Entry<Long, ShardRequestAggregateSnapshot> entry = shardRqAggregateMap.lastEntry();
+            if (entry != null) {
+                rqAggregateSnap.rolloverInflightRequests(entry.getValue());
+            }
+            shardRqAggregateMap.put(currWindowStartTime, rqAggregateSnap);
+        }
+        return new RequestEventProcessor(rqAggregateSnap);
+    }
+
     @Override
     public boolean shouldProcessEvent(Event event) {
         if (event.key.contains(PerformanceAnalyzerMetrics.sShardBulkPath)
@@ -85,11 +115,11 @@ public class RequestEventProcessor implements EventProcessor {
     public void initializeProcessing(long startTime, long endTime) {
         this.startTime = startTime;
         this.endTime = endTime;
-        this.handle = rqSnap.startBatchPut();
+        this.handle = rqSnap == null ? null : rqSnap.startBatchPut();
     }
 
     public void finalizeProcessing() {
-        if (handle.size() > 0) {
+        if (handle != null && handle.size() > 0) {
             handle.execute();
         }
         // LOG.info("Final request metrics {}", rqSnap.fetchAll());
@@ -98,7 +128,7 @@ public class RequestEventProcessor implements EventProcessor {
     public void processEvent(Event event) {
         handleOpenSearchMetrics(event);
         // Flush data to sqlite when batch size is 500
-        if (handle.size() == 500) {
+        if (handle != null && handle.size() == 500) {
             handle.execute();
             handle = rqSnap.startBatchPut();
         }
@@ -106,12 +136,17 @@ public class RequestEventProcessor implements EventProcessor {
 
     @Override
     public void commitBatchIfRequired() {
-        if (handle.size() > BATCH_LIMIT) {
+        if (handle != null && handle.size() > BATCH_LIMIT) {
             handle.execute();
             handle = rqSnap.startBatchPut();
         }
     }
 
+    @Override
+    public boolean usesSharedConnection() {
+        return rqSnap != null;
+    }
+
     private void handleOpenSearchMetrics(Event entry) {
         // operation is of the form - shardBulk, shardSearch etc..
         // for (Event entry: dataEntries) {
@@ -151,8 +186,21 @@ public class RequestEventProcessor implements EventProcessor {
         String threadId = metricKeyPathElements[1];
         String operation = metricKeyPathElements[2];
         String rid = metricKeyPathElements[3];
-        handle.bind(
-                shardId, indexName, rid, threadId, operation, primary, startTime, null, docCount);
+        if (rqAggregateSnap == null) {
+            handle.bind(
+                    shardId,
+                    indexName,
+                    rid,
+                    threadId,
+                    operation,
+                    primary,
+                    startTime,
+                    null,
+                    docCount);
+        } else if (!rqAggregateSnap.putStartMetric(
+                rid, threadId, operation, shardId, indexName, primary, startTime, docCount)) {
+            logMalformedRequestId(rid);
+        }
     }
 
     private String getPrimary(String primary) {
@@ -172,6 +220,20 @@ public class RequestEventProcessor implements EventProcessor {
         String threadId = metricKeyPathElements[1];
         String operation = metricKeyPathElements[2];
         String rid = metricKeyPathElements[3];
-        handle.bind(shardId, indexName, rid, threadId, operation, primary, null, finishTime, null);
+        if (rqAggregateSnap == null) {
+            handle.bind(
+                    shardId, indexName, rid, threadId, operation, primary, null, finishTime, null);
+        } else if (!rqAggregateSnap.putFinishMetric(
+                rid, threadId, operation, shardId, indexName, primary, finishTime)) {
+            logMalformedRequestId(rid);
+        }
+    }
+
+    private void logMalformedRequestId(String rid) {
+        LOG.error(
+                "Unable to parse request id:{}, ExcepionCode: {}",
+                rid,
+                StatExceptionCode.READER_PARSER_ERROR.toString());
+        StatsCollector.instance().logException(StatExceptionCode.READER_PARSER_ERROR);
     }
 }
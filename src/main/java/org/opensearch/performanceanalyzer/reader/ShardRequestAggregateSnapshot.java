@@ -0,0 +1,306 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+import org.opensearch.performanceanalyzer.collections.LongKeys;
+import org.opensearch.performanceanalyzer.collections.LongObjectHashMap;
+import org.opensearch.performanceanalyzer.metrics.MetricsConfiguration;
+
+/**
+ * Streaming counterpart of {@link ShardRequestMetricsSnapshot}. Start and finish events are matched
+ * by (operation, rid) in primitive keyed maps as they arrive, and the latency and doc count of a
+ * request are folded into the per (shard, index, operation, role) aggregates as soon as both of its
+ * events were seen, so no per-request rows are written to sqlite and no group by is needed at
+ * emission time.
+ *
+ * <p>The matched requests stay in the snapshot until it is trimmed, because the OS metrics of a
+ * thread are attributed to the requests by the time each of them spent on the thread in the window.
+ * Requests still in flight at the end of the window are rolled over into the next snapshot, and
+ * in-flight requests older than {@link #EXPIRE_AFTER} or superseded by a newer request on the same
+ * thread are dropped, like the SQL of {@link ShardRequestMetricsSnapshot} does. Unlike the SQL, a
+ * repeated start or finish event of a request is ignored rather than replacing the earlier time.
+ *
+ * <p>Not thread-safe; it is only updated by the processor that owns it.
+ */
+class ShardRequestAggregateSnapshot implements Removable {
+    static final int LATENCY_SLOT = 0;
+    static final int DOC_COUNT_SLOT = 1;
+    static final int WORKLOAD_SLOTS = 2;
+
+    private static final long EXPIRE_AFTER = 600000L;
+    private static final long MISSING = -1L;
+
+    final long windowStartTime;
+    private final long windowEndTime;
+    private final Map<String, LongObjectHashMap<ShardRequest>> requestsByOperation;
+    private final Map<List<String>, MetricAccumulator> workloadGroups;
+
+    ShardRequestAggregateSnapshot(long windowStartTime) {
+        this.windowStartTime = windowStartTime;
+        this.windowEndTime = windowStartTime + MetricsConfiguration.SAMPLING_INTERVAL;
+        this.requestsByOperation = new HashMap<>();
+        this.workloadGroups = new LinkedHashMap<>();
+    }
+
+    /** @return false if the request id is malformed and the event was dropped */
+    boolean putStartMetric(
+            String rid,
+            String tid,
+            String operation,
+            String shardId,
+            String indexName,
+            String role,
+            long startTime,
+            long docCount) {
+        ShardRequest request = getOrCreate(rid, tid, operation, shardId, indexName, role);
+        if (request == null) {
+            return false;
+        }
+        if (request.startTime == MISSING) {
+            request.startTime = startTime;
+            request.docCount = docCount;
+            complete(request);
+        }
+        return true;
+    }
+
+    /** @return false if the request id is malformed and the event was dropped */
+    boolean putFinishMetric(
+            String rid,
+            String tid,
+            String operation,
+            String shardId,
+            String indexName,
+            String role,
+            long finishTime) {
+        ShardRequest request = getOrCreate(rid, tid, operation, shardId, indexName, role);
+        if (request == null) {
+            return false;
+        }
+        if (request.finishTime == MISSING) {
+            request.finishTime = finishTime;
+            complete(request);
+        }
+        return true;
+    }
+
+    private ShardRequest getOrCreate(
+            String rid,
+            String tid,
+            String operation,
+            String shardId,
+            String indexName,
+            String role) {
+        long id = LongKeys.parseId(rid);
+        if (id < 0) {
+            return null;
+        }
+        LongObjectHashMap<ShardRequest> requests =
+                requestsByOperation.computeIfAbsent(operation, k -> new LongObjectHashMap<>());
+        ShardRequest request = requests.get(id);
+        if (request == null) {
+            request = new ShardRequest(tid, operation, shardId, indexName, role);
+            requests.put(id, request);
+        } else {
+            request.fillMissingDimensions(tid, shardId, indexName, role);
+        }
+        return request;
+    }
+
+    private void complete(ShardRequest request) {
+        if (request.startTime == MISSING || request.finishTime == MISSING) {
+            return;
+        }
+        MetricAccumulator accumulator =
+                workloadGroups.computeIfAbsent(
+                        request.getDimensions(), k -> new MetricAccumulator(WORKLOAD_SLOTS));
+        accumulator.addRow();
+        accumulator.add(LATENCY_SLOT, request.finishTime - request.startTime);
+        accumulator.add(
+                DOC_COUNT_SLOT, request.docCount == MISSING ? Double.NaN : request.docCount);
+    }
+
+    /**
+     * @return the latency and doc count accumulators of the requests completed in this window, by
+     *     (shard, index, operation, role)
+     */
+    Map<List<String>, MetricAccumulator> getWorkloadGroups() {
+        return Collections.unmodifiableMap(workloadGroups);
+    }
+
+    /**
+     * Calls {@code consumer} with every request of the window and the share of its thread's request
+     * time in the window it accounts for. The share is NaN if no time was spent on the thread.
+     */
+    void forEachThreadUtilization(ObjDoubleConsumer<ShardRequest> consumer) {
+        Map<String, double[]> totalTimeByTid = new HashMap<>();
+        forEachRequest(
+                request ->
+                        totalTimeByTid.computeIfAbsent(request.tid, k -> new double[1])[0] +=
+                                timeSpentInWindow(request));
+        forEachRequest(
+                request -> {
+                    double totalTime = totalTimeByTid.get(request.tid)[0];
+                    consumer.accept(
+                            request,
+                            totalTime == 0 ? Double.NaN : timeSpentInWindow(request) / totalTime);
+                });
+    }
+
+    private long timeSpentInWindow(ShardRequest request) {
+        long start = Math.max(request.startTime, windowStartTime);
+        long end = request.finishTime == MISSING ? windowEndTime : request.finishTime;
+        return Math.min(end, windowEndTime) - start;
+    }
+
+    private void forEachRequest(Consumer<ShardRequest> consumer) {
+        for (LongObjectHashMap<ShardRequest> requests : requestsByOperation.values()) {
+            requests.forEach((rid, request) -> consumer.accept(request));
+        }
+    }
+
+    /**
+     * Copies the requests of {@code prevSnap} that are still in flight into this snapshot. Requests
+     * that started more than {@link #EXPIRE_AFTER} ago, and requests that started before the
+     * previous window on a thread that started a newer request since, lost their finish event and
+     * are dropped.
+     */
+    void rolloverInflightRequests(ShardRequestAggregateSnapshot prevSnap) {
+        Map<String, long[]> latestStartByTid = new HashMap<>();
+        prevSnap.forEachRequest(
+                request -> {
+                    long[] latest =
+                            latestStartByTid.computeIfAbsent(
+                                    request.tid, k -> new long[] {MISSING});
+                    latest[0] = Math.max(latest[0], request.startTime);
+                });
+        for (Map.Entry<String, LongObjectHashMap<ShardRequest>> entry :
+                prevSnap.requestsByOperation.entrySet()) {
+            LongObjectHashMap<ShardRequest> requests =
+                    requestsByOperation.computeIfAbsent(
+                            entry.getKey(), k -> new LongObjectHashMap<>());
+            entry.getValue()
+                    .forEach(
+                            (rid, request) -> {
+                                if (request.startTime == MISSING
+                                        || request.finishTime != MISSING
+                                        || request.startTime
+                                                <= prevSnap.windowStartTime - EXPIRE_AFTER) {
+                                    return;
+                                }
+                                if (request.startTime > prevSnap.windowStartTime
+                                        || request.startTime
+                                                == latestStartByTid.get(request.tid)[0]) {
+                                    requests.put(rid, request.copy());
+                                }
+                            });
+        }
+    }
+
+    /** @return the number of requests, matched or not, held by this snapshot */
+    int size() {
+        int size = 0;
+        for (LongObjectHashMap<ShardRequest> requests : requestsByOperation.values()) {
+            size += requests.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void remove() {
+        requestsByOperation.clear();
+        workloadGroups.clear();
+    }
+
+    /** The start and finish events of one shard request. */
+    static final class ShardRequest {
+        private String tid;
+        private final String operation;
+        private String shardId;
+        private String indexName;
+        private String role;
+        private long startTime = MISSING;
+        private long finishTime = MISSING;
+        private long docCount = MISSING;
+        private List<String> dimensions;
+
+        private ShardRequest(
+                String tid, String operation, String shardId, String indexName, String role) {
+            this.tid = tid;
+            this.operation = operation;
+            this.shardId = shardId;
+            this.indexName = indexName;
+            this.role = role;
+        }
+
+        private void fillMissingDimensions(
+                String tid, String shardId, String indexName, String role) {
+            if (this.tid == null) {
+                this.tid = tid;
+            }
+            if (this.shardId == null) {
+                this.shardId = shardId;
+            }
+            if (this.indexName == null) {
+                this.indexName = indexName;
+            }
+            if (this.role == null) {
+                this.role = role;
+            }
+            dimensions = null;
+        }
+
+        private ShardRequest copy() {
+            ShardRequest copy = new ShardRequest(tid, operation, shardId, indexName, role);
+            copy.startTime = startTime;
+            copy.finishTime = finishTime;
+            copy.docCount = docCount;
+            return copy;
+        }
+
+        String getTid() {
+            return tid;
+        }
+
+        /** @return shard, index, operation and role, in that order */
+        List<String> getDimensions() {
+            if (dimensions == null) {
+                dimensions = Arrays.asList(shardId, indexName, operation, role);
+            }
+            return dimensions;
+        }
+    }
+}
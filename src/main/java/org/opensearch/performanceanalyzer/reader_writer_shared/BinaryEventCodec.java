@@ -0,0 +1,316 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader_writer_shared;
+
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Versioned, length-prefixed binary encoding of an {@link Event}. Each record has the layout:
+ *
+ * <pre>
+ * | marker (1B) | version (1B) | flags (1B) | key length (varint) | key (UTF-8) | value |
+ * </pre>
+ *
+ * <p>The value is either a varint length followed by the UTF-8 bytes of the value, or, if {@link
+ * #FLAG_NUMERIC_VALUE} is set, a single zig-zag varint holding a long. The writer picks the
+ * numeric form only when the value is the canonical decimal representation of a long, so decoding
+ * always yields back the exact string that was written.
+ *
+ * <p>The marker byte is the ASCII record separator, which never occurs outside of a record in the
+ * text format. This is what allows {@link EventLog} to auto-detect the encoding record by record.
+ */
+final class BinaryEventCodec {
+    private static final Logger LOG = LogManager.getLogger(BinaryEventCodec.class);
+
+    static final byte RECORD_MARKER = 0x1E;
+    static final byte VERSION = 1;
+    static final int FLAG_NUMERIC_VALUE = 0x01;
+
+    private static final int HEADER_LENGTH = 3;
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    private BinaryEventCodec() {}
+
+    static byte[] encode(String key, String value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        boolean numeric = isCanonicalLong(value);
+        long numericValue = 0;
+        byte[] valueBytes = null;
+        int size = HEADER_LENGTH + varIntSize(keyBytes.length) + keyBytes.length;
+        if (numeric) {
+            numericValue = zigZag(Long.parseLong(value));
+            size += varIntSize(numericValue);
+        } else {
+            valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            size += varIntSize(valueBytes.length) + valueBytes.length;
+        }
+
+        byte[] out = new byte[size];
+        int pos = 0;
+        out[pos++] = RECORD_MARKER;
+        out[pos++] = VERSION;
+        out[pos++] = (byte) (numeric ? FLAG_NUMERIC_VALUE : 0);
+        pos = putVarInt(out, pos, keyBytes.length);
+        System.arraycopy(keyBytes, 0, out, pos, keyBytes.length);
+        pos += keyBytes.length;
+        if (numeric) {
+            putVarInt(out, pos, numericValue);
+        } else {
+            pos = putVarInt(out, pos, valueBytes.length);
+            System.arraycopy(valueBytes, 0, out, pos, valueBytes.length);
+        }
+        return out;
+    }
+
+    /**
+     * Returns true only if {@code Long.toString(Long.parseLong(value))} would give back {@code
+     * value}, i.e. no sign other than a single leading minus, no leading zeros and no overflow.
+     */
+    static boolean isCanonicalLong(String value) {
+        int len = value.length();
+        if (len == 0 || len > 20) {
+            return false;
+        }
+        int start = value.charAt(0) == '-' ? 1 : 0;
+        if (start == len) {
+            return false;
+        }
+        if (value.charAt(start) == '0' && (len - start > 1 || start == 1)) {
+            return false;
+        }
+        for (int i = start; i < len; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        if (len - start < 19) {
+            return true;
+        }
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static int varIntSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static int putVarInt(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Incremental decoder for binary records. The reader hands the file over in fixed size chunks,
+     * so a record can straddle two calls to {@link #decode}; the decoder keeps the partially read
+     * record across calls. Key and value bytes are bulk copied out of the buffer instead of being
+     * processed one at a time.
+     */
+    static final class Decoder {
+        private enum State {
+            IDLE,
+            VERSION,
+            FLAGS,
+            KEY_LENGTH,
+            KEY,
+            VALUE_LENGTH,
+            VALUE,
+            NUMERIC_VALUE
+        }
+
+        private State state = State.IDLE;
+        private int flags;
+        private long varInt;
+        private int varIntShift;
+        private int varIntBytes;
+        private byte[] bytes;
+        private int length;
+        private int filled;
+        private String key;
+
+        Decoder(int initialCapacity) {
+            this.bytes = new byte[Math.max(initialCapacity, 16)];
+        }
+
+        boolean isDecoding() {
+            return state != State.IDLE;
+        }
+
+        /** Called once the record marker has been consumed from the input. */
+        void start() {
+            state = State.VERSION;
+            resetVarInt();
+        }
+
+        void reset() {
+            state = State.IDLE;
+            key = null;
+        }
+
+        /**
+         * Consumes bytes from the buffer until one record is complete or the buffer is exhausted.
+         *
+         * @param in The bytes read from the file.
+         * @return the decoded event, or null if more bytes are needed or the record was malformed.
+         */
+        Event decode(final ByteBuffer in) {
+            while (in.hasRemaining() && state != State.IDLE) {
+                switch (state) {
+                    case VERSION:
+                        byte version = in.get();
+                        if (version != VERSION) {
+                            LOG.error("Unsupported event log record version {}", version);
+                            reset();
+                            return null;
+                        }
+                        state = State.FLAGS;
+                        break;
+                    case FLAGS:
+                        flags = in.get();
+                        state = State.KEY_LENGTH;
+                        break;
+                    case KEY_LENGTH:
+                        // An empty key is complete as soon as its length is known.
+                        if (readVarInt(in) && startBytes(State.KEY) && length == 0) {
+                            key = "";
+                            onKeyComplete();
+                        }
+                        break;
+                    case KEY:
+                        if (copyBytes(in)) {
+                            key = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                            onKeyComplete();
+                        }
+                        break;
+                    case VALUE_LENGTH:
+                        if (readVarInt(in) && startBytes(State.VALUE) && length == 0) {
+                            return complete("");
+                        }
+                        break;
+                    case VALUE:
+                        if (copyBytes(in)) {
+                            return complete(new String(bytes, 0, length, StandardCharsets.UTF_8));
+                        }
+                        break;
+                    case NUMERIC_VALUE:
+                        if (readVarInt(in)) {
+                            return complete(Long.toString(unZigZag(varInt)));
+                        }
+                        break;
+                    default:
+                        reset();
+                        break;
+                }
+            }
+            return null;
+        }
+
+        private void onKeyComplete() {
+            resetVarInt();
+            state = (flags & FLAG_NUMERIC_VALUE) != 0 ? State.NUMERIC_VALUE : State.VALUE_LENGTH;
+        }
+
+        private Event complete(String value) {
+            Event event = new Event(key, value, 0);
+            reset();
+            return event;
+        }
+
+        private void resetVarInt() {
+            varInt = 0;
+            varIntShift = 0;
+            varIntBytes = 0;
+        }
+
+        /** Returns true once the varint is fully read. */
+        private boolean readVarInt(final ByteBuffer in) {
+            while (in.hasRemaining()) {
+                byte b = in.get();
+                varInt |= (long) (b & 0x7F) << varIntShift;
+                varIntShift += 7;
+                varIntBytes++;
+                if ((b & 0x80) == 0) {
+                    return true;
+                }
+                if (varIntBytes == MAX_VARINT_LENGTH) {
+                    LOG.error("Malformed varint in event log record");
+                    reset();
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private boolean startBytes(State next) {
+            if (varInt < 0 || varInt > Integer.MAX_VALUE - 8) {
+                LOG.error("Invalid length {} in event log record", varInt);
+                reset();
+                return false;
+            }
+            length = (int) varInt;
+            filled = 0;
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            state = next;
+            return true;
+        }
+
+        /** Returns true once {@code length} bytes have been copied. */
+        private boolean copyBytes(final ByteBuffer in) {
+            int n = Math.min(length - filled, in.remaining());
+            in.get(bytes, filled, n);
+            filled += n;
+            return filled == length;
+        }
+    }
+}
@@ -28,8 +28,11 @@ package org.opensearch.performanceanalyzer.reader_writer_shared;
 
 
 import java.io.File;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.config.PluginSettings;
@@ -49,9 +52,22 @@ public class EventLog {
 
     private static final char[] separator = System.lineSeparator().toCharArray();
 
+    private final EventLogFormat format;
+
     private Ret ret;
+    private BinaryEventCodec.Decoder binaryDecoder;
+    private byte[] scratch;
 
     public EventLog() {
+        this(PluginSettings.instance().getEventLogFormat());
+    }
+
+    /**
+     * @param format The encoding used by {@link #write}. The reader always auto-detects the
+     *     encoding of each record, irrespective of this value.
+     */
+    public EventLog(EventLogFormat format) {
+        this.format = format;
         if (separator.length > 1) {
             throw new IllegalStateException("separator cannot be multi-byte");
         }
@@ -69,7 +85,14 @@ public class EventLog {
         metricLocPathLength += 2;
     }
 
+    public EventLogFormat getFormat() {
+        return format;
+    }
+
     public byte[] write(Event metric) {
+        if (format == EventLogFormat.BINARY) {
+            return BinaryEventCodec.encode(metric.key.substring(metricLocPathLength), metric.value);
+        }
         StringBuilder sb = new StringBuilder();
         sb.append(startMarker)
                 .append(metric.key.substring(metricLocPathLength))
@@ -77,7 +100,7 @@ public class EventLog {
                 .append(metric.value.toCharArray())
                 .append(endMarker)
                 .append(separator);
-        return sb.toString().getBytes();
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
     }
 
     /**
@@ -119,41 +142,149 @@ public class EventLog {
      * sends an empty list, The sender then has to read in more bytes and send it again. Sender
      * essentially has to increase the buffer size.
      *
+     * <p>Records written in the {@link EventLogFormat#BINARY} format are recognized by their
+     * leading {@link BinaryEventCodec#RECORD_MARKER} and are handed over to the binary decoder, so
+     * a single file may contain a mix of text and binary records.
+     *
      * @param byteBuffer The raw bytes in the file.
      */
     void read(final ByteBuffer byteBuffer, EventDispatcher processor) {
         if (ret == null) {
-            ret = new Ret(new char[byteBuffer.limit()]);
+            ret = new Ret(new byte[byteBuffer.limit()]);
+        }
+        if (binaryDecoder == null) {
+            binaryDecoder = new BinaryEventCodec.Decoder(byteBuffer.limit());
         }
 
         while (byteBuffer.hasRemaining()) {
-            char b = (char) byteBuffer.get();
-            ret = processByte(b, ret, processor);
+            if (binaryDecoder.isDecoding()) {
+                Event event = binaryDecoder.decode(byteBuffer);
+                if (event != null) {
+                    processor.processEvent(event);
+                }
+                continue;
+            }
+            byte raw = byteBuffer.get();
+            if (raw == BinaryEventCodec.RECORD_MARKER && !ret.inTextRecord) {
+                binaryDecoder.start();
+                continue;
+            }
+            ret = processByte(raw, ret, processor);
+        }
+    }
+
+    /**
+     * Interprets a complete event log file that is already in memory, for instance a memory mapped
+     * file. Unlike {@link #read}, the event boundaries are located by scanning the buffer in place
+     * and each key and value is decoded with a single bulk copy, so there is no per byte state
+     * machine and no intermediate character buffer that has to grow with the largest event. A
+     * trailing record that is not terminated is ignored, just like in the streaming case.
+     *
+     * @param buffer The full contents of the file, from its position to its limit.
+     * @param processor The dispatcher that receives the decoded events.
+     */
+    void readMapped(final ByteBuffer buffer, EventDispatcher processor) {
+        if (binaryDecoder == null) {
+            binaryDecoder = new BinaryEventCodec.Decoder(0);
+        }
+        final byte recordStart = (byte) startMarker;
+        final byte keyEnd = (byte) separator[0];
+        final byte recordEnd = (byte) endMarker;
+        int limit = buffer.limit();
+        int pos = buffer.position();
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b == recordStart) {
+                int keyIdx = indexOfEither(buffer, pos + 1, limit, keyEnd, recordStart);
+                if (keyIdx < 0) {
+                    break;
+                }
+                if (buffer.get(keyIdx) == recordStart) {
+                    // A new record started before this one was complete. Drop the partial one.
+                    pos = keyIdx;
+                    continue;
+                }
+                int valueIdx = indexOfEither(buffer, keyIdx + 1, limit, recordEnd, recordStart);
+                if (valueIdx < 0) {
+                    break;
+                }
+                if (buffer.get(valueIdx) == recordStart) {
+                    pos = valueIdx;
+                    continue;
+                }
+                String key = decode(buffer, pos + 1, keyIdx);
+                String value = decode(buffer, keyIdx + 1, valueIdx);
+                processor.processEvent(new Event(key, value, 0));
+                pos = valueIdx + 1;
+            } else if (b == BinaryEventCodec.RECORD_MARKER) {
+                ((Buffer) buffer).position(pos + 1);
+                binaryDecoder.start();
+                Event event = binaryDecoder.decode(buffer);
+                if (binaryDecoder.isDecoding()) {
+                    // The file ends in the middle of this record.
+                    binaryDecoder.reset();
+                    break;
+                }
+                if (event != null) {
+                    processor.processEvent(event);
+                }
+                pos = buffer.position();
+            } else {
+                pos++;
+            }
         }
     }
 
+    private static int indexOfEither(ByteBuffer buffer, int from, int to, byte first, byte second) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == first || b == second) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String decode(ByteBuffer buffer, int from, int to) {
+        int length = to - from;
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(length, 1024)];
+        }
+        ((Buffer) buffer).position(from);
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
     static class Ret {
         String key;
         String value;
         int byteIdx;
-        char[] bytes;
+        byte[] bytes;
+        boolean inTextRecord;
 
-        Ret(char[] bytes) {
+        Ret(byte[] bytes) {
             this.key = "";
             this.value = "";
             this.byteIdx = 0;
             this.bytes = bytes;
+            this.inTextRecord = false;
         }
     }
 
-    private static Ret processByte(char b, Ret arg, EventDispatcher processor) {
+    /**
+     * The markers are all ASCII, and no byte of a multi-byte UTF-8 sequence falls in the ASCII
+     * range, so the record boundaries can be found byte by byte. The key and value bytes are only
+     * decoded once they are complete, with the same charset as {@link #readMapped}.
+     */
+    private static Ret processByte(byte b, Ret arg, EventDispatcher processor) {
         if (b == separator[0] && arg.key.isEmpty()) {
-            arg.key = new String(arg.bytes, 0, arg.byteIdx);
+            arg.key = new String(arg.bytes, 0, arg.byteIdx, StandardCharsets.UTF_8);
             // reset bytes
             arg.byteIdx = 0;
         } else if (b == endMarker) {
             // LOG.info("EndMarker found");
-            arg.value = new String(arg.bytes, 0, arg.byteIdx);
+            arg.value = new String(arg.bytes, 0, arg.byteIdx, StandardCharsets.UTF_8);
+            arg.inTextRecord = false;
 
             // Iterate through the key to figure out the index of the first file separator.
             int indexOfFirstPathSep = arg.key.indexOf(File.separatorChar);
@@ -173,6 +304,7 @@ public class EventLog {
             processor.processEvent(event);
         } else if (b == startMarker) {
             arg.key = "";
+            arg.inTextRecord = true;
             // reset
             arg.byteIdx = 0;
         } else {
@@ -182,13 +314,7 @@ public class EventLog {
             // If you run out of space, then grow the array and copy the data over.
             if (arg.byteIdx == arg.bytes.length) {
                 // grow the bytebuffer
-                char[] newBytes = new char[arg.bytes.length * 2];
-                int i = 0;
-                for (char c : arg.bytes) {
-                    newBytes[i] = c;
-                    i += 1;
-                }
-                arg.bytes = newBytes;
+                arg.bytes = Arrays.copyOf(arg.bytes, arg.bytes.length * 2);
             }
         }
         return arg;
@@ -196,5 +322,7 @@ public class EventLog {
 
     public void clear() {
         ret = null;
+        binaryDecoder = null;
+        scratch = null;
     }
 }
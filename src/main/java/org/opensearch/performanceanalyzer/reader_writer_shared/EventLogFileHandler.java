@@ -34,6 +34,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -44,6 +46,7 @@ import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.core.Util;
 import org.opensearch.performanceanalyzer.metrics.PerformanceAnalyzerMetrics;
 import org.opensearch.performanceanalyzer.rca.framework.metrics.WriterMetrics;
@@ -56,11 +59,17 @@ public class EventLogFileHandler {
     private final String metricsLocation;
     private static final int BUFFER_SIZE = 8192;
     private static final String TMP_FILE_EXT = ".tmp";
+    private final boolean mmapReadEnabled;
     private long lastProcessed;
 
     public EventLogFileHandler(EventLog eventLog, String metricsLocation) {
+        this(eventLog, metricsLocation, PluginSettings.instance().isEventLogMmapReadEnabled());
+    }
+
+    public EventLogFileHandler(EventLog eventLog, String metricsLocation, boolean mmapReadEnabled) {
         this.eventLog = eventLog;
         this.metricsLocation = metricsLocation;
+        this.mmapReadEnabled = mmapReadEnabled;
     }
 
     public void writeTmpFile(List<Event> dataEntries, long epoch) {
@@ -148,7 +157,11 @@ public class EventLogFileHandler {
             LOG.debug("Didnt find {} at {}", filename, mCurrT);
             return;
         }
-        readInternal(pathToFile, BUFFER_SIZE, processor);
+        if (mmapReadEnabled) {
+            readMapped(pathToFile, processor);
+        } else {
+            readInternal(pathToFile, BUFFER_SIZE, processor);
+        }
         lastProcessed = timestamp;
         // LOG.info("PARSED - {} {}", filename, ret);
         eventLog.clear();
@@ -181,6 +194,23 @@ public class EventLogFileHandler {
         }
     }
 
+    /**
+     * Maps the whole epoch file into memory and lets the {@link EventLog} find the event
+     * boundaries in place. The files live on tmpfs, so mapping them does not incur any disk IO and
+     * events of any size are handled without growing an intermediate buffer.
+     *
+     * <p>The mapping is released when the buffer is garbage collected. Deleting the file before
+     * that is safe, the pages are reclaimed once the mapping goes away.
+     */
+    private void readMapped(Path pathToFile, EventDispatcher processor) {
+        try (FileChannel channel = FileChannel.open(pathToFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            eventLog.readMapped(buffer, processor);
+        } catch (IOException ex) {
+            LOG.error("Error reading file", ex);
+        }
+    }
+
     public void deleteAllFiles() {
         Util.invokePrivileged(this::deleteAllFilesWithPrivilege);
     }
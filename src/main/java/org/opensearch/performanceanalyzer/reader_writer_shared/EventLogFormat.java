@@ -0,0 +1,59 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader_writer_shared;
+
+/**
+ * The on-disk encodings understood by {@link EventLog}. The reader auto-detects the encoding of
+ * every record, so writers can be migrated from one format to the other without coordinating with
+ * the reader.
+ */
+public enum EventLogFormat {
+    /** The original text encoding: {@code ^key\nvalue$\n}. */
+    TEXT,
+
+    /** Versioned, length-prefixed binary encoding. See {@link BinaryEventCodec}. */
+    BINARY;
+
+    /**
+     * Parses the format from its configuration value.
+     *
+     * @param value The configured value, case insensitive.
+     * @param defaultFormat The format to fall back to if the value is null or unknown.
+     * @return The parsed format.
+     */
+    public static EventLogFormat fromString(String value, EventLogFormat defaultFormat) {
+        if (value == null) {
+            return defaultFormat;
+        }
+        for (EventLogFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value.trim())) {
+                return format;
+            }
+        }
+        return defaultFormat;
+    }
+}
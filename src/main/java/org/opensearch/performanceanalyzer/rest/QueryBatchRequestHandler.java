@@ -35,6 +35,7 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.security.InvalidParameterException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -49,7 +50,9 @@ import org.jooq.exception.DataAccessException;
 import org.opensearch.performanceanalyzer.PerformanceAnalyzerApp;
 import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.metrics.MetricsRestUtil;
+import org.opensearch.performanceanalyzer.metricsdb.ColumnarMetricsFile;
 import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsRollupStore;
 import org.opensearch.performanceanalyzer.model.MetricsModel;
 import org.opensearch.performanceanalyzer.net.NetClient;
 import org.opensearch.performanceanalyzer.rca.framework.metrics.ExceptionsAndErrors;
@@ -65,6 +68,9 @@ import org.opensearch.performanceanalyzer.reader.ReaderMetricsProcessor;
  * <p>Return 1 minute of CPU_Utilization and Latency metrics sampled at a 10s sampling period:
  * "http://localhost:9600/_plugins/_performanceanalyzer/batch?metrics=CPU_Utilization,Latency&starttime=1566413975000&endtime=1566413980000&samplingperiod=10"
  *
+ * <p>Return 1 hour of CPU_Utilization metrics rolled up into 10 minute buckets:
+ * "http://localhost:9600/_plugins/_performanceanalyzer/batch?metrics=CPU_Utilization&starttime=1566410400000&endtime=1566414000000&resolution=10m"
+ *
  * <p>Return format: { "1594412650000": { "CPU_Utilization": { "fields": [ { "name: "IndexName",
  * "type": "VARCHAR" }, <...> ] "records": [ [ "pmc", <...> ], <...> ] } } }
  */
@@ -79,6 +85,7 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
 
     public static final int DEFAULT_MAX_DATAPOINTS = 100800; // Must be non-negative
     public static final long DEFAULT_SAMPLING_PERIOD_MILLIS = 5000; // Must be a multiple of 5000
+    public static final String DEFAULT_RESOLUTION = "5s";
 
     public QueryBatchRequestHandler(NetClient netClient, MetricsRestUtil metricsRestUtil) {
         this.netClient = netClient;
@@ -131,7 +138,9 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
 
         try {
             // Parse and validate parameters
-            String[] validParamsTmp = {"", "metrics", "starttime", "endtime", "samplingperiod"};
+            String[] validParamsTmp = {
+                "", "metrics", "starttime", "endtime", "samplingperiod", "resolution"
+            };
             Set<String> validParams = new HashSet<>(Arrays.asList(validParamsTmp));
             for (String param : params.keySet()) {
                 if (!validParams.contains(param)) {
@@ -144,6 +153,7 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
             String startTimeParam = params.get("starttime");
             String endTimeParam = params.get("endtime");
             String samplingPeriodParam = params.get("samplingperiod");
+            String resolutionParam = params.get("resolution");
 
             for (String metric : metrics) {
                 if (!MetricsModel.ALL_METRICS.containsKey(metric)) {
@@ -174,15 +184,41 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
                         String.format("%s is an invalid endtime", endTimeParam));
             }
 
-            long samplingPeriod = DEFAULT_SAMPLING_PERIOD_MILLIS;
+            // A null resolution means the 5s metricsdb windows are queried.
+            MetricsRollupStore.Resolution resolution = null;
+            long retentionPeriodMinutes =
+                    PluginSettings.instance().getBatchMetricsRetentionPeriodMinutes();
+            if (resolutionParam != null
+                    && !resolutionParam.isEmpty()
+                    && !resolutionParam.equals(DEFAULT_RESOLUTION)) {
+                resolution = MetricsRollupStore.Resolution.fromLabel(resolutionParam);
+                if (resolution == null) {
+                    throw new InvalidParameterException(
+                            String.format("%s is an invalid resolution", resolutionParam));
+                }
+                batchMetrics = mp.getRollupMetrics(resolution);
+                if (batchMetrics == null) {
+                    throw new InvalidParameterException(
+                            String.format(
+                                    "the %s resolution has not been enabled for this node",
+                                    resolutionParam));
+                }
+                retentionPeriodMinutes =
+                        PluginSettings.instance().getBatchMetricsRollupRetentionPeriodMinutes();
+            }
+            long minSamplingPeriod =
+                    resolution == null
+                            ? DEFAULT_SAMPLING_PERIOD_MILLIS / 1000
+                            : resolution.getPeriodMillis() / 1000;
+
+            long samplingPeriod = minSamplingPeriod * 1000;
             if (samplingPeriodParam != null && !samplingPeriodParam.isEmpty()) {
                 samplingPeriod = Long.parseLong(samplingPeriodParam);
-                if (samplingPeriod < 5 || samplingPeriod % 5 != 0) {
+                if (samplingPeriod < minSamplingPeriod || samplingPeriod % minSamplingPeriod != 0) {
                     throw new InvalidParameterException(
                             String.format("%s is an invalid sampling period", samplingPeriodParam));
                 }
-                if (samplingPeriod
-                        >= PluginSettings.instance().getBatchMetricsRetentionPeriodMinutes() * 60) {
+                if (samplingPeriod >= retentionPeriodMinutes * 60) {
                     throw new InvalidParameterException(
                             "sampling period must be less than the retention period");
                 }
@@ -202,11 +238,7 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
                 throw new InvalidParameterException(
                         "endtime can be no greater than the system time at the node");
             }
-            if (startTime
-                    < currentTime
-                            - PluginSettings.instance().getBatchMetricsRetentionPeriodMinutes()
-                                    * 60
-                                    * 1000) {
+            if (startTime < currentTime - retentionPeriodMinutes * 60 * 1000) {
                 throw new InvalidParameterException(
                         "starttime must be within the retention period");
             }
@@ -219,7 +251,8 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
                             startTime,
                             endTime,
                             samplingPeriod,
-                            DEFAULT_MAX_DATAPOINTS);
+                            DEFAULT_MAX_DATAPOINTS,
+                            resolution);
             PerformanceAnalyzerApp.READER_METRICS_AGGREGATOR.updateStat(
                     ReaderMetrics.BATCH_METRICS_QUERY_PROCESSING_TIME,
                     "",
@@ -263,22 +296,32 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
     }
 
     private int appendMetrics(
-            Long timestamp, List<String> metrics, StringBuilder builder, int maxDatapoints)
+            Long timestamp,
+            List<String> metrics,
+            StringBuilder builder,
+            int maxDatapoints,
+            MetricsRollupStore.Resolution resolution)
             throws Exception {
         maxDatapoints += 1;
         builder.append("\"");
         builder.append(timestamp);
         builder.append("\":{");
-        MetricsDB db = MetricsDB.fetchExisting(timestamp);
+        // Prefer the columnar copy of the window when there is one, it is read without a
+        // sqlite connection.
+        ColumnarMetricsFile columnarFile = null;
+        MetricsDB db = null;
+        if (resolution != null) {
+            columnarFile = MetricsRollupStore.fetchExisting(resolution, timestamp);
+        } else if (ColumnarMetricsFile.exists(timestamp)) {
+            columnarFile = ColumnarMetricsFile.fetchExisting(timestamp);
+        } else {
+            db = MetricsDB.fetchExisting(timestamp);
+        }
         for (int metricIndex = 0, numMetrics = metrics.size();
                 metricIndex < numMetrics;
                 metricIndex++) {
             String metric = metrics.get(metricIndex);
-            Result<Record> results =
-                    db.queryMetric(
-                            metric,
-                            MetricsModel.ALL_METRICS.get(metric).dimensionNames,
-                            maxDatapoints);
+            Result<Record> results = queryMetric(db, columnarFile, metric, maxDatapoints);
             if (results != null) {
                 maxDatapoints -= results.size();
                 if (maxDatapoints <= 0) {
@@ -295,11 +338,7 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
                 builder.append(results.formatJSON());
                 for (metricIndex += 1; metricIndex < numMetrics; metricIndex++) {
                     metric = metrics.get(metricIndex);
-                    results =
-                            db.queryMetric(
-                                    metric,
-                                    MetricsModel.ALL_METRICS.get(metric).dimensionNames,
-                                    maxDatapoints);
+                    results = queryMetric(db, columnarFile, metric, maxDatapoints);
                     if (results != null) {
                         maxDatapoints -= results.size();
                         if (maxDatapoints <= 0) {
@@ -319,13 +358,29 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
             }
         }
         builder.append("}");
-        db.remove();
+        if (columnarFile != null) {
+            columnarFile.remove();
+        } else {
+            db.remove();
+        }
         return maxDatapoints - 1;
     }
 
+    private Result<Record> queryMetric(
+            MetricsDB db, ColumnarMetricsFile columnarFile, String metric, int limit)
+            throws Exception {
+        Collection<String> dimensions = MetricsModel.ALL_METRICS.get(metric).dimensionNames;
+        if (columnarFile != null) {
+            return columnarFile.queryMetric(metric, dimensions, limit);
+        }
+        return db.queryMetric(metric, dimensions, limit);
+    }
+
     /**
      * Requires non-empty batchMetrics, valid non-empty metrics, valid startTime, valid endTime,
-     * valid samplingPeriod (in milliseconds), and non-negative maxDatapoints.
+     * valid samplingPeriod (in milliseconds), and non-negative maxDatapoints. batchMetrics holds
+     * the start times of the rollup buckets of the given resolution, or of the metricsdb windows if
+     * the resolution is null.
      */
     private String queryFromBatchMetrics(
             NavigableSet<Long> batchMetrics,
@@ -333,20 +388,24 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
             long startTime,
             long endTime,
             long samplingPeriod,
-            int maxDatapoints)
+            int maxDatapoints,
+            MetricsRollupStore.Resolution resolution)
             throws Exception {
         StringBuilder responseJson = new StringBuilder();
         responseJson.append("{");
         Long metricsTimestamp = batchMetrics.ceiling(startTime);
         if (metricsTimestamp != null && metricsTimestamp < endTime) {
-            maxDatapoints = appendMetrics(metricsTimestamp, metrics, responseJson, maxDatapoints);
+            maxDatapoints =
+                    appendMetrics(
+                            metricsTimestamp, metrics, responseJson, maxDatapoints, resolution);
             metricsTimestamp =
                     metricsTimestamp - metricsTimestamp % samplingPeriod + samplingPeriod;
             metricsTimestamp = batchMetrics.ceiling(metricsTimestamp);
             while (metricsTimestamp != null && metricsTimestamp < endTime) {
                 responseJson.append(",");
                 maxDatapoints =
-                        appendMetrics(metricsTimestamp, metrics, responseJson, maxDatapoints);
+                        appendMetrics(
+                                metricsTimestamp, metrics, responseJson, maxDatapoints, resolution);
                 metricsTimestamp =
                         metricsTimestamp - metricsTimestamp % samplingPeriod + samplingPeriod;
                 metricsTimestamp = batchMetrics.ceiling(metricsTimestamp);
@@ -377,13 +436,13 @@ public class QueryBatchRequestHandler extends MetricsHandler implements HttpHand
             int maxDatapoints)
             throws Exception {
         return queryFromBatchMetrics(
-                batchMetrics, metrics, startTime, endTime, samplingPeriod, maxDatapoints);
+                batchMetrics, metrics, startTime, endTime, samplingPeriod, maxDatapoints, null);
     }
 
     @VisibleForTesting
     public int appendMetricsShim(
             Long timestamp, List<String> metrics, StringBuilder builder, int maxDatapoints)
             throws Exception {
-        return appendMetrics(timestamp, metrics, builder, maxDatapoints);
+        return appendMetrics(timestamp, metrics, builder, maxDatapoints, null);
     }
 }
@@ -29,17 +29,16 @@ package org.opensearch.performanceanalyzer.rest;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import io.grpc.stub.StreamObserver;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
@@ -49,13 +48,18 @@ import org.jooq.Result;
 import org.opensearch.performanceanalyzer.AppContext;
 import org.opensearch.performanceanalyzer.collectors.StatExceptionCode;
 import org.opensearch.performanceanalyzer.collectors.StatsCollector;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
 import org.opensearch.performanceanalyzer.core.Util;
 import org.opensearch.performanceanalyzer.grpc.MetricsRequest;
 import org.opensearch.performanceanalyzer.grpc.MetricsResponse;
+import org.opensearch.performanceanalyzer.grpc.MetricsTable;
 import org.opensearch.performanceanalyzer.metrics.MetricsRestUtil;
+import org.opensearch.performanceanalyzer.metrics.handler.ClusterMetricsAggregator;
+import org.opensearch.performanceanalyzer.metrics.handler.MetricsTableConverter;
 import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
 import org.opensearch.performanceanalyzer.model.MetricAttributes;
 import org.opensearch.performanceanalyzer.model.MetricsModel;
+import org.opensearch.performanceanalyzer.net.MetricsFanOut;
 import org.opensearch.performanceanalyzer.net.NetClient;
 import org.opensearch.performanceanalyzer.rca.framework.util.InstanceDetails;
 import org.opensearch.performanceanalyzer.reader.ReaderMetricsProcessor;
@@ -67,21 +71,41 @@ import org.opensearch.performanceanalyzer.util.JsonConverter;
  * We can fetch multiple metrics using this interface and also specify the dimensions/aggregations
  * for fetching the metrics. We create a new metricsDB every 5 seconds and API only supports
  * querying the latest snapshot.
+ *
+ * <p>With "scope=cluster" the results of all the nodes are merged into one, grouped by the
+ * dimensions across nodes, and "limit=N" keeps the N rows with the highest value of the first
+ * metric, e.g. "metrics=CPU_Utilization&agg=sum&dim=IndexName&nodes=all&scope=cluster&limit=10".
  */
 public class QueryMetricsRequestHandler extends MetricsHandler implements HttpHandler {
 
     private static final Logger LOG = LogManager.getLogger(QueryMetricsRequestHandler.class);
-    private static final int TIME_OUT_VALUE = 2;
-    private static final TimeUnit TIME_OUT_UNIT = TimeUnit.SECONDS;
+    static final String TIMED_OUT_NODES_HEADER = "X-Timed-Out-Nodes";
+    static final String FAILED_NODES_HEADER = "X-Failed-Nodes";
+    static final String UNMERGED_NODES_HEADER = "X-Unmerged-Nodes";
+    private static final String CLUSTER_SCOPE = "cluster";
     private NetClient netClient;
     MetricsRestUtil metricsRestUtil;
     private final AppContext appContext;
+    private final MetricsFanOut fanOut;
 
     public QueryMetricsRequestHandler(
             NetClient netClient, MetricsRestUtil metricsRestUtil, final AppContext appContext) {
         this.netClient = netClient;
         this.metricsRestUtil = metricsRestUtil;
         this.appContext = appContext;
+        PluginSettings settings = PluginSettings.instance();
+        this.fanOut =
+                new MetricsFanOut(
+                        netClient,
+                        settings.isMetricsQueryStreamingEnabled(),
+                        settings.getMetricsQueryMaxInFlight(),
+                        settings.getMetricsQueryTimeoutMillis(),
+                        settings.getMetricsQueryHedgeDelayMillis());
+    }
+
+    /** Stops the threads of the handler. */
+    public void stop() {
+        fanOut.stop();
     }
 
     @Override
@@ -147,59 +171,75 @@ public class QueryMetricsRequestHandler extends MetricsHandler implements HttpHa
                 if (!validParams(exchange, metricList, dimList, aggList)) {
                     return;
                 }
+                boolean clusterScope = CLUSTER_SCOPE.equals(params.get("scope"));
+                int limit = parseLimit(params.get("limit"), clusterScope);
 
-                String localResponse;
+                // The JSON of all the nodes is only rendered once the responses are complete.
+                Result<Record> metricResult = null;
                 if (db != null) {
-                    Result<Record> metricResult = db.queryMetric(metricList, aggList, dimList);
-                    if (metricResult == null) {
-                        localResponse = "{}";
-                    } else {
-                        localResponse = metricResult.formatJSON();
-                    }
-                } else {
-                    // Empty JSON.
-                    localResponse = "{}";
+                    metricResult =
+                            clusterScope
+                                    ? db.queryMetricPartials(metricList, aggList, dimList)
+                                    : db.queryMetric(metricList, aggList, dimList);
                 }
-
-                String localResponseWithTimestamp =
-                        String.format(
-                                "{\"timestamp\": %d, \"data\": %s}", dbTimestamp, localResponse);
-                ConcurrentHashMap<String, String> nodeResponses = new ConcurrentHashMap<>();
+                MetricsResponse localResponse =
+                        MetricsResponse.newBuilder()
+                                .setMetricsTable(
+                                        MetricsTableConverter.toTable(
+                                                dbTimestamp,
+                                                metricResult,
+                                                metricList,
+                                                aggList,
+                                                dimList,
+                                                clusterScope))
+                                .build();
+                ConcurrentHashMap<String, List<MetricsResponse>> nodeResponses =
+                        new ConcurrentHashMap<>();
                 final List<InstanceDetails> allNodes = appContext.getAllClusterInstances();
                 String localNodeId = "local";
                 if (allNodes.size() != 0) {
                     localNodeId = allNodes.get(0).getInstanceId().toString();
                 }
-                nodeResponses.put(localNodeId, localResponseWithTimestamp);
-                String response = metricsRestUtil.nodeJsonBuilder(nodeResponses);
+                nodeResponses.put(localNodeId, Collections.singletonList(localResponse));
 
                 if (nodes == null || !nodes.equals("all") || allNodes.size() <= 1) {
-                    sendResponse(exchange, response, HttpURLConnection.HTTP_OK);
+                    if (clusterScope) {
+                        sendClusterResponse(
+                                exchange, nodeResponses, metricList, aggList, dimList, limit);
+                    } else {
+                        sendResponse(
+                                exchange,
+                                metricsRestUtil.nodeResponsesJsonBuilder(nodeResponses),
+                                HttpURLConnection.HTTP_OK);
+                    }
                 } else if (nodes.equals("all")) {
-                    CountDownLatch doneSignal = new CountDownLatch(allNodes.size() - 1);
-                    for (int i = 1; i < allNodes.size(); i++) {
-                        InstanceDetails node = allNodes.get(i);
-                        LOG.debug("Collecting remote stats");
-                        try {
-                            collectRemoteStats(
-                                    node, metricList, aggList, dimList, nodeResponses, doneSignal);
-                        } catch (Exception e) {
-                            LOG.error(
-                                    "Unable to collect stats for node, addr:{}, exception: {} ExceptionCode: {}",
-                                    node.getInstanceIp(),
-                                    e,
-                                    StatExceptionCode.REQUEST_REMOTE_ERROR.toString());
-                            StatsCollector.instance()
-                                    .logException(StatExceptionCode.REQUEST_REMOTE_ERROR);
-                        }
+                    // Nodes only trim their own rows when it cannot change the merged top rows.
+                    int nodeLimit =
+                            clusterScope && ClusterMetricsAggregator.canPushDownLimit(aggList)
+                                    ? limit
+                                    : 0;
+                    MetricsRequest request =
+                            MetricsRequest.newBuilder()
+                                    .addAllMetricList(metricList)
+                                    .addAllAggList(aggList)
+                                    .addAllDimList(dimList)
+                                    .setStructured(true)
+                                    .setPartialAggregates(clusterScope)
+                                    .setLimit(nodeLimit)
+                                    .build();
+                    LOG.debug("Collecting remote stats");
+                    MetricsFanOut.Outcome outcome =
+                            fanOut.collect(
+                                    allNodes.subList(1, allNodes.size()), request, nodeResponses);
+                    if (outcome.isPartial()) {
+                        annotatePartialResponse(exchange, outcome);
                     }
-                    boolean completed = doneSignal.await(TIME_OUT_VALUE, TIME_OUT_UNIT);
-                    if (!completed) {
-                        LOG.debug("Timeout while collecting remote stats");
-                        StatsCollector.instance()
-                                .logException(StatExceptionCode.REQUEST_REMOTE_ERROR);
+                    if (clusterScope) {
+                        sendClusterResponse(
+                                exchange, nodeResponses, metricList, aggList, dimList, limit);
+                    } else {
+                        sendResponseWhenRequestCompleted(nodeResponses, exchange);
                     }
-                    sendResponseWhenRequestCompleted(nodeResponses, exchange);
                 }
             } catch (InvalidParameterException e) {
                 LOG.error("DB file path : {}", db.getDBFilePath());
@@ -234,28 +274,6 @@ public class QueryMetricsRequestHandler extends MetricsHandler implements HttpHa
         }
     }
 
-    void collectRemoteStats(
-            InstanceDetails node,
-            List<String> metricList,
-            List<String> aggList,
-            List<String> dimList,
-            final ConcurrentHashMap<String, String> nodeResponses,
-            final CountDownLatch doneSignal) {
-        MetricsRequest request =
-                MetricsRequest.newBuilder()
-                        .addAllMetricList(metricList)
-                        .addAllAggList(aggList)
-                        .addAllDimList(dimList)
-                        .build();
-        ThreadSafeStreamObserver responseObserver =
-                new ThreadSafeStreamObserver(node, nodeResponses, doneSignal);
-        try {
-            this.netClient.getMetrics(node, request, responseObserver);
-        } catch (Exception e) {
-            LOG.error("Metrics : Exception occurred while getting Metrics {}", e.getCause());
-        }
-    }
-
     private boolean isUnitLookUp(HttpExchange exchange) throws IOException {
         if (exchange.getRequestURI().toString().equals(Util.METRICS_QUERY_URL + "/units")) {
             return true;
@@ -314,12 +332,81 @@ public class QueryMetricsRequestHandler extends MetricsHandler implements HttpHa
         return true;
     }
 
+    /**
+     * @return the number of rows to keep of a cluster scoped query, 0 for all of them
+     * @throws InvalidParameterException if the limit is not a positive number, or given without
+     *     {@code scope=cluster}
+     */
+    private static int parseLimit(String limit, boolean clusterScope) {
+        if (limit == null) {
+            return 0;
+        }
+        if (!clusterScope) {
+            throw new InvalidParameterException("limit is only supported with scope=cluster.");
+        }
+        try {
+            int value = Integer.parseInt(limit);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new InvalidParameterException("limit should be a positive number.");
+    }
+
+    /**
+     * Merges the tables of all the nodes into one, answered under the "cluster" key. Nodes that
+     * answered with a JSON string cannot be merged; they are listed in a header instead.
+     */
+    private void sendClusterResponse(
+            HttpExchange exchange,
+            ConcurrentHashMap<String, List<MetricsResponse>> nodeResponses,
+            List<String> metricList,
+            List<String> aggList,
+            List<String> dimList,
+            int limit)
+            throws IOException {
+        List<MetricsTable> tables = new ArrayList<>();
+        List<String> unmergedNodes = new ArrayList<>();
+        for (Map.Entry<String, List<MetricsResponse>> entry : nodeResponses.entrySet()) {
+            for (MetricsResponse response : entry.getValue()) {
+                if (!response.hasMetricsTable()) {
+                    unmergedNodes.add(entry.getKey());
+                    break;
+                }
+                tables.add(response.getMetricsTable());
+            }
+        }
+        if (!unmergedNodes.isEmpty()) {
+            exchange.getResponseHeaders()
+                    .set(UNMERGED_NODES_HEADER, String.join(",", unmergedNodes));
+        }
+        MetricsTable merged =
+                ClusterMetricsAggregator.merge(tables, metricList, aggList, dimList, limit);
+        sendResponse(
+                exchange, metricsRestUtil.clusterJsonBuilder(merged), HttpURLConnection.HTTP_OK);
+    }
+
+    /** Lists the nodes missing from a partial response in its headers. */
+    private static void annotatePartialResponse(
+            HttpExchange exchange, MetricsFanOut.Outcome outcome) {
+        if (!outcome.getTimedOutNodes().isEmpty()) {
+            exchange.getResponseHeaders()
+                    .set(TIMED_OUT_NODES_HEADER, String.join(",", outcome.getTimedOutNodes()));
+        }
+        if (!outcome.getFailedNodes().isEmpty()) {
+            exchange.getResponseHeaders()
+                    .set(FAILED_NODES_HEADER, String.join(",", outcome.getFailedNodes()));
+        }
+    }
+
     private void sendResponseWhenRequestCompleted(
-            ConcurrentHashMap<String, String> nodeResponses, HttpExchange exchange) {
+            ConcurrentHashMap<String, List<MetricsResponse>> nodeResponses, HttpExchange exchange) {
         if (nodeResponses.size() == 0) {
             return;
         }
-        String response = metricsRestUtil.nodeJsonBuilder(nodeResponses);
+        String response = metricsRestUtil.nodeResponsesJsonBuilder(nodeResponses);
         try {
             sendResponse(exchange, response, HttpURLConnection.HTTP_OK);
         } catch (Exception e) {
@@ -337,34 +424,4 @@ public class QueryMetricsRequestHandler extends MetricsHandler implements HttpHa
             exchange.sendResponseHeaders(HttpURLConnection.HTTP_INTERNAL_ERROR, response.length());
         }
     }
-
-    private static class ThreadSafeStreamObserver implements StreamObserver<MetricsResponse> {
-        private final CountDownLatch doneSignal;
-        private final ConcurrentHashMap<String, String> nodeResponses;
-        private final InstanceDetails node;
-
-        ThreadSafeStreamObserver(
-                InstanceDetails node,
-                ConcurrentHashMap<String, String> nodeResponses,
-                CountDownLatch doneSignal) {
-            this.node = node;
-            this.doneSignal = doneSignal;
-            this.nodeResponses = nodeResponses;
-        }
-
-        public void onNext(MetricsResponse value) {
-            nodeResponses.putIfAbsent(node.getInstanceId().toString(), value.getMetricsResult());
-        }
-
-        @Override
-        public void onError(Throwable t) {
-            LOG.info("Metrics : Error occurred while getting Metrics for " + node.getInstanceIp());
-            doneSignal.countDown();
-        }
-
-        @Override
-        public void onCompleted() {
-            doneSignal.countDown();
-        }
-    }
 }
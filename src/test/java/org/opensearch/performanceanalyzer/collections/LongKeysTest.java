@@ -0,0 +1,46 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.collections;
+
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongKeysTest {
+
+    @Test
+    public void testParseId() {
+        Assert.assertEquals(0, LongKeys.parseId("0"));
+        Assert.assertEquals(4217, LongKeys.parseId("4217"));
+        Assert.assertEquals(999999999999999999L, LongKeys.parseId("999999999999999999"));
+        Assert.assertEquals(-1, LongKeys.parseId(null));
+        Assert.assertEquals(-1, LongKeys.parseId(""));
+        Assert.assertEquals(-1, LongKeys.parseId("-5"));
+        Assert.assertEquals(-1, LongKeys.parseId("12a"));
+        Assert.assertEquals(-1, LongKeys.parseId("1000000000000000000"));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.collections;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(2);
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put(0L, "zero"));
+        Assert.assertNull(map.put(-5L, "minus five"));
+        Assert.assertNull(map.put(Long.MAX_VALUE, "max"));
+        Assert.assertEquals("zero", map.put(0L, "nil"));
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("nil", map.get(0L));
+        Assert.assertEquals("minus five", map.get(-5L));
+        Assert.assertTrue(map.containsKey(Long.MAX_VALUE));
+        Assert.assertFalse(map.containsKey(7L));
+
+        Assert.assertEquals("minus five", map.remove(-5L));
+        Assert.assertNull(map.remove(-5L));
+        Assert.assertEquals(2, map.size());
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(0L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullValue() {
+        new LongObjectHashMap<String>().put(1L, null);
+    }
+
+    @Test
+    public void testRemoveIf() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        for (long tid = 1; tid <= 5000; tid++) {
+            map.put(tid, tid);
+        }
+        Assert.assertEquals(2500, map.removeIf((tid, value) -> tid % 2 == 1));
+        Assert.assertEquals(2500, map.size());
+        for (long tid = 1; tid <= 5000; tid++) {
+            Assert.assertEquals(tid % 2 == 0 ? Long.valueOf(tid) : null, map.get(tid));
+        }
+        long[] sum = {0};
+        map.forEach((tid, value) -> sum[0] += value);
+        Assert.assertEquals(2501L * 2500, sum[0]);
+    }
+
+    /** Runs a random mix of operations against a HashMap to catch broken probe chains. */
+    @Test
+    public void testAgainstHashMap() {
+        Random random = new Random(42);
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int op = 0; op < 200000; op++) {
+            // a small key space keeps the clusters long
+            long key = random.nextInt(512);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    Assert.assertEquals(expected.put(key, op), map.put(key, op));
+                    break;
+                case 2:
+                    Assert.assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    if (random.nextInt(1000) == 0) {
+                        long mod = 2 + random.nextInt(5);
+                        expected.keySet().removeIf(k -> k % mod == 0);
+                        map.removeIf((k, v) -> k % mod == 0);
+                    }
+                    Assert.assertEquals(expected.get(key), map.get(key));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
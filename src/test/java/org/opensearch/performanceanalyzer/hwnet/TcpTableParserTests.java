@@ -0,0 +1,255 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.hwnet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TcpTableParserTests {
+    private static final Logger LOG = LogManager.getLogger(TcpTableParserTests.class);
+    private static final String HEADER =
+            "  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid"
+                    + "  timeout inode\n";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAggregatesOwnedFlowsByDestination() throws IOException {
+        Path fdDir = folder.newFolder("fd").toPath();
+        socket(fdDir, 5, 1001);
+        socket(fdDir, 6, 1002);
+        socket(fdDir, 7, 1003);
+        Files.createSymbolicLink(fdDir.resolve("8"), Paths.get("/var/lib/opensearch/segment"));
+        Path table =
+                write(
+                        HEADER
+                                + line(0, "0A00000A", 1001, 0x10, 0x20, 1, 10, 7)
+                                + line(1, "0A00000A", 1002, 0x30, 0x40, 3, 20, -1)
+                                + line(2, "0B00000A", 1003, 0, 0, 0, 30, 40)
+                                + line(3, "0C00000A", 9999, 5, 5, 5, 5, 5)
+                                // time wait sockets have no inode and fewer fields
+                                + "   4: 0100000A:2454 0A00000A:9C40 06 00000000:00000000"
+                                + " 03:00000A5B 00000000     0        0 0 3 0000000000000000\n");
+
+        SocketInodeCache sockets = new SocketInodeCache(fdDir, false);
+        sockets.refresh();
+        assertEquals(3, sockets.socketCount());
+
+        TcpTableParser parser = new TcpTableParser();
+        Map<String, NetworkE2E.destTCPFlowMetrics> out = sample(parser, sockets, table);
+        assertEquals(2, out.size());
+        NetworkE2E.destTCPFlowMetrics a = out.get("0A00000A");
+        assertEquals(2, a.numFlows);
+        assertEquals(0x40, a.txQueueTot);
+        assertEquals(0x60, a.rxQueueTot);
+        assertEquals(4, a.currentLostTot);
+        assertEquals(30, a.sendCWNDTot);
+        // an ssthresh of -1 is not added to the total
+        assertEquals(7, a.SSThreshTot);
+        assertEquals(1, out.get("0B00000A").numFlows);
+
+        // the totals are reset between samples and a destination without flows is dropped
+        Files.delete(fdDir.resolve("7"));
+        sockets.refresh();
+        out = sample(parser, sockets, table);
+        assertEquals(1, out.size());
+        assertEquals(2, out.get("0A00000A").numFlows);
+    }
+
+    @Test
+    public void testIPv6Destinations() throws IOException {
+        Path fdDir = folder.newFolder("fd").toPath();
+        socket(fdDir, 3, 77);
+        socket(fdDir, 4, 78);
+        Path table =
+                write(
+                        HEADER
+                                + line(0, "0000000000000000FFFF00000A00000A", 77, 1, 2, 0, 10, 20)
+                                + line(1, "000080FE00000000FF0F0000A1B2C3D4", 78, 3, 4, 0, 10, 20));
+        SocketInodeCache sockets = new SocketInodeCache(fdDir, false);
+        sockets.refresh();
+        Map<String, NetworkE2E.destTCPFlowMetrics> out =
+                sample(new TcpTableParser(), sockets, table);
+        assertEquals(2, out.size());
+        assertEquals(1, out.get("0000000000000000FFFF00000A00000A").txQueueTot);
+        assertEquals(3, out.get("000080FE00000000FF0F0000A1B2C3D4").txQueueTot);
+    }
+
+    @Test
+    public void testInodeCacheOnlyResolvesNewFds() throws IOException {
+        Path fdDir = folder.newFolder("fd").toPath();
+        socket(fdDir, 5, 100);
+
+        SocketInodeCache cached = new SocketInodeCache(fdDir, true);
+        SocketInodeCache uncached = new SocketInodeCache(fdDir, false);
+        cached.refresh();
+        uncached.refresh();
+        assertTrue(cached.contains(100));
+        assertTrue(uncached.contains(100));
+        cached.endSample();
+        uncached.endSample();
+
+        // fd 5 is reused for another connection
+        Files.delete(fdDir.resolve("5"));
+        socket(fdDir, 5, 200);
+        cached.refresh();
+        uncached.refresh();
+        assertFalse(cached.contains(200));
+        assertTrue(uncached.contains(200));
+        // inode 100 is no longer in the tcp tables, so the cached fd is evicted
+        cached.endSample();
+
+        cached.refresh();
+        assertTrue(cached.contains(200));
+    }
+
+    @Test
+    public void testParseSocketInode() {
+        assertEquals(12345, SocketInodeCache.parseSocketInode("socket:[12345]"));
+        assertEquals(-1, SocketInodeCache.parseSocketInode("pipe:[12345]"));
+        assertEquals(-1, SocketInodeCache.parseSocketInode("socket:[]"));
+        assertEquals(-1, SocketInodeCache.parseSocketInode("socket:[12"));
+    }
+
+    /**
+     * Parses a synthetic table of 50k connections, a tenth of them owned by the process, with the
+     * default buffer and with one smaller than a few lines to cross many chunk boundaries.
+     */
+    @Test
+    public void testLargeTable() throws IOException {
+        int lines = 50_000;
+        int destinations = 64;
+        Path fdDir = folder.newFolder("fd").toPath();
+        Path table = folder.getRoot().toPath().resolve("tcp");
+        long[] expectedFlows = new long[destinations];
+        long[] expectedTxQueue = new long[destinations];
+        int owned = 0;
+        try (Writer writer = Files.newBufferedWriter(table, StandardCharsets.US_ASCII)) {
+            writer.write(HEADER);
+            for (int i = 0; i < lines; i++) {
+                int dest = i % destinations;
+                long inode = 100_000 + i;
+                writer.write(line(i, destAddress(dest), inode, i % 1000, 0, 0, 10, 20));
+                if ((i / destinations) % 10 == 0) {
+                    socket(fdDir, i, inode);
+                    owned++;
+                    expectedFlows[dest]++;
+                    expectedTxQueue[dest] += i % 1000;
+                }
+            }
+        }
+
+        SocketInodeCache sockets = new SocketInodeCache(fdDir, true);
+        sockets.refresh();
+        assertEquals(owned, sockets.socketCount());
+
+        TcpTableParser[] parsers = {new TcpTableParser(), new TcpTableParser(512)};
+        for (TcpTableParser parser : parsers) {
+            Map<String, NetworkE2E.destTCPFlowMetrics> out = null;
+            int iterations = 10;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                out = sample(parser, sockets, table);
+            }
+            LOG.info(
+                    "Parsed {} tcp table lines in {} us on average",
+                    lines,
+                    (System.nanoTime() - start) / iterations / 1000);
+
+            assertEquals(destinations, out.size());
+            for (int dest = 0; dest < destinations; dest++) {
+                NetworkE2E.destTCPFlowMetrics m = out.get(destAddress(dest));
+                assertEquals(expectedFlows[dest], m.numFlows);
+                assertEquals(expectedTxQueue[dest], m.txQueueTot);
+                assertEquals(expectedFlows[dest] * 10, m.sendCWNDTot);
+            }
+        }
+    }
+
+    private static Map<String, NetworkE2E.destTCPFlowMetrics> sample(
+            TcpTableParser parser, SocketInodeCache sockets, Path table) throws IOException {
+        Map<String, NetworkE2E.destTCPFlowMetrics> out = new HashMap<>();
+        parser.beginSample();
+        parser.parse(table, sockets);
+        parser.endSample(out);
+        return out;
+    }
+
+    private static String destAddress(int dest) {
+        return String.format("%08X", 0x0A000000 + dest);
+    }
+
+    /** Formats a line the way the kernel prints an established socket. */
+    private static String line(
+            int sl,
+            String remAddress,
+            long inode,
+            long txQueue,
+            long rxQueue,
+            long retransmits,
+            long sendCWND,
+            long ssThresh) {
+        return String.format(
+                "%4d: 0100000A:2454 %s:%04X 01 %08X:%08X 00:00000000 %08X  1000        0 %d 1"
+                        + " 0000000000000000 20 4 30 %d %d\n",
+                sl,
+                remAddress,
+                sl & 0xFFFF,
+                txQueue,
+                rxQueue,
+                retransmits,
+                inode,
+                sendCWND,
+                ssThresh);
+    }
+
+    private static void socket(Path fdDir, int fd, long inode) throws IOException {
+        Files.createSymbolicLink(
+                fdDir.resolve(Integer.toString(fd)), Paths.get("socket:[" + inode + "]"));
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+}
@@ -27,11 +27,20 @@
 package org.opensearch.performanceanalyzer.jvm;
 
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadInfo;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import org.opensearch.performanceanalyzer.OSMetricsGeneratorFactory;
+import org.opensearch.performanceanalyzer.collections.LongObjectHashMap;
 import org.opensearch.performanceanalyzer.rca.RcaTestHelper;
 import org.opensearch.performanceanalyzer.rca.framework.metrics.WriterMetrics;
 
@@ -59,4 +68,90 @@ public class ThreadListTest {
             System.setProperty(propertyName, old_clk_tck);
         }
     }
+
+    @Test
+    public void testMatchByComm() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (String name :
+                new String[] {
+                    "opensearch[node-1][search][T#1]",
+                    "opensearch[node-1][search][T#2]",
+                    "short"
+                }) {
+            Thread thread =
+                    new Thread(
+                            () -> {
+                                try {
+                                    done.await();
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                            },
+                            name);
+            thread.start();
+            threads.add(thread);
+        }
+        try {
+            List<ThreadInfo> infos = new ArrayList<>();
+            for (Thread thread : threads) {
+                infos.add(ManagementFactory.getThreadMXBean().getThreadInfo(thread.getId()));
+            }
+
+            // one new tid per name: each is paired with the only candidate of that name
+            LongObjectHashMap<String> comms = new LongObjectHashMap<>();
+            comms.put(101L, "opensearch[node");
+            comms.put(102L, "short");
+            LongObjectHashMap<ThreadInfo> resolved =
+                    ThreadList.matchByComm(comms, infos.subList(1, 3));
+            Assert.assertNotNull(resolved);
+            Assert.assertEquals(threads.get(1).getId(), resolved.get(101L).getThreadId());
+            Assert.assertEquals(threads.get(2).getId(), resolved.get(102L).getThreadId());
+
+            // two candidates share the truncated name, so the tid is ambiguous
+            Assert.assertNull(ThreadList.matchByComm(comms, infos));
+
+            // no java thread carries the name of the tid
+            comms.put(103L, "C2 CompilerThre");
+            Assert.assertNull(ThreadList.matchByComm(comms, infos.subList(1, 3)));
+
+            Assert.assertEquals(
+                    0,
+                    ThreadList.matchByComm(new LongObjectHashMap<>(), Collections.emptyList())
+                            .size());
+        } finally {
+            done.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    public void testToCommTruncatesUtf8Bytes() {
+        Assert.assertEquals("short", ThreadList.toComm("short"));
+        Assert.assertEquals(
+                "opensearch[node", ThreadList.toComm("opensearch[node-1][search][T#1]"));
+        // each of these characters takes three bytes, so only five fit into the comm
+        Assert.assertEquals(
+                "\u4e00\u4e8c\u4e09\u56db\u4e94",
+                ThreadList.toComm("\u4e00\u4e8c\u4e09\u56db\u4e94\u516d"));
+        // the kernel cuts the last character in the middle of its encoding
+        String cut = ThreadList.toComm("ab\u4e00\u4e8c\u4e09\u56db\u4e94");
+        Assert.assertTrue(cut.startsWith("ab\u4e00\u4e8c\u4e09\u56db"));
+        Assert.assertNotEquals("ab\u4e00\u4e8c\u4e09\u56db\u4e94", cut);
+    }
+
+    @Test
+    public void testReadStartTime() throws IOException {
+        File self = new File("/proc/self");
+        Assume.assumeTrue(self.exists());
+        String pid = self.getCanonicalFile().getName();
+        long mainTid = Long.parseLong(pid);
+
+        long startTime = ThreadList.readStartTime(pid, mainTid);
+        Assert.assertTrue(startTime >= 0);
+        Assert.assertEquals(startTime, ThreadList.readStartTime(pid, mainTid));
+        Assert.assertEquals(-1, ThreadList.readStartTime(pid, Long.MAX_VALUE));
+    }
 }
@@ -0,0 +1,225 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metrics.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.grpc.MetricColumn;
+import org.opensearch.performanceanalyzer.grpc.MetricsTable;
+
+public class ClusterMetricsAggregatorTests {
+    private static final List<String> DIMENSIONS = Collections.singletonList("IndexName");
+
+    /** A table of one dimension, with rows of index, value and row count. */
+    private static MetricsTable table(long timestamp, String aggregation, Object... rows) {
+        MetricsTable.Builder table =
+                MetricsTable.newBuilder()
+                        .setTimestamp(timestamp)
+                        .setRowCount(rows.length / 3)
+                        .addAllDimensionNames(DIMENSIONS);
+        MetricColumn.Builder column =
+                MetricColumn.newBuilder().setMetric("CPU_Utilization").setAggregation(aggregation);
+        for (int i = 0; i < rows.length; i += 3) {
+            if (rows[i] == null) {
+                table.addDimensionValues(-1);
+            } else {
+                table.addDimensionValues(table.getDictionaryCount());
+                table.addDictionary((String) rows[i]);
+            }
+            column.addValues((Double) rows[i + 1]);
+            column.addRowCounts((Long) rows[i + 2]);
+        }
+        return table.addMetricColumns(column).build();
+    }
+
+    /** A table of one dimension and two metrics, with rows of index and the two values. */
+    private static MetricsTable twoMetrics(List<String> aggregations, Object... rows) {
+        MetricsTable.Builder table =
+                MetricsTable.newBuilder()
+                        .setTimestamp(10)
+                        .setRowCount(rows.length / 3)
+                        .addAllDimensionNames(DIMENSIONS);
+        MetricColumn.Builder first =
+                MetricColumn.newBuilder()
+                        .setMetric("CPU_Utilization")
+                        .setAggregation(aggregations.get(0));
+        MetricColumn.Builder second =
+                MetricColumn.newBuilder()
+                        .setMetric("Heap_AllocRate")
+                        .setAggregation(aggregations.get(1));
+        for (int i = 0; i < rows.length; i += 3) {
+            table.addDimensionValues(table.getDictionaryCount());
+            table.addDictionary((String) rows[i]);
+            first.addValues((Double) rows[i + 1]).addRowCounts(1L);
+            second.addValues((Double) rows[i + 2]).addRowCounts(1L);
+        }
+        return table.addMetricColumns(first).addMetricColumns(second).build();
+    }
+
+    private static MetricsTable merge(String aggregation, int limit, MetricsTable... tables) {
+        return ClusterMetricsAggregator.merge(
+                Arrays.asList(tables),
+                Collections.singletonList("CPU_Utilization"),
+                Collections.singletonList(aggregation),
+                DIMENSIONS,
+                limit);
+    }
+
+    private static String index(MetricsTable table, int row) {
+        int id = table.getDimensionValues(row);
+        return id < 0 ? null : table.getDictionary(id);
+    }
+
+    private static double value(MetricsTable table, int row) {
+        return table.getMetricColumns(0).getValues(row);
+    }
+
+    @Test
+    public void testSumsMergeAcrossNodes() {
+        MetricsTable merged =
+                merge(
+                        "sum",
+                        0,
+                        table(10, "sum", "logs", 1.0, 1L, "metrics", 2.0, 1L),
+                        table(15, "sum", "logs", 3.0, 1L, null, 4.0, 1L));
+
+        assertEquals(15, merged.getTimestamp());
+        assertEquals(3, merged.getRowCount());
+        assertEquals("logs", index(merged, 0));
+        assertEquals(4.0, value(merged, 0), 0);
+        assertEquals("metrics", index(merged, 1));
+        assertEquals(2.0, value(merged, 1), 0);
+        assertNull(index(merged, 2));
+        assertEquals(4.0, value(merged, 2), 0);
+    }
+
+    @Test
+    public void testAveragesAreWeightedByRowCounts() {
+        MetricsTable merged =
+                merge(
+                        "avg",
+                        0,
+                        table(10, "avg", "logs", 1.0, 3L),
+                        table(10, "avg", "logs", 5.0, 1L, "metrics", Double.NaN, 0L));
+
+        assertEquals(2, merged.getRowCount());
+        assertEquals(2.0, value(merged, 0), 0);
+        assertTrue(Double.isNaN(value(merged, 1)));
+    }
+
+    @Test
+    public void testMinAndMax() {
+        MetricsTable first = table(10, "max", "logs", 1.0, 1L);
+        MetricsTable second = table(10, "max", "logs", 5.0, 1L);
+        assertEquals(5.0, value(merge("max", 0, first, second), 0), 0);
+        assertEquals(1.0, value(merge("min", 0, first, second), 0), 0);
+    }
+
+    @Test
+    public void testLimitKeepsHighestRows() {
+        MetricsTable merged =
+                merge(
+                        "max",
+                        2,
+                        table(10, "max", "a", 1.0, 1L, "b", Double.NaN, 0L, "c", 3.0, 1L),
+                        table(10, "max", "d", 2.0, 1L, "a", 0.5, 1L));
+
+        assertEquals(2, merged.getRowCount());
+        assertEquals("c", index(merged, 0));
+        assertEquals("d", index(merged, 1));
+        assertEquals(2, merged.getDictionaryCount());
+    }
+
+    @Test
+    public void testTopKeepsRowCounts() {
+        MetricsTable top =
+                ClusterMetricsAggregator.top(
+                        table(10, "max", "a", 1.0, 4L, "b", 7.0, 2L, "c", 3.0, 1L), 1);
+
+        assertEquals(1, top.getRowCount());
+        assertEquals("b", index(top, 0));
+        assertEquals(7.0, value(top, 0), 0);
+        assertEquals(2L, top.getMetricColumns(0).getRowCounts(0));
+    }
+
+    @Test
+    public void testEmptyTablesMergeToEmptyResult() {
+        MetricsTable merged =
+                merge(
+                        "sum",
+                        0,
+                        MetricsTable.newBuilder().setTimestamp(5).build(),
+                        MetricsTable.newBuilder().setTimestamp(10).build());
+
+        assertEquals(10, merged.getTimestamp());
+        assertEquals(0, merged.getMetricColumnsCount());
+    }
+
+    @Test
+    public void testLimitPushDown() {
+        assertTrue(ClusterMetricsAggregator.canPushDownLimit(Collections.singletonList("max")));
+        assertFalse(ClusterMetricsAggregator.canPushDownLimit(Collections.singletonList("sum")));
+        assertFalse(ClusterMetricsAggregator.canPushDownLimit(Arrays.asList("max", "sum")));
+        assertFalse(ClusterMetricsAggregator.canPushDownLimit(Arrays.asList("max", "max")));
+        assertFalse(ClusterMetricsAggregator.canPushDownLimit(Arrays.asList("sum", "max")));
+        assertFalse(ClusterMetricsAggregator.canPushDownLimit(Collections.emptyList()));
+    }
+
+    @Test
+    public void testLimitWithMixedAggregationsKeepsEveryNodeRow() {
+        List<String> metrics = Arrays.asList("CPU_Utilization", "Heap_AllocRate");
+        List<String> aggregations = Arrays.asList("max", "sum");
+        // "a" ranks first on the first node and last on the second one.
+        List<MetricsTable> nodes =
+                Arrays.asList(
+                        twoMetrics(
+                                aggregations, "a", 9.0, 1.0, "b", 2.0, 10.0, "c", 1.0, 10.0),
+                        twoMetrics(
+                                aggregations, "b", 5.0, 10.0, "c", 4.0, 10.0, "a", 0.5, 7.0));
+        List<MetricsTable> tables = new ArrayList<>();
+        int nodeLimit = ClusterMetricsAggregator.canPushDownLimit(aggregations) ? 1 : 0;
+        for (MetricsTable node : nodes) {
+            tables.add(ClusterMetricsAggregator.top(node, nodeLimit));
+        }
+
+        MetricsTable merged =
+                ClusterMetricsAggregator.merge(tables, metrics, aggregations, DIMENSIONS, 1);
+
+        assertEquals(1, merged.getRowCount());
+        assertEquals("a", index(merged, 0));
+        assertEquals(9.0, merged.getMetricColumns(0).getValues(0), 0);
+        assertEquals(8.0, merged.getMetricColumns(1).getValues(0), 0);
+    }
+}
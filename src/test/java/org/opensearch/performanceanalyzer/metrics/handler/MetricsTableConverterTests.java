@@ -0,0 +1,127 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metrics.handler;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.grpc.MetricsResponse;
+import org.opensearch.performanceanalyzer.grpc.MetricsTable;
+
+public class MetricsTableConverterTests {
+    private final DSLContext create = DSL.using(SQLDialect.SQLITE);
+    private final Field<String> shard = DSL.field(DSL.name("ShardID"), String.class);
+    private final Field<String> index = DSL.field(DSL.name("IndexName"), String.class);
+    private final Field<Double> cpu = DSL.field(DSL.name("CPU_Utilization"), Double.class);
+    private final List<String> metrics = Collections.singletonList("CPU_Utilization");
+    private final List<String> aggregations = Collections.singletonList("avg");
+    private final List<String> dimensions = Arrays.asList("ShardID", "IndexName");
+
+    private Result<Record> result(int rows) {
+        Result<Record> result = create.newResult(new Field<?>[] {shard, index, cpu});
+        for (int i = 0; i < rows; i++) {
+            Record record = create.newRecord(shard, index, cpu);
+            record.set(shard, String.valueOf(i % 3));
+            record.set(index, i % 4 == 0 ? null : "logs/\"" + (i % 2) + "\"\n");
+            record.set(cpu, i % 5 == 0 ? null : i * 0.5);
+            result.add(record);
+        }
+        return result;
+    }
+
+    private static String json(List<MetricsTable> tables) {
+        List<MetricsResponse> responses = new ArrayList<>();
+        for (MetricsTable table : tables) {
+            responses.add(MetricsResponse.newBuilder().setMetricsTable(table).build());
+        }
+        StringBuilder out = new StringBuilder();
+        MetricsTableConverter.appendJson(out, responses);
+        return out.toString();
+    }
+
+    @Test
+    public void testTableRendersAsFormattedResult() {
+        Result<Record> result = result(10);
+        MetricsTable table =
+                MetricsTableConverter.toTable(5L, result, metrics, aggregations, dimensions);
+
+        assertEquals(10, table.getRowCount());
+        assertEquals(20, table.getDimensionValuesCount());
+        assertEquals(5, table.getDictionaryCount());
+        assertEquals(
+                "{\"timestamp\": 5, \"data\": " + result.formatJSON() + "}",
+                json(Collections.singletonList(table)));
+    }
+
+    @Test
+    public void testChunkedTablesRenderAsOneResult() {
+        Result<Record> result = result(10);
+        List<MetricsTable> tables =
+                MetricsTableConverter.toTables(
+                        5L, result, metrics, aggregations, dimensions, false, 4);
+
+        assertEquals(3, tables.size());
+        assertEquals(2, tables.get(2).getRowCount());
+        assertEquals("{\"timestamp\": 5, \"data\": " + result.formatJSON() + "}", json(tables));
+    }
+
+    @Test
+    public void testMissingAndEmptyResults() {
+        List<MetricsTable> tables =
+                MetricsTableConverter.toTables(
+                        5L, null, metrics, aggregations, dimensions, false, 4);
+        assertEquals(1, tables.size());
+        assertEquals("{\"timestamp\": 5, \"data\": {}}", json(tables));
+
+        Result<Record> empty = result(0);
+        tables =
+                MetricsTableConverter.toTables(
+                        5L, empty, metrics, aggregations, dimensions, false, 4);
+        assertEquals(1, tables.size());
+        assertEquals("{\"timestamp\": 5, \"data\": " + empty.formatJSON() + "}", json(tables));
+    }
+
+    @Test
+    public void testLegacyResponse() {
+        StringBuilder out = new StringBuilder();
+        MetricsTableConverter.appendJson(
+                out,
+                Collections.singletonList(
+                        MetricsResponse.newBuilder().setMetricsResult("{'xyz':'abc'}").build()));
+        assertEquals("{'xyz':'abc'}", out.toString());
+    }
+}
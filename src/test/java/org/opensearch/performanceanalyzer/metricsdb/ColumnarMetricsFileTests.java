@@ -0,0 +1,209 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metricsdb;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jooq.BatchBindStep;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColumnarMetricsFileTests {
+    private MetricsDB db;
+    private long timestamp;
+
+    public ColumnarMetricsFileTests() throws ClassNotFoundException {
+        Class.forName("org.sqlite.JDBC");
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty("java.io.tmpdir", "/tmp");
+        timestamp = 1553713380L;
+        db = new MetricsDB(timestamp);
+        List<String> columns = Arrays.asList("shard", "index");
+        db.createMetric(Metric.cpu(10D), columns);
+        db.createMetric(Metric.rss(10D), columns);
+        put(db, Metric.cpu(10D), "1", "ac-test");
+        put(db, Metric.cpu(4D), "2", "ac-test");
+        put(db, Metric.cpu(6D), "1", "ac-test");
+        put(db, Metric.cpu(3D), null, "other");
+        put(db, Metric.rss(7D), "1", "ac-test");
+        put(db, Metric.rss(9D), "3", "ac-test");
+        db.commit();
+        ColumnarMetricsFile.write(db, timestamp);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.remove();
+        MetricsDBTests.deleteAll();
+    }
+
+    @Test
+    public void testQueryMetricWithLimit() throws Exception {
+        ColumnarMetricsFile file = ColumnarMetricsFile.fetchExisting(timestamp);
+        List<String> dimensions = Arrays.asList("index", "shard");
+        assertSameRows(
+                db.queryMetric("cpu", dimensions, 10), file.queryMetric("cpu", dimensions, 10));
+        assertSameRows(
+                db.queryMetric("cpu", dimensions, 2), file.queryMetric("cpu", dimensions, 2));
+        assertNull(file.queryMetric("paging", dimensions, 10));
+        assertTrue(file.metricExists("rss"));
+        assertFalse(file.metricExists("paging"));
+        file.remove();
+    }
+
+    @Test
+    public void testQueryMetricAggregations() throws Exception {
+        ColumnarMetricsFile file = ColumnarMetricsFile.fetchExisting(timestamp);
+        for (String agg : MetricsDB.AGG_VALUES) {
+            List<String> metrics = Arrays.asList("cpu", "rss", "paging");
+            List<String> aggs = Arrays.asList(agg, agg, agg);
+            assertSameRows(
+                    db.queryMetric(metrics, aggs, Arrays.asList("shard", "index")),
+                    file.queryMetric(metrics, aggs, Arrays.asList("shard", "index")));
+            assertSameRows(
+                    db.queryMetric(metrics, aggs, Arrays.asList()),
+                    file.queryMetric(metrics, aggs, Arrays.asList()));
+        }
+        assertNull(
+                file.queryMetric(
+                        Arrays.asList("paging"), Arrays.asList("sum"), Arrays.asList("shard")));
+        file.remove();
+    }
+
+    @Test
+    public void testGetAggregatedMetricTables() throws Exception {
+        ColumnarMetricsFile file = ColumnarMetricsFile.fetchExisting(timestamp);
+        List<Result<Record>> tables =
+                file.getAggregatedMetricTables(
+                        Arrays.asList("cpu", "paging"),
+                        Arrays.asList("sum", "max"),
+                        Arrays.asList("shard"));
+        assertEquals(2, tables.size());
+        assertNull(tables.get(1));
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(null, 3D),
+                        Arrays.asList("1", 16D),
+                        Arrays.asList("2", 4D)),
+                rows(tables.get(0)));
+        file.remove();
+    }
+
+    @Test(expected = Exception.class)
+    public void testUnknownAggregation() throws Exception {
+        ColumnarMetricsFile file = ColumnarMetricsFile.fetchExisting(timestamp);
+        try {
+            file.queryMetric(Arrays.asList("cpu"), Arrays.asList("p99"), Arrays.asList("shard"));
+        } finally {
+            file.remove();
+        }
+    }
+
+    @Test
+    public void testWriteFromColumnarCopy() throws Exception {
+        long copyTimestamp = timestamp + 5000;
+        MetricsDB copyDB = new MetricsDB(copyTimestamp);
+        try {
+            copyDB.keepColumnarCopy();
+            List<String> columns = Arrays.asList("shard", "index");
+            copyDB.createMetric(Metric.cpu(10D), columns);
+            copyDB.createMetric(new Metric<Double>("paging", 0D), columns);
+            copyDB.createMetric(Metric.rss(10D), columns);
+            put(copyDB, Metric.cpu(10D), "1", "ac-test");
+            put(copyDB, Metric.cpu(3D), null, "other");
+            BatchBindStep handle = copyDB.startBatchPut(Metric.rss(0D), columns);
+            handle.bind("1", "ac-test", 7D, 7D, 7D, 7D);
+            handle.bind(null, "other", 1L, 1L, 1L, 1L);
+            handle.execute();
+            handle = copyDB.startBatchPut("rss", columns.size() + 4);
+            handle.bind("3", "ac-test", 9D, 9D, null, 9D);
+            handle.execute();
+            // Rows of a batch that is never executed are neither in sqlite nor in the copy.
+            copyDB.startBatchPut(Metric.cpu(0D), columns).bind("4", "ac-test", 1D, 1D, 1D, 1D);
+            copyDB.commit();
+            assertNotNull(copyDB.getColumnarCopy());
+
+            ColumnarMetricsFile.write(copyDB, copyTimestamp);
+            byte[] fromCopy =
+                    Files.readAllBytes(Paths.get(ColumnarMetricsFile.getFilePath(copyTimestamp)));
+            copyDB.dropColumnarCopy();
+            ColumnarMetricsFile.write(copyDB, copyTimestamp);
+            byte[] fromSqlite =
+                    Files.readAllBytes(Paths.get(ColumnarMetricsFile.getFilePath(copyTimestamp)));
+            assertArrayEquals(fromSqlite, fromCopy);
+        } finally {
+            copyDB.remove();
+        }
+    }
+
+    @Test
+    public void testDeleteOnDiskFile() {
+        assertTrue(ColumnarMetricsFile.exists(timestamp));
+        MetricsDB.deleteOnDiskFile(timestamp);
+        assertFalse(ColumnarMetricsFile.exists(timestamp));
+    }
+
+    private static void put(MetricsDB db, Metric<Double> metric, String shard, String index) {
+        Dimensions dimensions = new Dimensions();
+        dimensions.put("shard", shard);
+        dimensions.put("index", index);
+        db.putMetric(metric, dimensions, 0);
+    }
+
+    private static void assertSameRows(Result<Record> expected, Result<Record> actual) {
+        assertEquals(rows(expected), rows(actual));
+    }
+
+    private static List<List<Object>> rows(Result<Record> result) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Record record : result) {
+            List<Object> row = new ArrayList<>();
+            for (int i = 0; i < record.size(); i++) {
+                Object value = record.get(i);
+                row.add(value instanceof Number ? ((Number) value).doubleValue() : value);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -151,6 +151,37 @@ public class MetricsDBTests {
         db.close();
     }
 
+    @Test
+    public void testQueryMetricPartials() throws Exception {
+        List<String> columns = Arrays.asList("shard", "index");
+        db.createMetric(Metric.cpu(10D), columns);
+        db.createMetric(Metric.rss(10D), columns);
+        putCPUMetric(db, 10D, "1", "ac-test");
+        putCPUMetric(db, 4D, "1", "ac-test");
+        putCPUMetric(db, 6D, "2", "ac-test");
+        putRSSMetric(db, 1D, "1", "ac-test");
+        Result<Record> res =
+                db.queryMetricPartials(
+                        Arrays.asList("cpu", "rss"),
+                        Arrays.asList("avg", "sum"),
+                        Arrays.asList("shard", "index"));
+        assertEquals(2, res.size());
+        for (Record r : res) {
+            if (r.get("shard").toString().equals("1")) {
+                assertEquals(7D, Double.parseDouble(r.get("cpu").toString()), 0);
+                assertEquals(2D, Double.parseDouble(r.get("cpu_rows").toString()), 0);
+                assertEquals(1D, Double.parseDouble(r.get("rss").toString()), 0);
+                assertEquals(1D, Double.parseDouble(r.get("rss_rows").toString()), 0);
+            } else {
+                assertEquals(6D, Double.parseDouble(r.get("cpu").toString()), 0);
+                assertEquals(1D, Double.parseDouble(r.get("cpu_rows").toString()), 0);
+                assertNull(r.get("rss"));
+                assertNull(r.get("rss_rows"));
+            }
+        }
+        db.close();
+    }
+
     @Test
     public void testMultiMetricOuterJoin() throws Exception {
         List<String> columns = Arrays.asList("shard", "index");
@@ -0,0 +1,163 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.metricsdb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jooq.BatchBindStep;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsRollupStore.Resolution;
+
+public class MetricsRollupStoreTests {
+    private static final long BASE = 1566410400000L;
+    private static final List<String> DIMENSIONS = Arrays.asList("shard", "index");
+
+    private MetricsRollupStore store;
+
+    public MetricsRollupStoreTests() throws ClassNotFoundException {
+        Class.forName("org.sqlite.JDBC");
+    }
+
+    @Before
+    public void setUp() {
+        System.setProperty("java.io.tmpdir", "/tmp");
+        MetricsDBTests.deleteAll();
+        store = new MetricsRollupStore(10080);
+    }
+
+    @After
+    public void tearDown() {
+        MetricsDBTests.deleteAll();
+    }
+
+    @Test
+    public void testRollUp() throws Exception {
+        addWindow(BASE, new Object[] {"1", "idx", 10D, 5D, 2D, 8D});
+        addWindow(
+                BASE + 5000,
+                new Object[] {"1", "idx", 20D, 15D, 1D, 9D},
+                new Object[] {"2", "idx", 4D, 4D, 4D, 4D});
+        assertTrue(store.getRollups(Resolution.ONE_MINUTE).isEmpty());
+
+        addWindow(BASE + 60000, new Object[] {"1", "idx", 1D, 1D, 1D, 1D});
+        assertEquals(Arrays.asList(BASE), new ArrayList<>(store.getRollups(Resolution.ONE_MINUTE)));
+        assertTrue(store.getRollups(Resolution.TEN_MINUTES).isEmpty());
+
+        ColumnarMetricsFile minute = MetricsRollupStore.fetchExisting(Resolution.ONE_MINUTE, BASE);
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList("1", 30D, 10D, 1D, 9D), Arrays.asList("2", 4D, 4D, 4D, 4D)),
+                rows(minute.queryMetric("cpu", Arrays.asList("shard"), 10)));
+        assertNull(minute.queryMetric("rss", Arrays.asList("shard"), 10));
+        minute.remove();
+
+        addWindow(BASE + 600000, new Object[] {"1", "idx", 1D, 1D, 1D, 1D});
+        assertEquals(
+                Arrays.asList(BASE, BASE + 60000),
+                new ArrayList<>(store.getRollups(Resolution.ONE_MINUTE)));
+        ColumnarMetricsFile tenMinutes =
+                MetricsRollupStore.fetchExisting(Resolution.TEN_MINUTES, BASE);
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList("1", 31D, 7D, 1D, 9D), Arrays.asList("2", 4D, 4D, 4D, 4D)),
+                rows(tenMinutes.queryMetric("cpu", Arrays.asList("shard"), 10)));
+        tenMinutes.remove();
+    }
+
+    @Test
+    public void testAvgIsWeightedByRowCount() throws Exception {
+        addWindow(
+                BASE,
+                new Object[] {"1", "idx", 10D, 10D, 10D, 10D},
+                new Object[] {"2", "idx", 1D, 1D, 1D, 1D});
+        addWindow(BASE + 5000, new Object[] {"1", "idx", 10D, 10D, 10D, 10D});
+        addWindow(BASE + 10000, new Object[] {"1", "idx", 10D, 10D, 10D, 10D});
+        addWindow(BASE + 60000, new Object[] {"1", "idx", 1D, 1D, 1D, 1D});
+
+        ColumnarMetricsFile minute = MetricsRollupStore.fetchExisting(Resolution.ONE_MINUTE, BASE);
+        // Shard 1 stands for three rows and shard 2 for one.
+        assertEquals(
+                Arrays.asList(Arrays.asList("idx", 7.75D)),
+                rows(
+                        minute.getAggregatedMetricTables(
+                                        Arrays.asList("cpu"),
+                                        Arrays.asList("avg"),
+                                        Arrays.asList("index"))
+                                .get(0)));
+        assertEquals(
+                Arrays.asList(Arrays.asList("idx", 31D)),
+                rows(
+                        minute.getAggregatedMetricTables(
+                                        Arrays.asList("cpu"),
+                                        Arrays.asList("sum"),
+                                        Arrays.asList("index"))
+                                .get(0)));
+        minute.remove();
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        store = new MetricsRollupStore(1);
+        addWindow(BASE, new Object[] {"1", "idx", 1D, 1D, 1D, 1D});
+        addWindow(BASE + 60000, new Object[] {"1", "idx", 1D, 1D, 1D, 1D});
+        assertEquals(Arrays.asList(BASE), new ArrayList<>(store.getRollups(Resolution.ONE_MINUTE)));
+        addWindow(BASE + 120000, new Object[] {"1", "idx", 1D, 1D, 1D, 1D});
+        assertEquals(
+                Arrays.asList(BASE + 60000),
+                new ArrayList<>(store.getRollups(Resolution.ONE_MINUTE)));
+    }
+
+    private void addWindow(long windowStartTime, Object[]... rows) throws Exception {
+        MetricsDB db = new MetricsDB(windowStartTime);
+        db.createMetric(Metric.cpu(0D), DIMENSIONS);
+        BatchBindStep handle = db.startBatchPut(Metric.cpu(0D), DIMENSIONS);
+        for (Object[] row : rows) {
+            handle.bind(row);
+        }
+        handle.execute();
+        db.commit();
+        store.addWindow(db, windowStartTime);
+        db.remove();
+    }
+
+    private static List<List<Object>> rows(Result<Record> result) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Record record : result) {
+            rows.add(Arrays.asList(record.intoArray()));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.grpc.MetricsRequest;
+import org.opensearch.performanceanalyzer.grpc.MetricsResponse;
+import org.opensearch.performanceanalyzer.rca.framework.util.InstanceDetails;
+
+public class MetricsFanOutTests {
+    private static final MetricsRequest REQUEST =
+            MetricsRequest.newBuilder().addMetricList("CPU_Utilization").addAggList("sum").build();
+
+    private MetricsFanOut fanOut;
+
+    /** Answers, fails or ignores a request depending on the id of the node and the attempt. */
+    private static class FakeNetClient extends NetClient {
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        FakeNetClient() {
+            super(null);
+        }
+
+        @Override
+        public void getMetrics(
+                InstanceDetails node,
+                MetricsRequest request,
+                StreamObserver<MetricsResponse> observer,
+                long deadlineMillis) {
+            String id = node.getInstanceId().toString();
+            int call = calls.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+            if (id.startsWith("silent") || (id.startsWith("slow") && call == 1)) {
+                return;
+            }
+            if (id.startsWith("fail") || (id.startsWith("flaky") && call == 1)) {
+                observer.onError(Status.UNAVAILABLE.asRuntimeException());
+                return;
+            }
+            observer.onNext(MetricsResponse.newBuilder().setMetricsResult(id).build());
+            observer.onCompleted();
+        }
+
+        int calls(String id) {
+            AtomicInteger count = calls.get(id);
+            return count == null ? 0 : count.get();
+        }
+    }
+
+    private static List<InstanceDetails> nodes(String... ids) {
+        InstanceDetails[] nodes = new InstanceDetails[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            nodes[i] =
+                    new InstanceDetails(
+                            new InstanceDetails.Id(ids[i]), new InstanceDetails.Ip("127.0.0.1"), 0);
+        }
+        return Arrays.asList(nodes);
+    }
+
+    @After
+    public void tearDown() {
+        if (fanOut != null) {
+            fanOut.stop();
+        }
+    }
+
+    @Test
+    public void testPartialResult() throws Exception {
+        fanOut = new MetricsFanOut(new FakeNetClient(), false, 4, 200, 0);
+        ConcurrentHashMap<String, List<MetricsResponse>> responses = new ConcurrentHashMap<>();
+
+        MetricsFanOut.Outcome outcome =
+                fanOut.collect(nodes("fast", "silent", "fail"), REQUEST, responses);
+
+        assertEquals(Collections.singleton("fast"), responses.keySet());
+        assertEquals("fast", responses.get("fast").get(0).getMetricsResult());
+        assertTrue(outcome.isPartial());
+        assertEquals(Collections.singletonList("silent"), outcome.getTimedOutNodes());
+        assertTrue(outcome.getUnsentNodes().isEmpty());
+        assertEquals(Collections.singletonList("fail"), outcome.getFailedNodes());
+        assertEquals(4, fanOut.availableInFlightPermits());
+        assertNotNull(fanOut.getLatencyHistogram("fast"));
+        assertEquals(1, fanOut.getLatencyHistogram("fast").getCount());
+    }
+
+    @Test
+    public void testInFlightRequestsAreBounded() throws Exception {
+        FakeNetClient netClient = new FakeNetClient();
+        fanOut = new MetricsFanOut(netClient, false, 1, 100, 0);
+        ConcurrentHashMap<String, List<MetricsResponse>> responses = new ConcurrentHashMap<>();
+
+        MetricsFanOut.Outcome outcome = fanOut.collect(nodes("silent", "fast"), REQUEST, responses);
+
+        assertTrue(responses.isEmpty());
+        assertEquals(Arrays.asList("silent", "fast"), outcome.getTimedOutNodes());
+        assertEquals(Collections.singletonList("fast"), outcome.getUnsentNodes());
+        assertEquals(0, netClient.calls("fast"));
+        assertEquals(1, fanOut.availableInFlightPermits());
+    }
+
+    @Test
+    public void testSlowNodeIsHedged() throws Exception {
+        FakeNetClient netClient = new FakeNetClient();
+        fanOut = new MetricsFanOut(netClient, false, 4, 2000, 20);
+        ConcurrentHashMap<String, List<MetricsResponse>> responses = new ConcurrentHashMap<>();
+
+        MetricsFanOut.Outcome outcome = fanOut.collect(nodes("slow", "fast"), REQUEST, responses);
+
+        assertFalse(outcome.isPartial());
+        assertEquals(2, responses.size());
+        assertEquals(2, netClient.calls("slow"));
+        assertEquals(1, netClient.calls("fast"));
+        assertEquals(4, fanOut.availableInFlightPermits());
+    }
+
+    @Test
+    public void testFailedRequestIsRetried() throws Exception {
+        FakeNetClient netClient = new FakeNetClient();
+        fanOut = new MetricsFanOut(netClient, false, 4, 2000, 1000);
+        ConcurrentHashMap<String, List<MetricsResponse>> responses = new ConcurrentHashMap<>();
+
+        MetricsFanOut.Outcome outcome = fanOut.collect(nodes("flaky", "fail"), REQUEST, responses);
+
+        assertEquals(Collections.singleton("flaky"), responses.keySet());
+        assertEquals(2, netClient.calls("flaky"));
+        assertEquals(2, netClient.calls("fail"));
+        assertEquals(Collections.singletonList("fail"), outcome.getFailedNodes());
+        assertTrue(outcome.getTimedOutNodes().isEmpty());
+        assertEquals(4, fanOut.availableInFlightPermits());
+    }
+
+    @Test
+    public void testLatencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0.5));
+        for (int i = 0; i < 90; i++) {
+            histogram.record(3);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(4, histogram.getPercentile(0.5));
+        assertEquals(4, histogram.getPercentile(0.9));
+        assertEquals(128, histogram.getPercentile(0.95));
+        assertEquals(90, histogram.getBucketCounts()[2]);
+    }
+}
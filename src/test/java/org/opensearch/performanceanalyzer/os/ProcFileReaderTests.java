@@ -0,0 +1,152 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.os;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProcFileReaderTests {
+    private static final String STAT =
+            "4242 (opensearch[node] (write)) S 1 1 1 0 -1 4194624 17 0 3 0 120 45 0 0 20 0 80 0 "
+                    + "9 123456 789 18446744073709551615 1 1 0 0 0 0 0 0 0 0 0 0 17 3 0 0 0 0 0\n";
+    private static final String SCHEDSTAT = "1000000 2000000 50\n";
+    private static final String IO =
+            "rchar: 300\nwchar: 400\nsyscr: 5\nsyscw: 6\nread_bytes: 100\n"
+                    + "write_bytes: 200\ncancelled_write_bytes: 7\n";
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private ProcFileReader reader;
+
+    @Before
+    public void setUp() {
+        reader = new ProcFileReader();
+    }
+
+    @Test
+    public void testParseStatWithSpacesInThreadName() throws IOException {
+        TidSampleTable table = new TidSampleTable("1", "stat", ThreadCPU.STAT_WIDTH);
+        table.beginSample();
+        int slot = table.acquire("4242");
+        assertTrue(reader.read(write(STAT)));
+        assertTrue(ThreadCPU.parseStat(reader, table, slot));
+        assertEquals(17, table.get(slot, ThreadCPU.MINFLT));
+        assertEquals(3, table.get(slot, ThreadCPU.MAJFLT));
+        assertEquals(120, table.get(slot, ThreadCPU.UTIME));
+        assertEquals(45, table.get(slot, ThreadCPU.STIME));
+        assertEquals(789, table.get(slot, ThreadCPU.RSS));
+    }
+
+    @Test
+    public void testParseSchedstat() throws IOException {
+        TidSampleTable table = new TidSampleTable("1", "schedstat", ThreadSched.SCHED_WIDTH);
+        table.beginSample();
+        int slot = table.acquire("7");
+        assertTrue(reader.read(write(SCHEDSTAT)));
+        assertTrue(ThreadSched.parseSchedstat(reader, table, slot));
+        assertEquals(1000000, table.get(slot, ThreadSched.RUNTICKS));
+        assertEquals(2000000, table.get(slot, ThreadSched.WAITTICKS));
+        assertEquals(50, table.get(slot, ThreadSched.TOTCTXSWS));
+    }
+
+    @Test
+    public void testParseIO() throws IOException {
+        TidSampleTable table = new TidSampleTable("1", "io", ThreadDiskIO.IO_WIDTH);
+        table.beginSample();
+        int slot = table.acquire("7");
+        assertTrue(reader.read(write(IO)));
+        assertTrue(ThreadDiskIO.parseIO(reader, table, slot));
+        assertEquals(300, table.get(slot, ThreadDiskIO.RCHAR));
+        assertEquals(400, table.get(slot, ThreadDiskIO.WCHAR));
+        assertEquals(5, table.get(slot, ThreadDiskIO.SYSCR));
+        assertEquals(6, table.get(slot, ThreadDiskIO.SYSCW));
+        assertEquals(100, table.get(slot, ThreadDiskIO.READ_BYTES));
+        assertEquals(200, table.get(slot, ThreadDiskIO.WRITE_BYTES));
+
+        assertTrue(reader.read(write("rchar: 300\nwchar: 400\n")));
+        assertFalse(ThreadDiskIO.parseIO(reader, table, slot));
+    }
+
+    @Test
+    public void testMissingFile() {
+        assertFalse(reader.read(new File(folder.getRoot(), "gone").toPath()));
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    public void testTableDeltasAndDeadTids() {
+        TidSampleTable table = new TidSampleTable("1", "schedstat", 1);
+        table.beginSample();
+        for (int tid = 1; tid <= 1000; tid++) {
+            int slot = table.acquire(String.valueOf(tid));
+            assertFalse(table.hasPrevious(slot));
+            table.set(slot, 0, tid);
+        }
+        assertEquals(-1, table.acquire("1"));
+        assertEquals(-1, table.acquire("abc"));
+        table.endSample();
+        assertEquals(1000, table.size());
+
+        // only even tids survive into the next sample
+        table.beginSample();
+        for (int tid = 2; tid <= 1000; tid += 2) {
+            int slot = table.acquire(String.valueOf(tid));
+            assertTrue(table.hasPrevious(slot));
+            table.set(slot, 0, tid * 3L);
+            assertEquals(tid * 2L, table.delta(slot, 0));
+        }
+        int discarded = table.acquire("999");
+        table.discard(discarded);
+        table.endSample();
+        assertEquals(500, table.size());
+
+        table.beginSample();
+        int slot = table.acquire("999");
+        assertFalse(table.hasPrevious(slot));
+        slot = table.acquire("500");
+        assertTrue(table.hasPrevious(slot));
+        assertEquals("500", table.getTid(slot));
+        assertEquals(1500, table.get(slot, 0));
+    }
+
+    private Path write(String content) throws IOException {
+        Path path = folder.newFile().toPath();
+        Files.write(path, content.getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+}
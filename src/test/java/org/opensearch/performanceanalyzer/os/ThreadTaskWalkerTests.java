@@ -0,0 +1,59 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.os;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.metrics_generator.linux.LinuxCPUPagingActivityGenerator;
+import org.opensearch.performanceanalyzer.metrics_generator.linux.LinuxDiskIOMetricsGenerator;
+import org.opensearch.performanceanalyzer.metrics_generator.linux.LinuxSchedMetricsGenerator;
+
+public class ThreadTaskWalkerTests {
+
+    @Test
+    public void testWalkFeedsAllThreadSamplers() throws Exception {
+        walkTwice(0);
+        walkTwice(2);
+    }
+
+    private void walkTwice(int threads) throws InterruptedException {
+        ThreadTaskWalker.INSTANCE.addSample(threads);
+        Thread.sleep(20);
+        ThreadTaskWalker.INSTANCE.addSample(threads);
+
+        String pid = OSGlobals.getPid();
+        LinuxCPUPagingActivityGenerator cpu = ThreadCPU.INSTANCE.getCPUPagingActivity();
+        assertTrue(cpu.getAllThreadIds().contains(pid));
+        assertTrue(cpu.hasPagingActivity(pid));
+        LinuxSchedMetricsGenerator sched =
+                (LinuxSchedMetricsGenerator) ThreadSched.INSTANCE.getSchedLatency();
+        assertTrue(sched.hasSchedMetrics(pid));
+        LinuxDiskIOMetricsGenerator io = ThreadDiskIO.getIOUtilization();
+        assertTrue(io.hasDiskIOMetrics(pid));
+    }
+}
@@ -189,7 +189,7 @@ public class RcaControllerTest {
         }
         netOperationsExecutor.shutdown();
         netOperationsExecutor.awaitTermination(1, TimeUnit.MINUTES);
-        clientServers.getHttpServer().stop(0);
+        clientServers.stopHttpServer(0);
         clientServers.getNetClient().stop();
         clientServers.getNetServer().stop();
 
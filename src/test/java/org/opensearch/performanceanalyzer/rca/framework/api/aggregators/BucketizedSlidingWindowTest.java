@@ -100,11 +100,8 @@ public class BucketizedSlidingWindowTest {
                 new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 11), 11));
         slidingWindow.next(new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 9), 9));
         slidingWindow.next(new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 7), 7));
-        assertEquals(
-                3,
-                slidingWindow.windowDeque
-                        .size()); // we cannot call slidingWindow.size() as it also prunes expired
-        // elements
+        // we cannot call slidingWindow.size() as it also prunes expired elements
+        assertEquals(3, slidingWindow.storedEntries());
         assertEquals((double) (9 + 7) / (double) 2, slidingWindow.readAvg(), 0.00000001);
         assertEquals(2, slidingWindow.size());
     }
@@ -129,11 +126,8 @@ public class BucketizedSlidingWindowTest {
                 new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 11), 11));
         slidingWindow.next(new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 9), 9));
         slidingWindow.next(new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 7), 5));
-        assertEquals(
-                3,
-                slidingWindow.windowDeque
-                        .size()); // we cannot call slidingWindow.size() as it also prunes expired
-        // elements
+        // we cannot call slidingWindow.size() as it also prunes expired elements
+        assertEquals(3, slidingWindow.storedEntries());
         assertEquals(
                 (double) (9 + 5) / (double) 2, slidingWindow.readAvg(TimeUnit.SECONDS), 0.00000001);
         assertEquals(2, slidingWindow.size());
@@ -159,11 +153,8 @@ public class BucketizedSlidingWindowTest {
                 new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 11), 11));
         slidingWindow.next(new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 9), 9));
         slidingWindow.next(new SlidingWindowData(TimeUnit.SECONDS.toMillis(currTimeInSecs - 7), 5));
-        assertEquals(
-                3,
-                slidingWindow.windowDeque
-                        .size()); // we cannot call slidingWindow.size() as it also prunes expired
-        // elements
+        // we cannot call slidingWindow.size() as it also prunes expired elements
+        assertEquals(3, slidingWindow.storedEntries());
         assertEquals((double) (9 + 5), slidingWindow.readSum(), 0.00000001);
         assertEquals(2, slidingWindow.size());
     }
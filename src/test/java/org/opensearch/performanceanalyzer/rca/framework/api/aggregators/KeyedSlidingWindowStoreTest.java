@@ -0,0 +1,110 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.rca.framework.api.aggregators;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.opensearch.performanceanalyzer.rca.GradleTaskForRca;
+
+@Category(GradleTaskForRca.class)
+public class KeyedSlidingWindowStoreTest {
+    private static final long TTL = TimeUnit.MINUTES.toMillis(2);
+
+    private KeyedSlidingWindowStore<String> newStore() {
+        return new KeyedSlidingWindowStore<>(
+                2, 60, TimeUnit.SECONDS, TimeUnit.SECONDS.toMillis(5), TTL);
+    }
+
+    @Test
+    public void testColumnsPerKey() {
+        KeyedSlidingWindowStore<String> store = newStore();
+        store.next("a", 0, 0, 1);
+        store.next("a", 0, 1000, 3);
+        store.next("a", 1, 1000, 10);
+        store.next("b", 1, 0, 7);
+
+        Assert.assertEquals(2, store.size());
+        KeyedSlidingWindowStore.Entry<String> a = store.get("a");
+        Assert.assertEquals(4, a.getWindow(0).readSum(), 0.0);
+        Assert.assertEquals(4, a.readAvg(0, TimeUnit.SECONDS, -1), 0.0);
+        Assert.assertEquals(10, a.getWindow(1).readSum(), 0.0);
+        Assert.assertEquals(1000, a.getLastUpdated());
+
+        KeyedSlidingWindowStore.Entry<String> b = store.get("b");
+        Assert.assertNull(b.getWindow(0));
+        Assert.assertEquals(-1, b.readAvg(0, TimeUnit.SECONDS, -1), 0.0);
+        Assert.assertNull(store.get("c"));
+    }
+
+    @Test
+    public void testKeepsFirstKeyInstance() {
+        KeyedSlidingWindowStore<String> store = newStore();
+        String first = new String("index][0");
+        store.next(first, 0, 0, 1);
+        store.next(new String("index][0"), 0, 1000, 1);
+        Assert.assertEquals(1, store.size());
+        Assert.assertSame(first, store.entries().iterator().next().getKey());
+    }
+
+    @Test
+    public void testEvictIdle() {
+        KeyedSlidingWindowStore<String> store = newStore();
+        store.next("a", 0, 0, 1);
+        store.next("b", 0, 0, 1);
+        store.next("c", 1, 0, 1);
+        store.next("b", 1, TimeUnit.MINUTES.toMillis(1), 1);
+
+        Assert.assertEquals(0, store.evictIdle(TTL));
+        Assert.assertEquals(2, store.evictIdle(TTL + 1));
+        Assert.assertEquals(1, store.size());
+        Assert.assertNotNull(store.get("b"));
+
+        // an evicted key starts over with empty windows
+        store.next("a", 0, TTL + 2, 5);
+        Assert.assertEquals(5, store.get("a").getWindow(0).readSum(), 0.0);
+    }
+
+    @Test
+    public void testEntriesInFirstSeenOrder() {
+        KeyedSlidingWindowStore<String> store = newStore();
+        for (int i = 9; i >= 0; i--) {
+            store.next("key" + i, 0, 0, i);
+        }
+        store.next("key5", 1, 0, 1);
+        List<String> keys = new ArrayList<>();
+        for (KeyedSlidingWindowStore.Entry<String> entry : store.entries()) {
+            keys.add(entry.getKey());
+        }
+        Assert.assertEquals("key9", keys.get(0));
+        Assert.assertEquals("key0", keys.get(9));
+        Assert.assertEquals(10, keys.size());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.rca.framework.api.aggregators;
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.opensearch.performanceanalyzer.rca.GradleTaskForRca;
+
+@Category(GradleTaskForRca.class)
+public class RingBufferSlidingWindowTest {
+
+    @Test
+    public void testMatchesDequeWindow() {
+        SlidingWindow<SlidingWindowData> expected = new SlidingWindow<>(3, TimeUnit.SECONDS);
+        RingBufferSlidingWindow actual = new RingBufferSlidingWindow(3, TimeUnit.SECONDS);
+
+        Assert.assertTrue(Double.isNaN(actual.readAvg()));
+        Assert.assertTrue(Double.isNaN(actual.readAvg(TimeUnit.SECONDS)));
+
+        Random random = new Random(42);
+        long timeStamp = 0;
+        for (int i = 0; i < 1000; i++) {
+            timeStamp += random.nextInt(1500);
+            double value = random.nextInt(100);
+            expected.next(new SlidingWindowData(timeStamp, value));
+            actual.next(new SlidingWindowData(timeStamp, value));
+            Assert.assertEquals(expected.size(), actual.size());
+            Assert.assertEquals(expected.readSum(), actual.readSum(), 0.0001);
+            Assert.assertEquals(expected.readAvg(), actual.readAvg(), 0.0001);
+            Assert.assertEquals(
+                    expected.readAvg(TimeUnit.SECONDS),
+                    actual.readAvg(TimeUnit.SECONDS),
+                    0.0001);
+        }
+    }
+
+    @Test
+    public void testCapacityFromSampleInterval() {
+        RingBufferSlidingWindow slidingWindow =
+                new RingBufferSlidingWindow(1, TimeUnit.MINUTES, 5, TimeUnit.SECONDS);
+        int capacity = slidingWindow.capacity();
+        Assert.assertEquals(
+                RingBufferSlidingWindow.capacityFor(1, TimeUnit.MINUTES, 5, TimeUnit.SECONDS),
+                capacity);
+
+        // a sample every 5 seconds for an hour never outgrows the ring
+        for (long t = 0; t < TimeUnit.HOURS.toMillis(1); t += TimeUnit.SECONDS.toMillis(5)) {
+            slidingWindow.next(new SlidingWindowData(t, 1));
+        }
+        Assert.assertEquals(capacity, slidingWindow.capacity());
+        Assert.assertEquals(13, slidingWindow.size());
+        Assert.assertEquals(13, slidingWindow.readSum(), 0.0);
+    }
+
+    @Test
+    public void testGrowsWhenSamplesArriveFaster() {
+        RingBufferSlidingWindow slidingWindow =
+                new RingBufferSlidingWindow(10, TimeUnit.SECONDS, 5, TimeUnit.SECONDS);
+        // wrap the ring once before growing it
+        for (long t = 0; t < 20; t++) {
+            slidingWindow.next(new SlidingWindowData(TimeUnit.SECONDS.toMillis(t * 5), t));
+        }
+        long start = TimeUnit.SECONDS.toMillis(100);
+        for (int i = 0; i < 100; i++) {
+            slidingWindow.next(new SlidingWindowData(start + i * 100, i));
+        }
+        Assert.assertTrue(slidingWindow.capacity() >= 100);
+        Assert.assertEquals(100, slidingWindow.size());
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(start + i * 100, slidingWindow.timeStampAt(i));
+            Assert.assertEquals(i, slidingWindow.valueAt(i), 0.0);
+        }
+        Assert.assertEquals(99 * 100 / 2, slidingWindow.readSum(), 0.0);
+    }
+
+    @Test
+    public void testClear() {
+        RingBufferSlidingWindow slidingWindow = new RingBufferSlidingWindow(3, TimeUnit.SECONDS);
+        slidingWindow.next(new SlidingWindowData(0, 5));
+        slidingWindow.next(new SlidingWindowData(1000, 7));
+        slidingWindow.clear();
+        Assert.assertEquals(0, slidingWindow.size());
+        Assert.assertEquals(0, slidingWindow.readSum(), 0.0);
+        Assert.assertTrue(Double.isNaN(slidingWindow.readAvg()));
+    }
+}
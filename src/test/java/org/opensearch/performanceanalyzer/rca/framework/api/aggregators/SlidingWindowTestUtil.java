@@ -27,44 +27,36 @@
 package org.opensearch.performanceanalyzer.rca.framework.api.aggregators;
 
 
-import java.util.Iterator;
 import java.util.Objects;
 
 public class SlidingWindowTestUtil {
-    public static boolean equals(
-            SlidingWindow<SlidingWindowData> a, SlidingWindow<SlidingWindowData> b) {
+    public static boolean equals(RingBufferSlidingWindow a, RingBufferSlidingWindow b) {
         Objects.requireNonNull(a);
         Objects.requireNonNull(b);
         if (a.size() != b.size()) {
             return false;
         }
-        Iterator<SlidingWindowData> aIt = a.windowDeque.descendingIterator();
-        Iterator<SlidingWindowData> bIt = b.windowDeque.descendingIterator();
-        while (aIt.hasNext()) {
-            SlidingWindowData aData = aIt.next();
-            SlidingWindowData bData = bIt.next();
-            if (aData.getValue() != bData.getValue()
-                    || aData.getTimeStamp() != bData.getTimeStamp()) {
+        for (int i = 0; i < a.storedEntries(); i++) {
+            if (a.valueAt(i) != b.valueAt(i) || a.timeStampAt(i) != b.timeStampAt(i)) {
                 return false;
             }
         }
         return true;
     }
 
-    public static boolean equals_MUTATE(
-            SlidingWindow<SlidingWindowData> a, SlidingWindow<SlidingWindowData> b) {
+    public static boolean equals_MUTATE(RingBufferSlidingWindow a, RingBufferSlidingWindow b) {
         Objects.requireNonNull(a);
         Objects.requireNonNull(b);
         if (a.size() != b.size()) {
             return false;
         }
-        while (a.size() > 0) {
-            if (a.windowDeque.getLast().getValue() != b.windowDeque.getLast().getValue()) {
+        for (int i = 0; i < a.storedEntries(); i++) {
+            if (a.valueAt(i) != b.valueAt(i)) {
                 return false;
             }
-            a.windowDeque.removeLast();
-            b.windowDeque.removeLast();
         }
+        a.clear();
+        b.clear();
         return true;
     }
 }
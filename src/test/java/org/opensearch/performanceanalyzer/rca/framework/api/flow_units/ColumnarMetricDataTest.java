@@ -0,0 +1,166 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.rca.framework.api.flow_units;
+
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import org.jooq.BatchBindStep;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+import org.opensearch.performanceanalyzer.metricsdb.Metric;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDBTests;
+
+public class ColumnarMetricDataTest {
+    private static final String INDEX_NAME = AllMetrics.CommonDimension.INDEX_NAME.toString();
+    private static final String SHARD_ID = AllMetrics.CommonDimension.SHARD_ID.toString();
+
+    private final DSLContext create = DSL.using(SQLDialect.SQLITE);
+
+    @Test
+    public void testFromStringResult() {
+        Result<Record> result =
+                create.fetchFromStringData(
+                        Arrays.asList(
+                                new String[] {INDEX_NAME, SHARD_ID, MetricsDB.SUM},
+                                new String[] {"logs", "0", "1.5"},
+                                new String[] {"logs", "1", "2.5"},
+                                new String[] {"metrics", "0", null}));
+        ColumnarMetricData columns = ColumnarMetricData.fromResult(result);
+
+        Assert.assertEquals(3, columns.rowCount());
+        Assert.assertEquals(2, columns.dimensionCount());
+        Assert.assertEquals(1, columns.aggregateCount());
+        int index = columns.dimensionIndex(INDEX_NAME);
+        int shard = columns.dimensionIndex(SHARD_ID);
+        int sum = columns.aggregateIndex(MetricsDB.SUM);
+        Assert.assertEquals(-1, columns.aggregateIndex(MetricsDB.MAX));
+
+        Assert.assertEquals("logs", columns.getDimension(1, index));
+        Assert.assertEquals("1", columns.getDimension(1, shard));
+        Assert.assertEquals(2.5, columns.getAggregate(1, sum), 0.0);
+        Assert.assertTrue(Double.isNaN(columns.getAggregate(2, sum)));
+        Assert.assertEquals(4.0, columns.sum(sum), 0.0);
+
+        // equal dimension values share a dictionary id
+        Assert.assertEquals(2, columns.distinctDimensionValues(index));
+        Assert.assertEquals(columns.getDimensionId(0, index), columns.getDimensionId(1, index));
+        Assert.assertEquals(
+                "metrics", columns.getDimensionValue(index, columns.getDimensionId(2, index)));
+    }
+
+    @Test
+    public void testNumericFieldsAreAggregates() {
+        Field<String> operation = DSL.field(DSL.name("Operation"), String.class);
+        Field<Double> max = DSL.field(DSL.name("max(\"sum\")"), Double.class);
+        Result<Record> result = create.newResult(new Field<?>[] {operation, max});
+        Record record = create.newRecord(operation, max);
+        record.set(operation, "search");
+        record.set(max, 3.0);
+        result.add(record);
+
+        ColumnarMetricData columns = ColumnarMetricData.fromResult(result);
+        Assert.assertEquals(1, columns.dimensionCount());
+        Assert.assertEquals(1, columns.aggregateCount());
+        Assert.assertEquals("search", columns.getDimension(0, 0));
+        Assert.assertEquals(3.0, columns.getAggregate(0, 0), 0.0);
+    }
+
+    @Test
+    public void testBuilderAndResultAdapter() {
+        ColumnarMetricData.Builder builder = new ColumnarMetricData.Builder();
+        int index = builder.addDimension(INDEX_NAME);
+        int sum = builder.addAggregate(MetricsDB.SUM);
+        for (int i = 0; i < 40; i++) {
+            builder.startRow().setDimension(index, "index" + (i % 4)).setAggregate(sum, i);
+        }
+        builder.startRow();
+        ColumnarMetricData columns = builder.build();
+        Assert.assertEquals(41, columns.rowCount());
+        Assert.assertEquals(4, columns.distinctDimensionValues(index));
+        Assert.assertEquals(-1, columns.getDimensionId(40, index));
+
+        MetricFlowUnit flowUnit = new MetricFlowUnit(0, columns);
+        Assert.assertSame(columns, flowUnit.getColumns());
+        Result<Record> result = flowUnit.getData();
+        Assert.assertEquals(41, result.size());
+        Assert.assertEquals("index3", result.get(7).getValue(INDEX_NAME, String.class));
+        Assert.assertEquals(7.0, result.get(7).getValue(MetricsDB.SUM, Double.class), 0.0);
+        Assert.assertNull(result.get(40).getValue(INDEX_NAME));
+        Assert.assertNull(result.get(40).getValue(MetricsDB.SUM));
+    }
+
+    @Test
+    public void testFlowUnitConvertsResultOnce() {
+        Result<Record> result =
+                create.fetchFromStringData(
+                        Arrays.asList(
+                                new String[] {INDEX_NAME, MetricsDB.AVG},
+                                new String[] {"logs", "1"}));
+        MetricFlowUnit flowUnit = new MetricFlowUnit(0, result);
+        Assert.assertSame(result, flowUnit.getData());
+        Assert.assertSame(flowUnit.getColumns(), flowUnit.getColumns());
+        Assert.assertEquals(1.0, flowUnit.getColumns().getAggregate(0, 0), 0.0);
+        Assert.assertNull(MetricFlowUnit.generic().getColumns());
+    }
+
+    @Test
+    public void testFromResultSetMatchesResult() throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        MetricsDB db = new MetricsDB(1553713380L);
+        try {
+            db.createMetric(Metric.cpu(0D), Arrays.asList(INDEX_NAME, SHARD_ID));
+            BatchBindStep handle =
+                    db.startBatchPut(Metric.cpu(0D), Arrays.asList(INDEX_NAME, SHARD_ID));
+            handle.bind("logs", "0", 1.5, 1.5, 1.5, 1.5);
+            handle.bind("logs", "1", 2.5, 2.5, null, 2.5);
+            handle.bind(null, "0", 4.0, 2.0, 1.0, 3.0);
+            handle.execute();
+            db.commit();
+
+            ColumnarMetricData expected = ColumnarMetricData.fromResult(db.queryMetric("cpu"));
+            ColumnarMetricData columns;
+            try (ResultSet resultSet = db.queryMetricResultSet("cpu")) {
+                columns = ColumnarMetricData.fromResultSet(resultSet);
+            }
+            Assert.assertEquals(3, columns.rowCount());
+            Assert.assertEquals(2, columns.dimensionCount());
+            Assert.assertEquals(4, columns.aggregateCount());
+            Assert.assertEquals(expected.toString(), columns.toString());
+        } finally {
+            db.remove();
+            MetricsDBTests.deleteAll();
+        }
+    }
+}
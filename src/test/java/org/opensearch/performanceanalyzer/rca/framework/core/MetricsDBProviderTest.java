@@ -0,0 +1,102 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.rca.framework.core;
+
+
+import java.util.Arrays;
+import java.util.List;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.metricsdb.Dimensions;
+import org.opensearch.performanceanalyzer.metricsdb.Metric;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDBTests;
+
+public class MetricsDBProviderTest {
+    private static final List<String> DIMENSIONS = Arrays.asList("shard", "index");
+
+    private MetricsDB db;
+
+    @Before
+    public void setUp() throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        System.setProperty("java.io.tmpdir", "/tmp");
+        db = createDB(1553713380L, 10D);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        db.remove();
+        MetricsDBTests.deleteAll();
+    }
+
+    @Test
+    public void testGatherCacheSharesResultsWithinWindow() throws Exception {
+        MetricsDBProvider provider = new MetricsDBProvider(true);
+        Result<Record> first = provider.queryMetrics(db, "cpu");
+        Assert.assertSame(first, provider.queryMetrics(db, "cpu"));
+
+        Result<Record> aggregated = provider.queryMetrics(db, "cpu", "shard", MetricsDB.SUM);
+        Assert.assertNotSame(first, aggregated);
+        Assert.assertSame(aggregated, provider.queryMetrics(db, "cpu", "shard", MetricsDB.SUM));
+        Assert.assertNotSame(aggregated, provider.queryMetrics(db, "cpu", "shard", MetricsDB.MAX));
+
+        MetricsDB next = createDB(1553713385L, 20D);
+        Result<Record> nextResult = provider.queryMetrics(next, "cpu");
+        Assert.assertNotSame(first, nextResult);
+        Assert.assertEquals(20D, nextResult.get(0).get(MetricsDB.SUM, Double.class), 0);
+        next.remove();
+    }
+
+    @Test
+    public void testGatherCacheDisabled() {
+        MetricsDBProvider provider = new MetricsDBProvider(false);
+        Assert.assertNotSame(provider.queryMetrics(db, "cpu"), provider.queryMetrics(db, "cpu"));
+    }
+
+    @Test
+    public void testDBTimestampOnlyWithIncrementalEvaluation() {
+        Assert.assertEquals(0, new MetricsDBProvider(false, false).getDBTimestamp(db));
+        Assert.assertEquals(
+                db.getWindowStartTime(), new MetricsDBProvider(false, true).getDBTimestamp(db));
+    }
+
+    private static MetricsDB createDB(long windowStartTime, double value) throws Exception {
+        MetricsDB metricsDB = new MetricsDB(windowStartTime);
+        metricsDB.createMetric(Metric.cpu(value), DIMENSIONS);
+        Dimensions dimensions = new Dimensions();
+        dimensions.put("shard", "1");
+        dimensions.put("index", "ac-test");
+        metricsDB.putMetric(Metric.cpu(value), dimensions, 0);
+        metricsDB.commit();
+        return metricsDB;
+    }
+}
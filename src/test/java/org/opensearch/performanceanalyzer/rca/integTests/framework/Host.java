@@ -272,7 +272,7 @@ public class Host {
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
-        clientServers.getHttpServer().stop(10);
+        clientServers.stopHttpServer(10);
         clientServers.getNetClient().stop();
         try {
             clientServers.getNetServer().shutdown();
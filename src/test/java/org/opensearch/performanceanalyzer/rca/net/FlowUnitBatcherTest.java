@@ -0,0 +1,271 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.rca.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.AppContext;
+import org.opensearch.performanceanalyzer.grpc.FlowUnitBatch;
+import org.opensearch.performanceanalyzer.grpc.FlowUnitMessage;
+import org.opensearch.performanceanalyzer.grpc.PublishResponse;
+import org.opensearch.performanceanalyzer.net.GRPCConnectionManager;
+import org.opensearch.performanceanalyzer.net.NetClient;
+import org.opensearch.performanceanalyzer.rca.RcaTestHelper;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.SymptomFlowUnit;
+import org.opensearch.performanceanalyzer.rca.framework.core.GenericFlowUnit;
+import org.opensearch.performanceanalyzer.rca.framework.metrics.RcaGraphMetrics;
+import org.opensearch.performanceanalyzer.rca.framework.util.InstanceDetails;
+import org.opensearch.performanceanalyzer.rca.messages.DataMsg;
+import org.opensearch.performanceanalyzer.reader.ClusterDetailsEventProcessor;
+import org.opensearch.performanceanalyzer.reader.ClusterDetailsEventProcessorTestHelper;
+import org.opensearch.performanceanalyzer.util.WaitFor;
+
+public class FlowUnitBatcherTest {
+    private static final String GRAPH_NODE = "NODE1";
+    private static final String LOCUS = "data-node";
+    private static final InstanceDetails.Id HOST = new InstanceDetails.Id("HOST1");
+    private static final long LONG_LINGER_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private RecordingNetClient client;
+    private SubscriptionManager subscriptionManager;
+    private AppContext appContext;
+    private FlowUnitBatcher uut;
+
+    /** Records the flow units sent with each rpc, optionally failing or blocking PublishBatch. */
+    private static class RecordingNetClient extends NetClient {
+        private final List<FlowUnitBatch> batches = new CopyOnWriteArrayList<>();
+        private final List<FlowUnitMessage> published = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean batchUnimplemented = new AtomicBoolean();
+        private final AtomicBoolean blockBatches = new AtomicBoolean();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        RecordingNetClient() {
+            super(null);
+        }
+
+        @Override
+        public void publishBatch(
+                InstanceDetails remoteHost,
+                FlowUnitBatch flowUnitBatch,
+                StreamObserver<PublishResponse> serverResponseStream) {
+            if (batchUnimplemented.get()) {
+                serverResponseStream.onError(Status.UNIMPLEMENTED.asRuntimeException());
+                return;
+            }
+            batches.add(flowUnitBatch);
+            if (blockBatches.get()) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void publish(
+                InstanceDetails remoteHost,
+                FlowUnitMessage flowUnitMessage,
+                StreamObserver<PublishResponse> serverResponseStream) {
+            published.add(flowUnitMessage);
+        }
+
+        @Override
+        public void flushStream(InstanceDetails.Id remoteHost) {}
+    }
+
+    private static DataMsg dataMsg(int flowUnitCount) {
+        List<GenericFlowUnit> flowUnits = new ArrayList<>();
+        for (int i = 0; i < flowUnitCount; i++) {
+            flowUnits.add(new SymptomFlowUnit(i));
+        }
+        return new DataMsg(GRAPH_NODE, Collections.singletonList(GRAPH_NODE), flowUnits);
+    }
+
+    /** An app context whose cluster is this node and the given hosts. */
+    private static AppContext appContext(String... hostIds) {
+        List<ClusterDetailsEventProcessor.NodeDetails> nodes = Lists.newArrayList();
+        nodes.add(
+                ClusterDetailsEventProcessorTestHelper.newNodeDetails("SELF", "127.0.0.1", false));
+        for (String hostId : hostIds) {
+            nodes.add(
+                    ClusterDetailsEventProcessorTestHelper.newNodeDetails(
+                            hostId, "127.0.0.2", false));
+        }
+        ClusterDetailsEventProcessor clusterDetailsEventProcessor =
+                new ClusterDetailsEventProcessor();
+        clusterDetailsEventProcessor.setNodesDetails(nodes);
+        AppContext appContext = new AppContext();
+        appContext.setClusterDetailsEventProcessor(clusterDetailsEventProcessor);
+        return appContext;
+    }
+
+    @Before
+    public void setup() {
+        appContext = appContext(HOST.toString());
+        client = new RecordingNetClient();
+        subscriptionManager = new SubscriptionManager(new GRPCConnectionManager(false));
+        subscriptionManager.setCurrentLocus(LOCUS);
+        subscriptionManager.addSubscriber(GRAPH_NODE, HOST, LOCUS);
+    }
+
+    @After
+    public void tearDown() {
+        if (uut != null) {
+            uut.stop();
+        }
+    }
+
+    @Test
+    public void testFlushWhenBatchIsFull() throws Exception {
+        uut =
+                new FlowUnitBatcher(
+                        client, subscriptionManager, appContext, 3, LONG_LINGER_MILLIS, 16);
+
+        uut.enqueue(dataMsg(2));
+        assertEquals(2, uut.getQueueDepth(HOST));
+        uut.enqueue(dataMsg(5));
+
+        WaitFor.waitFor(() -> uut.getQueueDepth(HOST) == 0, 5, TimeUnit.SECONDS);
+        assertEquals(0, uut.getQueueDepth(HOST));
+        int sent = 0;
+        for (FlowUnitBatch batch : client.batches) {
+            assertTrue(batch.getFlowUnitsCount() <= 3);
+            sent += batch.getFlowUnitsCount();
+        }
+        assertEquals(7, sent);
+        assertTrue(client.published.isEmpty());
+    }
+
+    @Test
+    public void testFlushAfterLinger() throws Exception {
+        uut = new FlowUnitBatcher(client, subscriptionManager, appContext, 64, 50, 16);
+
+        uut.enqueue(dataMsg(2));
+
+        WaitFor.waitFor(() -> client.batches.size() == 1, 5, TimeUnit.SECONDS);
+        assertEquals(1, client.batches.size());
+        assertEquals(2, client.batches.get(0).getFlowUnitsCount());
+        assertEquals(GRAPH_NODE, client.batches.get(0).getFlowUnits(0).getGraphNode());
+    }
+
+    @Test
+    public void testFullQueueDropsOldest() throws Exception {
+        client.blockBatches.set(true);
+        uut =
+                new FlowUnitBatcher(
+                        client, subscriptionManager, appContext, 2, LONG_LINGER_MILLIS, 4);
+
+        // The first batch blocks the flush thread, so that the next flow units stay queued.
+        uut.enqueue(dataMsg(2));
+        WaitFor.waitFor(() -> client.blocked.getCount() == 0, 5, TimeUnit.SECONDS);
+        uut.enqueue(dataMsg(6));
+        assertEquals(4, uut.getQueueDepth(HOST));
+
+        client.release.countDown();
+        WaitFor.waitFor(() -> uut.getQueueDepth(HOST) == 0, 5, TimeUnit.SECONDS);
+        int sent = 0;
+        for (FlowUnitBatch batch : client.batches) {
+            sent += batch.getFlowUnitsCount();
+        }
+        assertEquals(6, sent);
+    }
+
+    @Test
+    public void testFallBackToPublishWhenBatchIsUnimplemented() throws Exception {
+        client.batchUnimplemented.set(true);
+        uut = new FlowUnitBatcher(client, subscriptionManager, appContext, 64, 10, 16);
+
+        uut.enqueue(dataMsg(1));
+        WaitFor.waitFor(() -> uut.getQueueDepth(HOST) == 0, 5, TimeUnit.SECONDS);
+        uut.enqueue(dataMsg(2));
+
+        WaitFor.waitFor(() -> client.published.size() == 2, 5, TimeUnit.SECONDS);
+        assertEquals(2, client.published.size());
+        assertTrue(client.batches.isEmpty());
+        assertEquals(1, subscriptionManager.getSubscribersFor(GRAPH_NODE).size());
+    }
+
+    @Test
+    public void testBatchesLostToUnimplementedAreCountedAsDropped() throws Exception {
+        client.batchUnimplemented.set(true);
+        uut = new FlowUnitBatcher(client, subscriptionManager, appContext, 64, 10, 16);
+
+        uut.enqueue(dataMsg(3));
+
+        assertTrue(RcaTestHelper.verify(RcaGraphMetrics.RCA_NODES_FU_PUBLISH_DROPPED));
+        assertTrue(client.batches.isEmpty());
+        assertTrue(client.published.isEmpty());
+    }
+
+    @Test
+    public void testDepartedHostIsDropped() throws Exception {
+        client.blockBatches.set(true);
+        uut = new FlowUnitBatcher(client, subscriptionManager, appContext, 2, 0, 16);
+
+        // The first batch blocks the flush thread, so that the next flow units stay queued.
+        uut.enqueue(dataMsg(2));
+        WaitFor.waitFor(() -> client.blocked.getCount() == 0, 5, TimeUnit.SECONDS);
+        uut.enqueue(dataMsg(4));
+        assertEquals(4, uut.getQueueDepth(HOST));
+
+        appContext.setClusterDetailsEventProcessor(appContext().getClusterDetailsEventProcessor());
+        uut.enqueue(dataMsg(1));
+        client.release.countDown();
+
+        assertEquals(0, uut.getQueueDepth(HOST));
+        assertFalse(subscriptionManager.isNodeSubscribed(GRAPH_NODE));
+        assertTrue(RcaTestHelper.verify(RcaGraphMetrics.RCA_NODES_FU_PUBLISH_DROPPED));
+    }
+
+    @Test
+    public void testNoSubscribers() {
+        uut = new FlowUnitBatcher(client, subscriptionManager, appContext, 1, 0, 16);
+        subscriptionManager.unsubscribeAndTerminateConnection(GRAPH_NODE, HOST);
+
+        uut.enqueue(dataMsg(3));
+
+        assertEquals(0, uut.getQueueDepth(HOST));
+    }
+}
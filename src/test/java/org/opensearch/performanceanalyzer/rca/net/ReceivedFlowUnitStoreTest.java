@@ -27,8 +27,11 @@
 package org.opensearch.performanceanalyzer.rca.net;
 
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -50,6 +53,9 @@ public class ReceivedFlowUnitStoreTest {
     private static final long TIMESTAMP_3 = 3L;
     private static final int Q_SIZE = 1000;
     private static final int NUM_THREADS = 2;
+    private static final String SENDER_A = "senderA";
+    private static final String SENDER_B = "senderB";
+    private static final String SENDER_C = "senderC";
 
     private ReceivedFlowUnitStore testFlowUnitStore;
 
@@ -98,6 +104,126 @@ public class ReceivedFlowUnitStoreTest {
         Assert.assertTrue(drained.contains(msg3));
     }
 
+    @Test
+    public void testDropNewest() {
+        testFlowUnitStore = new ReceivedFlowUnitStore(2);
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_1)));
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_2)));
+        Assert.assertFalse(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_3)));
+
+        Assert.assertEquals(
+                Arrays.asList(TIMESTAMP_1, TIMESTAMP_2),
+                timestamps(testFlowUnitStore.drainNode(TEST_NODE)));
+    }
+
+    @Test
+    public void testDropOldest() {
+        testFlowUnitStore =
+                new ReceivedFlowUnitStore(2, ReceivedFlowUnitStore.OverflowPolicy.DROP_OLDEST);
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_1)));
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_2)));
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_3)));
+
+        Assert.assertEquals(
+                Arrays.asList(TIMESTAMP_2, TIMESTAMP_3),
+                timestamps(testFlowUnitStore.drainNode(TEST_NODE)));
+    }
+
+    @Test
+    public void testKeepLatestPerSender() {
+        testFlowUnitStore =
+                new ReceivedFlowUnitStore(
+                        2, ReceivedFlowUnitStore.OverflowPolicy.KEEP_LATEST_PER_SENDER);
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_1)));
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_B, TIMESTAMP_2)));
+        // The buffer is full: A replaces its own flow unit, C has none to replace.
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_3)));
+        Assert.assertFalse(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_C, TIMESTAMP_3)));
+
+        List<FlowUnitMessage> drained = testFlowUnitStore.drainNode(TEST_NODE);
+        Assert.assertEquals(Arrays.asList(TIMESTAMP_3, TIMESTAMP_2), timestamps(drained));
+        Assert.assertEquals(SENDER_A, drained.get(0).getNode());
+
+        // A drained flow unit is not replaced anymore.
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_1)));
+        Assert.assertTrue(testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_B, TIMESTAMP_1)));
+        Assert.assertEquals(2, testFlowUnitStore.drainNode(TEST_NODE).size());
+    }
+
+    @Test
+    public void testCoalesceBySender() {
+        testFlowUnitStore =
+                new ReceivedFlowUnitStore(
+                        Q_SIZE, ReceivedFlowUnitStore.OverflowPolicy.COALESCE_BY_SENDER);
+        testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_1));
+        testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_B, TIMESTAMP_1));
+        testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_2));
+        testFlowUnitStore.enqueue(TEST_NODE, flowUnit(SENDER_A, TIMESTAMP_3));
+        testFlowUnitStore.enqueue(TEST_NODE_2, flowUnit(SENDER_A, TIMESTAMP_1));
+
+        List<FlowUnitMessage> drained = testFlowUnitStore.drainNode(TEST_NODE);
+        Assert.assertEquals(2, drained.size());
+        Assert.assertEquals(SENDER_A, drained.get(0).getNode());
+        Assert.assertEquals(TIMESTAMP_3, drained.get(0).getTimeStamp());
+        Assert.assertEquals(SENDER_B, drained.get(1).getNode());
+        Assert.assertEquals(1, testFlowUnitStore.drainNode(TEST_NODE_2).size());
+    }
+
+    @Test
+    public void testConcurrentEnqueueAndDrain() throws Exception {
+        final int perThread = 5000;
+        testFlowUnitStore = new ReceivedFlowUnitStore(16);
+        ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+        for (int i = 0; i < NUM_THREADS; ++i) {
+            final long first = (long) i * perThread;
+            executorService.execute(
+                    () -> {
+                        for (long ts = first; ts < first + perThread; ts++) {
+                            FlowUnitMessage msg = flowUnit(SENDER_A, ts);
+                            while (!testFlowUnitStore.enqueue(TEST_NODE, msg)) {
+                                Thread.yield();
+                            }
+                        }
+                    });
+        }
+
+        Set<Long> seen = new HashSet<>();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (seen.size() < NUM_THREADS * perThread && System.currentTimeMillis() < deadline) {
+            for (FlowUnitMessage msg : testFlowUnitStore.drainNode(TEST_NODE)) {
+                Assert.assertTrue(seen.add(msg.getTimeStamp()));
+            }
+        }
+        executorService.shutdown();
+        Assert.assertEquals(NUM_THREADS * perThread, seen.size());
+        Assert.assertTrue(testFlowUnitStore.drainNode(TEST_NODE).isEmpty());
+    }
+
+    @Test
+    public void testOverflowPolicyFromConfigValue() {
+        Assert.assertEquals(
+                ReceivedFlowUnitStore.OverflowPolicy.KEEP_LATEST_PER_SENDER,
+                ReceivedFlowUnitStore.OverflowPolicy.fromConfigValue("keep-latest-per-sender"));
+        Assert.assertEquals(
+                ReceivedFlowUnitStore.OverflowPolicy.DROP_NEWEST,
+                ReceivedFlowUnitStore.OverflowPolicy.fromConfigValue(null));
+        Assert.assertEquals(
+                ReceivedFlowUnitStore.OverflowPolicy.DROP_NEWEST,
+                ReceivedFlowUnitStore.OverflowPolicy.fromConfigValue("unknown"));
+    }
+
+    private static FlowUnitMessage flowUnit(String sender, long timestamp) {
+        return FlowUnitMessage.newBuilder().setNode(sender).setTimeStamp(timestamp).build();
+    }
+
+    private static List<Long> timestamps(List<FlowUnitMessage> messages) {
+        List<Long> timestamps = new ArrayList<>();
+        for (FlowUnitMessage msg : messages) {
+            timestamps.add(msg.getTimeStamp());
+        }
+        return timestamps;
+    }
+
     private FlowUnitMessage buildTestFlowUnitMessage() {
         return FlowUnitMessage.newBuilder().build();
     }
@@ -0,0 +1,174 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.rca.scheduler;
+
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.AppContext;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
+import org.opensearch.performanceanalyzer.rca.framework.api.AnalysisGraph;
+import org.opensearch.performanceanalyzer.rca.framework.api.Metric;
+import org.opensearch.performanceanalyzer.rca.framework.api.Rca;
+import org.opensearch.performanceanalyzer.rca.framework.api.Resources;
+import org.opensearch.performanceanalyzer.rca.framework.api.Symptom;
+import org.opensearch.performanceanalyzer.rca.framework.api.contexts.ResourceContext;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.ResourceFlowUnit;
+import org.opensearch.performanceanalyzer.rca.framework.api.flow_units.SymptomFlowUnit;
+import org.opensearch.performanceanalyzer.rca.framework.api.metrics.CPU_Utilization;
+import org.opensearch.performanceanalyzer.rca.framework.core.ConnectedComponent;
+import org.opensearch.performanceanalyzer.rca.framework.core.RcaConf;
+import org.opensearch.performanceanalyzer.rca.framework.util.RcaConsts;
+import org.opensearch.performanceanalyzer.rca.framework.util.RcaUtil;
+import org.opensearch.performanceanalyzer.rca.spec.MetricsDBProviderTestHelper;
+
+public class RcaIncrementalEvaluationTest {
+    private ExecutorService executor;
+    private CountingSymptom symptom;
+    private CountingSymptom downstream;
+    private PeriodicRca periodic;
+
+    static class CountingSymptom extends Symptom {
+        private final String myname;
+        private int evaluations = 0;
+
+        CountingSymptom(String myname) {
+            super(1);
+            this.myname = myname;
+        }
+
+        @Override
+        public String name() {
+            return myname;
+        }
+
+        @Override
+        public SymptomFlowUnit operate() {
+            evaluations++;
+            // A distinct timestamp per evaluation, independent of the clock resolution.
+            return new SymptomFlowUnit(evaluations);
+        }
+    }
+
+    /** Emits a summary once every RCA_PERIOD samples, like the JVM sizing RCAs. */
+    static class PeriodicRca extends Rca<ResourceFlowUnit<?>> {
+        private static final int RCA_PERIOD = 3;
+        private int samples = 0;
+        private int emitted = 0;
+
+        PeriodicRca() {
+            super(1);
+        }
+
+        @Override
+        public ResourceFlowUnit<?> operate() {
+            samples++;
+            if (samples == RCA_PERIOD) {
+                samples = 0;
+                emitted++;
+                return new ResourceFlowUnit<>(
+                        System.currentTimeMillis(),
+                        new ResourceContext(Resources.State.UNHEALTHY),
+                        null);
+            }
+            return new ResourceFlowUnit<>(System.currentTimeMillis());
+        }
+
+        @Override
+        public void generateFlowUnitListFromWire(FlowUnitOperationArgWrapper args) {}
+    }
+
+    class AnalysisGraphT extends AnalysisGraph {
+        @Override
+        public void construct() {
+            Metric cpu = new CPU_Utilization(1);
+            addLeaf(cpu);
+            symptom = new CountingSymptom("symptom");
+            symptom.addAllUpstreams(Collections.singletonList(cpu));
+            downstream = new CountingSymptom("downstream");
+            downstream.addAllUpstreams(Collections.singletonList(symptom));
+            periodic = new PeriodicRca();
+            periodic.addAllUpstreams(Collections.singletonList(cpu));
+        }
+    }
+
+    @Before
+    public void setUp() {
+        PluginSettings.instance().setRcaIncrementalEvaluationEnabled(true);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        PluginSettings.instance().setRcaIncrementalEvaluationEnabled(false);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSkipsUntilNewMetricsDB() throws Exception {
+        List<ConnectedComponent> connectedComponents =
+                RcaUtil.getAnalysisGraphComponents(new AnalysisGraphT());
+        RCASchedulerTask task =
+                new RCASchedulerTask(
+                        1000,
+                        executor,
+                        connectedComponents,
+                        new MetricsDBProviderTestHelper(true),
+                        null,
+                        new RcaConf(Paths.get(RcaConsts.TEST_CONFIG_PATH, "rca.conf").toString()),
+                        null,
+                        new AppContext());
+
+        task.run();
+        Assert.assertEquals(1, symptom.evaluations);
+        Assert.assertEquals(1, downstream.evaluations);
+        Assert.assertEquals(0, periodic.emitted);
+
+        // Same MetricsDB: the symptoms are not evaluated again, but the RCA still takes a sample
+        // on every tick and emits on schedule.
+        task.run();
+        task.run();
+        Assert.assertEquals(1, symptom.evaluations);
+        Assert.assertEquals(1, downstream.evaluations);
+        Assert.assertEquals(1, periodic.emitted);
+
+        Thread.sleep(2);
+        task.setNewDb(new MetricsDBProviderTestHelper(true));
+        task.run();
+        Assert.assertEquals(2, symptom.evaluations);
+        Assert.assertEquals(2, downstream.evaluations);
+        Assert.assertEquals(1, periodic.emitted);
+        Assert.assertEquals(1, periodic.samples);
+    }
+}
@@ -133,7 +133,7 @@ public class ResourceHeatMapGraphTest {
     @AfterClass
     public static void shutdown() {
         connectionManager.shutdown();
-        clientServers.getHttpServer().stop(0);
+        clientServers.stopHttpServer(0);
         clientServers.getNetServer().stop();
         clientServers.getNetClient().stop();
 
@@ -0,0 +1,235 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.reader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jooq.BatchBindStep;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SelectHavingStep;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.DBUtils;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+
+public class ColumnarMemoryDBSnapshotTests extends AbstractReaderTests {
+    private static final double DELTA = 0.001;
+
+    // cbType, estimated size, configured size, tripped events
+    private static final Object[][] LEFT_ROWS = {
+        {"request", 10, 100d, 1},
+        {"request", 30, 100d, null},
+        {"fielddata", 0, 200d, 4},
+        {"parent", null, 300d, null}
+    };
+
+    private static final Object[][] RIGHT_ROWS = {
+        {"request", 20, 100d, 3},
+        {"fielddata", 6, 200d, null},
+        {"accounting", 5, 50d, 2}
+    };
+
+    public ColumnarMemoryDBSnapshotTests() throws SQLException, ClassNotFoundException {
+        super();
+    }
+
+    @Test
+    public void testAppendAndFetch() throws Exception {
+        ColumnarMemoryDBSnapshot snap =
+                new ColumnarMemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 1L);
+        assertEquals(AllMetrics.MetricName.CIRCUIT_BREAKER.toString() + 1L, snap.getTableName());
+
+        snap.insertMultiRows(null);
+        assertEquals(0, snap.fetchAll().size());
+
+        snap.insertMultiRows(LEFT_ROWS);
+        Result<Record> res = snap.fetchAll();
+        assertEquals(LEFT_ROWS.length, res.size());
+        assertEquals("parent", res.get(3).get(0));
+        assertNull(res.get(3).get(1));
+        assertEquals(300d, (Double) res.get(3).get(2), DELTA);
+
+        for (int i = 0; i < 2; i++) {
+            snap.remove();
+            assertEquals(0, snap.size());
+        }
+    }
+
+    @Test
+    public void testAlignAndAggregateMatchSqlite() throws Exception {
+        MemoryDBSnapshot sqlLeft =
+                new MemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 6000L);
+        MemoryDBSnapshot sqlRight =
+                new MemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 11000L);
+        MemoryDBSnapshot sqlAligned =
+                new MemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 10000L, true);
+        sqlLeft.insertMultiRows(LEFT_ROWS);
+        sqlRight.insertMultiRows(RIGHT_ROWS);
+        sqlAligned.alignWindow(sqlLeft, sqlRight, 7000L, 5000L, 10000L);
+
+        ColumnarMemoryDBSnapshot colLeft =
+                new ColumnarMemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 6000L);
+        ColumnarMemoryDBSnapshot colRight =
+                new ColumnarMemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 11000L);
+        ColumnarMemoryDBSnapshot colAligned =
+                new ColumnarMemoryDBSnapshot(
+                        conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 10000L, true);
+        colLeft.insertMultiRows(LEFT_ROWS);
+        colRight.insertMultiRows(RIGHT_ROWS);
+        colAligned.alignWindow(colLeft, colRight, 7000L, 5000L, 10000L);
+
+        assertEquals(sqlAligned.fetchAll().size(), colAligned.size());
+
+        Map<String, Map<String, double[]>> expected = new HashMap<>();
+        for (Map.Entry<String, SelectHavingStep<Record>> entry :
+                sqlAligned.selectMetadataSource().entrySet()) {
+            Map<String, double[]> byDimension = new HashMap<>();
+            List<Field<?>> fields = sqlAligned.getTableSelectFieldsMap().get(entry.getKey());
+            for (Record r : entry.getValue().fetch()) {
+                byDimension.put(
+                        (String) r.get(fields.get(0).getName()),
+                        new double[] {
+                            toDouble(r.get(fields.get(1).getName())),
+                            toDouble(r.get(fields.get(2).getName())),
+                            toDouble(r.get(fields.get(3).getName())),
+                            toDouble(r.get(fields.get(4).getName()))
+                        });
+            }
+            expected.put(entry.getKey(), byDimension);
+        }
+
+        Map<String, List<Object[]>> actual = colAligned.aggregateMetadata();
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, List<Object[]>> entry : actual.entrySet()) {
+            Map<String, double[]> byDimension = expected.get(entry.getKey());
+            assertEquals(byDimension.size(), entry.getValue().size());
+            for (Object[] row : entry.getValue()) {
+                double[] stats = {
+                    (Double) row[1], (Double) row[2], (Double) row[3], (Double) row[4]
+                };
+                assertArrayEquals(byDimension.get(row[0]), stats, DELTA);
+            }
+        }
+
+        sqlLeft.remove();
+        sqlRight.remove();
+        sqlAligned.remove();
+    }
+
+    @Test
+    public void testBatchPutAndSqlQueries() throws Exception {
+        MemoryDBSnapshot sqlSnap =
+                new MemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 2L);
+        sqlSnap.insertMultiRows(LEFT_ROWS);
+        ColumnarMemoryDBSnapshot snap =
+                new ColumnarMemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 3L);
+
+        BatchBindStep handle = snap.startBatchPut();
+        handle.bind(LEFT_ROWS[0]).bind(LEFT_ROWS[1], LEFT_ROWS[2]);
+        assertEquals(3, handle.size());
+        assertEquals(0, snap.size());
+        assertEquals(3, handle.execute().length);
+        assertEquals(0, handle.size());
+        assertEquals(3, snap.size());
+
+        Map<String, Object> named = new HashMap<>();
+        List<Field<String>> dimensions = snap.getDimensions();
+        named.put(dimensions.get(0).getName(), LEFT_ROWS[3][0]);
+        int i = 1;
+        for (Field<Double> metric : snap.getMetrics()) {
+            named.put(metric.getName(), LEFT_ROWS[3][i++]);
+        }
+        handle.bind(named).execute();
+        assertEquals(LEFT_ROWS.length, snap.size());
+        assertEquals("parent", snap.fetchAll().get(3).get(0));
+
+        assertFalse(DBUtils.checkIfTableExists(snap.getDSLContext(), snap.getTableName()));
+        assertEquals(LEFT_ROWS.length, snap.selectAll().fetch().size());
+        Map<String, SelectHavingStep<Record>> expected = sqlSnap.selectMetadataSource();
+        Map<String, SelectHavingStep<Record>> actual = snap.selectMetadataSource();
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String table : expected.keySet()) {
+            assertEquals(
+                    expected.get(table).fetch().intoArrays().length,
+                    actual.get(table).fetch().intoArrays().length);
+            assertArrayEquals(
+                    expected.get(table).fetch().intoArrays(),
+                    actual.get(table).fetch().intoArrays());
+        }
+
+        // Every query sees the rows the snapshot holds when it is built.
+        snap.insertMultiRows(RIGHT_ROWS);
+        assertEquals(LEFT_ROWS.length + RIGHT_ROWS.length, snap.selectAll().fetch().size());
+
+        snap.remove();
+        assertFalse(DBUtils.checkIfTableExists(snap.getDSLContext(), snap.getTableName()));
+        sqlSnap.remove();
+    }
+
+    @Test
+    public void testAggregateMetadataUsesCustomizedTableNames() throws Exception {
+        Map<AllMetrics.MetricName, MetricProperties> properties =
+                MetricPropertiesConfig.getInstance().getMetricName2Property();
+        MetricProperties original = properties.get(AllMetrics.MetricName.CIRCUIT_BREAKER);
+        Map<String, String> tableNames = new HashMap<>();
+        tableNames.put(
+                AllMetrics.CircuitBreakerValue.CB_ESTIMATED_SIZE.toString(), "cb_estimated");
+        properties.put(
+                AllMetrics.MetricName.CIRCUIT_BREAKER,
+                new MetricProperties(
+                        MetricProperties.EMPTY_DIMENSION,
+                        AllMetrics.CircuitBreakerDimension.values(),
+                        AllMetrics.CircuitBreakerValue.values(),
+                        null,
+                        tableNames));
+        try {
+            ColumnarMemoryDBSnapshot snap =
+                    new ColumnarMemoryDBSnapshot(conn, AllMetrics.MetricName.CIRCUIT_BREAKER, 4L);
+            snap.insertMultiRows(LEFT_ROWS);
+            Map<String, List<Object[]>> tables = snap.aggregateMetadata();
+            assertTrue(tables.containsKey("cb_estimated"));
+            assertFalse(
+                    tables.containsKey(
+                            AllMetrics.CircuitBreakerValue.CB_ESTIMATED_SIZE.toString()));
+            assertEquals(AllMetrics.CircuitBreakerValue.values().length, tables.size());
+        } finally {
+            properties.put(AllMetrics.MetricName.CIRCUIT_BREAKER, original);
+        }
+    }
+
+    private static double toDouble(Object value) {
+        return Double.parseDouble(value.toString());
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.reader;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jooq.BatchBindStep;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+import org.opensearch.performanceanalyzer.metricsdb.MetricsDB;
+
+public class HashJoinMetricsEmitterTests extends AbstractReaderTests {
+    public HashJoinMetricsEmitterTests() throws SQLException, ClassNotFoundException {
+        super();
+    }
+
+    @Test
+    public void testAggregatedOSMetrics() throws Exception {
+        ShardRequestMetricsSnapshot rqMetricsSnap =
+                new ShardRequestMetricsSnapshot(conn, 1535065195000L);
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put(ShardRequestMetricsSnapshot.Fields.INDEX_NAME.toString(), "ac-test");
+        dimensions.put(ShardRequestMetricsSnapshot.Fields.SHARD_ID.toString(), "1");
+        dimensions.put(ShardRequestMetricsSnapshot.Fields.OPERATION.toString(), "shardBulk");
+        dimensions.put(ShardRequestMetricsSnapshot.Fields.SHARD_ROLE.toString(), "primary");
+        dimensions.put("tid", "1");
+        dimensions.put("rid", "1");
+        rqMetricsSnap.putStartMetric(1535065196120L, dimensions);
+        rqMetricsSnap.putEndMetric(1535065196323L, dimensions);
+        dimensions.put("rid", "2");
+        dimensions.put(ShardRequestMetricsSnapshot.Fields.OPERATION.toString(), "shardSearch");
+        rqMetricsSnap.putStartMetric(1535065197323L, dimensions);
+        dimensions.put("rid", "3");
+        dimensions.put("tid", "2");
+        rqMetricsSnap.putStartMetric(1535065198323L, dimensions);
+        rqMetricsSnap.putEndMetric(1535065199923L, dimensions);
+
+        OSMetricsSnapshot osMetricsSnap = new OSMetricsSnapshot(conn, 1L);
+        Map<String, Double> metrics = new HashMap<>();
+        Map<String, String> osDim = new HashMap<>();
+        osDim.put("tid", "1");
+        osDim.put("tName", "opensearch[E-C7clp][search][T#1]");
+        metrics.put(AllMetrics.OSMetrics.CPU_UTILIZATION.toString(), 2.3333d);
+        metrics.put(AllMetrics.OSMetrics.PAGING_RSS.toString(), 3.63d);
+        osMetricsSnap.putMetric(metrics, osDim, 1L);
+        osDim.put("tid", "2");
+        osDim.put("tName", "opensearch[E-C7clp][bulk][T#2]");
+        metrics.put(AllMetrics.OSMetrics.CPU_UTILIZATION.toString(), 3.3333d);
+        metrics.put(AllMetrics.OSMetrics.PAGING_RSS.toString(), 1.63d);
+        osMetricsSnap.putMetric(metrics, osDim, 1L);
+        osDim.put("tid", "3");
+        osDim.put("tName", "GC");
+        osMetricsSnap.putMetric(metrics, osDim, 1L);
+
+        DSLContext create = DSL.using(conn, SQLDialect.SQLITE);
+        MetricsDB sqlDb = new MetricsDB(1553713502);
+        MetricsEmitter.emitAggregatedOSMetrics(create, sqlDb, osMetricsSnap, rqMetricsSnap);
+        MetricsDB hashDb = new MetricsDB(1553713503);
+        HashJoinMetricsEmitter.emitAggregatedOSMetrics(hashDb, osMetricsSnap, rqMetricsSnap);
+
+        for (String metric :
+                Arrays.asList(
+                        AllMetrics.OSMetrics.CPU_UTILIZATION.toString(),
+                        AllMetrics.OSMetrics.PAGING_RSS.toString())) {
+            for (String agg : Arrays.asList("sum", "avg", "min", "max")) {
+                assertSameRows(sqlDb, hashDb, metric, agg);
+            }
+        }
+        // Every request of threads 1 and 2 is on shard 1, so the shard is charged with the whole
+        // cpu of both threads. Thread 3 serves no request and is not attributed to any shard.
+        List<String> cpu = Arrays.asList(AllMetrics.OSMetrics.CPU_UTILIZATION.toString());
+        List<String> sum = Arrays.asList("sum");
+        List<String> shard = Arrays.asList(ShardRequestMetricsSnapshot.Fields.SHARD_ID.toString());
+        Result<Record> sqlRes = sqlDb.queryMetric(cpu, sum, shard);
+        Result<Record> hashRes = hashDb.queryMetric(cpu, sum, shard);
+        assertEquals(1, hashRes.size());
+        assertEquals(
+                Double.parseDouble(sqlRes.get(0).get(cpu.get(0)).toString()),
+                Double.parseDouble(hashRes.get(0).get(cpu.get(0)).toString()),
+                1e-9);
+        assertEquals(
+                2.3333d + 3.3333d,
+                Double.parseDouble(hashRes.get(0).get(cpu.get(0)).toString()),
+                1e-9);
+        sqlDb.remove();
+        hashDb.remove();
+    }
+
+    @Test
+    public void testWorkloadMetrics() throws Exception {
+        ShardRequestMetricsSnapshot rqMetricsSnap =
+                new ShardRequestMetricsSnapshot(conn, 1535065195000L);
+        BatchBindStep handle = rqMetricsSnap.startBatchPut();
+        handle.bind("0", "index", "1", "1", "shardBulk", "primary", 1535065195000L, null, 10);
+        handle.bind("0", "index", "1", "1", "shardBulk", "primary", null, 1535065196000L, null);
+        handle.bind("0", "index", "2", "1", "shardBulk", "primary", 1535065197000L, null, 10);
+        handle.bind("0", "index", "2", "1", "shardBulk", "primary", null, 1535065198500L, null);
+        handle.bind("1", "index", "3", "2", "shardQuery", "replica", 1535065195000L, null, null);
+        handle.bind("1", "index", "3", "2", "shardQuery", "replica", null, 1535065195300L, null);
+        handle.execute();
+
+        DSLContext create = DSL.using(conn, SQLDialect.SQLITE);
+        MetricsDB sqlDb = new MetricsDB(1553713504);
+        MetricsEmitter.emitWorkloadMetrics(create, sqlDb, rqMetricsSnap);
+        MetricsDB hashDb = new MetricsDB(1553713505);
+        HashJoinMetricsEmitter.emitWorkloadMetrics(hashDb, rqMetricsSnap);
+
+        for (String agg : Arrays.asList("sum", "avg", "min", "max")) {
+            assertSameRows(sqlDb, hashDb, AllMetrics.CommonMetric.LATENCY.toString(), agg);
+            assertSameRows(
+                    sqlDb,
+                    hashDb,
+                    AllMetrics.ShardOperationMetric.SHARD_OP_COUNT.toString(),
+                    agg);
+            assertSameRows(
+                    sqlDb, hashDb, AllMetrics.ShardBulkMetric.DOC_COUNT.toString(), agg);
+        }
+        sqlDb.remove();
+        hashDb.remove();
+    }
+
+    @Test
+    public void testStreamingShardRequestsMatchSql() throws Exception {
+        long windowStart = 1535065195000L;
+        ShardRequestMetricsSnapshot rqMetricsSnap =
+                new ShardRequestMetricsSnapshot(conn, windowStart);
+        ShardRequestAggregateSnapshot rqAggregateSnap =
+                new ShardRequestAggregateSnapshot(windowStart);
+        BatchBindStep handle = rqMetricsSnap.startBatchPut();
+        handle.bind("0", "index", "1", "1", "shardBulk", "primary", 1535065195000L, null, 10);
+        handle.bind("0", "index", "1", "1", "shardBulk", "primary", null, 1535065196000L, null);
+        handle.bind("0", "index", "2", "1", "shardBulk", "primary", 1535065197000L, null, 10);
+        handle.bind("0", "index", "2", "1", "shardBulk", "primary", null, 1535065198500L, null);
+        handle.bind("1", "index", "3", "2", "shardQuery", "replica", 1535065195000L, null, 0);
+        handle.bind("1", "index", "3", "2", "shardQuery", "replica", null, 1535065195300L, null);
+        handle.bind("1", "index", "4", "2", "shardQuery", "replica", 1535065196000L, null, 0);
+        handle.execute();
+        rqAggregateSnap.putStartMetric(
+                "1", "1", "shardBulk", "0", "index", "primary", 1535065195000L, 10);
+        rqAggregateSnap.putFinishMetric(
+                "1", "1", "shardBulk", "0", "index", "primary", 1535065196000L);
+        rqAggregateSnap.putStartMetric(
+                "2", "1", "shardBulk", "0", "index", "primary", 1535065197000L, 10);
+        rqAggregateSnap.putFinishMetric(
+                "2", "1", "shardBulk", "0", "index", "primary", 1535065198500L);
+        rqAggregateSnap.putStartMetric(
+                "3", "2", "shardQuery", "1", "index", "replica", 1535065195000L, 0);
+        rqAggregateSnap.putFinishMetric(
+                "3", "2", "shardQuery", "1", "index", "replica", 1535065195300L);
+        rqAggregateSnap.putStartMetric(
+                "4", "2", "shardQuery", "1", "index", "replica", 1535065196000L, 0);
+
+        OSMetricsSnapshot osMetricsSnap = new OSMetricsSnapshot(conn, 1L);
+        Map<String, Double> metrics = new HashMap<>();
+        Map<String, String> osDim = new HashMap<>();
+        osDim.put("tid", "1");
+        osDim.put("tName", "opensearch[E-C7clp][bulk][T#1]");
+        metrics.put(AllMetrics.OSMetrics.CPU_UTILIZATION.toString(), 2.3333d);
+        metrics.put(AllMetrics.OSMetrics.PAGING_RSS.toString(), 3.63d);
+        osMetricsSnap.putMetric(metrics, osDim, 1L);
+        osDim.put("tid", "2");
+        osDim.put("tName", "opensearch[E-C7clp][search][T#2]");
+        metrics.put(AllMetrics.OSMetrics.CPU_UTILIZATION.toString(), 3.3333d);
+        metrics.put(AllMetrics.OSMetrics.PAGING_RSS.toString(), 1.63d);
+        osMetricsSnap.putMetric(metrics, osDim, 1L);
+
+        DSLContext create = DSL.using(conn, SQLDialect.SQLITE);
+        MetricsDB sqlDb = new MetricsDB(1553713506);
+        MetricsEmitter.emitWorkloadMetrics(create, sqlDb, rqMetricsSnap);
+        MetricsEmitter.emitAggregatedOSMetrics(create, sqlDb, osMetricsSnap, rqMetricsSnap);
+        MetricsDB streamingDb = new MetricsDB(1553713507);
+        HashJoinMetricsEmitter.emitWorkloadMetrics(streamingDb, rqAggregateSnap);
+        HashJoinMetricsEmitter.emitAggregatedOSMetrics(
+                streamingDb, osMetricsSnap, rqAggregateSnap);
+
+        for (String agg : Arrays.asList("sum", "avg", "min", "max")) {
+            for (String metric :
+                    Arrays.asList(
+                            AllMetrics.CommonMetric.LATENCY.toString(),
+                            AllMetrics.ShardOperationMetric.SHARD_OP_COUNT.toString(),
+                            AllMetrics.ShardBulkMetric.DOC_COUNT.toString(),
+                            AllMetrics.OSMetrics.CPU_UTILIZATION.toString(),
+                            AllMetrics.OSMetrics.PAGING_RSS.toString())) {
+                assertSameRows(sqlDb, streamingDb, metric, agg);
+            }
+        }
+        sqlDb.remove();
+        streamingDb.remove();
+    }
+
+    @Test
+    public void testStreamingHttpRequestsMatchSql() throws Exception {
+        long windowStart = 1535065195000L;
+        HttpRequestMetricsSnapshot httpSnap = new HttpRequestMetricsSnapshot(conn, windowStart);
+        HttpRequestAggregateSnapshot httpAggregateSnap =
+                new HttpRequestAggregateSnapshot(windowStart);
+        BatchBindStep handle = httpSnap.startBatchPut();
+        handle.bind("1", "search", "sonested", null, null, 0, 1535065195100L, null);
+        handle.bind("1", "search", null, "200", "", null, null, 1535065195400L);
+        handle.bind("2", "search", "sonested", null, null, 0, 1535065195200L, null);
+        handle.bind("2", "search", null, "200", "", null, null, 1535065195700L);
+        handle.bind("3", "bulk", "", null, null, 100, 1535065196000L, null);
+        handle.bind("3", "bulk", null, "200", "", null, null, 1535065196100L);
+        handle.bind("4", "bulk", "", null, null, 50, 1535065197000L, null);
+        handle.execute();
+        httpAggregateSnap.putStartMetric("1", "search", "sonested", 0, 1535065195100L);
+        httpAggregateSnap.putFinishMetric("1", "search", "200", "", 1535065195400L);
+        httpAggregateSnap.putStartMetric("2", "search", "sonested", 0, 1535065195200L);
+        httpAggregateSnap.putFinishMetric("2", "search", "200", "", 1535065195700L);
+        httpAggregateSnap.putStartMetric("3", "bulk", "", 100, 1535065196000L);
+        httpAggregateSnap.putFinishMetric("3", "bulk", "200", "", 1535065196100L);
+        httpAggregateSnap.putStartMetric("4", "bulk", "", 50, 1535065197000L);
+
+        DSLContext create = DSL.using(conn, SQLDialect.SQLITE);
+        MetricsDB sqlDb = new MetricsDB(1553713508);
+        MetricsEmitter.emitHttpMetrics(create, sqlDb, httpSnap);
+        MetricsDB streamingDb = new MetricsDB(1553713509);
+        HashJoinMetricsEmitter.emitHttpMetrics(streamingDb, httpAggregateSnap);
+
+        List<String> dimensions =
+                Arrays.asList(
+                        HttpRequestMetricsSnapshot.Fields.OPERATION.toString(),
+                        HttpRequestMetricsSnapshot.Fields.HTTP_RESP_CODE.toString());
+        for (String agg : Arrays.asList("sum", "avg", "min", "max")) {
+            for (String metric :
+                    Arrays.asList(
+                            AllMetrics.CommonMetric.LATENCY.toString(),
+                            AllMetrics.HttpMetric.HTTP_TOTAL_REQUESTS.toString(),
+                            AllMetrics.HttpMetric.HTTP_REQUEST_DOCS.toString())) {
+                assertSameRows(sqlDb, streamingDb, metric, agg, dimensions);
+            }
+        }
+        sqlDb.remove();
+        streamingDb.remove();
+    }
+
+    private static void assertSameRows(
+            MetricsDB expectedDb, MetricsDB actualDb, String metric, String agg)
+            throws Exception {
+        assertSameRows(
+                expectedDb,
+                actualDb,
+                metric,
+                agg,
+                Arrays.asList(
+                        ShardRequestMetricsSnapshot.Fields.SHARD_ID.toString(),
+                        ShardRequestMetricsSnapshot.Fields.OPERATION.toString()));
+    }
+
+    private static void assertSameRows(
+            MetricsDB expectedDb,
+            MetricsDB actualDb,
+            String metric,
+            String agg,
+            List<String> dimensions)
+            throws Exception {
+        Result<Record> expected =
+                expectedDb.queryMetric(Arrays.asList(metric), Arrays.asList(agg), dimensions);
+        Result<Record> actual =
+                actualDb.queryMetric(Arrays.asList(metric), Arrays.asList(agg), dimensions);
+        assertEquals(toMap(expected, metric, dimensions), toMap(actual, metric, dimensions));
+    }
+
+    private static Map<String, Double> toMap(
+            Result<Record> result, String metric, List<String> dimensions) {
+        Map<String, Double> values = new HashMap<>();
+        if (result == null) {
+            return values;
+        }
+        for (Record r : result) {
+            StringBuilder key = new StringBuilder();
+            for (String dimension : dimensions) {
+                key.append(r.get(dimension)).append('/');
+            }
+            Object value = r.get(metric);
+            // round away floating point summation order differences
+            values.put(
+                    key.toString(),
+                    value == null
+                            ? null
+                            : Math.round(Double.parseDouble(value.toString()) * 1e9) / 1e9);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class HttpRequestAggregateSnapshotTests {
+    private static final long WINDOW_START = 1535065195000L;
+
+    @Test
+    public void testMatchedRequestsAreAggregatedAndForgotten() {
+        HttpRequestAggregateSnapshot snap = new HttpRequestAggregateSnapshot(WINDOW_START);
+        assertTrue(snap.putStartMetric("1", "search", "sonested", 0, WINDOW_START));
+        assertTrue(snap.putFinishMetric("1", "search", "200", "", WINDOW_START + 300));
+        assertTrue(snap.putFinishMetric("2", "search", "200", "", WINDOW_START + 900));
+        assertTrue(snap.putStartMetric("2", "search", "sonested", 0, WINDOW_START + 400));
+        assertTrue(snap.putStartMetric("3", "bulk", "", 100, WINDOW_START + 100));
+        assertTrue(snap.putFinishMetric("3", "bulk", "200", "", WINDOW_START + 200));
+        assertTrue(snap.putStartMetric("4", "bulk", "", 50, WINDOW_START + 100));
+        assertFalse(snap.putStartMetric("not-a-rid", "bulk", "", 50, WINDOW_START));
+
+        Map<List<String>, MetricAccumulator> groups = snap.getGroups();
+        assertEquals(2, groups.size());
+        MetricAccumulator search = groups.get(Arrays.asList("search", "", "sonested", "200"));
+        assertEquals(2, search.getRows());
+        assertEquals(800d, search.getSum(HttpRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(300d, search.getMin(HttpRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(500d, search.getMax(HttpRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        MetricAccumulator bulk = groups.get(Arrays.asList("bulk", "", "", "200"));
+        assertEquals(1, bulk.getRows());
+        assertEquals(100d, bulk.getSum(HttpRequestAggregateSnapshot.DOC_COUNT_SLOT), 0);
+        // only the unfinished bulk request is kept
+        assertEquals(1, snap.getPendingRequestCount());
+    }
+
+    @Test
+    public void testRolloverInflightRequests() {
+        HttpRequestAggregateSnapshot prevSnap = new HttpRequestAggregateSnapshot(WINDOW_START);
+        prevSnap.putStartMetric("1", "search", "sonested", 0, WINDOW_START - 1000);
+        prevSnap.putStartMetric("2", "search", "sonested", 0, WINDOW_START - 600000);
+        prevSnap.putFinishMetric("3", "search", "200", "", WINDOW_START + 10);
+
+        HttpRequestAggregateSnapshot snap = new HttpRequestAggregateSnapshot(WINDOW_START + 5000);
+        snap.rolloverInflightRequests(prevSnap);
+        assertEquals(1, snap.getPendingRequestCount());
+
+        snap.putFinishMetric("1", "search", "500", "timeout", WINDOW_START + 6000);
+        MetricAccumulator search =
+                snap.getGroups().get(Arrays.asList("search", "timeout", "sonested", "500"));
+        assertEquals(1, search.getRows());
+        assertEquals(7000d, search.getSum(HttpRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(0, snap.getPendingRequestCount());
+        assertTrue(prevSnap.getGroups().isEmpty());
+
+        prevSnap.remove();
+        assertEquals(0, prevSnap.getPendingRequestCount());
+    }
+}
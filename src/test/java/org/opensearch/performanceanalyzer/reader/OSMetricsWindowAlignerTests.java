@@ -0,0 +1,165 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.opensearch.performanceanalyzer.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jooq.Record;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.metrics.AllMetrics;
+
+public class OSMetricsWindowAlignerTests {
+    private static final String DB_URL = "jdbc:sqlite:";
+    private static final String CPU = AllMetrics.OSMetrics.CPU_UTILIZATION.toString();
+    private static final String RSS = AllMetrics.OSMetrics.PAGING_RSS.toString();
+    private static final String LAST_UPDATE_TIME = "lastUpdateTime";
+
+    private Connection conn;
+
+    public OSMetricsWindowAlignerTests() throws ClassNotFoundException {
+        Class.forName("org.sqlite.JDBC");
+        System.setProperty("java.io.tmpdir", "/tmp");
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        conn = DriverManager.getConnection(DB_URL);
+    }
+
+    @Test
+    public void testMergeAlignMatchesSqlAlign() throws Exception {
+        OSMetricsSnapshot left = new OSMetricsSnapshot(conn, 5000L);
+        // both windows
+        put(left, "12", 10d, 100d, 7000L);
+        // left only
+        put(left, "3", 20d, null, 8000L);
+        // duplicate rows collapse to the max of each column
+        put(left, "40", 5d, 300d, 6000L);
+        put(left, "40", 7d, 200d, 6500L);
+        // no update time in the left window, only the right one counts
+        put(left, "7", 1d, 1d, null);
+
+        OSMetricsSnapshot right = new OSMetricsSnapshot(conn, 10000L);
+        put(right, "12", 20d, null, 13000L);
+        put(right, "40", 9d, 100d, 12000L);
+        put(right, "7", 3d, 4d, 11000L);
+        // right only
+        put(right, "1000", 30d, 50d, 12000L);
+        // in no window
+        put(right, "9", 30d, 50d, null);
+
+        OSMetricsSnapshot sqlAligned = new OSMetricsSnapshot(conn, "os_sql_", 10000L);
+        OSMetricsSnapshot.alignWindow(left, right, sqlAligned.getTableName(), 5000L, 10000L);
+
+        OSMetricsSnapshot mergeAligned = new OSMetricsSnapshot(conn, "os_merge_", 10000L);
+        assertTrue(OSMetricsWindowAligner.align(left, right, mergeAligned, 5000L, 10000L));
+
+        Map<String, Record> expected = byTid(sqlAligned);
+        Map<String, Record> actual = byTid(mergeAligned);
+        assertEquals(expected.keySet(), actual.keySet());
+        // tid 9 has no update time in either window; tid 7 only has one in the right window.
+        assertEquals(5, actual.size());
+        for (Map.Entry<String, Record> entry : expected.entrySet()) {
+            Record expectedRow = entry.getValue();
+            Record actualRow = actual.get(entry.getKey());
+            for (String column : mergeAligned.getMetricColumns()) {
+                assertDoubleEquals(expectedRow.get(column), actualRow.get(column));
+            }
+            assertDoubleEquals(expectedRow.get(LAST_UPDATE_TIME), actualRow.get(LAST_UPDATE_TIME));
+        }
+        // weighted by the left update time: ((7000 - 5000) * 10 + (10000 - 7000) * 20) / 5000
+        assertRow(actual.get("12"), 16d, null, 7000L);
+        // the left rows collapse to cpu 7, rss 300 and update time 6500
+        assertRow(actual.get("40"), 8.4d, 160d, 6500L);
+        assertRow(actual.get("3"), 20d, null, 8000L);
+        // rows that are only in the right window keep its values but no update time
+        assertRow(actual.get("7"), 3d, 4d, null);
+        assertRow(actual.get("1000"), 30d, 50d, null);
+    }
+
+    @Test
+    public void testNonNumericTidFallsBack() throws Exception {
+        OSMetricsSnapshot left = new OSMetricsSnapshot(conn, 5000L);
+        put(left, "main", 10d, 100d, 7000L);
+        OSMetricsSnapshot right = new OSMetricsSnapshot(conn, 10000L);
+        put(right, "1", 20d, 100d, 12000L);
+
+        OSMetricsSnapshot aligned = new OSMetricsSnapshot(conn, "os_aligned_", 10000L);
+        assertFalse(OSMetricsWindowAligner.align(left, right, aligned, 5000L, 10000L));
+        assertEquals(0, aligned.fetchAll().size());
+    }
+
+    private static void put(
+            OSMetricsSnapshot snap, String tid, Double cpu, Double rss, Long updateTime) {
+        Object[] row = new Object[snap.getMetricColumns().size() + 3];
+        row[0] = tid;
+        row[1] = "thread-" + tid;
+        int i = 2;
+        for (String column : snap.getMetricColumns()) {
+            if (column.equals(CPU)) {
+                row[i] = cpu;
+            } else if (column.equals(RSS)) {
+                row[i] = rss;
+            }
+            i++;
+        }
+        row[i] = updateTime;
+        snap.startBatchPut().bind(row).execute();
+    }
+
+    private static void assertRow(Record row, Double cpu, Double rss, Long updateTime) {
+        assertDoubleEquals(cpu, row.get(CPU));
+        assertDoubleEquals(rss, row.get(RSS));
+        assertDoubleEquals(updateTime, row.get(LAST_UPDATE_TIME));
+    }
+
+    private static Map<String, Record> byTid(OSMetricsSnapshot snap) {
+        Map<String, Record> rows = new TreeMap<>();
+        for (Record r : snap.fetchAll()) {
+            rows.put(r.get(OSMetricsSnapshot.Fields.tid.name()).toString(), r);
+        }
+        return rows;
+    }
+
+    private static void assertDoubleEquals(Object expected, Object actual) {
+        if (expected == null) {
+            assertEquals(null, actual);
+        } else {
+            assertEquals(toDouble(expected), toDouble(actual), 0.001);
+        }
+    }
+
+    private static double toDouble(Object value) {
+        return Double.parseDouble(value.toString());
+    }
+}
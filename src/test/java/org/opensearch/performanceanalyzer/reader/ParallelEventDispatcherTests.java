@@ -0,0 +1,200 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.reader_writer_shared.Event;
+
+public class ParallelEventDispatcherTests {
+    private static final int LANES = 2;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(LANES);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static class RecordingProcessor implements EventProcessor {
+        private final String prefix;
+        private final boolean sharedConnection;
+        private final List<String> values = Collections.synchronizedList(new ArrayList<>());
+        private final Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+        private volatile boolean initialized;
+        private volatile int valuesAtFinalize = -1;
+
+        RecordingProcessor(String prefix) {
+            this(prefix, true);
+        }
+
+        RecordingProcessor(String prefix, boolean sharedConnection) {
+            this.prefix = prefix;
+            this.sharedConnection = sharedConnection;
+        }
+
+        @Override
+        public void initializeProcessing(long startTime, long endTime) {
+            initialized = true;
+        }
+
+        @Override
+        public void finalizeProcessing() {
+            valuesAtFinalize = values.size();
+        }
+
+        @Override
+        public void processEvent(Event event) {
+            if (event.value.equals("boom")) {
+                throw new IllegalStateException("boom");
+            }
+            values.add(event.value);
+            threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public boolean shouldProcessEvent(Event event) {
+            return event.key.startsWith(prefix);
+        }
+
+        @Override
+        public void commitBatchIfRequired() {}
+
+        @Override
+        public boolean usesSharedConnection() {
+            return sharedConnection;
+        }
+    }
+
+    @Test
+    public void testEventsAreRoutedInOrderAndJoinedBeforeFinalize() {
+        RecordingProcessor os = new RecordingProcessor("threads");
+        RecordingProcessor request = new RecordingProcessor("indices");
+        RecordingProcessor master = new RecordingProcessor("master_metrics");
+        ParallelEventDispatcher dispatcher = new ParallelEventDispatcher(executor, LANES);
+        dispatcher.registerEventProcessor(os);
+        dispatcher.registerEventProcessor(request);
+        dispatcher.registerEventProcessor(master);
+
+        dispatcher.initializeProcessing(0, 5000);
+        assertTrue(os.initialized && request.initialized && master.initialized);
+
+        int count = 10 * EventProcessor.BATCH_LIMIT;
+        for (int i = 0; i < count; i++) {
+            dispatcher.processEvent(new Event("threads/" + i, String.valueOf(i), 0));
+            dispatcher.processEvent(new Event("indices/nyc_taxis/" + i, String.valueOf(i), 0));
+        }
+        dispatcher.processEvent(new Event("unknown", "x", 0));
+        dispatcher.finalizeProcessing();
+
+        assertEquals(count, os.valuesAtFinalize);
+        assertEquals(count, request.valuesAtFinalize);
+        assertEquals(0, master.valuesAtFinalize);
+        for (int i = 0; i < count; i++) {
+            assertEquals(String.valueOf(i), os.values.get(i));
+            assertEquals(String.valueOf(i), request.values.get(i));
+        }
+    }
+
+    @Test
+    public void testProcessorFailureIsReportedOnFinalize() {
+        RecordingProcessor os = new RecordingProcessor("threads");
+        ParallelEventDispatcher dispatcher = new ParallelEventDispatcher(executor, LANES);
+        dispatcher.registerEventProcessor(os);
+        dispatcher.initializeProcessing(0, 5000);
+        dispatcher.processEvent(new Event("threads/1", "boom", 0));
+        for (int i = 0; i < 10 * EventProcessor.BATCH_LIMIT; i++) {
+            dispatcher.processEvent(new Event("threads/1", "ok", 0));
+        }
+        try {
+            dispatcher.finalizeProcessing();
+            fail("Expected the processor failure to be propagated");
+        } catch (RuntimeException e) {
+            assertEquals(-1, os.valuesAtFinalize);
+        }
+    }
+
+    @Test
+    public void testProcessorsOfTheSharedConnectionRunOnOneLane() {
+        RecordingProcessor os = new RecordingProcessor("threads");
+        RecordingProcessor request = new RecordingProcessor("indices");
+        RecordingProcessor cluster = new RecordingProcessor("cluster", false);
+        ParallelEventDispatcher dispatcher = new ParallelEventDispatcher(executor, LANES);
+        dispatcher.registerEventProcessor(os);
+        dispatcher.registerEventProcessor(request);
+        dispatcher.registerEventProcessor(cluster);
+
+        dispatcher.initializeProcessing(0, 5000);
+        for (int i = 0; i < 10 * EventProcessor.BATCH_LIMIT; i++) {
+            dispatcher.processEvent(new Event("threads/" + i, String.valueOf(i), 0));
+            dispatcher.processEvent(new Event("indices/nyc_taxis/" + i, String.valueOf(i), 0));
+            dispatcher.processEvent(new Event("cluster/" + i, String.valueOf(i), 0));
+        }
+        dispatcher.finalizeProcessing();
+
+        assertEquals(1, os.threads.size());
+        assertEquals(os.threads, request.threads);
+        assertEquals(1, cluster.threads.size());
+        assertFalse(os.threads.containsAll(cluster.threads));
+    }
+
+    @Test
+    public void testAbortReleasesTheLanes() throws InterruptedException {
+        RecordingProcessor os = new RecordingProcessor("threads");
+        ParallelEventDispatcher dispatcher = new ParallelEventDispatcher(executor, LANES);
+        dispatcher.registerEventProcessor(os);
+        dispatcher.initializeProcessing(0, 5000);
+        for (int i = 0; i < EventProcessor.BATCH_LIMIT; i++) {
+            dispatcher.processEvent(new Event("threads/1", String.valueOf(i), 0));
+        }
+
+        // The event log could not be read to the end, so finalizeProcessing is never called.
+        dispatcher.abortProcessing();
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(-1, os.valuesAtFinalize);
+    }
+}
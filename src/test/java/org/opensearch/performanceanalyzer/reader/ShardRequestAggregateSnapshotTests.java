@@ -0,0 +1,186 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ShardRequestAggregateSnapshotTests {
+    private static final long WINDOW_START = 1535065195000L;
+    private static final List<String> BULK_GROUP =
+            Arrays.asList("0", "index", "shardbulk", "primary");
+    private static final List<String> QUERY_GROUP =
+            Arrays.asList("1", "index", "shardquery", "replica");
+
+    @Test
+    public void testCompletedRequestsAreAggregated() {
+        ShardRequestAggregateSnapshot snap = new ShardRequestAggregateSnapshot(WINDOW_START);
+        putStart(snap, "1", "7", BULK_GROUP, WINDOW_START, 10);
+        putFinish(snap, "1", "7", BULK_GROUP, WINDOW_START + 1000);
+        // the finish event of a request may be processed before its start event
+        putFinish(snap, "2", "7", BULK_GROUP, WINDOW_START + 3500);
+        putStart(snap, "2", "7", BULK_GROUP, WINDOW_START + 2000, 30);
+        putStart(snap, "3", "8", QUERY_GROUP, WINDOW_START, 0);
+        putFinish(snap, "3", "8", QUERY_GROUP, WINDOW_START + 300);
+        putStart(snap, "4", "8", QUERY_GROUP, WINDOW_START + 400, 0);
+
+        Map<List<String>, MetricAccumulator> groups = snap.getWorkloadGroups();
+        assertEquals(2, groups.size());
+        MetricAccumulator bulk = groups.get(BULK_GROUP);
+        assertEquals(2, bulk.getRows());
+        assertEquals(2500d, bulk.getSum(ShardRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(1250d, bulk.getAvg(ShardRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(1000d, bulk.getMin(ShardRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(1500d, bulk.getMax(ShardRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(40d, bulk.getSum(ShardRequestAggregateSnapshot.DOC_COUNT_SLOT), 0);
+        MetricAccumulator query = groups.get(QUERY_GROUP);
+        assertEquals(1, query.getRows());
+        assertEquals(300d, query.getSum(ShardRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(4, snap.size());
+    }
+
+    @Test
+    public void testRepeatedEventsAreCountedOnce() {
+        ShardRequestAggregateSnapshot snap = new ShardRequestAggregateSnapshot(WINDOW_START);
+        putStart(snap, "1", "7", BULK_GROUP, WINDOW_START, 10);
+        putFinish(snap, "1", "7", BULK_GROUP, WINDOW_START + 1000);
+        putFinish(snap, "1", "7", BULK_GROUP, WINDOW_START + 2000);
+
+        MetricAccumulator bulk = snap.getWorkloadGroups().get(BULK_GROUP);
+        assertEquals(1, bulk.getRows());
+        assertEquals(1000d, bulk.getSum(ShardRequestAggregateSnapshot.LATENCY_SLOT), 0);
+    }
+
+    @Test
+    public void testMalformedRequestIdIsDropped() {
+        ShardRequestAggregateSnapshot snap = new ShardRequestAggregateSnapshot(WINDOW_START);
+        assertFalse(
+                snap.putStartMetric(
+                        "abc", "7", "shardbulk", "0", "index", "primary", WINDOW_START, 10));
+        assertEquals(0, snap.size());
+    }
+
+    @Test
+    public void testThreadUtilization() {
+        ShardRequestAggregateSnapshot snap = new ShardRequestAggregateSnapshot(WINDOW_START);
+        List<String> a = Arrays.asList("a", "index", "shardquery", "NA");
+        List<String> b = Arrays.asList("b", "index", "shardquery", "NA");
+        List<String> c = Arrays.asList("c", "index", "shardfetch", "NA");
+        // 1000ms and, as it is still running at the end of the window, 2000ms on thread 1
+        putStart(snap, "1", "1", a, WINDOW_START + 1000, 0);
+        putFinish(snap, "1", "1", a, WINDOW_START + 2000);
+        putStart(snap, "2", "1", b, WINDOW_START + 3000, 0);
+        // started before the window, so only the 1000ms in the window count
+        putStart(snap, "3", "2", c, WINDOW_START - 5000, 0);
+        putFinish(snap, "3", "2", c, WINDOW_START + 1000);
+
+        Map<String, Double> tUtilByShard = new HashMap<>();
+        snap.forEachThreadUtilization(
+                (request, tUtil) -> tUtilByShard.put(request.getDimensions().get(0), tUtil));
+        assertEquals(3, tUtilByShard.size());
+        assertEquals(1d / 3, tUtilByShard.get("a"), 1e-9);
+        assertEquals(2d / 3, tUtilByShard.get("b"), 1e-9);
+        assertEquals(1d, tUtilByShard.get("c"), 1e-9);
+    }
+
+    @Test
+    public void testRolloverInflightRequests() {
+        ShardRequestAggregateSnapshot prevSnap = new ShardRequestAggregateSnapshot(WINDOW_START);
+        // lost its finish event: thread 1 started a newer request since
+        putStart(prevSnap, "1", "1", BULK_GROUP, WINDOW_START - 1000, 10);
+        putStart(prevSnap, "2", "1", BULK_GROUP, WINDOW_START + 100, 10);
+        // the latest request on thread 2
+        putStart(prevSnap, "3", "2", QUERY_GROUP, WINDOW_START - 2000, 0);
+        // expired
+        putStart(prevSnap, "4", "3", QUERY_GROUP, WINDOW_START - 600000, 0);
+        putStart(prevSnap, "5", "4", QUERY_GROUP, WINDOW_START, 0);
+        putFinish(prevSnap, "5", "4", QUERY_GROUP, WINDOW_START + 100);
+
+        ShardRequestAggregateSnapshot snap = new ShardRequestAggregateSnapshot(WINDOW_START + 5000);
+        snap.rolloverInflightRequests(prevSnap);
+        assertEquals(2, snap.size());
+        assertTrue(snap.getWorkloadGroups().isEmpty());
+
+        putFinish(snap, "2", "1", BULK_GROUP, WINDOW_START + 5100);
+        MetricAccumulator bulk = snap.getWorkloadGroups().get(BULK_GROUP);
+        assertEquals(1, bulk.getRows());
+        assertEquals(5000d, bulk.getSum(ShardRequestAggregateSnapshot.LATENCY_SLOT), 0);
+        assertEquals(10d, bulk.getSum(ShardRequestAggregateSnapshot.DOC_COUNT_SLOT), 0);
+
+        // finishing the rolled over copy leaves the previous window untouched
+        assertNull(prevSnap.getWorkloadGroups().get(BULK_GROUP));
+        assertEquals(1, prevSnap.getWorkloadGroups().get(QUERY_GROUP).getRows());
+
+        snap.remove();
+        assertEquals(0, snap.size());
+        assertTrue(snap.getWorkloadGroups().isEmpty());
+    }
+
+    private static void putStart(
+            ShardRequestAggregateSnapshot snap,
+            String rid,
+            String tid,
+            List<String> group,
+            long startTime,
+            long docCount) {
+        assertTrue(
+                snap.putStartMetric(
+                        rid,
+                        tid,
+                        group.get(2),
+                        group.get(0),
+                        group.get(1),
+                        group.get(3),
+                        startTime,
+                        docCount));
+    }
+
+    private static void putFinish(
+            ShardRequestAggregateSnapshot snap,
+            String rid,
+            String tid,
+            List<String> group,
+            long finishTime) {
+        assertTrue(
+                snap.putFinishMetric(
+                        rid,
+                        tid,
+                        group.get(2),
+                        group.get(0),
+                        group.get(1),
+                        group.get(3),
+                        finishTime));
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ *
+ * Modifications Copyright OpenSearch Contributors. See
+ * GitHub history for details.
+ */
+
+/*
+ * Copyright 2019-2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package org.opensearch.performanceanalyzer.reader_writer_shared;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.opensearch.performanceanalyzer.config.PluginSettings;
+import org.opensearch.performanceanalyzer.reader.EventDispatcher;
+
+public class EventLogTests {
+    private String keyPrefix;
+    private List<Event> dispatched;
+    private EventDispatcher dispatcher;
+
+    @Before
+    public void setup() {
+        keyPrefix =
+                Paths.get(PluginSettings.instance().getMetricsLocation()).toString()
+                        + "/"
+                        + System.currentTimeMillis()
+                        + "/";
+        dispatched = new ArrayList<>();
+        dispatcher =
+                new EventDispatcher() {
+                    @Override
+                    public void processEvent(Event event) {
+                        dispatched.add(event);
+                    }
+                };
+    }
+
+    private List<Event> events() {
+        return Arrays.asList(
+                new Event(
+                        keyPrefix + "threads/7238/os_metrics",
+                        "{\"current_time\":1566413979979}\n{\"CPU_Utilization\":0.0}",
+                        0),
+                new Event(keyPrefix + "pending_tasks", "", 0),
+                new Event(keyPrefix + "master_metrics/1/start", "-1234567890123", 0),
+                new Event(keyPrefix + "indices/nyc_taxis/29", "\u00e9t\u00e9", 0));
+    }
+
+    private byte[] writeAll(EventLog eventLog, List<Event> events) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Event event : events) {
+            out.write(eventLog.write(event));
+        }
+        return out.toByteArray();
+    }
+
+    private void readInChunks(EventLog eventLog, byte[] data, int chunkSize) {
+        for (int off = 0; off < data.length; off += chunkSize) {
+            int len = Math.min(chunkSize, data.length - off);
+            eventLog.read(ByteBuffer.wrap(data, off, len).slice(), dispatcher);
+        }
+        eventLog.clear();
+    }
+
+    private void assertDispatched(List<Event> expected) {
+        assertEquals(expected.size(), dispatched.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(
+                    expected.get(i).key.substring(keyPrefix.length()), dispatched.get(i).key);
+            assertEquals(expected.get(i).value, dispatched.get(i).value);
+        }
+    }
+
+    @Test
+    public void testBinaryRoundTripAcrossChunks() throws Exception {
+        EventLog eventLog = new EventLog(EventLogFormat.BINARY);
+        byte[] data = writeAll(eventLog, events());
+        readInChunks(eventLog, data, 5);
+        assertDispatched(events());
+    }
+
+    @Test
+    public void testTextRoundTrip() throws Exception {
+        EventLog eventLog = new EventLog(EventLogFormat.TEXT);
+        byte[] data = writeAll(eventLog, events());
+        readInChunks(eventLog, data, 8192);
+        assertDispatched(events());
+    }
+
+    @Test
+    public void testTextMultiByteValueSplitAcrossChunks() throws Exception {
+        EventLog eventLog = new EventLog(EventLogFormat.TEXT);
+        byte[] data = writeAll(eventLog, events());
+        // Odd sized chunks split the two byte UTF-8 sequences of the last value.
+        readInChunks(eventLog, data, 3);
+        assertDispatched(events());
+    }
+
+    @Test
+    public void testMixedFormatsAreAutoDetected() throws Exception {
+        List<Event> asciiEvents = events().subList(0, 3);
+        EventLog textLog = new EventLog(EventLogFormat.TEXT);
+        EventLog binaryLog = new EventLog(EventLogFormat.BINARY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(textLog.write(asciiEvents.get(0)));
+        out.write(binaryLog.write(asciiEvents.get(1)));
+        out.write(binaryLog.write(asciiEvents.get(2)));
+        out.write(textLog.write(asciiEvents.get(0)));
+
+        readInChunks(binaryLog, out.toByteArray(), 16);
+        assertDispatched(
+                Arrays.asList(
+                        asciiEvents.get(0),
+                        asciiEvents.get(1),
+                        asciiEvents.get(2),
+                        asciiEvents.get(0)));
+    }
+
+    @Test
+    public void testMappedReadMatchesStreamingRead() throws Exception {
+        StringBuilder largeValue = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            largeValue.append("{\"ShardID\":").append(i).append("}\n");
+        }
+        List<Event> allEvents = new ArrayList<>(events());
+        allEvents.add(new Event(keyPrefix + "shard_state_metrics", largeValue.toString(), 0));
+
+        EventLog textLog = new EventLog(EventLogFormat.TEXT);
+        EventLog binaryLog = new EventLog(EventLogFormat.BINARY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("garbage".getBytes(StandardCharsets.UTF_8));
+        for (Event event : allEvents) {
+            out.write(textLog.write(event));
+            out.write(binaryLog.write(event));
+        }
+        // A record truncated at the end of the file must not be dispatched.
+        byte[] truncated = textLog.write(allEvents.get(0));
+        out.write(truncated, 0, truncated.length - 3);
+        byte[] data = out.toByteArray();
+
+        List<Event> expected = new ArrayList<>();
+        for (Event event : allEvents) {
+            expected.add(event);
+            expected.add(event);
+        }
+
+        readInChunks(textLog, data, 8192);
+        assertDispatched(expected);
+
+        dispatched.clear();
+        Path file = Files.createTempFile("eventlog", "mapped");
+        try {
+            Files.write(file, data);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                binaryLog.readMapped(
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), dispatcher);
+            }
+        } finally {
+            Files.delete(file);
+        }
+        assertDispatched(expected);
+    }
+
+    @Test
+    public void testNumericValuesAreVarIntEncoded() {
+        byte[] numeric = BinaryEventCodec.encode("k", "300");
+        assertArrayEquals(
+                new byte[] {
+                    BinaryEventCodec.RECORD_MARKER,
+                    BinaryEventCodec.VERSION,
+                    BinaryEventCodec.FLAG_NUMERIC_VALUE,
+                    1,
+                    'k',
+                    (byte) 0xD8,
+                    0x04
+                },
+                numeric);
+        byte[] text = BinaryEventCodec.encode("k", "0300");
+        assertEquals(0, text[2]);
+    }
+
+    @Test
+    public void testIsCanonicalLong() {
+        assertTrue(BinaryEventCodec.isCanonicalLong("0"));
+        assertTrue(BinaryEventCodec.isCanonicalLong("-1"));
+        assertTrue(BinaryEventCodec.isCanonicalLong(String.valueOf(Long.MAX_VALUE)));
+        assertTrue(BinaryEventCodec.isCanonicalLong(String.valueOf(Long.MIN_VALUE)));
+        assertFalse(BinaryEventCodec.isCanonicalLong(""));
+        assertFalse(BinaryEventCodec.isCanonicalLong("-"));
+        assertFalse(BinaryEventCodec.isCanonicalLong("-0"));
+        assertFalse(BinaryEventCodec.isCanonicalLong("007"));
+        assertFalse(BinaryEventCodec.isCanonicalLong("+7"));
+        assertFalse(BinaryEventCodec.isCanonicalLong("1.5"));
+        assertFalse(BinaryEventCodec.isCanonicalLong("9223372036854775808"));
+    }
+}
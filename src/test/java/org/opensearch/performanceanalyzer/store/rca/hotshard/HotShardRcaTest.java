@@ -210,6 +210,35 @@ public class HotShardRcaTest {
         Assert.assertEquals("node1", hotShardSummary3.getNodeId());
     }
 
+    // A shard that stops reporting is no longer reported as hot once it has been idle for long
+    @Test
+    public void testIdleShardIsEvicted() {
+        Clock constantClock = Clock.fixed(ofEpochMilli(0), ZoneId.systemDefault());
+        hotShardRcaX.setClock(constantClock);
+        cpuUtilization.createTestFlowUnits(
+                columnName, Arrays.asList(index.index_2.toString(), "1", String.valueOf(0.75)));
+        ioTotThroughput.createTestFlowUnits(
+                columnName, Arrays.asList(index.index_2.toString(), "1", String.valueOf(0)));
+        ioTotSyscallRate.createTestFlowUnits(
+                columnName, Arrays.asList(index.index_2.toString(), "1", String.valueOf(0)));
+        hotShardRcaX.operate();
+
+        hotShardRcaX.setClock(Clock.offset(constantClock, Duration.ofSeconds(1)));
+        ResourceFlowUnit flowUnit = hotShardRcaX.operate();
+        Assert.assertTrue(flowUnit.getResourceContext().isUnhealthy());
+
+        cpuUtilization.createEmptyTestFlowUnits();
+        ioTotThroughput.createEmptyTestFlowUnits();
+        ioTotSyscallRate.createEmptyTestFlowUnits();
+        hotShardRcaX.setClock(Clock.offset(constantClock, Duration.ofSeconds(60)));
+        flowUnit = hotShardRcaX.operate();
+        Assert.assertTrue(flowUnit.getResourceContext().isUnhealthy());
+
+        hotShardRcaX.setClock(Clock.offset(constantClock, Duration.ofMinutes(3)));
+        flowUnit = hotShardRcaX.operate();
+        Assert.assertFalse(flowUnit.getResourceContext().isUnhealthy());
+    }
+
     private static class HotShardRcaX extends HotShardRca {
         public <M extends Metric> HotShardRcaX(
                 final long evaluationIntervalSeconds,